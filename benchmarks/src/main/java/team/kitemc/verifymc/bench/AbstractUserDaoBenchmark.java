@@ -0,0 +1,121 @@
+package team.kitemc.verifymc.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import team.kitemc.verifymc.db.UserDao;
+import team.kitemc.verifymc.db.UserSummary;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read paths shared by every UserDao backend, parameterized by the number of stored users.
+ * Subclasses create the DAO; the data set is loaded once per trial with batched upserts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public abstract class AbstractUserDaoBenchmark {
+    private static final int LOAD_CHUNK = 5000;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int userCount;
+
+    protected UserDao dao;
+
+    /**
+     * Create an empty DAO for the trial
+     * @return DAO to benchmark
+     */
+    protected abstract UserDao createDao() throws Exception;
+
+    /**
+     * Release resources after the trial
+     */
+    protected void closeDao() throws Exception {
+    }
+
+    @Setup(Level.Trial)
+    public void loadUsers() throws Exception {
+        dao = createDao();
+        for (int from = 0; from < userCount; from += LOAD_CHUNK) {
+            if (dao.upsertUsers(UserFixtures.users(from, Math.min(userCount, from + LOAD_CHUNK))) < 0) {
+                throw new IllegalStateException("Failed to load benchmark users");
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        closeDao();
+    }
+
+    protected int randomIndex() {
+        return ThreadLocalRandom.current().nextInt(userCount);
+    }
+
+    @Benchmark
+    public Map<String, Object> getUserByUsername() {
+        return dao.getUserByUsername(UserFixtures.username(randomIndex()));
+    }
+
+    @Benchmark
+    public Map<String, Object> getUserByUuid() {
+        return dao.getUserByUuid(UserFixtures.uuid(randomIndex()));
+    }
+
+    @Benchmark
+    public Map<String, Object> getUserByDiscordId() {
+        return dao.getUserByDiscordId(UserFixtures.discordId(randomIndex() / 10 * 10));
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> firstPage() {
+        return dao.getUsersWithPagination(1, 20);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> searchPage() {
+        // Prefix of many names, the typical admin panel search while typing
+        return dao.getUsersWithPaginationAndSearch(1, 20, "player12");
+    }
+
+    @Benchmark
+    public int searchCount() {
+        return dao.getTotalUserCountWithSearch("player12");
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> pendingUsers() {
+        return dao.getPendingUsers();
+    }
+
+    /**
+     * Mirrors the approved-user lookup in VerifyMC.onPlayerLogin
+     */
+    @Benchmark
+    public boolean loginCheck() {
+        return dao.isApprovedUsername(UserFixtures.username(randomIndex()));
+    }
+
+    @Benchmark
+    public List<UserSummary> pendingUserSummaries() {
+        return dao.getPendingUserSummaries();
+    }
+}
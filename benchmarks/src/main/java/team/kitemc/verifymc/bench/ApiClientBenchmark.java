@@ -0,0 +1,80 @@
+package team.kitemc.verifymc.bench;
+
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import team.kitemc.verifymc.proxy.ApiClient;
+import team.kitemc.verifymc.proxy.ProxyConfig;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Proxy ApiClient whitelist checks served from its status cache.
+ * The cache is filled through a local stub backend, then every measured call is a cache hit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ApiClientBenchmark {
+    @Param({"1000", "10000"})
+    public int cachedPlayers;
+
+    private HttpServer backend;
+    private ApiClient client;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        backend = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        byte[] body = "{\"success\":true,\"found\":true,\"status\":\"approved\",\"username\":\"Player\"}".getBytes(StandardCharsets.UTF_8);
+        backend.createContext("/api/check-whitelist", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        backend.start();
+
+        File dir = Files.createTempDirectory("verifymc-bench").toFile();
+        String yaml = "backend_url: \"http://127.0.0.1:" + backend.getAddress().getPort() + "\"\n"
+            + "cache:\n  enabled: true\n  expire_seconds: 3600\n";
+        Files.write(new File(dir, "config.yml").toPath(), yaml.getBytes(StandardCharsets.UTF_8));
+        client = new ApiClient(new ProxyConfig(dir), Logger.getLogger("VerifyMC-Bench"));
+        for (int i = 0; i < cachedPlayers; i++) {
+            if (client.checkWhitelist(UserFixtures.username(i)) == null) {
+                throw new IllegalStateException("Stub backend did not answer");
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        backend.stop(0);
+    }
+
+    @Benchmark
+    public ApiClient.WhitelistStatus cacheHit() {
+        return client.checkWhitelist(UserFixtures.username(ThreadLocalRandom.current().nextInt(cachedPlayers)));
+    }
+}
@@ -0,0 +1,60 @@
+package team.kitemc.verifymc.bench;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.plugin.Plugin;
+
+import java.io.File;
+import java.lang.reflect.Proxy;
+import java.util.logging.Logger;
+
+/**
+ * Minimal Plugin instances for running services outside a server.
+ * Only the methods the benchmarked code calls are answered; everything else returns a default value.
+ */
+final class BenchPlugins {
+    private BenchPlugins() {
+    }
+
+    /**
+     * Create a plugin stub
+     * @param dataFolder Folder returned by getDataFolder()
+     * @param config Configuration returned by getConfig()
+     * @return Plugin proxy
+     */
+    static Plugin create(File dataFolder, YamlConfiguration config) {
+        Logger logger = Logger.getLogger("VerifyMC-Bench");
+        return (Plugin) Proxy.newProxyInstance(Plugin.class.getClassLoader(), new Class<?>[]{Plugin.class},
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getConfig":
+                        return config;
+                    case "getDataFolder":
+                        return dataFolder;
+                    case "getLogger":
+                        return logger;
+                    case "getName":
+                        return "VerifyMC";
+                    case "isEnabled":
+                        return true;
+                    case "getResource":
+                        return BenchPlugins.class.getClassLoader().getResourceAsStream((String) args[0]);
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    case "toString":
+                        return "BenchPlugin";
+                    default:
+                        Class<?> type = method.getReturnType();
+                        if (type == boolean.class) return false;
+                        if (type == int.class || type == long.class || type == short.class || type == byte.class) return 0;
+                        if (type == double.class || type == float.class) return 0;
+                        return null;
+                }
+            });
+    }
+
+    static Plugin create(File dataFolder) {
+        return create(dataFolder, new YamlConfiguration());
+    }
+}
@@ -0,0 +1,46 @@
+package team.kitemc.verifymc.bench;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import team.kitemc.verifymc.service.CaptchaService;
+
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Captcha generation and PNG rendering cost per /api/captcha call
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class CaptchaBenchmark {
+    @Param({"math", "text"})
+    public String type;
+
+    private CaptchaService captchaService;
+
+    @Setup
+    public void setup() throws Exception {
+        YamlConfiguration config = new YamlConfiguration();
+        config.set("captcha.type", type);
+        captchaService = new CaptchaService(BenchPlugins.create(Files.createTempDirectory("verifymc-bench").toFile(), config));
+    }
+
+    @Benchmark
+    public CaptchaService.CaptchaResult generateCaptcha() {
+        return captchaService.generateCaptcha();
+    }
+}
@@ -0,0 +1,93 @@
+package team.kitemc.verifymc.bench;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compare a JMH JSON result file (-rf json) against a baseline and fail on regressions.
+ * Usage: CompareBaseline &lt;baseline.json&gt; &lt;current.json&gt; [maxRegression, default 0.15]
+ * A result regresses when it is slower than the baseline by more than maxRegression
+ * (lower throughput for thrpt, higher time for the other modes). Exits with status 1 on regressions.
+ */
+public final class CompareBaseline {
+    private CompareBaseline() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: CompareBaseline <baseline.json> <current.json> [maxRegression]");
+            System.exit(2);
+        }
+        double maxRegression = args.length > 2 ? Double.parseDouble(args[2]) : 0.15;
+        Map<String, Result> baseline = read(args[0]);
+        Map<String, Result> current = read(args[1]);
+
+        int regressions = 0;
+        for (Map.Entry<String, Result> entry : current.entrySet()) {
+            Result base = baseline.get(entry.getKey());
+            Result now = entry.getValue();
+            if (base == null) {
+                System.out.printf("NEW        %s: %.3f %s%n", entry.getKey(), now.score, now.unit);
+                continue;
+            }
+            // Positive change means slower, whatever the mode
+            double change = "thrpt".equals(now.mode)
+                ? (base.score - now.score) / base.score
+                : (now.score - base.score) / base.score;
+            boolean regressed = change > maxRegression;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-10s %s: %.3f -> %.3f %s (%+.1f%% slower)%n",
+                regressed ? "REGRESSED" : "OK", entry.getKey(), base.score, now.score, now.unit, change * 100);
+        }
+        if (regressions > 0) {
+            System.out.println(regressions + " benchmark(s) regressed by more than " + Math.round(maxRegression * 100) + "%");
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, Result> read(String path) throws Exception {
+        Map<String, Result> results = new LinkedHashMap<>();
+        try (Reader reader = Files.newBufferedReader(Paths.get(path), StandardCharsets.UTF_8)) {
+            JsonArray array = JsonParser.parseReader(reader).getAsJsonArray();
+            for (JsonElement element : array) {
+                JsonObject run = element.getAsJsonObject();
+                StringBuilder key = new StringBuilder(run.get("benchmark").getAsString());
+                if (run.has("params")) {
+                    Map<String, String> params = new TreeMap<>();
+                    for (Map.Entry<String, JsonElement> param : run.getAsJsonObject("params").entrySet()) {
+                        params.put(param.getKey(), param.getValue().getAsString());
+                    }
+                    key.append(params);
+                }
+                JsonObject metric = run.getAsJsonObject("primaryMetric");
+                results.put(key.toString(), new Result(run.get("mode").getAsString(),
+                    metric.get("score").getAsDouble(), metric.get("scoreUnit").getAsString()));
+            }
+        }
+        return results;
+    }
+
+    private static final class Result {
+        private final String mode;
+        private final double score;
+        private final String unit;
+
+        private Result(String mode, double score, String unit) {
+            this.mode = mode;
+            this.score = score;
+            this.unit = unit;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package team.kitemc.verifymc.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import team.kitemc.verifymc.db.FileUserDao;
+import team.kitemc.verifymc.db.UserDao;
+
+import java.io.File;
+import java.nio.file.Files;
+
+/**
+ * FileUserDao (data/users.json) benchmarks, including the full-file save done after every write
+ */
+public class FileUserDaoBenchmark extends AbstractUserDaoBenchmark {
+    private File dir;
+
+    @Override
+    protected UserDao createDao() throws Exception {
+        dir = Files.createTempDirectory("verifymc-bench").toFile();
+        return new FileUserDao(new File(dir, "users.json"), BenchPlugins.create(dir));
+    }
+
+    @Override
+    protected void closeDao() {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    @Benchmark
+    public void save() {
+        dao.save();
+    }
+
+    @Benchmark
+    public boolean updateUserStatus() {
+        // Every single-user write rewrites the whole file
+        return dao.updateUserStatus(UserFixtures.uuid(randomIndex()), "approved");
+    }
+}
@@ -0,0 +1,63 @@
+package team.kitemc.verifymc.bench;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of building an admin user-list response the way WebServer.sendJson does:
+ * JSONObject tree, copyright field, toString and UTF-8 encoding
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonResponseBenchmark {
+    @Param({"20", "100", "1000", "10000"})
+    public int pageSize;
+
+    private List<Map<String, Object>> users;
+
+    @Setup
+    public void setup() {
+        users = UserFixtures.users(0, pageSize);
+    }
+
+    @Benchmark
+    public byte[] userListResponse() {
+        JSONObject resp = new JSONObject();
+        resp.put("success", true);
+        JSONArray array = new JSONArray();
+        for (Map<String, Object> user : users) {
+            JSONObject item = new JSONObject(user);
+            item.remove("password");
+            array.put(item);
+        }
+        resp.put("users", array);
+        JSONObject pagination = new JSONObject();
+        pagination.put("currentPage", 1);
+        pagination.put("pageSize", pageSize);
+        pagination.put("totalCount", pageSize);
+        pagination.put("totalPages", 1);
+        resp.put("pagination", pagination);
+        resp.put("copyright", "Powered by VerifyMC (GPLv3)");
+        return resp.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,54 @@
+package team.kitemc.verifymc.bench;
+
+import team.kitemc.verifymc.db.MysqlUserDao;
+import team.kitemc.verifymc.db.UserDao;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.ResourceBundle;
+
+/**
+ * MysqlUserDao benchmarks against a disposable database.
+ * Connection settings come from system properties (bench.mysql.host, bench.mysql.port,
+ * bench.mysql.database, bench.mysql.user, bench.mysql.password); the users tables in that
+ * database are dropped before and after each trial.
+ */
+public class MysqlUserDaoBenchmark extends AbstractUserDaoBenchmark {
+    private Properties mysqlConfig;
+
+    @Override
+    protected UserDao createDao() throws Exception {
+        String database = System.getProperty("bench.mysql.database");
+        if (database == null || database.isEmpty()) {
+            throw new IllegalStateException("Set -Dbench.mysql.database (and host/port/user/password) to run MySQL benchmarks");
+        }
+        mysqlConfig = new Properties();
+        mysqlConfig.setProperty("host", System.getProperty("bench.mysql.host", "127.0.0.1"));
+        mysqlConfig.setProperty("port", System.getProperty("bench.mysql.port", "3306"));
+        mysqlConfig.setProperty("database", database);
+        mysqlConfig.setProperty("user", System.getProperty("bench.mysql.user", "root"));
+        mysqlConfig.setProperty("password", System.getProperty("bench.mysql.password", ""));
+        dropTables();
+        File dir = Files.createTempDirectory("verifymc-bench").toFile();
+        return new MysqlUserDao(mysqlConfig, ResourceBundle.getBundle("i18n/messages_en"), BenchPlugins.create(dir));
+    }
+
+    @Override
+    protected void closeDao() throws Exception {
+        dropTables();
+    }
+
+    private void dropTables() throws Exception {
+        String url = "jdbc:mysql://" + mysqlConfig.getProperty("host") + ":" + mysqlConfig.getProperty("port") + "/"
+            + mysqlConfig.getProperty("database") + "?useSSL=false&characterEncoding=utf8";
+        try (Connection conn = DriverManager.getConnection(url, mysqlConfig.getProperty("user"), mysqlConfig.getProperty("password"));
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DROP TABLE IF EXISTS users");
+            stmt.executeUpdate("DROP TABLE IF EXISTS users_changelog");
+        }
+    }
+}
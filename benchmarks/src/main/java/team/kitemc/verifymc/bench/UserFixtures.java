@@ -0,0 +1,54 @@
+package team.kitemc.verifymc.bench;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Deterministic user data for DAO benchmarks
+ */
+final class UserFixtures {
+    private static final String[] STATUSES = {"approved", "approved", "approved", "pending", "rejected", "banned"};
+
+    private UserFixtures() {
+    }
+
+    static String username(int i) {
+        return "Player" + i;
+    }
+
+    static String uuid(int i) {
+        return UUID.nameUUIDFromBytes(("OfflinePlayer:" + username(i)).getBytes()).toString();
+    }
+
+    static String discordId(int i) {
+        return String.valueOf(100000000000000000L + i);
+    }
+
+    /**
+     * Build a chunk of users with a realistic status mix; every tenth user has a Discord link
+     * @param from First index, inclusive
+     * @param to Last index, exclusive
+     * @return User maps in the shape accepted by UserDao.upsertUsers
+     */
+    static List<Map<String, Object>> users(int from, int to) {
+        List<Map<String, Object>> users = new ArrayList<>(to - from);
+        long now = System.currentTimeMillis();
+        for (int i = from; i < to; i++) {
+            Map<String, Object> user = new HashMap<>();
+            user.put("uuid", uuid(i));
+            user.put("username", username(i));
+            user.put("email", "player" + i + "@example.com");
+            user.put("status", STATUSES[i % STATUSES.length]);
+            user.put("password", "$SHA$0123456789abcdef$0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef");
+            user.put("regTime", now - i * 1000L);
+            if (i % 10 == 0) {
+                user.put("discord_id", discordId(i));
+            }
+            users.add(user);
+        }
+        return users;
+    }
+}
@@ -137,6 +137,24 @@ export interface ReviewResponse {
   message?: string
 }
 
+export interface BatchReviewRequest {
+  decisions: Array<{
+    uuid: string
+    action: 'approve' | 'reject'
+    reason?: string
+  }>
+  language: string
+}
+
+export interface BatchReviewResponse {
+  success: boolean
+  reviewed?: number
+  failed?: number
+  results?: Array<{ uuid: string; success: boolean; error?: string }>
+  msg?: string
+  message?: string
+}
+
 export interface AuditRecord {
   action: string
   operator: string
@@ -146,6 +164,19 @@ export interface AuditRecord {
   id?: number
 }
 
+export interface AuthmeSyncStatus {
+  enabled: boolean
+  running: boolean
+  startedAt: number
+  finishedAt: number
+  scanned: number
+  created: number
+  updated: number
+  chunks: number
+  rowsPerSecond: number
+  lastError: string
+}
+
 export interface ChangePasswordRequest {
   uuid?: string
   username?: string
@@ -234,6 +265,14 @@ class ApiService {
     })
   }
 
+  // 批量审核用户
+  async reviewUsers(data: BatchReviewRequest): Promise<BatchReviewResponse> {
+    return this.request<BatchReviewResponse>('/review-batch', {
+      method: 'POST',
+      body: JSON.stringify(data),
+    })
+  }
+
   // 删除用户
   async deleteUser(uuid: string, language: string = 'zh'): Promise<ReviewResponse> {
     return this.request<ReviewResponse>('/delete-user', {
@@ -320,6 +359,18 @@ class ApiService {
     return this.request<{ success: boolean; audits?: AuditRecord[]; message?: string }>(`/audits?language=${language}`)
   }
 
+  // 获取 AuthMe 同步进度
+  async getAuthmeSyncStatus(): Promise<{ success: boolean; status?: AuthmeSyncStatus; message?: string }> {
+    return this.request<{ success: boolean; status?: AuthmeSyncStatus; message?: string }>('/authme-sync')
+  }
+
+  // 立即开始一次 AuthMe 同步
+  async startAuthmeSync(): Promise<{ success: boolean; started?: boolean; status?: AuthmeSyncStatus; message?: string }> {
+    return this.request<{ success: boolean; started?: boolean; status?: AuthmeSyncStatus; message?: string }>('/authme-sync', {
+      method: 'POST',
+    })
+  }
+
   // 获取用户状态
   async getUserStatus(): Promise<{ success: boolean; data: { status: string; reason?: string }; message?: string }> {
     return this.request<{ success: boolean; data: { status: string; reason?: string }; message?: string }>('/user-status')
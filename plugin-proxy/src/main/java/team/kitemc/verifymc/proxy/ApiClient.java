@@ -12,6 +12,7 @@ import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Logger;
 
 /**
@@ -26,6 +27,13 @@ public class ApiClient {
     
     // Simple cache for whitelist status
     private final Map<String, CachedStatus> statusCache = new ConcurrentHashMap<>();
+
+    // Cache and backend request statistics; the proxy has no metrics endpoint, so they are logged in debug mode
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+    private final LongAdder requestFailures = new LongAdder();
+    private final LongAdder requestCount = new LongAdder();
+    private final LongAdder requestNanos = new LongAdder();
     
     public ApiClient(ProxyConfig config, Logger logger) {
         this.config = config;
@@ -47,13 +55,16 @@ public class ApiClient {
         if (config.isCacheEnabled()) {
             CachedStatus cached = statusCache.get(username.toLowerCase());
             if (cached != null && !cached.isExpired()) {
+                cacheHits.increment();
                 if (config.isDebug()) {
                     logger.info("[DEBUG] Cache hit for: " + username);
                 }
                 return cached.status;
             }
+            cacheMisses.increment();
         }
         
+        long start = System.nanoTime();
         try {
             String encodedUsername = URLEncoder.encode(username, StandardCharsets.UTF_8);
             String url = config.getBackendUrl() + "/api/check-whitelist?username=" + encodedUsername;
@@ -125,13 +136,18 @@ public class ApiClient {
                 
                 return status;
             } else {
+                requestFailures.increment();
                 logger.warning("API returned status code: " + responseCode);
                 return null;
             }
             
         } catch (Exception e) {
+            requestFailures.increment();
             logger.warning("Failed to check whitelist: " + e.getMessage());
             return null;
+        } finally {
+            requestCount.increment();
+            requestNanos.add(System.nanoTime() - start);
         }
     }
     
@@ -148,7 +164,8 @@ public class ApiClient {
                     statusCache.entrySet().removeIf(entry -> entry.getValue().isExpired());
                     
                     if (config.isDebug()) {
-                        logger.info("[DEBUG] Cache cleanup completed. Cache size: " + statusCache.size());
+                        logger.info("[DEBUG] Cache cleanup completed. Cache size: " + statusCache.size()
+                            + ", " + getStatsSummary());
                     }
                 } catch (InterruptedException e) {
                     break;
@@ -160,6 +177,20 @@ public class ApiClient {
         cleanupThread.start();
     }
     
+    /**
+     * Cache hit ratio and backend request statistics since startup
+     * @return One-line summary for logs
+     */
+    public String getStatsSummary() {
+        long hits = cacheHits.sum();
+        long lookups = hits + cacheMisses.sum();
+        long requests = requestCount.sum();
+        return "cache hits " + hits + "/" + lookups
+            + ", backend requests " + requests
+            + " (failed " + requestFailures.sum()
+            + ", avg " + (requests > 0 ? requestNanos.sum() / requests / 1_000_000 : 0) + " ms)";
+    }
+
     /**
      * Clear the cache
      */
@@ -0,0 +1,206 @@
+package team.kitemc.verifymc;
+
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.plugin.Plugin;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Immutable, typed view of the config values read while handling requests and logins.
+ * Built once at startup and replaced as a whole when the configuration is reloaded, so request
+ * handlers read plain fields instead of walking YAML sections and copying lists on every call.
+ * Lists are compiled into sets and regular expressions into patterns.
+ */
+public final class ConfigSnapshot {
+    private static final String DEFAULT_USERNAME_REGEX = "^[a-zA-Z0-9_-]{3,16}$";
+    private static final String DEFAULT_BEDROCK_USERNAME_REGEX = "^\\.[a-zA-Z0-9_\\s]{3,16}$";
+    private static final String DEFAULT_PASSWORD_REGEX = "^[a-zA-Z0-9_]{3,16}$";
+    private static final List<String> DEFAULT_EMAIL_DOMAIN_WHITELIST = Arrays.asList(
+        "gmail.com", "163.com", "126.com", "qq.com", "outlook.com", "hotmail.com", "yahoo.com",
+        "sina.com", "aliyun.com", "foxmail.com", "icloud.com", "yeah.net", "live.com", "mail.com",
+        "protonmail.com", "zoho.com"
+    );
+
+    private final Set<String> authMethods;
+    private final boolean captchaAuthEnabled;
+    private final boolean emailAuthEnabled;
+    private final String captchaType;
+    private final int captchaLength;
+    private final int captchaExpireSeconds;
+    private final boolean emailDomainWhitelistEnabled;
+    private final Set<String> emailDomainWhitelist;
+    private final boolean emailAliasLimitEnabled;
+    private final int maxAccountsPerEmail;
+    private final String emailSubject;
+    private final boolean registerAutoApprove;
+    private final Set<String> whitelistBypassIps;
+    private final Pattern usernamePattern;
+    private final boolean usernameCaseSensitive;
+    private final boolean bedrockEnabled;
+    private final String bedrockPrefix;
+    private final Pattern bedrockUsernamePattern;
+    private final Pattern passwordPattern;
+    private final int questionnaireIpLimit;
+    private final int questionnaireUuidLimit;
+    private final int questionnaireEmailLimit;
+    private final long questionnaireWindowMs;
+    private final String webApiKey;
+    private final String adminPassword;
+
+    private ConfigSnapshot(FileConfiguration config, Logger logger) {
+        this.authMethods = immutableSet(config.getStringList("auth_methods"));
+        this.captchaAuthEnabled = authMethods.contains("captcha");
+        this.emailAuthEnabled = authMethods.contains("email");
+        this.captchaType = config.getString("captcha.type", "math");
+        this.captchaLength = config.getInt("captcha.length", 4);
+        this.captchaExpireSeconds = config.getInt("captcha.expire_seconds", 300);
+        this.emailDomainWhitelistEnabled = config.getBoolean("enable_email_domain_whitelist", true);
+        List<String> domains = config.getStringList("email_domain_whitelist");
+        this.emailDomainWhitelist = immutableSet(domains.isEmpty() ? DEFAULT_EMAIL_DOMAIN_WHITELIST : domains);
+        this.emailAliasLimitEnabled = config.getBoolean("enable_email_alias_limit", false);
+        this.maxAccountsPerEmail = config.getInt("max_accounts_per_email", 2);
+        this.emailSubject = config.getString("email_subject", "VerifyMC Verification Code");
+        this.registerAutoApprove = config.getBoolean("register.auto_approve", false);
+        this.whitelistBypassIps = immutableSet(config.getStringList("whitelist_bypass_ips"));
+        this.usernamePattern = compile(config, "username_regex", DEFAULT_USERNAME_REGEX, logger);
+        this.usernameCaseSensitive = config.getBoolean("username_case_sensitive", false);
+        this.bedrockEnabled = config.getBoolean("bedrock.enabled", false);
+        this.bedrockPrefix = config.getString("bedrock.prefix", ".");
+        this.bedrockUsernamePattern = compile(config, "bedrock.username_regex", DEFAULT_BEDROCK_USERNAME_REGEX, logger);
+        this.passwordPattern = compile(config, "authme.password_regex", DEFAULT_PASSWORD_REGEX, logger);
+        this.questionnaireIpLimit = config.getInt("questionnaire.rate_limit.ip.max", 20);
+        this.questionnaireUuidLimit = config.getInt("questionnaire.rate_limit.uuid.max", 8);
+        this.questionnaireEmailLimit = config.getInt("questionnaire.rate_limit.email.max", 6);
+        this.questionnaireWindowMs = config.getLong("questionnaire.rate_limit.window_ms", 300000L);
+        this.webApiKey = config.getString("web.api_key", "");
+        this.adminPassword = config.getString("admin.password", "");
+    }
+
+    /**
+     * Compile a snapshot of the given configuration
+     * @param config Loaded configuration
+     * @param logger Logger for invalid values
+     * @return New snapshot
+     */
+    public static ConfigSnapshot compile(FileConfiguration config, Logger logger) {
+        return new ConfigSnapshot(config, logger);
+    }
+
+    /**
+     * Current snapshot for a plugin. Outside of VerifyMC (e.g. benchmarks) a snapshot is compiled on each call.
+     * @param plugin Plugin instance
+     * @return Current snapshot
+     */
+    public static ConfigSnapshot of(Plugin plugin) {
+        if (plugin instanceof VerifyMC) {
+            ConfigSnapshot snapshot = ((VerifyMC) plugin).getConfigSnapshot();
+            if (snapshot != null) {
+                return snapshot;
+            }
+        }
+        return compile(plugin.getConfig(), plugin.getLogger());
+    }
+
+    private static Set<String> immutableSet(List<String> values) {
+        return Collections.unmodifiableSet(new HashSet<>(values));
+    }
+
+    private static Pattern compile(FileConfiguration config, String key, String defaultRegex, Logger logger) {
+        String regex = config.getString(key, defaultRegex);
+        try {
+            return Pattern.compile(regex);
+        } catch (PatternSyntaxException e) {
+            logger.warning("[VerifyMC] Invalid regular expression for " + key + ", using default: " + e.getMessage());
+            return Pattern.compile(defaultRegex);
+        }
+    }
+
+    public Set<String> getAuthMethods() { return authMethods; }
+    public boolean isCaptchaAuthEnabled() { return captchaAuthEnabled; }
+    public boolean isEmailAuthEnabled() { return emailAuthEnabled; }
+    public String getCaptchaType() { return captchaType; }
+    public int getCaptchaLength() { return captchaLength; }
+    public int getCaptchaExpireSeconds() { return captchaExpireSeconds; }
+    public boolean isEmailDomainWhitelistEnabled() { return emailDomainWhitelistEnabled; }
+    public boolean isEmailAliasLimitEnabled() { return emailAliasLimitEnabled; }
+    public int getMaxAccountsPerEmail() { return maxAccountsPerEmail; }
+    public String getEmailSubject() { return emailSubject; }
+    public boolean isRegisterAutoApprove() { return registerAutoApprove; }
+    public boolean isUsernameCaseSensitive() { return usernameCaseSensitive; }
+    public boolean isBedrockEnabled() { return bedrockEnabled; }
+    public String getBedrockPrefix() { return bedrockPrefix; }
+    public int getQuestionnaireIpLimit() { return questionnaireIpLimit; }
+    public int getQuestionnaireUuidLimit() { return questionnaireUuidLimit; }
+    public int getQuestionnaireEmailLimit() { return questionnaireEmailLimit; }
+    public long getQuestionnaireWindowMs() { return questionnaireWindowMs; }
+    public String getWebApiKey() { return webApiKey; }
+    public String getAdminPassword() { return adminPassword; }
+
+    /**
+     * @param domain Email domain after the @
+     * @return true if the domain is in email_domain_whitelist (or the built-in list when it is empty)
+     */
+    public boolean isEmailDomainAllowed(String domain) {
+        return emailDomainWhitelist.contains(domain);
+    }
+
+    /**
+     * @param ip Client address
+     * @return true if the address is in whitelist_bypass_ips
+     */
+    public boolean isWhitelistBypassIp(String ip) {
+        return whitelistBypassIps.contains(ip);
+    }
+
+    /**
+     * @param username Username to check
+     * @return true if Bedrock support is enabled and the name carries the Bedrock prefix
+     */
+    public boolean isBedrockPlayer(String username) {
+        return bedrockEnabled && username != null && username.startsWith(bedrockPrefix);
+    }
+
+    /**
+     * Validate a username against username_regex, or bedrock.username_regex for Bedrock players
+     * @param username Username to validate
+     * @return true if valid
+     */
+    public boolean isValidUsername(String username) {
+        if (username == null) {
+            return false;
+        }
+        Pattern pattern = isBedrockPlayer(username) ? bedrockUsernamePattern : usernamePattern;
+        return pattern.matcher(username).matches();
+    }
+
+    /**
+     * @param username Username being validated
+     * @return The username regex that applies to this name, for error messages
+     */
+    public String getUsernameRegex(String username) {
+        return (isBedrockPlayer(username) ? bedrockUsernamePattern : usernamePattern).pattern();
+    }
+
+    /**
+     * Validate a password against authme.password_regex
+     * @param password Password to validate
+     * @return true if valid
+     */
+    public boolean isValidPassword(String password) {
+        return password != null && passwordPattern.matcher(password).matches();
+    }
+
+    /**
+     * @return authme.password_regex as configured, for error messages
+     */
+    public String getPasswordRegex() {
+        return passwordPattern.pattern();
+    }
+}
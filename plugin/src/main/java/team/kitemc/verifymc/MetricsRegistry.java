@@ -0,0 +1,254 @@
+package team.kitemc.verifymc;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Operational metrics (not the bStats Metrics class), written in the Prometheus text exposition format.
+ * Counters and histogram buckets are LongAdders, so recording never takes a lock; callers look up a
+ * series once and keep the handle. Histograms use one fixed set of buckets in seconds.
+ */
+public final class MetricsRegistry {
+    private static final MetricsRegistry GLOBAL = new MetricsRegistry();
+    private static final double[] BUCKETS = {0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30};
+
+    // name -> family, sorted so the output is stable
+    private final Map<String, Family> families = new ConcurrentSkipListMap<>();
+
+    /**
+     * Registry shared by the web server, DAOs and services of this plugin
+     * @return Global registry
+     */
+    public static MetricsRegistry global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Get or create a counter series
+     * @param name Metric name, ending in _total
+     * @param help Help text
+     * @param labels Label names and values, alternating
+     * @return Counter for these labels
+     */
+    public Counter counter(String name, String help, String... labels) {
+        return (Counter) family(name, help, "counter").series.computeIfAbsent(labelString(labels), k -> new Counter());
+    }
+
+    /**
+     * Get or create a histogram series
+     * @param name Metric name, ending in _seconds
+     * @param help Help text
+     * @param labels Label names and values, alternating
+     * @return Histogram for these labels
+     */
+    public Histogram histogram(String name, String help, String... labels) {
+        return (Histogram) family(name, help, "histogram").series.computeIfAbsent(labelString(labels), k -> new Histogram());
+    }
+
+    /**
+     * Register a gauge read when metrics are written; a later registration with the same labels replaces it
+     * @param name Metric name
+     * @param help Help text
+     * @param value Current value
+     * @param labels Label names and values, alternating
+     */
+    public void gauge(String name, String help, DoubleSupplier value, String... labels) {
+        family(name, help, "gauge").series.put(labelString(labels), new Gauge(value));
+    }
+
+    private Family family(String name, String help, String type) {
+        Family family = families.computeIfAbsent(name, k -> new Family(help, type));
+        if (!family.type.equals(type)) {
+            throw new IllegalArgumentException("Metric " + name + " is already registered as a " + family.type);
+        }
+        return family;
+    }
+
+    private static String labelString(String... labels) {
+        if (labels.length == 0) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i + 1 < labels.length; i += 2) {
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            sb.append(labels[i]).append("=\"").append(escape(labels[i + 1])).append('"');
+        }
+        return sb.toString();
+    }
+
+    private static String escape(String value) {
+        return String.valueOf(value).replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    /**
+     * Wrap an interface implementation so that every call is timed in the given histogram family,
+     * labelled with the method name. Exceptions from the target are rethrown unchanged.
+     * @param type Interface to expose
+     * @param target Implementation
+     * @param name Histogram name
+     * @param help Help text
+     * @return Timed proxy implementing type
+     */
+    public <T> T timed(Class<T> type, T target, String name, String help) {
+        Map<Method, Histogram> byMethod = new HashMap<>();
+        for (Method method : type.getMethods()) {
+            byMethod.put(method, histogram(name, help, "method", method.getName()));
+        }
+        Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (p, method, args) -> {
+            Histogram histogram = byMethod.get(method);
+            if (histogram == null) {
+                // Object methods such as toString
+                return method.invoke(target, args);
+            }
+            long start = System.nanoTime();
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            } finally {
+                histogram.observeNanos(System.nanoTime() - start);
+            }
+        });
+        return type.cast(proxy);
+    }
+
+    /**
+     * Write all metrics in the Prometheus text exposition format (version 0.0.4)
+     * @param out Destination
+     */
+    public void writeTo(Writer out) throws IOException {
+        for (Map.Entry<String, Family> entry : families.entrySet()) {
+            String name = entry.getKey();
+            Family family = entry.getValue();
+            out.write("# HELP " + name + " " + family.help + "\n");
+            out.write("# TYPE " + name + " " + family.type + "\n");
+            for (Map.Entry<String, Object> series : family.series.entrySet()) {
+                String labels = series.getKey();
+                Object metric = series.getValue();
+                if (metric instanceof Histogram) {
+                    ((Histogram) metric).writeTo(out, name, labels);
+                } else {
+                    double value = metric instanceof Counter ? ((Counter) metric).get() : ((Gauge) metric).value.getAsDouble();
+                    out.write(name + braces(labels) + " " + format(value) + "\n");
+                }
+            }
+        }
+    }
+
+    private static String braces(String labels) {
+        return labels.isEmpty() ? "" : "{" + labels + "}";
+    }
+
+    private static String format(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        }
+        return value == Math.rint(value) && Math.abs(value) < 1e15 ? String.valueOf((long) value) : String.valueOf(value);
+    }
+
+    private static final class Family {
+        final String help;
+        final String type;
+        // label string -> Counter, Histogram or Gauge
+        final Map<String, Object> series = new ConcurrentHashMap<>();
+
+        Family(String help, String type) {
+            this.help = help;
+            this.type = type;
+        }
+    }
+
+    private static final class Gauge {
+        final DoubleSupplier value;
+
+        Gauge(DoubleSupplier value) {
+            this.value = value;
+        }
+    }
+
+    /**
+     * Monotonic counter
+     */
+    public static final class Counter {
+        private final LongAdder value = new LongAdder();
+
+        public void inc() {
+            value.increment();
+        }
+
+        public void add(long amount) {
+            value.add(amount);
+        }
+
+        public long get() {
+            return value.sum();
+        }
+    }
+
+    /**
+     * Duration histogram with fixed buckets
+     */
+    public static final class Histogram {
+        private final LongAdder[] buckets = new LongAdder[BUCKETS.length];
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sumNanos = new LongAdder();
+
+        private Histogram() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        /**
+         * Record one duration
+         * @param nanos Duration in nanoseconds
+         */
+        public void observeNanos(long nanos) {
+            double seconds = nanos / 1e9;
+            // Only the first matching bucket is incremented; the output accumulates them
+            for (int i = 0; i < BUCKETS.length; i++) {
+                if (seconds <= BUCKETS[i]) {
+                    buckets[i].increment();
+                    break;
+                }
+            }
+            count.increment();
+            sumNanos.add(nanos);
+        }
+
+        /**
+         * Record the time since a System.nanoTime() value
+         * @param startNanos Start time from System.nanoTime()
+         */
+        public void observeSince(long startNanos) {
+            observeNanos(System.nanoTime() - startNanos);
+        }
+
+        private void writeTo(Writer out, String name, String labels) throws IOException {
+            String prefix = labels.isEmpty() ? "" : labels + ",";
+            long cumulative = 0;
+            for (int i = 0; i < BUCKETS.length; i++) {
+                cumulative += buckets[i].sum();
+                out.write(name + "_bucket{" + prefix + "le=\"" + BUCKETS[i] + "\"} " + cumulative + "\n");
+            }
+            long total = count.sum();
+            out.write(name + "_bucket{" + prefix + "le=\"+Inf\"} " + Math.max(total, cumulative) + "\n");
+            out.write(name + "_sum" + braces(labels) + " " + format(sumNanos.sum() / 1e9) + "\n");
+            out.write(name + "_count" + braces(labels) + " " + total + "\n");
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package team.kitemc.verifymc;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Schedules plugin tasks on both Bukkit and Folia. Folia has no BukkitScheduler, so there
+ * "sync" tasks run on the global region thread and async tasks on the async scheduler.
+ * The Folia schedulers are not part of the Spigot API this plugin builds against and are called reflectively.
+ */
+public final class TaskScheduler {
+    private static final long MILLIS_PER_TICK = 50L;
+    private static final boolean FOLIA = detectFolia();
+
+    private TaskScheduler() {
+    }
+
+    /**
+     * Handle of a scheduled repeating task
+     */
+    public interface Task {
+        void cancel();
+    }
+
+    private static boolean detectFolia() {
+        try {
+            Class.forName("io.papermc.paper.threadedregions.RegionizedServer");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return true if the server is running Folia
+     */
+    public static boolean isFolia() {
+        return FOLIA;
+    }
+
+    /**
+     * Run a task on the main thread, or the global region thread on Folia
+     * @param plugin Owning plugin
+     * @param task Task to run
+     */
+    public static void runSync(Plugin plugin, Runnable task) {
+        if (FOLIA) {
+            Folia.invoke(Folia.globalExecute, Folia.globalScheduler(), plugin, task);
+        } else {
+            Bukkit.getScheduler().runTask(plugin, task);
+        }
+    }
+
+    /**
+     * Run a task repeatedly on the main thread, or the global region thread on Folia
+     * @param plugin Owning plugin
+     * @param task Task to run
+     * @param delayTicks Ticks before the first run
+     * @param periodTicks Ticks between runs
+     * @return Handle to cancel the task
+     */
+    public static Task runSyncTimer(Plugin plugin, Runnable task, long delayTicks, long periodTicks) {
+        if (FOLIA) {
+            Consumer<Object> body = scheduled -> task.run();
+            return Folia.task(Folia.invoke(Folia.globalRunAtFixedRate, Folia.globalScheduler(), plugin, body,
+                Math.max(1L, delayTicks), Math.max(1L, periodTicks)));
+        }
+        BukkitTask bukkitTask = Bukkit.getScheduler().runTaskTimer(plugin, task, delayTicks, periodTicks);
+        return bukkitTask::cancel;
+    }
+
+    /**
+     * Run a task once off the main thread
+     * @param plugin Owning plugin
+     * @param task Task to run
+     */
+    public static void runAsync(Plugin plugin, Runnable task) {
+        if (FOLIA) {
+            Consumer<Object> body = scheduled -> task.run();
+            Folia.invoke(Folia.asyncRunNow, Folia.asyncScheduler(), plugin, body);
+        } else {
+            Bukkit.getScheduler().runTaskAsynchronously(plugin, task);
+        }
+    }
+
+    /**
+     * Run a task repeatedly off the main thread
+     * @param plugin Owning plugin
+     * @param task Task to run
+     * @param delayTicks Ticks before the first run
+     * @param periodTicks Ticks between runs
+     * @return Handle to cancel the task
+     */
+    public static Task runAsyncTimer(Plugin plugin, Runnable task, long delayTicks, long periodTicks) {
+        if (FOLIA) {
+            Consumer<Object> body = scheduled -> task.run();
+            return Folia.task(Folia.invoke(Folia.asyncRunAtFixedRate, Folia.asyncScheduler(), plugin, body,
+                Math.max(1L, delayTicks) * MILLIS_PER_TICK, Math.max(1L, periodTicks) * MILLIS_PER_TICK, TimeUnit.MILLISECONDS));
+        }
+        BukkitTask bukkitTask = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, task, delayTicks, periodTicks);
+        return bukkitTask::cancel;
+    }
+
+    /**
+     * Reflective access to the Folia scheduler API, resolved on first use on Folia only
+     */
+    private static final class Folia {
+        private static final Method getGlobalScheduler;
+        private static final Method getAsyncScheduler;
+        private static final Method globalExecute;
+        private static final Method globalRunAtFixedRate;
+        private static final Method asyncRunNow;
+        private static final Method asyncRunAtFixedRate;
+        private static final Method cancel;
+
+        static {
+            try {
+                String pkg = "io.papermc.paper.threadedregions.scheduler.";
+                Class<?> global = Class.forName(pkg + "GlobalRegionScheduler");
+                Class<?> async = Class.forName(pkg + "AsyncScheduler");
+                getGlobalScheduler = Server.class.getMethod("getGlobalRegionScheduler");
+                getAsyncScheduler = Server.class.getMethod("getAsyncScheduler");
+                globalExecute = global.getMethod("execute", Plugin.class, Runnable.class);
+                globalRunAtFixedRate = global.getMethod("runAtFixedRate", Plugin.class, Consumer.class, long.class, long.class);
+                asyncRunNow = async.getMethod("runNow", Plugin.class, Consumer.class);
+                asyncRunAtFixedRate = async.getMethod("runAtFixedRate", Plugin.class, Consumer.class, long.class, long.class, TimeUnit.class);
+                cancel = Class.forName(pkg + "ScheduledTask").getMethod("cancel");
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        static Object globalScheduler() {
+            return invoke(getGlobalScheduler, Bukkit.getServer());
+        }
+
+        static Object asyncScheduler() {
+            return invoke(getAsyncScheduler, Bukkit.getServer());
+        }
+
+        static Task task(Object scheduledTask) {
+            return () -> invoke(cancel, scheduledTask);
+        }
+
+        static Object invoke(Method method, Object target, Object... args) {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new IllegalStateException(cause);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
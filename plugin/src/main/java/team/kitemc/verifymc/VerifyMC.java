@@ -11,6 +11,7 @@ import team.kitemc.verifymc.web.ReviewWebSocketServer;
 import team.kitemc.verifymc.db.FileUserDao;
 import team.kitemc.verifymc.db.FileAuditDao;
 import team.kitemc.verifymc.mail.MailService;
+import team.kitemc.verifymc.mail.NotificationExecutor;
 import team.kitemc.verifymc.service.VerifyCodeService;
 import java.util.Properties;
 import java.util.MissingResourceException;
@@ -18,11 +19,23 @@ import team.kitemc.verifymc.db.UserDao;
 import team.kitemc.verifymc.db.AuditDao;
 import team.kitemc.verifymc.db.MysqlAuditDao;
 import team.kitemc.verifymc.db.MysqlUserDao;
+import team.kitemc.verifymc.db.UserMigrator;
+import team.kitemc.verifymc.db.CachedUserDao;
+import team.kitemc.verifymc.db.SubmissionDao;
+import team.kitemc.verifymc.db.EphemeralStore;
+import team.kitemc.verifymc.db.MemoryEphemeralStore;
+import team.kitemc.verifymc.db.MysqlEphemeralStore;
+import team.kitemc.verifymc.db.FileSubmissionDao;
+import team.kitemc.verifymc.db.MysqlSubmissionDao;
 import team.kitemc.verifymc.service.AuthmeService;
+import team.kitemc.verifymc.service.AuthmeReconcileService;
 import team.kitemc.verifymc.service.VersionCheckService;
 import team.kitemc.verifymc.service.CaptchaService;
 import team.kitemc.verifymc.service.QuestionnaireService;
+import team.kitemc.verifymc.service.QuestionnaireSubmissionStore;
 import team.kitemc.verifymc.service.DiscordService;
+import team.kitemc.verifymc.service.WhitelistJsonSyncService;
+import team.kitemc.verifymc.service.WhitelistReconcileService;
 
 import java.util.List;
 import java.util.Map;
@@ -34,11 +47,8 @@ import org.bukkit.event.player.PlayerLoginEvent;
 import org.bukkit.event.player.PlayerLoginEvent.Result;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.scheduler.BukkitRunnable;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 
 public class VerifyMC extends JavaPlugin implements Listener {
     private ResourceBundle messages;
@@ -46,14 +56,19 @@ public class VerifyMC extends JavaPlugin implements Listener {
     private ReviewWebSocketServer wsServer;
     // User data access object interface
     private UserDao userDao;
+    private CachedUserDao cachedUserDao;
     // Audit data access object interface
     private AuditDao auditDao;
     private VerifyCodeService codeService;
     private MailService mailService;
+    private NotificationExecutor notificationExecutor;
     private AuthmeService authmeService;
     private VersionCheckService versionCheckService;
     private CaptchaService captchaService;
     private QuestionnaireService questionnaireService;
+    private volatile ConfigSnapshot configSnapshot;
+    private QuestionnaireSubmissionStore questionnaireSubmissionStore;
+    private EphemeralStore ephemeralStore;
     private DiscordService discordService;
     private ResourceManager resourceManager;
     private String whitelistMode;
@@ -62,9 +77,10 @@ public class VerifyMC extends JavaPlugin implements Listener {
     private String webServerPrefix;
     private boolean forceAllowApproved;
     private Path whitelistJsonPath;
-    private long lastWhitelistJsonModified = 0;
+    private WhitelistJsonSyncService whitelistJsonSyncService;
+    private WhitelistReconcileService whitelistReconcileService;
+    private AuthmeReconcileService authmeReconcileService;
     public boolean debug = false;
-    private Boolean isFoliaServer = null;
 
     public void debugLog(String msg) {
         if (debug) getLogger().info("[DEBUG] " + msg);
@@ -75,15 +91,7 @@ public class VerifyMC extends JavaPlugin implements Listener {
      * @return true if Folia is detected
      */
     private boolean isFoliaServer() {
-        if (isFoliaServer == null) {
-            try {
-                Class.forName("io.papermc.paper.threadedregions.RegionizedServer");
-                isFoliaServer = true;
-            } catch (ClassNotFoundException e) {
-                isFoliaServer = false;
-            }
-        }
-        return isFoliaServer;
+        return TaskScheduler.isFolia();
     }
 
     private String getConfigLanguage() {
@@ -101,10 +109,26 @@ public class VerifyMC extends JavaPlugin implements Listener {
         return key;
     }
 
+    /**
+     * Current typed config snapshot used on request and login paths
+     * @return Immutable snapshot
+     */
+    public ConfigSnapshot getConfigSnapshot() {
+        return configSnapshot;
+    }
+
+    /**
+     * Recompile the config snapshot from the loaded configuration; call after reloadConfig()
+     */
+    public void reloadConfigSnapshot() {
+        configSnapshot = ConfigSnapshot.compile(getConfig(), getLogger());
+    }
+
     @Override
     public void onEnable() {
         saveDefaultConfig();
         FileConfiguration config = getConfig();
+        reloadConfigSnapshot();
         whitelistMode = config.getString("whitelist_mode", "bukkit");
         whitelistJsonSync = config.getBoolean("whitelist_json_sync", true);
         webRegisterUrl = config.getString("web_register_url", "https://yourdomain.com/");
@@ -119,14 +143,17 @@ public class VerifyMC extends JavaPlugin implements Listener {
         String configLang = getConfigLanguage();
         messages = resourceManager.loadI18nBundle(configLang);
         // Initialize services
-        codeService = new VerifyCodeService(this);
         mailService = new MailService(this, this::getMessage);
+        notificationExecutor = new NotificationExecutor(this, mailService);
+        notificationExecutor.start();
         authmeService = new AuthmeService(this);
         versionCheckService = new VersionCheckService(this);
-        captchaService = new CaptchaService(this);
         questionnaireService = new QuestionnaireService(this);
-        discordService = new DiscordService(this);
         String storageType = getConfig().getString("storage.type", "data");
+        boolean persistSubmissions = getConfig().getBoolean("questionnaire.submission_store.persist", true);
+        SubmissionDao submissionDao = null;
+        boolean sharedEphemeralStore = "mysql".equalsIgnoreCase(getConfig().getString("storage.ephemeral_store", "memory"));
+        ephemeralStore = null;
         String lang = getConfig().getString("language", "en");
         ResourceBundle messages;
         try {
@@ -146,6 +173,12 @@ public class VerifyMC extends JavaPlugin implements Listener {
             try {
                 userDao = new MysqlUserDao(mysqlConfig, messages, this);
                 auditDao = new MysqlAuditDao(mysqlConfig);
+                if (persistSubmissions) {
+                    submissionDao = new MysqlSubmissionDao(mysqlConfig, this);
+                }
+                if (sharedEphemeralStore) {
+                    ephemeralStore = new MysqlEphemeralStore(mysqlConfig, this);
+                }
                 getLogger().info(messages.getString("storage.mysql.enabled"));
             } catch (Exception e) {
                 getLogger().severe(messages.getString("storage.migrate.fail").replace("{0}", e.getMessage()));
@@ -159,10 +192,38 @@ public class VerifyMC extends JavaPlugin implements Listener {
             auditFile.getParentFile().mkdirs();
             userDao = new FileUserDao(userFile, this);
             auditDao = new FileAuditDao(auditFile);
+            if (persistSubmissions) {
+                submissionDao = new FileSubmissionDao(new File(getDataFolder(), "data/questionnaire_submissions"));
+            }
             getLogger().info(messages.getString("storage.file.enabled"));
+            if (sharedEphemeralStore) {
+                getLogger().warning("[VerifyMC] storage.ephemeral_store: mysql requires storage.type: mysql, keeping codes and tokens in memory");
+            }
+        }
+        if (ephemeralStore == null) {
+            ephemeralStore = new MemoryEphemeralStore();
         }
+        codeService = new VerifyCodeService(this, ephemeralStore);
+        captchaService = new CaptchaService(this, ephemeralStore);
+        discordService = new DiscordService(this, ephemeralStore);
         autoMigrateIfNeeded(messages);
+        if (userDao instanceof MysqlUserDao && getConfig().getBoolean("storage.mysql.cache.enabled", true)) {
+            // Serve single-user lookups from memory; other servers' writes arrive via users_changelog
+            cachedUserDao = new CachedUserDao((MysqlUserDao) userDao, this);
+            cachedUserDao.start();
+            userDao = cachedUserDao;
+        }
+        if (getConfig().getBoolean("web.metrics_enabled", true)) {
+            // Time every DAO call for /metrics; done last so the checks above still see the concrete classes
+            userDao = MetricsRegistry.global().timed(UserDao.class, userDao,
+                "verifymc_user_dao_seconds", "UserDao call duration");
+            auditDao = MetricsRegistry.global().timed(AuditDao.class, auditDao,
+                "verifymc_audit_dao_seconds", "AuditDao call duration");
+        }
         
+        questionnaireSubmissionStore = new QuestionnaireSubmissionStore(this, submissionDao);
+        questionnaireSubmissionStore.start();
+
         // Set UserDao for Discord service (for persistent storage)
         discordService.setUserDao(userDao);
         
@@ -176,10 +237,14 @@ public class VerifyMC extends JavaPlugin implements Listener {
         } catch (Exception e) {
             getLogger().warning(getMessage("websocket.start_failed") + ": " + e.getMessage());
         }
+        authmeReconcileService = new AuthmeReconcileService(this, authmeService, userDao, wsServer, () -> {
+            syncWhitelistToServer();
+            syncPluginToWhitelistJson();
+        });
         // Start web server
         String theme = config.getString("frontend.theme", "default");
         String staticDir = resourceManager.getThemeStaticDir(theme);
-        webServer = new WebServer(port, staticDir, this, codeService, mailService, userDao, auditDao, authmeService, captchaService, questionnaireService, discordService, wsServer, messages);
+        webServer = new WebServer(port, staticDir, this, codeService, mailService, notificationExecutor, userDao, auditDao, authmeService, authmeReconcileService, captchaService, questionnaireService, questionnaireSubmissionStore, discordService, wsServer, messages);
         try {
             webServer.start();
             getLogger().info(getMessage("web.start_success") + ": " + port);
@@ -188,20 +253,20 @@ public class VerifyMC extends JavaPlugin implements Listener {
         }
         boolean autoSync = getConfig().getBoolean("auto_sync_whitelist", true);
         boolean autoCleanup = getConfig().getBoolean("auto_cleanup_whitelist", true);
-        // Keep Bukkit whitelist in sync no matter which whitelist mode is chosen
-        if (autoSync) {
-            syncWhitelistToServer();
-        }
-        // Clean up unexpected whitelist entries (without removing approved users)
-        if (autoCleanup) {
-            cleanupServerWhitelist();
-        }
+        whitelistReconcileService = new WhitelistReconcileService(this, userDao);
+        // Keep Bukkit whitelist in sync no matter which whitelist mode is chosen, and
+        // clean up unexpected whitelist entries (without removing approved users).
+        // Runs in the background and applies changes a few per tick.
+        whitelistReconcileService.reconcile(autoSync, autoCleanup);
+        // Import AuthMe accounts in the background so web requests never query AuthMe directly
+        authmeReconcileService.start();
         // Always register event listener for player login interception
         getServer().getPluginManager().registerEvents(this, this);
         
         // Only start whitelist.json watcher in bukkit mode
         if ("bukkit".equalsIgnoreCase(whitelistMode) && whitelistJsonSync) {
-            startWhitelistJsonWatcher();
+            whitelistJsonSyncService = new WhitelistJsonSyncService(this, userDao, whitelistJsonPath);
+            whitelistJsonSyncService.start();
         }
         // Compatibility detection and hints
         String serverName = getServer().getName().toLowerCase();
@@ -239,7 +304,12 @@ public class VerifyMC extends JavaPlugin implements Listener {
 
     @Override
     public void onDisable() {
+        if (authmeReconcileService != null) authmeReconcileService.shutdown();
+        if (questionnaireSubmissionStore != null) questionnaireSubmissionStore.shutdown();
         if (webServer != null) webServer.stop();
+        if (ephemeralStore != null) ephemeralStore.close();
+        // After the web server so no new mails are queued while draining
+        if (notificationExecutor != null) notificationExecutor.shutdown();
         if (wsServer != null) {
             try {
                 wsServer.stop();
@@ -251,9 +321,16 @@ public class VerifyMC extends JavaPlugin implements Listener {
         }
         // Save data when plugin is disabled
         if (userDao != null) userDao.save();
+        if (cachedUserDao != null) {
+            cachedUserDao.shutdown();
+            cachedUserDao = null;
+        }
         if (auditDao != null) auditDao.save();
-        if ("bukkit".equalsIgnoreCase(whitelistMode) && whitelistJsonSync) {
-            syncPluginToWhitelistJson();
+        if (authmeService != null) authmeService.shutdown();
+        if (discordService != null) discordService.shutdown();
+        if (whitelistJsonSyncService != null) {
+            // Flush the final state synchronously before the server shuts down
+            whitelistJsonSyncService.shutdown();
         }
         getLogger().info(getMessage("plugin.disabled"));
     }
@@ -426,6 +503,7 @@ public class VerifyMC extends JavaPlugin implements Listener {
             }
             String uuid = Bukkit.getOfflinePlayer(targetName).getUniqueId().toString();
             Map<String, Object> user = userDao.getUserByUuid(uuid);
+            String previousStatus = user != null && user.get("status") != null ? user.get("status").toString() : null;
             boolean ok;
             
             boolean authmeEnabled = authmeService.isAuthmeEnabled();
@@ -456,17 +534,18 @@ public class VerifyMC extends JavaPlugin implements Listener {
             
             userDao.save();
             
-            // Immediately sync to whitelist.json (if enabled)
-            if ("bukkit".equalsIgnoreCase(whitelistMode) && whitelistJsonSync) {
-                syncPluginToWhitelistJson();
-            }
+            // Sync to whitelist.json (if enabled); bursts of approvals are written once
+            syncPluginToWhitelistJson();
             
             // Sync to server whitelist
             syncWhitelistToServer();
             
             // WebSocket notification
-            if (wsServer != null) {
-                wsServer.broadcastMessage("{\"type\":\"user_update\"}");
+            Map<String, Object> updated = userDao.getUserByUuid(uuid);
+            if (wsServer != null && updated != null) {
+                Map<String, Object> snapshot = new java.util.HashMap<>(updated);
+                snapshot.remove("password");
+                wsServer.publishUserUpsert(snapshot, previousStatus);
             }
             
             if (ok) {
@@ -503,11 +582,13 @@ public class VerifyMC extends JavaPlugin implements Listener {
                 authmeService.unregisterFromAuthme(targetName);
             }
             
+            String previousStatus = user != null && user.get("status") != null ? user.get("status").toString() : null;
             boolean ok = userDao.deleteUser(uuid);
             userDao.save();
             if (ok) {
             sender.sendMessage("§a" + getMessage("command.remove_success", language).replace("{player}", targetName));
-                if (wsServer != null) wsServer.broadcastMessage("{\"type\":\"user_update\"}");
+                syncPluginToWhitelistJson();
+                if (wsServer != null) wsServer.publishUserRemoved(uuid, previousStatus);
             } else {
                 sender.sendMessage("§c" + getMessage("command.remove_failed", language));
             }
@@ -536,18 +617,15 @@ public class VerifyMC extends JavaPlugin implements Listener {
     public void onPlayerLogin(PlayerLoginEvent event) {
         Player player = event.getPlayer();
         String ip = event.getAddress() != null ? event.getAddress().getHostAddress() : "";
-        java.util.List<String> bypassIps = getConfig().getStringList("whitelist_bypass_ips");
-        if (bypassIps.contains(ip)) {
+        if (configSnapshot.isWhitelistBypassIp(ip)) {
             debugLog("Bypassed whitelist check for IP: " + ip);
             return; // Skip verification for whitelisted IPs
         }
         
-        // Check player name (id) in plugin database
-        Map<String, Object> user = userDao != null ? userDao.getAllUsers().stream()
-            .filter(u -> player.getName().equalsIgnoreCase((String)u.get("username")) && "approved".equals(u.get("status")))
-            .findFirst().orElse(null) : null;
+        // Check player name (id) in plugin database; any approved case variant allows login
+        boolean approved = userDao != null && userDao.isApprovedUsername(player.getName());
         
-        if (user == null) {
+        if (!approved) {
             // Player is not in approved list
             String url = webRegisterUrl;
             String msg = "§c[ VerifyMC ]\n§7Please visit §a" + url + " §7to register";
@@ -572,84 +650,14 @@ public class VerifyMC extends JavaPlugin implements Listener {
     }
 
     /**
-     * Monitor whitelist.json changes in bukkit mode
-     */
-    private void startWhitelistJsonWatcher() {
-        if (whitelistJsonPath == null) return;
-        new BukkitRunnable() {
-            @Override
-            public void run() {
-                try {
-                    if (Files.exists(whitelistJsonPath)) {
-                        long modified = Files.getLastModifiedTime(whitelistJsonPath).toMillis();
-                        if (modified != lastWhitelistJsonModified) {
-                            lastWhitelistJsonModified = modified;
-                            syncWhitelistJsonToPlugin();
-                        }
-                    }
-                } catch (Exception ignored) {}
-            }
-        }.runTaskTimer(this, 40L, 100L); // Check every 5 seconds on main thread
-    }
-
-    /**
-     * Synchronize whitelist.json to plugin data
-     */
-    private void syncWhitelistJsonToPlugin() {
-        if (!Bukkit.isPrimaryThread()) {
-            Bukkit.getScheduler().runTask(this, this::syncWhitelistJsonToPlugin);
-            return;
-        }
-        try {
-            List<String> lines = Files.readAllLines(whitelistJsonPath);
-            String json = String.join("\n", lines);
-            List<Map<String, Object>> list = new Gson().fromJson(json, List.class);
-            for (Map<String, Object> entry : list) {
-                String uuid = (String) entry.get("uuid");
-                if (uuid != null) {
-                    Map<String, Object> user = userDao.getAllUsers().stream().filter(u -> uuid.equals(u.get("uuid"))).findFirst().orElse(null);
-                    if (user != null) {
-                        Object whitelisted = entry.get("whitelisted");
-                        // Only update status if user is currently pending and whitelist.json shows approved
-                        // This prevents overriding manually set statuses
-                        String currentStatus = (String) user.get("status");
-                        if ("pending".equals(currentStatus) && Boolean.TRUE.equals(whitelisted)) {
-                            user.put("status", "approved");
-                        } else if (!"approved".equals(currentStatus) && !"banned".equals(currentStatus) && !Boolean.TRUE.equals(whitelisted)) {
-                            // Only set to pending if not already explicitly set
-                            user.put("status", "pending");
-                        }
-                    }
-                }
-            }
-            userDao.save();
-        } catch (Exception ignored) {}
-    }
-
-    /**
-     * Synchronize plugin data changes to whitelist.json
+     * Request a coalesced whitelist.json update from plugin data
      */
     private void syncPluginToWhitelistJson() {
-        if (!"bukkit".equalsIgnoreCase(whitelistMode)) return;
-        try {
-            List<Map<String, Object>> users = userDao.getAllUsers();
-            List<Map<String, Object>> wl = new java.util.ArrayList<>();
-            for (Map<String, Object> user : users) {
-                if ("approved".equals(user.get("status"))) {
-                    Map<String, Object> entry = new java.util.HashMap<>();
-                    entry.put("uuid", user.get("uuid"));
-                    entry.put("name", user.get("username"));
-                    entry.put("whitelisted", true);
-                    wl.add(entry);
-                }
-            }
-            String json = new GsonBuilder().setPrettyPrinting().create().toJson(wl);
-            Files.write(whitelistJsonPath, json.getBytes(java.nio.charset.StandardCharsets.UTF_8), java.nio.file.StandardOpenOption.CREATE, java.nio.file.StandardOpenOption.TRUNCATE_EXISTING);
-        } catch (Exception ignored) {}
+        if (whitelistJsonSyncService != null) {
+            whitelistJsonSyncService.requestSync();
+        }
     }
 
-    private static final String USERNAME_REGEX_KEY = "username_regex";
-    private static final String USERNAME_CASE_SENSITIVE_KEY = "username_case_sensitive";
     private static final String USERNAME_INVALID_KEY = "username.invalid";
     private static final String USERNAME_CASE_CONFLICT_KEY = "username.case_conflict";
 
@@ -659,21 +667,7 @@ public class VerifyMC extends JavaPlugin implements Listener {
      * @return true if username is valid
      */
     public boolean isValidUsername(String username) {
-        if (username == null) return false;
-        
-        // Check if bedrock support is enabled and username has bedrock prefix
-        boolean bedrockEnabled = getConfig().getBoolean("bedrock.enabled", false);
-        String bedrockPrefix = getConfig().getString("bedrock.prefix", ".");
-        
-        if (bedrockEnabled && username.startsWith(bedrockPrefix)) {
-            // Use bedrock-specific regex
-            String bedrockRegex = getConfig().getString("bedrock.username_regex", "^\\.[a-zA-Z0-9_\\s]{3,16}$");
-            return username.matches(bedrockRegex);
-        }
-        
-        // Use standard regex for Java players
-        String regex = getConfig().getString(USERNAME_REGEX_KEY, "^[a-zA-Z0-9_-]{3,16}$");
-        return username.matches(regex);
+        return configSnapshot.isValidUsername(username);
     }
     
     /**
@@ -682,12 +676,7 @@ public class VerifyMC extends JavaPlugin implements Listener {
      * @return true if username is a bedrock player
      */
     public boolean isBedrockPlayer(String username) {
-        if (username == null) return false;
-        boolean bedrockEnabled = getConfig().getBoolean("bedrock.enabled", false);
-        if (!bedrockEnabled) return false;
-        
-        String bedrockPrefix = getConfig().getString("bedrock.prefix", ".");
-        return username.startsWith(bedrockPrefix);
+        return configSnapshot.isBedrockPlayer(username);
     }
     
     /**
@@ -696,42 +685,16 @@ public class VerifyMC extends JavaPlugin implements Listener {
      * @return true if case conflict exists
      */
     public boolean isUsernameCaseConflict(String username) {
-        boolean caseSensitive = getConfig().getBoolean(USERNAME_CASE_SENSITIVE_KEY, false);
-        if (caseSensitive) return false;
-        for (Map<String, Object> user : userDao.getAllUsers()) {
-            String exist = (String) user.get("username");
-            if (exist != null && exist.equalsIgnoreCase(username) && !exist.equals(username)) return true;
-        }
-        return false;
+        if (configSnapshot.isUsernameCaseSensitive()) return false;
+        return userDao.hasUsernameCaseConflict(username);
     }
 
     /**
      * Synchronize whitelist to server
      */
     private void syncWhitelistToServer() {
-        for (Map<String, Object> user : userDao.getAllUsers()) {
-            String name = (String) user.get("username");
-            String status = (String) user.get("status");
-            if ("approved".equals(status)) {
-                Bukkit.getOfflinePlayer(name).setWhitelisted(true);
-            } else if ("banned".equals(status)) {
-                Bukkit.getOfflinePlayer(name).setWhitelisted(false);
-            }
-        }
-    }
-    
-    /**
-     * Clean up server whitelist
-     */
-    private void cleanupServerWhitelist() {
-        for (org.bukkit.OfflinePlayer p : Bukkit.getWhitelistedPlayers()) {
-            Map<String, Object> user = userDao.getUserByUsername(p.getName());
-            if (user == null || !"approved".equals(user.get("status"))) {
-                p.setWhitelisted(false);
-            } else {
-                // Ensure approved users stay whitelisted
-                p.setWhitelisted(true);
-            }
+        if (whitelistReconcileService != null) {
+            whitelistReconcileService.reconcile(true, false);
         }
     }
 
@@ -743,37 +706,17 @@ public class VerifyMC extends JavaPlugin implements Listener {
         boolean autoMigrateOnSwitch = getConfig().getBoolean("storage.auto_migrate_on_switch", false);
         String storageType = getConfig().getString("storage.type", "data");
         if (autoMigrateOnSwitch) {
+            UserMigrator migrator = new UserMigrator(this, messages, new File(getDataFolder(), "data/migration_state.json"));
             if ("mysql".equalsIgnoreCase(storageType) && userDao instanceof MysqlUserDao) {
                 // data -> mysql
-                List<Map<String, Object>> fileUsers = new FileUserDao(new File(getDataFolder(), "data/users.json"), this).getAllUsers();
-                List<Map<String, Object>> mysqlUsers = userDao.getAllUsers();
-                if (!fileUsers.equals(mysqlUsers)) {
-                    for (Map<String, Object> user : fileUsers) {
-                        userDao.registerUser(
-                            (String) user.get("uuid"),
-                            (String) user.get("username"),
-                            (String) user.get("email"),
-                            (String) user.get("status")
-                        );
-                    }
-                    getLogger().info(messages.getString("storage.migrate.success"));
+                File userFile = new File(getDataFolder(), "data/users.json");
+                if (userFile.exists()) {
+                    migrator.migrate(new FileUserDao(userFile, this), userDao, "data->mysql");
                 }
             } else if ("data".equalsIgnoreCase(storageType) && userDao instanceof FileUserDao) {
                 // mysql -> data
                 try {
-                    List<Map<String, Object>> mysqlUsers = new MysqlUserDao(getMysqlConfig(), messages, this).getAllUsers();
-                    List<Map<String, Object>> fileUsers = userDao.getAllUsers();
-                    if (!mysqlUsers.equals(fileUsers)) {
-                        for (Map<String, Object> user : mysqlUsers) {
-                            userDao.registerUser(
-                                (String) user.get("uuid"),
-                                (String) user.get("username"),
-                                (String) user.get("email"),
-                                (String) user.get("status")
-                            );
-                        }
-                        getLogger().info(messages.getString("storage.migrate.success"));
-                    }
+                    migrator.migrate(new MysqlUserDao(getMysqlConfig(), messages, this), userDao, "mysql->data");
                 } catch (Exception e) {
                     getLogger().severe(messages.getString("storage.migrate.fail").replace("{0}", e.getMessage()));
                 }
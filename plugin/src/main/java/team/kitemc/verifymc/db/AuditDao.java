@@ -2,9 +2,23 @@ package team.kitemc.verifymc.db;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 public interface AuditDao {
     void addAudit(Map<String, Object> audit);
+
+    /**
+     * Add several audit entries in one write; invalid entries are skipped as in addAudit
+     * @param audits Audit entries
+     */
+    void addAudits(List<Map<String, Object>> audits);
     List<Map<String, Object>> getAllAudits();
+
+    /**
+     * Visit audit entries newest first without loading them all at once
+     * @param action Called with each audit entry
+     * @throws StorageException if the backend fails part way; entries already visited are not undone
+     */
+    void forEachAuditNewestFirst(Consumer<Map<String, Object>> action);
     void save();
 } 
\ No newline at end of file
@@ -0,0 +1,518 @@
+package team.kitemc.verifymc.db;
+
+import org.bukkit.plugin.Plugin;
+import team.kitemc.verifymc.TaskScheduler;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Read-through cache in front of MysqlUserDao for servers sharing one database.
+ * Single-user lookups are served from memory. Every write goes to MySQL and appends the
+ * user's key to users_changelog; each server polls the changelog by sequence number and
+ * drops the affected entries, so reads are normally at most one poll interval stale.
+ * Sequence numbers are assigned before commit, so a lower one can become visible after a higher one
+ * was read; skipped numbers are re-checked until they appear or time out. Entries also expire after a
+ * fixed TTL, which bounds staleness when a changelog write is lost.
+ * List, search and count queries are passed through unchanged.
+ */
+public class CachedUserDao implements UserDao {
+    private static final int POLL_BATCH = 1000;
+    private static final long CHANGELOG_RETENTION_MS = 24L * 60 * 60 * 1000;
+    // How long a skipped sequence number may stay uncommitted; later ones are treated as rollbacks
+    private static final long GAP_TIMEOUT_MS = 60_000L;
+    private static final int MAX_GAPS = 10_000;
+
+    private final MysqlUserDao delegate;
+    private final Plugin plugin;
+    private final boolean debug;
+    private final long ttlMs;
+    // uuid -> cached user, access ordered for LRU eviction; guarded by itself
+    private final Map<String, Entry> usersByUuid;
+    // lowercase username -> uuid, guarded by usersByUuid
+    private final Map<String, String> uuidByName = new HashMap<>();
+    // Bumped on every invalidation, guarded by usersByUuid; a read that raced an invalidation is not cached
+    private long generation;
+    // Changelog position and skipped sequence number -> time first noticed; only used by pollChanges
+    private long lastSeq;
+    private final Map<Long, Long> gaps = new HashMap<>();
+    private TaskScheduler.Task pollTask;
+    private long lastPrune;
+
+    public CachedUserDao(MysqlUserDao delegate, Plugin plugin) {
+        this.delegate = delegate;
+        this.plugin = plugin;
+        this.debug = plugin.getConfig().getBoolean("debug", false);
+        int maxEntries = Math.max(1, plugin.getConfig().getInt("storage.mysql.cache.max_entries", 10000));
+        this.ttlMs = Math.max(1, plugin.getConfig().getLong("storage.mysql.cache.ttl_seconds", 60)) * 1000L;
+        this.usersByUuid = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > maxEntries) {
+                    unmapName(eldest.getValue().user);
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    private void debugLog(String msg) {
+        if (debug) plugin.getLogger().info("[DEBUG] CachedUserDao: " + msg);
+    }
+
+    /**
+     * Start following the changelog from its current end
+     */
+    public synchronized void start() {
+        try {
+            lastSeq = delegate.getLatestChangeSeq();
+        } catch (SQLException e) {
+            plugin.getLogger().warning("[VerifyMC] Failed to read users_changelog: " + e.getMessage());
+        }
+        long intervalTicks = Math.max(1, plugin.getConfig().getLong("storage.mysql.cache.poll_interval_seconds", 2)) * 20L;
+        pollTask = TaskScheduler.runAsyncTimer(plugin, this::pollChanges, intervalTicks, intervalTicks);
+    }
+
+    /**
+     * Stop polling the changelog
+     */
+    public void shutdown() {
+        if (pollTask != null) {
+            pollTask.cancel();
+        }
+    }
+
+    private synchronized void pollChanges() {
+        long now = System.currentTimeMillis();
+        try {
+            Map<Long, String> changes = new LinkedHashMap<>();
+            if (!gaps.isEmpty()) {
+                delegate.readChanges(new ArrayList<>(gaps.keySet()), changes);
+                for (Map.Entry<Long, String> change : changes.entrySet()) {
+                    gaps.remove(change.getKey());
+                    invalidate(change.getValue());
+                }
+                gaps.values().removeIf(noticed -> now - noticed > GAP_TIMEOUT_MS);
+            }
+            do {
+                changes.clear();
+                delegate.readChangesAfter(lastSeq, POLL_BATCH, changes);
+                for (Map.Entry<Long, String> change : changes.entrySet()) {
+                    long seq = change.getKey();
+                    if (seq > lastSeq + 1) {
+                        noteGap(lastSeq + 1, seq, now);
+                    }
+                    invalidate(change.getValue());
+                    lastSeq = seq;
+                }
+            } while (changes.size() == POLL_BATCH);
+        } catch (SQLException e) {
+            // Without the changelog there is no staleness bound, so fall back to an empty cache
+            clear();
+            debugLog("Changelog poll failed, cache cleared: " + e.getMessage());
+        }
+        if (now - lastPrune > CHANGELOG_RETENTION_MS / 24) {
+            lastPrune = now;
+            delegate.pruneChangelog(now - CHANGELOG_RETENTION_MS);
+        }
+    }
+
+    /**
+     * Remember skipped sequence numbers, which may still be committed by another server
+     * @param from First skipped number
+     * @param to Number after the last skipped one
+     * @param now Current time
+     */
+    private void noteGap(long from, long to, long now) {
+        if (to - from > MAX_GAPS - gaps.size()) {
+            // Too many to follow: drop everything that could be affected instead
+            clear();
+            debugLog("Changelog gap of " + (to - from) + " entries, cache cleared");
+            return;
+        }
+        for (long seq = from; seq < to; seq++) {
+            gaps.put(seq, now);
+        }
+    }
+
+    private void clear() {
+        synchronized (usersByUuid) {
+            usersByUuid.clear();
+            uuidByName.clear();
+            generation++;
+        }
+    }
+
+    /**
+     * Drop cached entries for a user key
+     * @param key UUID or username
+     */
+    private void invalidate(String key) {
+        if (key == null) {
+            return;
+        }
+        synchronized (usersByUuid) {
+            generation++;
+            Entry entry = usersByUuid.remove(key);
+            if (entry != null) {
+                unmapName(entry.user);
+            }
+            String uuid = uuidByName.remove(key.toLowerCase(Locale.ROOT));
+            if (uuid != null) {
+                usersByUuid.remove(uuid);
+            }
+        }
+    }
+
+    private void unmapName(Map<String, Object> user) {
+        Object name = user.get("username");
+        if (name != null) {
+            uuidByName.remove(name.toString().toLowerCase(Locale.ROOT));
+        }
+    }
+
+    private void cache(Map<String, Object> user, long readGeneration) {
+        Object uuid = user.get("uuid");
+        Object name = user.get("username");
+        if (uuid == null || name == null) {
+            return;
+        }
+        synchronized (usersByUuid) {
+            if (generation != readGeneration) {
+                return;
+            }
+            usersByUuid.put(uuid.toString(), new Entry(new HashMap<>(user), System.currentTimeMillis() + ttlMs));
+            uuidByName.put(name.toString().toLowerCase(Locale.ROOT), uuid.toString());
+        }
+    }
+
+    /**
+     * Get a copy of a cached user, dropping it if its TTL has passed. Callers hold usersByUuid.
+     * @param uuid User UUID, may be null
+     * @return Copy of the user, or null if not cached
+     */
+    private Map<String, Object> cached(String uuid) {
+        if (uuid == null) {
+            return null;
+        }
+        Entry entry = usersByUuid.get(uuid);
+        if (entry == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() > entry.expiresAt) {
+            usersByUuid.remove(uuid);
+            unmapName(entry.user);
+            return null;
+        }
+        return new HashMap<>(entry.user);
+    }
+
+    /**
+     * Invalidate locally and publish the change to other servers
+     * @param key UUID or username of the changed user
+     */
+    private void changed(String key) {
+        if (key == null) {
+            return;
+        }
+        String uuid;
+        synchronized (usersByUuid) {
+            uuid = uuidByName.get(key.toLowerCase(Locale.ROOT));
+        }
+        invalidate(key);
+        delegate.logChanges(uuid != null ? List.of(key, uuid) : List.of(key));
+    }
+
+    @Override
+    public Map<String, Object> getUserByUuid(String uuid) {
+        if (uuid == null) {
+            return null;
+        }
+        long readGeneration;
+        synchronized (usersByUuid) {
+            Map<String, Object> cached = cached(uuid);
+            if (cached != null) {
+                return cached;
+            }
+            readGeneration = generation;
+        }
+        Map<String, Object> user = delegate.getUserByUuid(uuid);
+        if (user != null) {
+            cache(user, readGeneration);
+        }
+        return user;
+    }
+
+    @Override
+    public Map<String, Object> getUserByUsername(String username) {
+        if (username == null) {
+            return null;
+        }
+        long readGeneration;
+        synchronized (usersByUuid) {
+            Map<String, Object> cached = cached(uuidByName.get(username.toLowerCase(Locale.ROOT)));
+            if (cached != null) {
+                return cached;
+            }
+            readGeneration = generation;
+        }
+        Map<String, Object> user = delegate.getUserByUsername(username);
+        if (user != null) {
+            cache(user, readGeneration);
+        }
+        return user;
+    }
+
+    @Override
+    public boolean isApprovedUsername(String username) {
+        // The cache holds one user per lowercase name, so case variants are answered by MySQL
+        return delegate.isApprovedUsername(username);
+    }
+
+    @Override
+    public Map<String, Map<String, Object>> getUsersByUsernames(Collection<String> usernames) {
+        Map<String, Map<String, Object>> result = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        long readGeneration;
+        synchronized (usersByUuid) {
+            for (String username : usernames) {
+                if (username == null) {
+                    continue;
+                }
+                String key = username.toLowerCase(Locale.ROOT);
+                Map<String, Object> cached = cached(uuidByName.get(key));
+                if (cached != null) {
+                    result.put(key, cached);
+                } else {
+                    missing.add(username);
+                }
+            }
+            readGeneration = generation;
+        }
+        if (!missing.isEmpty()) {
+            Map<String, Map<String, Object>> loaded = delegate.getUsersByUsernames(missing);
+            for (Map<String, Object> user : loaded.values()) {
+                cache(user, readGeneration);
+            }
+            result.putAll(loaded);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean registerUser(String uuid, String username, String email, String status) {
+        boolean ok = delegate.registerUser(uuid, username, email, status);
+        if (ok) changed(uuid);
+        return ok;
+    }
+
+    @Override
+    public boolean registerUser(String uuid, String username, String email, String status,
+                                Integer questionnaireScore, Boolean questionnairePassed,
+                                String questionnaireReviewSummary, Long questionnaireScoredAt) {
+        boolean ok = delegate.registerUser(uuid, username, email, status, questionnaireScore, questionnairePassed,
+            questionnaireReviewSummary, questionnaireScoredAt);
+        if (ok) changed(uuid);
+        return ok;
+    }
+
+    @Override
+    public boolean registerUser(String uuid, String username, String email, String status, String password) {
+        boolean ok = delegate.registerUser(uuid, username, email, status, password);
+        if (ok) changed(uuid);
+        return ok;
+    }
+
+    @Override
+    public boolean registerUser(String uuid, String username, String email, String status, String password,
+                                Integer questionnaireScore, Boolean questionnairePassed,
+                                String questionnaireReviewSummary, Long questionnaireScoredAt) {
+        boolean ok = delegate.registerUser(uuid, username, email, status, password, questionnaireScore,
+            questionnairePassed, questionnaireReviewSummary, questionnaireScoredAt);
+        if (ok) changed(uuid);
+        return ok;
+    }
+
+    @Override
+    public boolean updateUserStatus(String uuidOrName, String status) {
+        boolean ok = delegate.updateUserStatus(uuidOrName, status);
+        if (ok) changed(uuidOrName);
+        return ok;
+    }
+
+    @Override
+    public Set<String> updateUserStatuses(Map<String, String> statusByUuid, boolean clearPassword) {
+        Set<String> updated = delegate.updateUserStatuses(statusByUuid, clearPassword);
+        if (!updated.isEmpty()) {
+            for (String uuid : updated) {
+                invalidate(uuid);
+            }
+            delegate.logChanges(updated);
+        }
+        return updated;
+    }
+
+    @Override
+    public boolean updateUserPassword(String uuidOrName, String password) {
+        boolean ok = delegate.updateUserPassword(uuidOrName, password);
+        if (ok) changed(uuidOrName);
+        return ok;
+    }
+
+    @Override
+    public boolean updateUserEmail(String uuidOrName, String email) {
+        boolean ok = delegate.updateUserEmail(uuidOrName, email);
+        if (ok) changed(uuidOrName);
+        return ok;
+    }
+
+    @Override
+    public boolean updateUserDiscordId(String uuidOrName, String discordId) {
+        boolean ok = delegate.updateUserDiscordId(uuidOrName, discordId);
+        if (ok) changed(uuidOrName);
+        return ok;
+    }
+
+    @Override
+    public boolean deleteUser(String uuidOrName) {
+        boolean ok = delegate.deleteUser(uuidOrName);
+        if (ok) changed(uuidOrName);
+        return ok;
+    }
+
+    @Override
+    public int upsertUsers(List<Map<String, Object>> users) {
+        int changed = delegate.upsertUsers(users);
+        if (changed != 0) {
+            List<String> keys = new ArrayList<>(users.size());
+            for (Map<String, Object> user : users) {
+                if (user.get("uuid") != null) {
+                    String uuid = user.get("uuid").toString();
+                    invalidate(uuid);
+                    keys.add(uuid);
+                }
+            }
+            delegate.logChanges(keys);
+        }
+        return changed;
+    }
+
+    @Override
+    public List<Map<String, Object>> getAllUsers() {
+        return delegate.getAllUsers();
+    }
+
+    @Override
+    public List<Map<String, Object>> getUsersWithPagination(int page, int pageSize) {
+        return delegate.getUsersWithPagination(page, pageSize);
+    }
+
+    @Override
+    public int getTotalUserCount() {
+        return delegate.getTotalUserCount();
+    }
+
+    @Override
+    public List<Map<String, Object>> getUsersWithPaginationAndSearch(int page, int pageSize, String searchQuery) {
+        return delegate.getUsersWithPaginationAndSearch(page, pageSize, searchQuery);
+    }
+
+    @Override
+    public int getTotalUserCountWithSearch(String searchQuery) {
+        return delegate.getTotalUserCountWithSearch(searchQuery);
+    }
+
+    @Override
+    public int getApprovedUserCount() {
+        return delegate.getApprovedUserCount();
+    }
+
+    @Override
+    public int getApprovedUserCountWithSearch(String searchQuery) {
+        return delegate.getApprovedUserCountWithSearch(searchQuery);
+    }
+
+    @Override
+    public List<Map<String, Object>> getApprovedUsersWithPagination(int page, int pageSize) {
+        return delegate.getApprovedUsersWithPagination(page, pageSize);
+    }
+
+    @Override
+    public List<Map<String, Object>> getApprovedUsersWithPaginationAndSearch(int page, int pageSize, String searchQuery) {
+        return delegate.getApprovedUsersWithPaginationAndSearch(page, pageSize, searchQuery);
+    }
+
+    @Override
+    public List<Map<String, Object>> getUsersAfter(String afterUuid, int limit) {
+        return delegate.getUsersAfter(afterUuid, limit);
+    }
+
+    @Override
+    public void forEachUser(Consumer<Map<String, Object>> action) {
+        delegate.forEachUser(action);
+    }
+
+    @Override
+    public void save() {
+        delegate.save();
+    }
+
+    @Override
+    public boolean hasUsernameCaseConflict(String username) {
+        return delegate.hasUsernameCaseConflict(username);
+    }
+
+    @Override
+    public int countUsersByEmail(String email) {
+        return delegate.countUsersByEmail(email);
+    }
+
+    @Override
+    public List<Map<String, Object>> getPendingUsers() {
+        return delegate.getPendingUsers();
+    }
+
+    @Override
+    public List<UserSummary> getPendingUserSummaries() {
+        return delegate.getPendingUserSummaries();
+    }
+
+    @Override
+    public List<UserSummary> getApprovedUserSummaries(int page, int pageSize, String searchQuery) {
+        return delegate.getApprovedUserSummaries(page, pageSize, searchQuery);
+    }
+
+    @Override
+    public void forEachUserSummary(Consumer<UserSummary> action) {
+        delegate.forEachUserSummary(action);
+    }
+
+    @Override
+    public Map<String, Object> getUserByDiscordId(String discordId) {
+        return delegate.getUserByDiscordId(discordId);
+    }
+
+    @Override
+    public boolean isDiscordIdLinked(String discordId) {
+        return delegate.isDiscordIdLinked(discordId);
+    }
+
+    private static final class Entry {
+        final Map<String, Object> user;
+        final long expiresAt;
+
+        Entry(Map<String, Object> user, long expiresAt) {
+            this.user = user;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
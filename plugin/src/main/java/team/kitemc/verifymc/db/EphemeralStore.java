@@ -0,0 +1,63 @@
+package team.kitemc.verifymc.db;
+
+/**
+ * Short-lived key/value state with a time to live: verification codes, captcha answers
+ * and OAuth states. Keys are grouped in namespaces so one store backs all services.
+ * Expired entries are never returned. With a shared backend every web node sees the same state,
+ * so a flow started on one node can be finished on another.
+ */
+public interface EphemeralStore {
+    /** Verification codes by email */
+    String VERIFY_CODES = "verify_code";
+    /** Time of the last code sent to an email, for the send rate limit */
+    String VERIFY_RATE_LIMITS = "verify_rate";
+    /** Captcha answers by captcha token */
+    String CAPTCHAS = "captcha";
+    /** Discord OAuth2 state by state token */
+    String DISCORD_STATES = "discord_state";
+
+    /**
+     * Store a value, replacing any previous one
+     * @param namespace Namespace
+     * @param key Key within the namespace
+     * @param value Value
+     * @param ttlMs Time to live in milliseconds
+     * @return true if stored; callers must not hand out a code or token that was not stored
+     */
+    boolean put(String namespace, String key, String value, long ttlMs);
+
+    /**
+     * Read a value
+     * @param namespace Namespace
+     * @param key Key within the namespace
+     * @return Value, or null if missing or expired
+     */
+    String get(String namespace, String key);
+
+    /**
+     * Remove and return a value. Of several concurrent takes of the same key at most one gets the value.
+     * @param namespace Namespace
+     * @param key Key within the namespace
+     * @return Value, or null if missing, expired or already taken
+     */
+    String take(String namespace, String key);
+
+    /**
+     * Remove a value
+     * @param namespace Namespace
+     * @param key Key within the namespace
+     */
+    void remove(String namespace, String key);
+
+    /**
+     * Delete all expired entries
+     * @return Number of deleted entries
+     */
+    int purgeExpired();
+
+    /**
+     * Release the backend's resources; the store must not be used afterwards
+     */
+    default void close() {
+    }
+}
@@ -2,6 +2,7 @@ package team.kitemc.verifymc.db;
 
 import java.io.*;
 import java.util.*;
+import java.util.function.Consumer;
 import com.google.gson.reflect.TypeToken;
 import com.google.gson.Gson;
 
@@ -32,15 +33,35 @@ public class FileAuditDao implements AuditDao {
 
     @Override
     public synchronized void addAudit(Map<String, Object> audit) {
-        if (audit == null) return;
+        Map<String, Object> normalized = normalize(audit);
+        if (normalized == null) return;
+        audits.add(normalized);
+        save();
+    }
+
+    @Override
+    public synchronized void addAudits(List<Map<String, Object>> batch) {
+        boolean added = false;
+        for (Map<String, Object> audit : batch) {
+            Map<String, Object> normalized = normalize(audit);
+            if (normalized != null) {
+                audits.add(normalized);
+                added = true;
+            }
+        }
+        if (added) save();
+    }
+
+    private static Map<String, Object> normalize(Map<String, Object> audit) {
+        if (audit == null) return null;
         Object action = audit.get("action");
         Object operator = audit.get("operator");
         Object target = audit.get("target");
         Object timestamp = audit.get("timestamp");
-        if (!(action instanceof String) || ((String) action).isBlank()) return;
-        if (!(operator instanceof String) || ((String) operator).isBlank()) return;
-        if (!(target instanceof String) || ((String) target).isBlank()) return;
-        if (!(timestamp instanceof Number)) return;
+        if (!(action instanceof String) || ((String) action).isBlank()) return null;
+        if (!(operator instanceof String) || ((String) operator).isBlank()) return null;
+        if (!(target instanceof String) || ((String) target).isBlank()) return null;
+        if (!(timestamp instanceof Number)) return null;
 
         Map<String, Object> normalized = new HashMap<>();
         normalized.put("action", action);
@@ -48,13 +69,27 @@ public class FileAuditDao implements AuditDao {
         normalized.put("target", target);
         normalized.put("detail", String.valueOf(audit.getOrDefault("detail", "")));
         normalized.put("timestamp", ((Number) timestamp).longValue());
-
-        audits.add(normalized);
-        save();
+        return normalized;
     }
 
     @Override
     public List<Map<String, Object>> getAllAudits() {
         return new ArrayList<>(audits);
     }
+
+    @Override
+    public void forEachAuditNewestFirst(Consumer<Map<String, Object>> action) {
+        // Entries are only ever appended in time order, so walking the indexes backwards is newest first
+        int index;
+        synchronized (this) {
+            index = audits.size();
+        }
+        while (--index >= 0) {
+            Map<String, Object> audit;
+            synchronized (this) {
+                audit = audits.get(index);
+            }
+            action.accept(audit);
+        }
+    }
 } 
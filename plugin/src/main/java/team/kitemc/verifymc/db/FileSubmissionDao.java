@@ -0,0 +1,144 @@
+package team.kitemc.verifymc.db;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * File based submission storage: one small file per token, prefixed with its expiry time.
+ * Files are written to a temporary name and moved into place so a crash never leaves a partial record.
+ */
+public class FileSubmissionDao implements SubmissionDao {
+    private static final Pattern TOKEN_PATTERN = Pattern.compile("[0-9a-fA-F-]{1,64}");
+    private static final String SUFFIX = ".bin";
+
+    private final File dir;
+    // Number of record files, kept in step with puts and deletes so the cap check needs no listing
+    private final AtomicInteger stored = new AtomicInteger();
+
+    public FileSubmissionDao(File dir) {
+        this.dir = dir;
+        dir.mkdirs();
+        File[] files = listRecords();
+        stored.set(files != null ? files.length : 0);
+    }
+
+    private File[] listRecords() {
+        return dir.listFiles((d, name) -> name.endsWith(SUFFIX));
+    }
+
+    private static long readExpiresAt(File file) {
+        try (InputStream in = Files.newInputStream(file.toPath()); DataInputStream data = new DataInputStream(in)) {
+            return data.readLong();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private File fileFor(String token) {
+        if (token == null || !TOKEN_PATTERN.matcher(token).matches()) {
+            return null;
+        }
+        return new File(dir, token + SUFFIX);
+    }
+
+    @Override
+    public boolean put(String token, long expiresAt, byte[] data) {
+        File file = fileFor(token);
+        if (file == null) {
+            return false;
+        }
+        File tmp = new File(dir, token + ".tmp");
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES + data.length);
+            buffer.putLong(expiresAt).put(data);
+            Files.write(tmp.toPath(), buffer.array());
+            boolean replaced = file.exists();
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            if (!replaced) {
+                stored.incrementAndGet();
+            }
+            return true;
+        } catch (IOException e) {
+            tmp.delete();
+            return false;
+        }
+    }
+
+    @Override
+    public byte[] take(String token) {
+        File file = fileFor(token);
+        if (file == null || !file.exists()) {
+            return null;
+        }
+        // Claim the record by renaming it first so two concurrent takes cannot both succeed
+        File claimed = new File(dir, token + ".taken");
+        try {
+            Files.move(file.toPath(), claimed.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            stored.decrementAndGet();
+            byte[] bytes = Files.readAllBytes(claimed.toPath());
+            if (bytes.length < Long.BYTES) {
+                return null;
+            }
+            byte[] data = new byte[bytes.length - Long.BYTES];
+            System.arraycopy(bytes, Long.BYTES, data, 0, data.length);
+            return data;
+        } catch (IOException e) {
+            return null;
+        } finally {
+            claimed.delete();
+        }
+    }
+
+    @Override
+    public int purgeExpired(long now) {
+        File[] files = listRecords();
+        if (files == null) {
+            return 0;
+        }
+        int purged = 0;
+        for (File file : files) {
+            if (readExpiresAt(file) < now && file.delete()) {
+                stored.decrementAndGet();
+                purged++;
+            }
+        }
+        return purged;
+    }
+
+    @Override
+    public int count() {
+        return Math.max(0, stored.get());
+    }
+
+    @Override
+    public int deleteOldest(int limit) {
+        File[] files = listRecords();
+        if (files == null || limit <= 0) {
+            return 0;
+        }
+        Map<File, Long> expiries = new HashMap<>();
+        for (File file : files) {
+            expiries.put(file, readExpiresAt(file));
+        }
+        Arrays.sort(files, Comparator.comparingLong(expiries::get));
+        int deleted = 0;
+        for (int i = 0; i < files.length && deleted < limit; i++) {
+            if (files[i].delete()) {
+                stored.decrementAndGet();
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+}
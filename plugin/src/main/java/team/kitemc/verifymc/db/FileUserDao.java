@@ -3,12 +3,29 @@ package team.kitemc.verifymc.db;
 import java.io.*;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Consumer;
 import com.google.gson.reflect.TypeToken;
 import com.google.gson.Gson;
 
 public class FileUserDao implements UserDao {
+    private static final List<String> USER_FIELDS = Arrays.asList(
+        "username", "email", "status", "password", "regTime", "discord_id",
+        "questionnaire_score", "questionnaire_passed", "questionnaire_review_summary", "questionnaire_scored_at");
     private final File file;
-    private final Map<String, Map<String, Object>> users = new ConcurrentHashMap<>();
+    // Sorted by UUID so getUsersAfter can page with tailMap
+    private final ConcurrentNavigableMap<String, Map<String, Object>> users = new ConcurrentSkipListMap<>();
+    // Lowercase username -> UUIDs, kept in step with users
+    private final Map<String, Set<String>> usernameIndex = new ConcurrentHashMap<>();
+    // Discord ID -> UUID, kept in step with users
+    private final Map<String, String> discordIndex = new ConcurrentHashMap<>();
+    // Pending UUIDs in registration order, guarded by itself
+    private final Set<String> pendingQueue = new LinkedHashSet<>();
+    // Non-pending users ordered newest first, with the key each UUID is currently filed under
+    private final ConcurrentSkipListSet<RegKey> nonPendingByRegTime = new ConcurrentSkipListSet<>();
+    private final Map<String, RegKey> nonPendingKeys = new ConcurrentHashMap<>();
     private final Gson gson = new Gson();
     private final boolean debug;
     private final org.bukkit.plugin.Plugin plugin;
@@ -57,6 +74,114 @@ public class FileUserDao implements UserDao {
         }
     }
 
+    private static String normalizeUsername(Object username) {
+        return username == null ? null : username.toString().toLowerCase(Locale.ROOT);
+    }
+
+    private void indexUsername(Map<String, Object> user) {
+        String key = normalizeUsername(user.get("username"));
+        Object uuid = user.get("uuid");
+        if (key != null && uuid != null) {
+            usernameIndex.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(uuid.toString());
+        }
+    }
+
+    private void unindexUsername(Map<String, Object> user) {
+        String key = normalizeUsername(user.get("username"));
+        Object uuid = user.get("uuid");
+        if (key != null && uuid != null) {
+            usernameIndex.computeIfPresent(key, (k, uuids) -> {
+                uuids.remove(uuid.toString());
+                return uuids.isEmpty() ? null : uuids;
+            });
+        }
+    }
+
+    private void indexDiscordId(Map<String, Object> user) {
+        Object discordId = user.get("discord_id");
+        Object uuid = user.get("uuid");
+        if (discordId != null && !discordId.toString().isEmpty() && uuid != null) {
+            discordIndex.put(discordId.toString(), uuid.toString());
+        }
+    }
+
+    private void unindexDiscordId(Map<String, Object> user) {
+        Object discordId = user.get("discord_id");
+        Object uuid = user.get("uuid");
+        if (discordId != null && uuid != null) {
+            discordIndex.remove(discordId.toString(), uuid.toString());
+        }
+    }
+
+    private static boolean isPending(Map<String, Object> user) {
+        Object status = user.get("status");
+        return status != null && "pending".equalsIgnoreCase(status.toString());
+    }
+
+    private void indexStatus(Map<String, Object> user) {
+        Object uuid = user.get("uuid");
+        if (uuid == null) {
+            return;
+        }
+        String id = uuid.toString();
+        if (isPending(user)) {
+            synchronized (pendingQueue) {
+                pendingQueue.add(id);
+            }
+        } else {
+            Long regTime = getRegTimeAsLong(user.get("regTime"));
+            RegKey key = new RegKey(regTime != null ? regTime : 0L, id);
+            nonPendingKeys.put(id, key);
+            nonPendingByRegTime.add(key);
+        }
+    }
+
+    private void unindexStatus(Map<String, Object> user) {
+        Object uuid = user.get("uuid");
+        if (uuid == null) {
+            return;
+        }
+        String id = uuid.toString();
+        synchronized (pendingQueue) {
+            pendingQueue.remove(id);
+        }
+        RegKey key = nonPendingKeys.remove(id);
+        if (key != null) {
+            nonPendingByRegTime.remove(key);
+        }
+    }
+
+    /**
+     * Change a user's status and move it between the status indexes.
+     * An unchanged status keeps a pending user's place in the queue.
+     */
+    private void setStatus(Map<String, Object> user, Object status) {
+        if (Objects.equals(user.get("status"), status)) {
+            return;
+        }
+        unindexStatus(user);
+        user.put("status", status);
+        indexStatus(user);
+    }
+
+    private Map<String, Object> findByUsername(String username) {
+        String key = normalizeUsername(username);
+        if (key == null) {
+            return null;
+        }
+        Set<String> uuids = usernameIndex.get(key);
+        if (uuids == null) {
+            return null;
+        }
+        for (String uuid : uuids) {
+            Map<String, Object> user = users.get(uuid);
+            if (user != null) {
+                return user;
+            }
+        }
+        return null;
+    }
+
     public synchronized void load() {
         debugLog("Loading users from: " + file.getAbsolutePath());
         if (!file.exists()) {
@@ -118,6 +243,26 @@ public class FileUserDao implements UserDao {
                 }
                 
                 users.putAll(loaded);
+                List<Map<String, Object>> pending = new ArrayList<>();
+                for (Map<String, Object> user : loaded.values()) {
+                    if (user != null) {
+                        indexUsername(user);
+                        indexDiscordId(user);
+                        if (isPending(user)) {
+                            pending.add(user);
+                        } else {
+                            indexStatus(user);
+                        }
+                    }
+                }
+                // The file does not keep insertion order, so rebuild the queue from registration times
+                pending.sort(Comparator.comparingLong(u -> {
+                    Long regTime = getRegTimeAsLong(u.get("regTime"));
+                    return regTime != null ? regTime : 0L;
+                }));
+                for (Map<String, Object> user : pending) {
+                    indexStatus(user);
+                }
                 debugLog("Loaded " + loaded.size() + " users from database");
                 
                 // If data upgrade occurred, save immediately
@@ -154,12 +299,12 @@ public class FileUserDao implements UserDao {
     }
 
     @Override
-    public boolean registerUser(String uuid, String username, String email, String status) {
+    public synchronized boolean registerUser(String uuid, String username, String email, String status) {
         return registerUser(uuid, username, email, status, null, null, null, null);
     }
 
     @Override
-    public boolean registerUser(String uuid, String username, String email, String status,
+    public synchronized boolean registerUser(String uuid, String username, String email, String status,
                                 Integer questionnaireScore, Boolean questionnairePassed,
                                 String questionnaireReviewSummary, Long questionnaireScoredAt) {
         debugLog("registerUser called: uuid=" + uuid + ", username=" + username + ", email=" + email + ", status=" + status);
@@ -179,6 +324,8 @@ public class FileUserDao implements UserDao {
             applyQuestionnaireAuditFields(user, questionnaireScore, questionnairePassed, questionnaireReviewSummary, questionnaireScoredAt);
             debugLog("Adding user to map: " + user);
             users.put(uuid, user);
+            indexUsername(user);
+            indexStatus(user);
             save();
             debugLog("User registration successful");
             return true;
@@ -189,12 +336,12 @@ public class FileUserDao implements UserDao {
     }
 
     @Override
-    public boolean registerUser(String uuid, String username, String email, String status, String password) {
+    public synchronized boolean registerUser(String uuid, String username, String email, String status, String password) {
         return registerUser(uuid, username, email, status, password, null, null, null, null);
     }
 
     @Override
-    public boolean registerUser(String uuid, String username, String email, String status, String password,
+    public synchronized boolean registerUser(String uuid, String username, String email, String status, String password,
                                 Integer questionnaireScore, Boolean questionnairePassed,
                                 String questionnaireReviewSummary, Long questionnaireScoredAt) {
         debugLog("registerUser with password called: uuid=" + uuid + ", username=" + username + ", email=" + email + ", status=" + status);
@@ -215,6 +362,8 @@ public class FileUserDao implements UserDao {
             applyQuestionnaireAuditFields(user, questionnaireScore, questionnairePassed, questionnaireReviewSummary, questionnaireScoredAt);
             debugLog("Adding user with password to map: " + user);
             users.put(uuid, user);
+            indexUsername(user);
+            indexStatus(user);
             save();
             debugLog("User registration with password successful");
             return true;
@@ -231,7 +380,7 @@ public class FileUserDao implements UserDao {
     }
 
     @Override
-    public boolean updateUserStatus(String uuid, String status) {
+    public synchronized boolean updateUserStatus(String uuid, String status) {
         debugLog("updateUserStatus called: uuid=" + uuid + ", status=" + status);
         Map<String, Object> user = users.get(uuid);
         if (user == null) {
@@ -239,12 +388,33 @@ public class FileUserDao implements UserDao {
             return false;
         }
         String oldStatus = (String) user.get("status");
-        user.put("status", status);
+        setStatus(user, status);
         save();
         debugLog("User status updated: " + uuid + " from " + oldStatus + " to " + status);
         return true;
     }
 
+    @Override
+    public synchronized Set<String> updateUserStatuses(Map<String, String> statusByUuid, boolean clearPassword) {
+        debugLog("updateUserStatuses called with " + statusByUuid.size() + " users");
+        Set<String> updated = new HashSet<>();
+        for (Map.Entry<String, String> entry : statusByUuid.entrySet()) {
+            Map<String, Object> user = users.get(entry.getKey());
+            if (user == null) {
+                continue;
+            }
+            setStatus(user, entry.getValue());
+            if (clearPassword) {
+                user.put("password", null);
+            }
+            updated.add(entry.getKey());
+        }
+        if (!updated.isEmpty()) {
+            save();
+        }
+        return updated;
+    }
+
     @Override
     public boolean updateUserPassword(String uuidOrName, String password) {
         debugLog("updateUserPassword called: uuidOrName=" + uuidOrName);
@@ -280,12 +450,7 @@ public class FileUserDao implements UserDao {
         if (user != null) {
             return user;
         }
-        for (Map<String, Object> u : users.values()) {
-            if (u.get("username") != null && u.get("username").toString().equalsIgnoreCase(uuidOrName)) {
-                return u;
-            }
-        }
-        return null;
+        return findByUsername(uuidOrName);
     }
 
     @Override
@@ -300,25 +465,43 @@ public class FileUserDao implements UserDao {
         return user;
     }
 
+    @Override
+    public boolean isApprovedUsername(String username) {
+        String key = normalizeUsername(username);
+        Set<String> uuids = key != null ? usernameIndex.get(key) : null;
+        if (uuids == null) {
+            return false;
+        }
+        for (String uuid : uuids) {
+            Map<String, Object> user = users.get(uuid);
+            if (user != null && "approved".equals(user.get("status"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     public Map<String, Object> getUserByUsername(String username) {
         debugLog("Getting user by username: " + username);
-        for (Map<String, Object> user : users.values()) {
-            if (user.get("username") != null && user.get("username").toString().equalsIgnoreCase(username)) {
-                debugLog("User found: " + user.get("uuid"));
-                return user;
-            }
+        Map<String, Object> user = findByUsername(username);
+        if (user != null) {
+            debugLog("User found: " + user.get("uuid"));
+        } else {
+            debugLog("User not found");
         }
-        debugLog("User not found");
-        return null;
+        return user;
     }
 
     @Override
-    public boolean deleteUser(String uuid) {
+    public synchronized boolean deleteUser(String uuid) {
         debugLog("deleteUser called: uuid=" + uuid);
         try {
             Map<String, Object> removed = users.remove(uuid);
             if (removed != null) {
+                unindexUsername(removed);
+                unindexDiscordId(removed);
+                unindexStatus(removed);
                 debugLog("User deleted: " + removed.get("username"));
                 save();
                 return true;
@@ -332,6 +515,116 @@ public class FileUserDao implements UserDao {
         }
     }
 
+    @Override
+    public List<Map<String, Object>> getUsersAfter(String afterUuid, int limit) {
+        Map<String, Map<String, Object>> tail = afterUuid == null ? users : users.tailMap(afterUuid, false);
+        List<Map<String, Object>> result = new ArrayList<>(Math.min(limit, 1024));
+        for (Map<String, Object> user : tail.values()) {
+            if (result.size() >= limit) {
+                break;
+            }
+            result.add(new HashMap<>(user));
+        }
+        return result;
+    }
+
+    @Override
+    public void forEachUser(Consumer<Map<String, Object>> action) {
+        // The map iterator is weakly consistent, so no lock or snapshot of the whole map is needed
+        for (Map<String, Object> user : users.values()) {
+            action.accept(new HashMap<>(user));
+        }
+    }
+
+    @Override
+    public void forEachUserSummary(Consumer<UserSummary> action) {
+        // Summaries are built straight from the live maps, so no per-user copy is needed
+        for (Map<String, Object> user : users.values()) {
+            action.accept(UserSummary.of(user, false));
+        }
+    }
+
+    @Override
+    public synchronized int upsertUsers(List<Map<String, Object>> batch) {
+        debugLog("upsertUsers called with " + batch.size() + " users");
+        int changed = 0;
+        for (Map<String, Object> incoming : batch) {
+            Object uuidObj = incoming.get("uuid");
+            if (uuidObj == null || incoming.get("username") == null) {
+                continue;
+            }
+            String uuid = uuidObj.toString();
+            Map<String, Object> user = users.get(uuid);
+            if (user == null) {
+                user = new HashMap<>();
+                user.put("uuid", uuid);
+                for (String field : USER_FIELDS) {
+                    user.put(field, incoming.get(field));
+                }
+                if (user.get("regTime") == null) {
+                    user.put("regTime", System.currentTimeMillis());
+                }
+                users.put(uuid, user);
+                indexUsername(user);
+                indexDiscordId(user);
+                indexStatus(user);
+                changed++;
+                continue;
+            }
+            boolean modified = false;
+            for (String field : USER_FIELDS) {
+                Object value = incoming.get(field);
+                if (value == null || value.equals(user.get(field))) {
+                    continue;
+                }
+                if ("username".equals(field)) {
+                    unindexUsername(user);
+                    user.put(field, value);
+                    indexUsername(user);
+                } else if ("discord_id".equals(field)) {
+                    unindexDiscordId(user);
+                    user.put(field, value);
+                    indexDiscordId(user);
+                } else if ("status".equals(field)) {
+                    setStatus(user, value);
+                } else if ("regTime".equals(field)) {
+                    unindexStatus(user);
+                    user.put(field, value);
+                    indexStatus(user);
+                } else {
+                    user.put(field, value);
+                }
+                modified = true;
+            }
+            if (modified) {
+                changed++;
+            }
+        }
+        if (changed > 0) {
+            save();
+        }
+        debugLog("upsertUsers changed " + changed + " users");
+        return changed;
+    }
+
+    @Override
+    public boolean hasUsernameCaseConflict(String username) {
+        if (username == null) {
+            return false;
+        }
+        Set<String> uuids = usernameIndex.get(normalizeUsername(username));
+        if (uuids == null) {
+            return false;
+        }
+        for (String uuid : uuids) {
+            Map<String, Object> user = users.get(uuid);
+            if (user != null && user.get("username") != null && !user.get("username").toString().equals(username)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     public int countUsersByEmail(String email) {
         debugLog("Counting users by email: " + email);
@@ -348,9 +641,14 @@ public class FileUserDao implements UserDao {
     @Override
     public List<Map<String, Object>> getPendingUsers() {
         debugLog("Getting pending users");
-        List<Map<String, Object>> result = new ArrayList<>();
-        for (Map<String, Object> user : users.values()) {
-            if ("pending".equals(user.get("status"))) result.add(user);
+        List<String> uuids;
+        synchronized (pendingQueue) {
+            uuids = new ArrayList<>(pendingQueue);
+        }
+        List<Map<String, Object>> result = new ArrayList<>(uuids.size());
+        for (String uuid : uuids) {
+            Map<String, Object> user = users.get(uuid);
+            if (user != null) result.add(new HashMap<>(user));
         }
         debugLog("Found " + result.size() + " pending users");
         return result;
@@ -455,14 +753,7 @@ public class FileUserDao implements UserDao {
     
     @Override
     public int getApprovedUserCount() {
-        debugLog("Getting approved user count (excluding pending)");
-        int count = 0;
-        for (Map<String, Object> user : users.values()) {
-            String status = user.get("status") != null ? user.get("status").toString() : "";
-            if (!"pending".equalsIgnoreCase(status)) {
-                count++;
-            }
-        }
+        int count = nonPendingKeys.size();
         debugLog("Approved user count: " + count);
         return count;
     }
@@ -470,109 +761,59 @@ public class FileUserDao implements UserDao {
     @Override
     public int getApprovedUserCountWithSearch(String searchQuery) {
         debugLog("Getting approved user count with search: query=" + searchQuery);
-        int count = 0;
         String query = searchQuery != null ? searchQuery.toLowerCase().trim() : "";
-        
-        for (Map<String, Object> user : users.values()) {
-            String status = user.get("status") != null ? user.get("status").toString() : "";
-            if (!"pending".equalsIgnoreCase(status)) {
-                if (query.isEmpty()) {
-                    count++;
-                } else {
-                    String username = user.get("username") != null ? user.get("username").toString().toLowerCase() : "";
-                    String email = user.get("email") != null ? user.get("email").toString().toLowerCase() : "";
-                    if (username.contains(query) || email.contains(query)) {
-                        count++;
-                    }
-                }
+        if (query.isEmpty()) {
+            return getApprovedUserCount();
+        }
+        int count = 0;
+        for (RegKey key : nonPendingByRegTime) {
+            Map<String, Object> user = users.get(key.uuid);
+            if (user != null && matchesSearch(user, query)) {
+                count++;
             }
         }
-        
         debugLog("Approved user count with search '" + searchQuery + "': " + count);
         return count;
     }
     
     @Override
     public List<Map<String, Object>> getApprovedUsersWithPagination(int page, int pageSize) {
-        debugLog("Getting approved users with pagination: page=" + page + ", pageSize=" + pageSize);
-        List<Map<String, Object>> approvedUsers = new ArrayList<>();
-        
-        // Filter out pending users
-        for (Map<String, Object> user : users.values()) {
-            String status = user.get("status") != null ? user.get("status").toString() : "";
-            if (!"pending".equalsIgnoreCase(status)) {
-                approvedUsers.add(user);
-            }
-        }
-        
-        // Sort by registration time (newest first)
-        approvedUsers.sort((a, b) -> {
-            Long timeA = getRegTimeAsLong(a.get("regTime"));
-            Long timeB = getRegTimeAsLong(b.get("regTime"));
-            if (timeA == null) timeA = 0L;
-            if (timeB == null) timeB = 0L;
-            return timeB.compareTo(timeA);
-        });
-        
-        int startIndex = (page - 1) * pageSize;
-        int endIndex = Math.min(startIndex + pageSize, approvedUsers.size());
-        
-        if (startIndex >= approvedUsers.size()) {
-            debugLog("Page " + page + " is out of range for approved users, returning empty list");
-            return new ArrayList<>();
-        }
-        
-        List<Map<String, Object>> result = approvedUsers.subList(startIndex, endIndex);
-        debugLog("Returning " + result.size() + " approved users for page " + page);
-        return result;
+        return getApprovedUsersWithPaginationAndSearch(page, pageSize, null);
     }
     
     @Override
     public List<Map<String, Object>> getApprovedUsersWithPaginationAndSearch(int page, int pageSize, String searchQuery) {
         debugLog("Getting approved users with pagination and search: page=" + page + ", pageSize=" + pageSize + ", query=" + searchQuery);
-        List<Map<String, Object>> filteredUsers = new ArrayList<>();
-        
-        // Filter users based on search query and exclude pending users
         String query = searchQuery != null ? searchQuery.toLowerCase().trim() : "";
-        for (Map<String, Object> user : users.values()) {
-            String status = user.get("status") != null ? user.get("status").toString() : "";
-            if (!"pending".equalsIgnoreCase(status)) {
-                if (query.isEmpty()) {
-                    filteredUsers.add(user);
-                } else {
-                    String username = user.get("username") != null ? user.get("username").toString().toLowerCase() : "";
-                    String email = user.get("email") != null ? user.get("email").toString().toLowerCase() : "";
-                    if (username.contains(query) || email.contains(query)) {
-                        filteredUsers.add(user);
-                    }
-                }
+        int skip = Math.max(0, (page - 1) * pageSize);
+        List<Map<String, Object>> result = new ArrayList<>(Math.max(0, pageSize));
+        // Walk the index newest first and stop as soon as the page is full
+        for (RegKey key : nonPendingByRegTime) {
+            if (result.size() >= pageSize) {
+                break;
             }
+            Map<String, Object> user = users.get(key.uuid);
+            if (user == null || (!query.isEmpty() && !matchesSearch(user, query))) {
+                continue;
+            }
+            if (skip > 0) {
+                skip--;
+                continue;
+            }
+            result.add(new HashMap<>(user));
         }
-        
-        // Sort by registration time (newest first)
-        filteredUsers.sort((a, b) -> {
-            Long timeA = getRegTimeAsLong(a.get("regTime"));
-            Long timeB = getRegTimeAsLong(b.get("regTime"));
-            if (timeA == null) timeA = 0L;
-            if (timeB == null) timeB = 0L;
-            return timeB.compareTo(timeA);
-        });
-        
-        int startIndex = (page - 1) * pageSize;
-        int endIndex = Math.min(startIndex + pageSize, filteredUsers.size());
-        
-        if (startIndex >= filteredUsers.size()) {
-            debugLog("Page " + page + " is out of range for approved users search results, returning empty list");
-            return new ArrayList<>();
-        }
-        
-        List<Map<String, Object>> result = filteredUsers.subList(startIndex, endIndex);
         debugLog("Returning " + result.size() + " approved users for page " + page + " with search query: " + searchQuery);
         return result;
     }
+
+    private static boolean matchesSearch(Map<String, Object> user, String query) {
+        String username = user.get("username") != null ? user.get("username").toString().toLowerCase() : "";
+        String email = user.get("email") != null ? user.get("email").toString().toLowerCase() : "";
+        return username.contains(query) || email.contains(query);
+    }
     
     @Override
-    public boolean updateUserDiscordId(String uuidOrName, String discordId) {
+    public synchronized boolean updateUserDiscordId(String uuidOrName, String discordId) {
         debugLog("updateUserDiscordId called: uuidOrName=" + uuidOrName + ", discordId=" + discordId);
         Map<String, Object> user = null;
         
@@ -581,12 +822,7 @@ public class FileUserDao implements UserDao {
         
         // If not found, try to find as username
         if (user == null) {
-            for (Map<String, Object> u : users.values()) {
-                if (u.get("username") != null && u.get("username").toString().equalsIgnoreCase(uuidOrName)) {
-                    user = u;
-                    break;
-                }
-            }
+            user = findByUsername(uuidOrName);
         }
         
         if (user == null) {
@@ -594,7 +830,16 @@ public class FileUserDao implements UserDao {
             return false;
         }
         
+        // A Discord account can be linked to one user only, like the unique index in MySQL
+        String linkedUuid = discordId != null ? discordIndex.get(discordId) : null;
+        if (linkedUuid != null && !linkedUuid.equals(user.get("uuid"))) {
+            debugLog("Discord ID " + discordId + " already linked to " + linkedUuid);
+            return false;
+        }
+        
+        unindexDiscordId(user);
         user.put("discord_id", discordId);
+        indexDiscordId(user);
         save();
         debugLog("User Discord ID updated: " + user.get("username") + " -> " + discordId);
         return true;
@@ -603,12 +848,11 @@ public class FileUserDao implements UserDao {
     @Override
     public Map<String, Object> getUserByDiscordId(String discordId) {
         debugLog("Getting user by Discord ID: " + discordId);
-        for (Map<String, Object> user : users.values()) {
-            Object userDiscordId = user.get("discord_id");
-            if (userDiscordId != null && userDiscordId.toString().equals(discordId)) {
-                debugLog("User found: " + user.get("username"));
-                return user;
-            }
+        String uuid = discordId != null ? discordIndex.get(discordId) : null;
+        Map<String, Object> user = uuid != null ? users.get(uuid) : null;
+        if (user != null) {
+            debugLog("User found: " + user.get("username"));
+            return user;
         }
         debugLog("User not found with Discord ID: " + discordId);
         return null;
@@ -617,6 +861,25 @@ public class FileUserDao implements UserDao {
     @Override
     public boolean isDiscordIdLinked(String discordId) {
         debugLog("Checking if Discord ID is linked: " + discordId);
-        return getUserByDiscordId(discordId) != null;
+        return discordId != null && discordIndex.containsKey(discordId);
+    }
+
+    /**
+     * Sort key of the non-pending index: newest registration first, UUID as tie breaker
+     */
+    private static final class RegKey implements Comparable<RegKey> {
+        private final long regTime;
+        private final String uuid;
+
+        private RegKey(long regTime, String uuid) {
+            this.regTime = regTime;
+            this.uuid = uuid;
+        }
+
+        @Override
+        public int compareTo(RegKey other) {
+            int byTime = Long.compare(other.regTime, regTime);
+            return byTime != 0 ? byTime : uuid.compareTo(other.uuid);
+        }
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,77 @@
+package team.kitemc.verifymc.db;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single-node ephemeral store in a concurrent map. Expired entries are dropped when read
+ * and swept at most once a minute from put, so no cleanup thread is needed.
+ */
+public class MemoryEphemeralStore implements EphemeralStore {
+    private static final long PURGE_INTERVAL_MS = 60000;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong nextPurge = new AtomicLong(System.currentTimeMillis() + PURGE_INTERVAL_MS);
+
+    private static String id(String namespace, String key) {
+        return namespace + ':' + key;
+    }
+
+    @Override
+    public boolean put(String namespace, String key, String value, long ttlMs) {
+        long now = System.currentTimeMillis();
+        entries.put(id(namespace, key), new Entry(value, now + ttlMs));
+        long due = nextPurge.get();
+        if (now >= due && nextPurge.compareAndSet(due, now + PURGE_INTERVAL_MS)) {
+            purgeExpired();
+        }
+        return true;
+    }
+
+    @Override
+    public String get(String namespace, String key) {
+        String id = id(namespace, key);
+        Entry entry = entries.get(id);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired(System.currentTimeMillis())) {
+            entries.remove(id, entry);
+            return null;
+        }
+        return entry.value;
+    }
+
+    @Override
+    public String take(String namespace, String key) {
+        Entry entry = entries.remove(id(namespace, key));
+        return entry != null && !entry.isExpired(System.currentTimeMillis()) ? entry.value : null;
+    }
+
+    @Override
+    public void remove(String namespace, String key) {
+        entries.remove(id(namespace, key));
+    }
+
+    @Override
+    public int purgeExpired() {
+        long now = System.currentTimeMillis();
+        int before = entries.size();
+        entries.values().removeIf(entry -> entry.isExpired(now));
+        return Math.max(0, before - entries.size());
+    }
+
+    private static final class Entry {
+        final String value;
+        final long expiresAt;
+
+        Entry(String value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired(long now) {
+            return now > expiresAt;
+        }
+    }
+}
@@ -2,52 +2,66 @@ package team.kitemc.verifymc.db;
 
 import java.sql.*;
 import java.util.*;
+import java.util.function.Consumer;
 
 public class MysqlAuditDao implements AuditDao {
     private final Connection conn;
 
+    /**
+     * The audits table is created by MysqlSchemaMigrator when MysqlUserDao connects
+     */
     public MysqlAuditDao(Properties mysqlConfig) throws SQLException {
         String url = "jdbc:mysql://" + mysqlConfig.getProperty("host") + ":" +
                 mysqlConfig.getProperty("port") + "/" +
                 mysqlConfig.getProperty("database") + "?useSSL=false&characterEncoding=utf8";
         conn = DriverManager.getConnection(url, mysqlConfig.getProperty("user"), mysqlConfig.getProperty("password"));
-        try (Statement stmt = conn.createStatement()) {
-            stmt.executeUpdate("CREATE TABLE IF NOT EXISTS audits (" +
-                    "id INT AUTO_INCREMENT PRIMARY KEY," +
-                    "action VARCHAR(32)," +
-                    "operator VARCHAR(32)," +
-                    "target VARCHAR(32)," +
-                    "detail TEXT," +
-                    "timestamp BIGINT)");
-        }
     }
 
     @Override
     public void addAudit(Map<String, Object> audit) {
-        if (audit == null) return;
-        Object actionObj = audit.get("action");
-        Object operatorObj = audit.get("operator");
-        Object targetObj = audit.get("target");
-        Object timestampObj = audit.get("timestamp");
-        if (!(actionObj instanceof String) || ((String) actionObj).isBlank()) return;
-        if (!(operatorObj instanceof String) || ((String) operatorObj).isBlank()) return;
-        if (!(targetObj instanceof String) || ((String) targetObj).isBlank()) return;
-        if (!(timestampObj instanceof Number)) return;
-
-        String action = (String) actionObj;
-        String operator = (String) operatorObj;
-        String target = (String) targetObj;
-        String detail = String.valueOf(audit.getOrDefault("detail", ""));
-        long timestamp = ((Number) timestampObj).longValue();
+        addAudits(Collections.singletonList(audit));
+    }
 
+    @Override
+    public synchronized void addAudits(List<Map<String, Object>> audits) {
         String sql = "INSERT INTO audits (action, operator, target, detail, timestamp) VALUES (?, ?, ?, ?, ?)";
         try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, action);
-            ps.setString(2, operator);
-            ps.setString(3, target);
-            ps.setString(4, detail);
-            ps.setLong(5, timestamp);
-            ps.executeUpdate();
+            int queued = 0;
+            for (Map<String, Object> audit : audits) {
+                if (audit == null) continue;
+                Object actionObj = audit.get("action");
+                Object operatorObj = audit.get("operator");
+                Object targetObj = audit.get("target");
+                Object timestampObj = audit.get("timestamp");
+                if (!(actionObj instanceof String) || ((String) actionObj).isBlank()) continue;
+                if (!(operatorObj instanceof String) || ((String) operatorObj).isBlank()) continue;
+                if (!(targetObj instanceof String) || ((String) targetObj).isBlank()) continue;
+                if (!(timestampObj instanceof Number)) continue;
+
+                ps.setString(1, (String) actionObj);
+                ps.setString(2, (String) operatorObj);
+                ps.setString(3, (String) targetObj);
+                ps.setString(4, String.valueOf(audit.getOrDefault("detail", "")));
+                ps.setLong(5, ((Number) timestampObj).longValue());
+                ps.addBatch();
+                queued++;
+            }
+            if (queued > 1) {
+                // One commit for the whole batch
+                boolean autoCommit = conn.getAutoCommit();
+                conn.setAutoCommit(false);
+                try {
+                    ps.executeBatch();
+                    conn.commit();
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(autoCommit);
+                }
+            } else if (queued == 1) {
+                ps.executeBatch();
+            }
         } catch (SQLException ignored) {}
     }
 
@@ -57,19 +71,53 @@ public class MysqlAuditDao implements AuditDao {
         String sql = "SELECT * FROM audits";
         try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
             while (rs.next()) {
-                Map<String, Object> audit = new HashMap<>();
-                audit.put("id", rs.getInt("id"));
-                audit.put("action", rs.getString("action"));
-                audit.put("operator", rs.getString("operator"));
-                audit.put("target", rs.getString("target"));
-                audit.put("detail", rs.getString("detail"));
-                audit.put("timestamp", rs.getLong("timestamp"));
-                result.add(audit);
+                result.add(readAudit(rs));
             }
         } catch (SQLException ignored) {}
         return result;
     }
 
+    @Override
+    public void forEachAuditNewestFirst(Consumer<Map<String, Object>> action) {
+        // Keyset pages on the primary key, so only one page is held at a time and the connection is never
+        // blocked by an open streaming result
+        final int pageSize = 500;
+        long beforeId = Long.MAX_VALUE;
+        String sql = "SELECT * FROM audits WHERE id < ? ORDER BY id DESC LIMIT ?";
+        while (true) {
+            List<Map<String, Object>> page = new ArrayList<>(pageSize);
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setLong(1, beforeId);
+                ps.setInt(2, pageSize);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        page.add(readAudit(rs));
+                    }
+                }
+            } catch (SQLException e) {
+                throw new StorageException("Failed to read audits", e);
+            }
+            for (Map<String, Object> audit : page) {
+                action.accept(audit);
+            }
+            if (page.size() < pageSize) {
+                return;
+            }
+            beforeId = ((Number) page.get(page.size() - 1).get("id")).longValue();
+        }
+    }
+
+    private Map<String, Object> readAudit(ResultSet rs) throws SQLException {
+        Map<String, Object> audit = new HashMap<>();
+        audit.put("id", rs.getInt("id"));
+        audit.put("action", rs.getString("action"));
+        audit.put("operator", rs.getString("operator"));
+        audit.put("target", rs.getString("target"));
+        audit.put("detail", rs.getString("detail"));
+        audit.put("timestamp", rs.getLong("timestamp"));
+        return audit;
+    }
+
     @Override
     public void save() {
         // MySQL storage: save() called (no-op)
@@ -0,0 +1,154 @@
+package team.kitemc.verifymc.db;
+
+import org.bukkit.plugin.Plugin;
+
+import java.sql.*;
+import java.util.Properties;
+
+/**
+ * Ephemeral store in the ephemeral_state table of the storage database, shared by all web nodes
+ * that use the same database. Expired rows are never returned and are deleted at most once a minute
+ * from put. A connection closed by the server (e.g. after wait_timeout) is reopened on the next call.
+ */
+public class MysqlEphemeralStore implements EphemeralStore {
+    private static final long PURGE_INTERVAL_MS = 60000;
+
+    private final String url;
+    private final Properties mysqlConfig;
+    private final Plugin plugin;
+    private final boolean debug;
+    private long nextPurge = System.currentTimeMillis() + PURGE_INTERVAL_MS;
+    // Guarded by this
+    private Connection conn;
+
+    /**
+     * The ephemeral_state table is created by MysqlSchemaMigrator when MysqlUserDao connects
+     */
+    public MysqlEphemeralStore(Properties mysqlConfig, Plugin plugin) throws SQLException {
+        this.plugin = plugin;
+        this.debug = plugin.getConfig().getBoolean("debug", false);
+        this.mysqlConfig = mysqlConfig;
+        this.url = "jdbc:mysql://" + mysqlConfig.getProperty("host") + ":" +
+                mysqlConfig.getProperty("port") + "/" +
+                mysqlConfig.getProperty("database") + "?useSSL=false&characterEncoding=utf8";
+        conn = connection();
+    }
+
+    private void debugLog(String msg) {
+        if (debug) plugin.getLogger().info("[DEBUG] MysqlEphemeralStore: " + msg);
+    }
+
+    private Connection connection() throws SQLException {
+        if (conn == null || conn.isClosed()) {
+            conn = DriverManager.getConnection(url, mysqlConfig.getProperty("user"), mysqlConfig.getProperty("password"));
+        }
+        return conn;
+    }
+
+    /**
+     * Log a failed call and drop the connection if it is no longer usable, so the next call reconnects
+     */
+    private void failed(String action, SQLException e) {
+        plugin.getLogger().warning("[VerifyMC] Shared state store failed to " + action + ": " + e.getMessage());
+        try {
+            if (conn != null && !conn.isValid(2)) {
+                conn.close();
+            }
+        } catch (SQLException ignored) {
+        }
+    }
+
+    @Override
+    public synchronized boolean put(String namespace, String key, String value, long ttlMs) {
+        long now = System.currentTimeMillis();
+        String sql = "INSERT INTO ephemeral_state (namespace, state_key, state_value, expires_at) VALUES (?, ?, ?, ?) " +
+                "ON DUPLICATE KEY UPDATE state_value = VALUES(state_value), expires_at = VALUES(expires_at)";
+        try (PreparedStatement ps = connection().prepareStatement(sql)) {
+            ps.setString(1, namespace);
+            ps.setString(2, key);
+            ps.setString(3, value);
+            ps.setLong(4, now + ttlMs);
+            ps.executeUpdate();
+        } catch (SQLException e) {
+            failed("store " + namespace + " entry", e);
+            return false;
+        }
+        if (now >= nextPurge) {
+            nextPurge = now + PURGE_INTERVAL_MS;
+            purgeExpired();
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized String get(String namespace, String key) {
+        String sql = "SELECT state_value FROM ephemeral_state WHERE namespace = ? AND state_key = ? AND expires_at >= ?";
+        try (PreparedStatement ps = connection().prepareStatement(sql)) {
+            ps.setString(1, namespace);
+            ps.setString(2, key);
+            ps.setLong(3, System.currentTimeMillis());
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        } catch (SQLException e) {
+            failed("read " + namespace + " entry", e);
+            return null;
+        }
+    }
+
+    @Override
+    public synchronized String take(String namespace, String key) {
+        String value = get(namespace, key);
+        if (value == null) {
+            return null;
+        }
+        // Only the node whose DELETE removed the row may use it
+        String sql = "DELETE FROM ephemeral_state WHERE namespace = ? AND state_key = ? AND state_value = ?";
+        try (PreparedStatement ps = connection().prepareStatement(sql)) {
+            ps.setString(1, namespace);
+            ps.setString(2, key);
+            ps.setString(3, value);
+            return ps.executeUpdate() == 1 ? value : null;
+        } catch (SQLException e) {
+            failed("take " + namespace + " entry", e);
+            return null;
+        }
+    }
+
+    @Override
+    public synchronized void remove(String namespace, String key) {
+        try (PreparedStatement ps = connection().prepareStatement("DELETE FROM ephemeral_state WHERE namespace = ? AND state_key = ?")) {
+            ps.setString(1, namespace);
+            ps.setString(2, key);
+            ps.executeUpdate();
+        } catch (SQLException e) {
+            failed("remove " + namespace + " entry", e);
+        }
+    }
+
+    @Override
+    public synchronized int purgeExpired() {
+        try (PreparedStatement ps = connection().prepareStatement("DELETE FROM ephemeral_state WHERE expires_at < ?")) {
+            ps.setLong(1, System.currentTimeMillis());
+            int rows = ps.executeUpdate();
+            if (rows > 0) {
+                debugLog("Purged " + rows + " expired entries");
+            }
+            return rows;
+        } catch (SQLException e) {
+            failed("purge expired entries", e);
+            return 0;
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            if (conn != null) {
+                conn.close();
+            }
+        } catch (SQLException e) {
+            debugLog("Failed to close connection: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,363 @@
+package team.kitemc.verifymc.db;
+
+import org.bukkit.plugin.Plugin;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Versioned schema setup for the MySQL backend.
+ * Applied versions are recorded in schema_version, so a normal startup is one version query and
+ * only newer migrations run, in order. The first migrations also bring databases created by older
+ * releases (which have no schema_version table) up to date: they read the existing columns and
+ * indexes through JDBC metadata and add only what is missing.
+ * MySQL-only options such as online index creation are tried first and dropped if the database
+ * rejects them, so the runner also works on an embedded database like H2 in MySQL mode.
+ */
+public class MysqlSchemaMigrator {
+    private final Connection conn;
+    private final Logger logger;
+    private final boolean debug;
+    private final boolean usernameCaseSensitive;
+    private final List<Migration> migrations = new ArrayList<>();
+
+    /**
+     * @param conn Connection to the target database
+     * @param plugin Plugin instance for config and logging
+     */
+    public MysqlSchemaMigrator(Connection conn, Plugin plugin) {
+        this(conn, plugin.getLogger(), plugin.getConfig().getBoolean("debug", false),
+                plugin.getConfig().getBoolean("username_case_sensitive", false));
+    }
+
+    /**
+     * @param conn Connection to the target database
+     * @param logger Logger for progress and warnings
+     * @param debug Whether to log debug messages
+     * @param usernameCaseSensitive Value of username_case_sensitive
+     */
+    MysqlSchemaMigrator(Connection conn, Logger logger, boolean debug, boolean usernameCaseSensitive) {
+        this.conn = conn;
+        this.logger = logger;
+        this.debug = debug;
+        this.usernameCaseSensitive = usernameCaseSensitive;
+        // Append only: released versions must never be renumbered or changed
+        migrations.add(new Migration(1, "Create users table", this::createUsersTable));
+        migrations.add(new Migration(2, "Add users lookup indexes", this::addLookupIndexes));
+        migrations.add(new Migration(3, "Create users_changelog table", this::createChangelogTable));
+        migrations.add(new Migration(4, "Create audits table", this::createAuditsTable));
+        migrations.add(new Migration(5, "Add users status and regTime indexes", this::addStatusIndexes));
+        migrations.add(new Migration(6, "Create questionnaire_submissions table", this::createSubmissionsTable));
+        migrations.add(new Migration(7, "Create ephemeral_state table", this::createEphemeralStateTable));
+    }
+
+    private void debugLog(String msg) {
+        if (debug) logger.info("[DEBUG] MysqlSchemaMigrator: " + msg);
+    }
+
+    /**
+     * Apply all migrations newer than the recorded schema version
+     * @return Schema version after migrating
+     * @throws SQLException if a migration fails; later migrations are not attempted
+     */
+    public int migrate() throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("CREATE TABLE IF NOT EXISTS schema_version (" +
+                    "version INT PRIMARY KEY," +
+                    "description VARCHAR(255) NOT NULL," +
+                    "applied_at BIGINT NOT NULL)");
+        }
+        int current = 0;
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MAX(version) FROM schema_version")) {
+            if (rs.next()) {
+                current = rs.getInt(1);
+            }
+        }
+        debugLog("Schema version " + current + ", latest " + migrations.get(migrations.size() - 1).version);
+        for (Migration migration : migrations) {
+            if (migration.version <= current) {
+                continue;
+            }
+            logger.info("[VerifyMC] Applying database migration " + migration.version + ": " + migration.description);
+            migration.step.apply();
+            record(migration);
+            current = migration.version;
+        }
+        reconcileUsernameIndex();
+        return current;
+    }
+
+    private void record(Migration migration) throws SQLException {
+        String sql = "INSERT INTO schema_version (version, description, applied_at) VALUES (?, ?, ?)";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, migration.version);
+            ps.setString(2, migration.description);
+            ps.setLong(3, System.currentTimeMillis());
+            ps.executeUpdate();
+        } catch (SQLException e) {
+            // Another server sharing the database recorded it first; every step tolerates running twice
+            if (!versionRecorded(migration.version)) {
+                throw e;
+            }
+            debugLog("Migration " + migration.version + " was recorded concurrently");
+        }
+    }
+
+    private boolean versionRecorded(int version) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT 1 FROM schema_version WHERE version = ?")) {
+            ps.setInt(1, version);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    private void createUsersTable() throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("CREATE TABLE IF NOT EXISTS users (" +
+                    "uuid VARCHAR(36) PRIMARY KEY," +
+                    "username VARCHAR(32) NOT NULL," +
+                    "email VARCHAR(64)," +
+                    "status VARCHAR(16)," +
+                    "password VARCHAR(255)," +
+                    "regTime BIGINT," +
+                    "questionnaire_score INT NULL," +
+                    "questionnaire_passed BOOLEAN NULL," +
+                    "questionnaire_review_summary TEXT NULL," +
+                    "questionnaire_scored_at BIGINT NULL)");
+            // Tables created by older releases may lack columns added since
+            Set<String> columns = columnNames("users");
+            addColumnIfMissing(stmt, columns, "password", "VARCHAR(255)");
+            if (addColumnIfMissing(stmt, columns, "regTime", "BIGINT")) {
+                stmt.executeUpdate("UPDATE users SET regTime = " + System.currentTimeMillis() + " WHERE regTime IS NULL");
+            }
+            addColumnIfMissing(stmt, columns, "discord_id", "VARCHAR(64)");
+            addColumnIfMissing(stmt, columns, "questionnaire_score", "INT NULL");
+            addColumnIfMissing(stmt, columns, "questionnaire_passed", "BOOLEAN NULL");
+            addColumnIfMissing(stmt, columns, "questionnaire_review_summary", "TEXT NULL");
+            addColumnIfMissing(stmt, columns, "questionnaire_scored_at", "BIGINT NULL");
+            // Normalized username for indexed case-insensitive lookups
+            try {
+                addColumnIfMissing(stmt, columns, "username_lower", "VARCHAR(32) AS (LOWER(username)) STORED");
+            } catch (SQLException e) {
+                debugLog("Stored generated columns not available, retrying without STORED: " + e.getMessage());
+                addColumnIfMissing(stmt, columns, "username_lower", "VARCHAR(32) AS (LOWER(username))");
+            }
+        }
+    }
+
+    private void addLookupIndexes() throws SQLException {
+        addIndexes("users", "INDEX idx_username (username)", "INDEX idx_email (email)");
+        // One Discord account per user; NULLs (unlinked users) do not collide
+        Set<String> indexes = indexNames("users");
+        if (!indexes.contains("uk_discord_id")) {
+            if (addUniqueIndex("users", "uk_discord_id", "discord_id")) {
+                dropIndexIfExists("users", "idx_discord_id");
+            } else {
+                addIndexes("users", "INDEX idx_discord_id (discord_id)");
+            }
+        }
+    }
+
+    private void createChangelogTable() throws SQLException {
+        // Change feed used by CachedUserDao to invalidate caches on other servers
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("CREATE TABLE IF NOT EXISTS users_changelog (" +
+                    "seq BIGINT AUTO_INCREMENT PRIMARY KEY," +
+                    "user_key VARCHAR(36) NOT NULL," +
+                    "changed_at BIGINT NOT NULL)");
+        }
+    }
+
+    private void createAuditsTable() throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("CREATE TABLE IF NOT EXISTS audits (" +
+                    "id INT AUTO_INCREMENT PRIMARY KEY," +
+                    "action VARCHAR(32)," +
+                    "operator VARCHAR(32)," +
+                    "target VARCHAR(32)," +
+                    "detail TEXT," +
+                    "timestamp BIGINT)");
+        }
+    }
+
+    private void addStatusIndexes() throws SQLException {
+        // Pending queue: WHERE status='pending' ORDER BY regTime is a range read of idx_status_regtime.
+        // Approved list: status != 'pending' ORDER BY regTime DESC walks idx_regtime and stops after the page.
+        addIndexes("users", "INDEX idx_status_regtime (status, regTime)", "INDEX idx_regtime (regTime)");
+    }
+
+    private void createSubmissionsTable() throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("CREATE TABLE IF NOT EXISTS questionnaire_submissions (" +
+                    "token VARCHAR(64) PRIMARY KEY," +
+                    "expires_at BIGINT NOT NULL," +
+                    "data BLOB NOT NULL," +
+                    "INDEX idx_expires_at (expires_at))");
+        }
+    }
+
+    private void createEphemeralStateTable() throws SQLException {
+        // Short-lived state shared by all web nodes, see MysqlEphemeralStore
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("CREATE TABLE IF NOT EXISTS ephemeral_state (" +
+                    "namespace VARCHAR(32) NOT NULL," +
+                    "state_key VARCHAR(191) NOT NULL," +
+                    "state_value TEXT NOT NULL," +
+                    "expires_at BIGINT NOT NULL," +
+                    "PRIMARY KEY (namespace, state_key)," +
+                    "INDEX idx_ephemeral_expires_at (expires_at))");
+        }
+    }
+
+    /**
+     * Case-insensitive uniqueness is enforced by the database so that registrations racing on several
+     * servers cannot create names that differ only by case. It follows username_case_sensitive, which can
+     * change between restarts, so it is checked on every start rather than recorded as a version:
+     * the unique index is added when names are case-insensitive and dropped again when they become
+     * case-sensitive, with a plain index on username_lower kept for lookups whenever it is absent.
+     */
+    private void reconcileUsernameIndex() throws SQLException {
+        Set<String> indexes = indexNames("users");
+        boolean hasUnique = indexes.contains("uk_username_lower");
+        if (!usernameCaseSensitive) {
+            if (hasUnique || addUniqueIndex("users", "uk_username_lower", "username_lower")) {
+                dropIndexIfExists("users", "idx_username_lower");
+            } else {
+                addIndexes("users", "INDEX idx_username_lower (username_lower)");
+            }
+            return;
+        }
+        // Add the plain index before dropping the unique one so lookups stay indexed throughout
+        addIndexes("users", "INDEX idx_username_lower (username_lower)");
+        if (hasUnique) {
+            dropIndexIfExists("users", "uk_username_lower");
+        }
+    }
+
+    private boolean addColumnIfMissing(Statement stmt, Set<String> columns, String column, String definition) throws SQLException {
+        if (columns.contains(column.toLowerCase(Locale.ROOT))) {
+            return false;
+        }
+        stmt.executeUpdate("ALTER TABLE users ADD COLUMN " + column + " " + definition);
+        debugLog("Added " + column + " column to users table");
+        return true;
+    }
+
+    /**
+     * Add the indexes that do not exist yet in one ALTER TABLE, without blocking writes where supported
+     * @param table Table name
+     * @param definitions Index definitions such as "INDEX idx_name (col)"
+     */
+    private void addIndexes(String table, String... definitions) throws SQLException {
+        Set<String> existing = indexNames(table);
+        List<String> missing = new ArrayList<>();
+        for (String definition : definitions) {
+            String name = definition.split("\\s+")[1];
+            if (!existing.contains(name.toLowerCase(Locale.ROOT))) {
+                missing.add(definition);
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        List<String> clauses = new ArrayList<>();
+        for (String definition : missing) {
+            clauses.add("ADD " + definition);
+        }
+        try (Statement stmt = conn.createStatement()) {
+            try {
+                // Online DDL: the table stays writable while large indexes are built
+                stmt.executeUpdate("ALTER TABLE " + table + " " + String.join(", ", clauses) + ", ALGORITHM=INPLACE, LOCK=NONE");
+            } catch (SQLException e) {
+                // Fall back to one standard CREATE INDEX per index
+                debugLog("Online index creation not available, retrying without it: " + e.getMessage());
+                for (String definition : missing) {
+                    String[] parts = definition.split("\\s+", 3);
+                    String kind = parts[0].equalsIgnoreCase("UNIQUE") ? "UNIQUE INDEX" : "INDEX";
+                    stmt.executeUpdate("CREATE " + kind + " " + parts[1] + " ON " + table + " " + parts[2]);
+                }
+            }
+        }
+        debugLog("Added indexes on " + table + ": " + clauses);
+    }
+
+    private boolean addUniqueIndex(String table, String indexName, String column) {
+        try {
+            addIndexes(table, "UNIQUE " + indexName + " (" + column + ")");
+            return true;
+        } catch (SQLException e) {
+            // Existing rows already contain duplicate values
+            logger.warning("[VerifyMC] Could not add unique index on " + column + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void dropIndexIfExists(String table, String indexName) throws SQLException {
+        if (!indexNames(table).contains(indexName.toLowerCase(Locale.ROOT))) {
+            return;
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DROP INDEX " + indexName + " ON " + table);
+        }
+        debugLog("Dropped " + indexName + " index");
+    }
+
+    private Set<String> columnNames(String table) throws SQLException {
+        Set<String> names = new HashSet<>();
+        DatabaseMetaData meta = conn.getMetaData();
+        try (ResultSet rs = meta.getColumns(conn.getCatalog(), null, metadataName(meta, table), null)) {
+            while (rs.next()) {
+                names.add(rs.getString("COLUMN_NAME").toLowerCase(Locale.ROOT));
+            }
+        }
+        return names;
+    }
+
+    private Set<String> indexNames(String table) throws SQLException {
+        Set<String> names = new HashSet<>();
+        DatabaseMetaData meta = conn.getMetaData();
+        try (ResultSet rs = meta.getIndexInfo(conn.getCatalog(), null, metadataName(meta, table), false, true)) {
+            while (rs.next()) {
+                String name = rs.getString("INDEX_NAME");
+                if (name != null) {
+                    names.add(name.toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        return names;
+    }
+
+    private static String metadataName(DatabaseMetaData meta, String name) throws SQLException {
+        // Unquoted identifiers are stored upper case by some databases (e.g. H2)
+        return meta.storesUpperCaseIdentifiers() ? name.toUpperCase(Locale.ROOT) : name;
+    }
+
+    @FunctionalInterface
+    private interface Step {
+        void apply() throws SQLException;
+    }
+
+    private static final class Migration {
+        private final int version;
+        private final String description;
+        private final Step step;
+
+        private Migration(int version, String description, Step step) {
+            this.version = version;
+            this.description = description;
+            this.step = step;
+        }
+    }
+}
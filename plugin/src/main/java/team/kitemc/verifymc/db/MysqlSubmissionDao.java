@@ -0,0 +1,141 @@
+package team.kitemc.verifymc.db;
+
+import org.bukkit.plugin.Plugin;
+
+import java.sql.*;
+import java.util.Properties;
+
+/**
+ * MySQL submission storage in the questionnaire_submissions table.
+ * A connection closed by the server (e.g. after wait_timeout) is reopened on the next call.
+ */
+public class MysqlSubmissionDao implements SubmissionDao {
+    private final String url;
+    private final Properties mysqlConfig;
+    private final Plugin plugin;
+    private final boolean debug;
+    // Guarded by this
+    private Connection conn;
+
+    /**
+     * The questionnaire_submissions table is created by MysqlSchemaMigrator when MysqlUserDao connects
+     */
+    public MysqlSubmissionDao(Properties mysqlConfig, Plugin plugin) throws SQLException {
+        this.plugin = plugin;
+        this.debug = plugin.getConfig().getBoolean("debug", false);
+        this.mysqlConfig = mysqlConfig;
+        this.url = "jdbc:mysql://" + mysqlConfig.getProperty("host") + ":" +
+                mysqlConfig.getProperty("port") + "/" +
+                mysqlConfig.getProperty("database") + "?useSSL=false&characterEncoding=utf8";
+        conn = connection();
+    }
+
+    private void debugLog(String msg) {
+        if (debug) plugin.getLogger().info("[DEBUG] MysqlSubmissionDao: " + msg);
+    }
+
+    private Connection connection() throws SQLException {
+        if (conn == null || conn.isClosed()) {
+            conn = DriverManager.getConnection(url, mysqlConfig.getProperty("user"), mysqlConfig.getProperty("password"));
+        }
+        return conn;
+    }
+
+    /**
+     * Log a failed call and drop the connection if it is no longer usable, so the next call reconnects
+     */
+    private void failed(String action, SQLException e) {
+        plugin.getLogger().warning("[VerifyMC] Questionnaire submission store failed to " + action + ": " + e.getMessage());
+        try {
+            if (conn != null && !conn.isValid(2)) {
+                conn.close();
+            }
+        } catch (SQLException ignored) {
+        }
+    }
+
+    @Override
+    public synchronized boolean put(String token, long expiresAt, byte[] data) {
+        String sql = "INSERT INTO questionnaire_submissions (token, expires_at, data) VALUES (?, ?, ?) " +
+                "ON DUPLICATE KEY UPDATE expires_at = VALUES(expires_at), data = VALUES(data)";
+        try (PreparedStatement ps = connection().prepareStatement(sql)) {
+            ps.setString(1, token);
+            ps.setLong(2, expiresAt);
+            ps.setBytes(3, data);
+            ps.executeUpdate();
+            return true;
+        } catch (SQLException e) {
+            failed("store submission " + token, e);
+            return false;
+        }
+    }
+
+    @Override
+    public synchronized byte[] take(String token) {
+        byte[] data = null;
+        try (PreparedStatement ps = connection().prepareStatement("SELECT data FROM questionnaire_submissions WHERE token = ?")) {
+            ps.setString(1, token);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    data = rs.getBytes("data");
+                }
+            }
+            if (data == null) {
+                return null;
+            }
+            // Only the server whose DELETE removed the row may use it
+            try (PreparedStatement del = connection().prepareStatement("DELETE FROM questionnaire_submissions WHERE token = ?")) {
+                del.setString(1, token);
+                return del.executeUpdate() == 1 ? data : null;
+            }
+        } catch (SQLException e) {
+            failed("take submission " + token, e);
+            return null;
+        }
+    }
+
+    @Override
+    public synchronized int purgeExpired(long now) {
+        try (PreparedStatement ps = connection().prepareStatement("DELETE FROM questionnaire_submissions WHERE expires_at < ?")) {
+            ps.setLong(1, now);
+            return ps.executeUpdate();
+        } catch (SQLException e) {
+            failed("purge expired submissions", e);
+            return 0;
+        }
+    }
+
+    @Override
+    public synchronized int count() {
+        try (PreparedStatement ps = connection().prepareStatement("SELECT COUNT(*) FROM questionnaire_submissions");
+             ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        } catch (SQLException e) {
+            failed("count submissions", e);
+            return -1;
+        }
+    }
+
+    @Override
+    public synchronized int deleteOldest(int limit) {
+        try (PreparedStatement ps = connection().prepareStatement(
+                "DELETE FROM questionnaire_submissions ORDER BY expires_at LIMIT ?")) {
+            ps.setInt(1, limit);
+            return ps.executeUpdate();
+        } catch (SQLException e) {
+            failed("delete oldest submissions", e);
+            return 0;
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            if (conn != null) {
+                conn.close();
+            }
+        } catch (SQLException e) {
+            debugLog("Failed to close connection: " + e.getMessage());
+        }
+    }
+}
@@ -2,6 +2,7 @@ package team.kitemc.verifymc.db;
 
 import java.sql.*;
 import java.util.*;
+import java.util.function.Consumer;
 import org.bukkit.plugin.Plugin;
 
 public class MysqlUserDao implements UserDao {
@@ -9,6 +10,8 @@ public class MysqlUserDao implements UserDao {
     private final ResourceBundle messages;
     private final boolean debug;
     private final Plugin plugin;
+    // SQL -> statement prepared once on conn; only used while holding this DAO's monitor
+    private final Map<String, PreparedStatement> statementCache = new HashMap<>();
 
     public MysqlUserDao(Properties mysqlConfig, ResourceBundle messages, Plugin plugin) throws SQLException {
         this.messages = messages;
@@ -16,103 +19,59 @@ public class MysqlUserDao implements UserDao {
         this.debug = plugin.getConfig().getBoolean("debug", false);
         String url = "jdbc:mysql://" + mysqlConfig.getProperty("host") + ":" +
                 mysqlConfig.getProperty("port") + "/" +
-                mysqlConfig.getProperty("database") + "?useSSL=false&characterEncoding=utf8";
+                mysqlConfig.getProperty("database") + "?useSSL=false&characterEncoding=utf8&rewriteBatchedStatements=true";
         conn = DriverManager.getConnection(url, mysqlConfig.getProperty("user"), mysqlConfig.getProperty("password"));
-        try (Statement stmt = conn.createStatement()) {
-            // Create users table (if not exists)
-            stmt.executeUpdate("CREATE TABLE IF NOT EXISTS users (" +
-                    "uuid VARCHAR(36) PRIMARY KEY," +
-                    "username VARCHAR(32) NOT NULL," +
-                    "email VARCHAR(64)," +
-                    "status VARCHAR(16)," +
-                    "password VARCHAR(255)," +
-                    "regTime BIGINT," +
-                    "questionnaire_score INT NULL," +
-                    "questionnaire_passed BOOLEAN NULL," +
-                    "questionnaire_review_summary TEXT NULL," +
-                    "questionnaire_scored_at BIGINT NULL)");
-
-            // Compatibility handling: Check and add missing fields
-            try {
-                stmt.executeQuery("SELECT password FROM users LIMIT 1");
-                debugLog("Password column already exists in users table");
-            } catch (SQLException e) {
-                // password field doesn't exist, add it
-                stmt.executeUpdate("ALTER TABLE users ADD COLUMN password VARCHAR(255)");
-                debugLog("Added password column to users table");
-            }
-
-            // Check if regTime field exists
-            try {
-                stmt.executeQuery("SELECT regTime FROM users LIMIT 1");
-                debugLog("regTime column already exists in users table");
-            } catch (SQLException e) {
-                // regTime field doesn't exist, add it
-                stmt.executeUpdate("ALTER TABLE users ADD COLUMN regTime BIGINT");
-                debugLog("Added regTime column to users table");
-
-                // Set default regTime value for existing records
-                stmt.executeUpdate(
-                        "UPDATE users SET regTime = " + System.currentTimeMillis() + " WHERE regTime IS NULL");
-                debugLog("Updated existing records with default regTime value");
-            }
-
-            // Check if discord_id field exists
-            try {
-                stmt.executeQuery("SELECT discord_id FROM users LIMIT 1");
-                debugLog("discord_id column already exists in users table");
-            } catch (SQLException e) {
-                // discord_id field doesn't exist, add it
-                stmt.executeUpdate("ALTER TABLE users ADD COLUMN discord_id VARCHAR(64)");
-                debugLog("Added discord_id column to users table");
-            }
+        new MysqlSchemaMigrator(conn, plugin).migrate();
+    }
 
-            // Check questionnaire audit fields
-            try {
-                stmt.executeQuery("SELECT questionnaire_score FROM users LIMIT 1");
-            } catch (SQLException e) {
-                stmt.executeUpdate("ALTER TABLE users ADD COLUMN questionnaire_score INT NULL");
-                debugLog("Added questionnaire_score column to users table");
-            }
-            try {
-                stmt.executeQuery("SELECT questionnaire_passed FROM users LIMIT 1");
-            } catch (SQLException e) {
-                stmt.executeUpdate("ALTER TABLE users ADD COLUMN questionnaire_passed BOOLEAN NULL");
-                debugLog("Added questionnaire_passed column to users table");
-            }
-            try {
-                stmt.executeQuery("SELECT questionnaire_review_summary FROM users LIMIT 1");
-            } catch (SQLException e) {
-                stmt.executeUpdate("ALTER TABLE users ADD COLUMN questionnaire_review_summary TEXT NULL");
-                debugLog("Added questionnaire_review_summary column to users table");
-            }
-            try {
-                stmt.executeQuery("SELECT questionnaire_scored_at FROM users LIMIT 1");
-            } catch (SQLException e) {
-                stmt.executeUpdate("ALTER TABLE users ADD COLUMN questionnaire_scored_at BIGINT NULL");
-                debugLog("Added questionnaire_scored_at column to users table");
-            }
+    private void debugLog(String msg) {
+        if (debug)
+            plugin.getLogger().info("[DEBUG] MysqlUserDao: " + msg);
+    }
 
-            // Check and ensure indexes exist
-            ensureIndex(stmt, "idx_username", "CREATE INDEX idx_username ON users(username)");
-            ensureIndex(stmt, "idx_email", "CREATE INDEX idx_email ON users(email)");
+    /**
+     * Get a cached prepared statement for the given SQL.
+     * Callers must hold this DAO's monitor and must not close the returned statement.
+     * @param sql Statement SQL
+     * @return Prepared statement with cleared parameters
+     */
+    private PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement ps = statementCache.get(sql);
+        if (ps == null || ps.isClosed()) {
+            ps = conn.prepareStatement(sql);
+            statementCache.put(sql, ps);
         }
+        ps.clearParameters();
+        return ps;
     }
 
-    private void ensureIndex(Statement stmt, String indexName, String createIndexSql) throws SQLException {
-        try (ResultSet rs = stmt.executeQuery("SHOW INDEX FROM users WHERE Key_name = '" + indexName + "'")) {
-            if (!rs.next()) {
-                stmt.executeUpdate(createIndexSql);
-                debugLog("Added " + indexName + " index to users table");
-            } else {
-                debugLog(indexName + " index already exists");
-            }
+    private static boolean isUuid(String value) {
+        if (value == null || value.length() != 36) {
+            return false;
+        }
+        try {
+            UUID.fromString(value);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
         }
     }
 
-    private void debugLog(String msg) {
-        if (debug)
-            plugin.getLogger().info("[DEBUG] MysqlUserDao: " + msg);
+    /**
+     * Update one column of the user identified by UUID or (case-insensitive) username.
+     * Player names can never look like a UUID, so the key picks exactly one indexed column.
+     * @param column Column to set
+     * @param value New value
+     * @param uuidOrName User UUID or username
+     * @return Number of rows updated
+     */
+    private int updateColumn(String column, String value, String uuidOrName) throws SQLException {
+        boolean byUuid = isUuid(uuidOrName);
+        PreparedStatement ps = prepare("UPDATE users SET " + column + "=? WHERE "
+                + (byUuid ? "uuid=?" : "username_lower=?"));
+        ps.setString(1, value);
+        ps.setString(2, byUuid || uuidOrName == null ? uuidOrName : uuidOrName.toLowerCase(Locale.ROOT));
+        return ps.executeUpdate();
     }
 
     @Override
@@ -124,47 +83,8 @@ public class MysqlUserDao implements UserDao {
     public synchronized boolean registerUser(String uuid, String username, String email, String status,
             Integer questionnaireScore, Boolean questionnairePassed,
             String questionnaireReviewSummary, Long questionnaireScoredAt) {
-        // First check if user already exists
-        String checkSql = "SELECT uuid FROM users WHERE uuid = ?";
-        try (PreparedStatement checkPs = conn.prepareStatement(checkSql)) {
-            checkPs.setString(1, uuid);
-            ResultSet rs = checkPs.executeQuery();
-            if (rs.next()) {
-                debugLog("User already exists with UUID: " + uuid + ", skipping registration");
-                return false;
-            }
-        } catch (SQLException e) {
-            debugLog("Error checking existing user: " + e.getMessage());
-            return false;
-        }
-
-        String sql = "INSERT INTO users (uuid, username, email, status, regTime, questionnaire_score, questionnaire_passed, questionnaire_review_summary, questionnaire_scored_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, uuid);
-            ps.setString(2, username);
-            ps.setString(3, email);
-            ps.setString(4, status);
-            ps.setLong(5, System.currentTimeMillis());
-            if (questionnaireScore != null)
-                ps.setInt(6, questionnaireScore);
-            else
-                ps.setNull(6, Types.INTEGER);
-            if (questionnairePassed != null)
-                ps.setBoolean(7, questionnairePassed);
-            else
-                ps.setNull(7, Types.BOOLEAN);
-            ps.setString(8, questionnaireReviewSummary);
-            if (questionnaireScoredAt != null)
-                ps.setLong(9, questionnaireScoredAt);
-            else
-                ps.setNull(9, Types.BIGINT);
-            ps.executeUpdate();
-            debugLog("User registered: " + username);
-            return true;
-        } catch (SQLException e) {
-            debugLog(messages.getString("storage.migrate.fail").replace("{0}", e.getMessage()));
-            return false;
-        }
+        return registerUser(uuid, username, email, status, null, questionnaireScore, questionnairePassed,
+                questionnaireReviewSummary, questionnaireScoredAt);
     }
 
     @Override
@@ -176,22 +96,11 @@ public class MysqlUserDao implements UserDao {
     public synchronized boolean registerUser(String uuid, String username, String email, String status, String password,
             Integer questionnaireScore, Boolean questionnairePassed,
             String questionnaireReviewSummary, Long questionnaireScoredAt) {
-        // First check if user already exists
-        String checkSql = "SELECT uuid FROM users WHERE uuid = ?";
-        try (PreparedStatement checkPs = conn.prepareStatement(checkSql)) {
-            checkPs.setString(1, uuid);
-            ResultSet rs = checkPs.executeQuery();
-            if (rs.next()) {
-                debugLog("User already exists with UUID: " + uuid + ", skipping registration");
-                return false;
-            }
-        } catch (SQLException e) {
-            debugLog("Error checking existing user: " + e.getMessage());
-            return false;
-        }
-
+        // A duplicate uuid (or lowercase username, when unique) is rejected by the key constraint,
+        // so existence check and insert are one round trip and cannot race
         String sql = "INSERT INTO users (uuid, username, email, status, password, regTime, questionnaire_score, questionnaire_passed, questionnaire_review_summary, questionnaire_scored_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try {
+            PreparedStatement ps = prepare(sql);
             ps.setString(1, uuid);
             ps.setString(2, username);
             ps.setString(3, email);
@@ -214,6 +123,9 @@ public class MysqlUserDao implements UserDao {
             ps.executeUpdate();
             debugLog("User registered with password: " + username);
             return true;
+        } catch (SQLIntegrityConstraintViolationException e) {
+            debugLog("User already exists with UUID: " + uuid + " or username: " + username + ", skipping registration");
+            return false;
         } catch (SQLException e) {
             debugLog(messages.getString("storage.migrate.fail").replace("{0}", e.getMessage()));
             return false;
@@ -222,12 +134,8 @@ public class MysqlUserDao implements UserDao {
 
     @Override
     public synchronized boolean updateUserStatus(String uuidOrName, String status) {
-        String sql = "UPDATE users SET status=? WHERE uuid=? OR username=?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, status);
-            ps.setString(2, uuidOrName);
-            ps.setString(3, uuidOrName);
-            int rows = ps.executeUpdate();
+        try {
+            int rows = updateColumn("status", status, uuidOrName);
             debugLog("User status updated: " + uuidOrName + " to " + status);
             return rows > 0;
         } catch (SQLException e) {
@@ -236,14 +144,55 @@ public class MysqlUserDao implements UserDao {
         }
     }
 
+    @Override
+    public synchronized Set<String> updateUserStatuses(Map<String, String> statusByUuid, boolean clearPassword) {
+        Set<String> updated = new HashSet<>();
+        if (statusByUuid.isEmpty()) {
+            return updated;
+        }
+        String sql = clearPassword
+                ? "UPDATE users SET status=?, password=NULL WHERE uuid=?"
+                : "UPDATE users SET status=? WHERE uuid=?";
+        List<String> uuids = new ArrayList<>(statusByUuid.keySet());
+        boolean autoCommit = true;
+        try {
+            autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                for (String uuid : uuids) {
+                    ps.setString(1, statusByUuid.get(uuid));
+                    ps.setString(2, uuid);
+                    ps.addBatch();
+                }
+                int[] rows = ps.executeBatch();
+                for (int i = 0; i < rows.length; i++) {
+                    if (rows[i] > 0 || rows[i] == Statement.SUCCESS_NO_INFO) {
+                        updated.add(uuids.get(i));
+                    }
+                }
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            try {
+                conn.rollback();
+            } catch (SQLException ignored) {
+            }
+            updated.clear();
+            debugLog(messages.getString("storage.migrate.fail").replace("{0}", e.getMessage()));
+        } finally {
+            try {
+                conn.setAutoCommit(autoCommit);
+            } catch (SQLException ignored) {
+            }
+        }
+        debugLog("updateUserStatuses updated " + updated.size() + " of " + uuids.size() + " users");
+        return updated;
+    }
+
     @Override
     public synchronized boolean updateUserPassword(String uuidOrName, String password) {
-        String sql = "UPDATE users SET password=? WHERE uuid=? OR username=?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, password);
-            ps.setString(2, uuidOrName);
-            ps.setString(3, uuidOrName);
-            int rows = ps.executeUpdate();
+        try {
+            int rows = updateColumn("password", password, uuidOrName);
             debugLog("User password updated: " + uuidOrName);
             return rows > 0;
         } catch (SQLException e) {
@@ -255,12 +204,8 @@ public class MysqlUserDao implements UserDao {
 
     @Override
     public synchronized boolean updateUserEmail(String uuidOrName, String email) {
-        String sql = "UPDATE users SET email=? WHERE uuid=? OR username=?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, email);
-            ps.setString(2, uuidOrName);
-            ps.setString(3, uuidOrName);
-            int rows = ps.executeUpdate();
+        try {
+            int rows = updateColumn("email", email, uuidOrName);
             debugLog("User email updated: " + uuidOrName);
             return rows > 0;
         } catch (SQLException e) {
@@ -298,7 +243,7 @@ public class MysqlUserDao implements UserDao {
     @Override
     public synchronized List<Map<String, Object>> getPendingUsers() {
         List<Map<String, Object>> result = new ArrayList<>();
-        String sql = "SELECT * FROM users WHERE status='pending'";
+        String sql = "SELECT * FROM users WHERE status='pending' ORDER BY regTime";
         try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
             while (rs.next()) {
                 Map<String, Object> user = new HashMap<>();
@@ -324,7 +269,8 @@ public class MysqlUserDao implements UserDao {
     @Override
     public synchronized Map<String, Object> getUserByUuid(String uuid) {
         String sql = "SELECT * FROM users WHERE uuid=?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try {
+            PreparedStatement ps = prepare(sql);
             ps.setString(1, uuid);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
@@ -351,9 +297,10 @@ public class MysqlUserDao implements UserDao {
 
     @Override
     public synchronized Map<String, Object> getUserByUsername(String username) {
-        String sql = "SELECT * FROM users WHERE LOWER(username)=LOWER(?)";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, username);
+        String sql = "SELECT * FROM users WHERE username_lower=?";
+        try {
+            PreparedStatement ps = prepare(sql);
+            ps.setString(1, username == null ? null : username.toLowerCase(Locale.ROOT));
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
                     Map<String, Object> user = new HashMap<>();
@@ -378,11 +325,54 @@ public class MysqlUserDao implements UserDao {
     }
 
     @Override
-    public synchronized boolean deleteUser(String uuidOrName) {
-        String sql = "DELETE FROM users WHERE uuid=? OR username=?";
+    public synchronized Map<String, Map<String, Object>> getUsersByUsernames(Collection<String> usernames) {
+        Map<String, Map<String, Object>> result = new HashMap<>();
+        Set<String> keys = new LinkedHashSet<>();
+        for (String username : usernames) {
+            if (username != null) {
+                keys.add(username.toLowerCase(Locale.ROOT));
+            }
+        }
+        if (keys.isEmpty()) {
+            return result;
+        }
+        String sql = "SELECT * FROM users WHERE username_lower IN ("
+                + String.join(",", Collections.nCopies(keys.size(), "?")) + ")";
         try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, uuidOrName);
-            ps.setString(2, uuidOrName);
+            int index = 1;
+            for (String key : keys) {
+                ps.setString(index++, key);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Map<String, Object> user = new HashMap<>();
+                    user.put("uuid", rs.getString("uuid"));
+                    user.put("username", rs.getString("username"));
+                    user.put("email", rs.getString("email"));
+                    user.put("status", rs.getString("status"));
+                    user.put("password", rs.getString("password"));
+                    user.put("regTime", rs.getLong("regTime"));
+                    user.put("discord_id", rs.getString("discord_id"));
+                    user.put("questionnaire_score", rs.getObject("questionnaire_score"));
+                    user.put("questionnaire_passed", rs.getObject("questionnaire_passed"));
+                    user.put("questionnaire_review_summary", rs.getString("questionnaire_review_summary"));
+                    user.put("questionnaire_scored_at", rs.getObject("questionnaire_scored_at"));
+                    result.putIfAbsent(rs.getString("username_lower"), user);
+                }
+            }
+        } catch (SQLException e) {
+            debugLog(messages.getString("storage.migrate.fail").replace("{0}", e.getMessage()));
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized boolean deleteUser(String uuidOrName) {
+        boolean byUuid = isUuid(uuidOrName);
+        String sql = "DELETE FROM users WHERE " + (byUuid ? "uuid=?" : "username_lower=?");
+        try {
+            PreparedStatement ps = prepare(sql);
+            ps.setString(1, byUuid || uuidOrName == null ? uuidOrName : uuidOrName.toLowerCase(Locale.ROOT));
             int rows = ps.executeUpdate();
             debugLog("User deleted: " + uuidOrName);
             return rows > 0;
@@ -392,11 +382,259 @@ public class MysqlUserDao implements UserDao {
         }
     }
 
+    /**
+     * Append changed user keys to the shared changelog
+     * @param userKeys UUIDs or lowercase usernames of changed users
+     */
+    public synchronized void logChanges(Collection<String> userKeys) {
+        if (userKeys.isEmpty()) {
+            return;
+        }
+        try {
+            PreparedStatement ps = prepare("INSERT INTO users_changelog (user_key, changed_at) VALUES (?, ?)");
+            long now = System.currentTimeMillis();
+            for (String key : userKeys) {
+                ps.setString(1, key);
+                ps.setLong(2, now);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        } catch (SQLException e) {
+            // Other servers keep these users cached until the cache TTL expires
+            plugin.getLogger().warning("[VerifyMC] Failed to write users_changelog: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Latest changelog sequence number
+     * @return Highest seq, or 0 if the changelog is empty
+     * @throws SQLException if the changelog cannot be read
+     */
+    public synchronized long getLatestChangeSeq() throws SQLException {
+        try (ResultSet rs = prepare("SELECT COALESCE(MAX(seq), 0) FROM users_changelog").executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0L;
+        }
+    }
+
+    /**
+     * Read changelog entries after the given sequence number
+     * @param afterSeq Last sequence number already processed
+     * @param limit Maximum number of entries to read
+     * @param changes Receives sequence number -> changed user key, in sequence order
+     * @throws SQLException if the changelog cannot be read
+     */
+    public synchronized void readChangesAfter(long afterSeq, int limit, Map<Long, String> changes) throws SQLException {
+        PreparedStatement ps = prepare("SELECT seq, user_key FROM users_changelog WHERE seq > ? ORDER BY seq LIMIT ?");
+        ps.setLong(1, afterSeq);
+        ps.setInt(2, limit);
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                changes.put(rs.getLong(1), rs.getString(2));
+            }
+        }
+    }
+
+    /**
+     * Read the changelog entries with the given sequence numbers, if they exist by now
+     * @param seqs Sequence numbers to look up
+     * @param changes Receives sequence number -> changed user key
+     * @throws SQLException if the changelog cannot be read
+     */
+    public synchronized void readChanges(Collection<Long> seqs, Map<Long, String> changes) throws SQLException {
+        if (seqs.isEmpty()) {
+            return;
+        }
+        String sql = "SELECT seq, user_key FROM users_changelog WHERE seq IN ("
+                + String.join(",", Collections.nCopies(seqs.size(), "?")) + ")";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            int index = 1;
+            for (Long seq : seqs) {
+                ps.setLong(index++, seq);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    changes.put(rs.getLong(1), rs.getString(2));
+                }
+            }
+        }
+    }
+
+    /**
+     * Delete changelog entries older than the given time
+     * @param olderThan Epoch millis cutoff
+     */
+    public synchronized void pruneChangelog(long olderThan) {
+        try {
+            PreparedStatement ps = prepare("DELETE FROM users_changelog WHERE changed_at < ?");
+            ps.setLong(1, olderThan);
+            int rows = ps.executeUpdate();
+            debugLog("Pruned " + rows + " users_changelog rows");
+        } catch (SQLException e) {
+            debugLog("Failed to prune users_changelog: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized List<Map<String, Object>> getUsersAfter(String afterUuid, int limit) {
+        try {
+            return selectUsersAfter(afterUuid, limit);
+        } catch (SQLException e) {
+            debugLog(messages.getString("storage.migrate.fail").replace("{0}", e.getMessage()));
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Same walk as the default, but a failed chunk is reported instead of ending the walk early
+     */
+    @Override
+    public void forEachUser(Consumer<Map<String, Object>> action) {
+        final int chunkSize = 500;
+        String after = null;
+        while (true) {
+            List<Map<String, Object>> chunk;
+            synchronized (this) {
+                try {
+                    chunk = selectUsersAfter(after, chunkSize);
+                } catch (SQLException e) {
+                    throw new StorageException("Failed to read users", e);
+                }
+            }
+            for (Map<String, Object> user : chunk) {
+                action.accept(user);
+            }
+            if (chunk.size() < chunkSize) {
+                return;
+            }
+            after = String.valueOf(chunk.get(chunk.size() - 1).get("uuid"));
+        }
+    }
+
+    private List<Map<String, Object>> selectUsersAfter(String afterUuid, int limit) throws SQLException {
+        List<Map<String, Object>> result = new ArrayList<>();
+        String sql = afterUuid != null
+                ? "SELECT * FROM users WHERE uuid > ? ORDER BY uuid LIMIT ?"
+                : "SELECT * FROM users ORDER BY uuid LIMIT ?";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            int index = 1;
+            if (afterUuid != null) {
+                ps.setString(index++, afterUuid);
+            }
+            ps.setInt(index, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Map<String, Object> user = new HashMap<>();
+                    user.put("uuid", rs.getString("uuid"));
+                    user.put("username", rs.getString("username"));
+                    user.put("email", rs.getString("email"));
+                    user.put("status", rs.getString("status"));
+                    user.put("password", rs.getString("password"));
+                    user.put("regTime", rs.getLong("regTime"));
+                    user.put("discord_id", rs.getString("discord_id"));
+                    user.put("questionnaire_score", rs.getObject("questionnaire_score"));
+                    user.put("questionnaire_passed", rs.getObject("questionnaire_passed"));
+                    user.put("questionnaire_review_summary", rs.getString("questionnaire_review_summary"));
+                    user.put("questionnaire_scored_at", rs.getObject("questionnaire_scored_at"));
+                    result.add(user);
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized int upsertUsers(List<Map<String, Object>> batch) {
+        String sql = "INSERT INTO users (uuid, username, email, status, password, regTime, discord_id, " +
+                "questionnaire_score, questionnaire_passed, questionnaire_review_summary, questionnaire_scored_at) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE " +
+                "username=VALUES(username), email=COALESCE(VALUES(email), email), status=COALESCE(VALUES(status), status), " +
+                "password=COALESCE(VALUES(password), password), regTime=COALESCE(?, regTime), " +
+                "discord_id=COALESCE(VALUES(discord_id), discord_id), " +
+                "questionnaire_score=COALESCE(VALUES(questionnaire_score), questionnaire_score), " +
+                "questionnaire_passed=COALESCE(VALUES(questionnaire_passed), questionnaire_passed), " +
+                "questionnaire_review_summary=COALESCE(VALUES(questionnaire_review_summary), questionnaire_review_summary), " +
+                "questionnaire_scored_at=COALESCE(VALUES(questionnaire_scored_at), questionnaire_scored_at)";
+        int changed = 0;
+        boolean autoCommit = true;
+        try {
+            autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                int queued = 0;
+                for (Map<String, Object> user : batch) {
+                    if (user.get("uuid") == null || user.get("username") == null) {
+                        continue;
+                    }
+                    Object regTime = user.get("regTime");
+                    ps.setString(1, user.get("uuid").toString());
+                    ps.setString(2, user.get("username").toString());
+                    ps.setObject(3, user.get("email"));
+                    ps.setObject(4, user.get("status"));
+                    ps.setObject(5, user.get("password"));
+                    ps.setObject(6, regTime != null ? regTime : System.currentTimeMillis());
+                    ps.setObject(7, user.get("discord_id"));
+                    ps.setObject(8, user.get("questionnaire_score"));
+                    ps.setObject(9, user.get("questionnaire_passed"));
+                    ps.setObject(10, user.get("questionnaire_review_summary"));
+                    ps.setObject(11, user.get("questionnaire_scored_at"));
+                    ps.setObject(12, regTime);
+                    ps.addBatch();
+                    queued++;
+                }
+                if (queued > 0) {
+                    for (int rows : ps.executeBatch()) {
+                        if (rows > 0 || rows == Statement.SUCCESS_NO_INFO) {
+                            changed++;
+                        }
+                    }
+                }
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            try {
+                conn.rollback();
+            } catch (SQLException ignored) {
+            }
+            changed = -1;
+            debugLog(messages.getString("storage.migrate.fail").replace("{0}", e.getMessage()));
+        } finally {
+            try {
+                conn.setAutoCommit(autoCommit);
+            } catch (SQLException ignored) {
+            }
+        }
+        debugLog("upsertUsers changed " + changed + " users");
+        return changed;
+    }
+
+    @Override
+    public synchronized boolean hasUsernameCaseConflict(String username) {
+        if (username == null) {
+            return false;
+        }
+        String sql = "SELECT username FROM users WHERE username_lower=?";
+        try {
+            PreparedStatement ps = prepare(sql);
+            ps.setString(1, username.toLowerCase(Locale.ROOT));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (!username.equals(rs.getString("username"))) {
+                        return true;
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            debugLog(messages.getString("storage.migrate.fail").replace("{0}", e.getMessage()));
+        }
+        return false;
+    }
+
     @Override
     public synchronized int countUsersByEmail(String email) {
         int count = 0;
         String sql = "SELECT COUNT(*) FROM users WHERE LOWER(email)=LOWER(?)";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try {
+            PreparedStatement ps = prepare(sql);
             ps.setString(1, email);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
@@ -687,15 +925,124 @@ public class MysqlUserDao implements UserDao {
         return result;
     }
 
+    private static UserSummary readSummary(ResultSet rs, boolean withReviewSummary) throws SQLException {
+        int score = rs.getInt("questionnaire_score");
+        Integer questionnaireScore = rs.wasNull() ? null : score;
+        return new UserSummary(rs.getString("uuid"), rs.getString("username"), rs.getString("email"),
+                rs.getString("status"), rs.getLong("regTime"), questionnaireScore,
+                withReviewSummary ? rs.getString("questionnaire_review_summary") : null);
+    }
+
+    @Override
+    public synchronized List<UserSummary> getPendingUserSummaries() {
+        List<UserSummary> result = new ArrayList<>();
+        String sql = "SELECT " + UserSummary.REVIEW_COLUMNS + " FROM users WHERE status='pending' ORDER BY regTime";
+        try {
+            PreparedStatement ps = prepare(sql);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    result.add(readSummary(rs, true));
+                }
+            }
+        } catch (SQLException e) {
+            debugLog("Error getting pending user summaries: " + e.getMessage());
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized List<UserSummary> getApprovedUserSummaries(int page, int pageSize, String searchQuery) {
+        List<UserSummary> result = new ArrayList<>();
+        boolean search = searchQuery != null && !searchQuery.trim().isEmpty();
+        String sql = "SELECT " + UserSummary.LIST_COLUMNS + " FROM users WHERE status != 'pending'"
+                + (search ? " AND (LOWER(username) LIKE LOWER(?) OR LOWER(email) LIKE LOWER(?))" : "")
+                + " ORDER BY regTime DESC LIMIT ? OFFSET ?";
+        try {
+            PreparedStatement ps = prepare(sql);
+            int index = 1;
+            if (search) {
+                String searchPattern = "%" + searchQuery.trim() + "%";
+                ps.setString(index++, searchPattern);
+                ps.setString(index++, searchPattern);
+            }
+            ps.setInt(index++, pageSize);
+            ps.setInt(index, (page - 1) * pageSize);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    result.add(readSummary(rs, false));
+                }
+            }
+        } catch (SQLException e) {
+            debugLog("Error getting approved user summaries: " + e.getMessage());
+        }
+        debugLog("Returning " + result.size() + " approved user summaries for page " + page);
+        return result;
+    }
+
+    /**
+     * Same walk as forEachUser, reading only the list columns. The monitor is released between chunks.
+     */
+    @Override
+    public void forEachUserSummary(Consumer<UserSummary> action) {
+        final int chunkSize = 500;
+        String after = null;
+        while (true) {
+            List<UserSummary> chunk;
+            try {
+                chunk = getUserSummariesAfter(after, chunkSize);
+            } catch (SQLException e) {
+                throw new StorageException("Failed to read users", e);
+            }
+            for (UserSummary user : chunk) {
+                action.accept(user);
+            }
+            if (chunk.size() < chunkSize) {
+                return;
+            }
+            after = chunk.get(chunk.size() - 1).getUuid();
+        }
+    }
+
+    private synchronized List<UserSummary> getUserSummariesAfter(String afterUuid, int limit) throws SQLException {
+        List<UserSummary> result = new ArrayList<>();
+        String sql = "SELECT " + UserSummary.LIST_COLUMNS + " FROM users"
+                + (afterUuid != null ? " WHERE uuid > ?" : "") + " ORDER BY uuid LIMIT ?";
+        PreparedStatement ps = prepare(sql);
+        int index = 1;
+        if (afterUuid != null) {
+            ps.setString(index++, afterUuid);
+        }
+        ps.setInt(index, limit);
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                result.add(readSummary(rs, false));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized boolean isApprovedUsername(String username) {
+        if (username == null) {
+            return false;
+        }
+        try {
+            PreparedStatement ps = prepare("SELECT 1 FROM users WHERE username_lower=? AND status='approved' LIMIT 1");
+            ps.setString(1, username.toLowerCase(Locale.ROOT));
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        } catch (SQLException e) {
+            debugLog("Error checking user status: " + e.getMessage());
+            return false;
+        }
+    }
+
     @Override
     public synchronized boolean updateUserDiscordId(String uuidOrName, String discordId) {
         debugLog("updateUserDiscordId called: uuidOrName=" + uuidOrName + ", discordId=" + discordId);
-        String sql = "UPDATE users SET discord_id=? WHERE uuid=? OR LOWER(username)=LOWER(?)";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, discordId);
-            ps.setString(2, uuidOrName);
-            ps.setString(3, uuidOrName);
-            int rows = ps.executeUpdate();
+        try {
+            int rows = updateColumn("discord_id", discordId, uuidOrName);
             debugLog("User Discord ID updated: " + uuidOrName + " -> " + discordId + ", rows affected: " + rows);
             return rows > 0;
         } catch (SQLException e) {
@@ -708,7 +1055,8 @@ public class MysqlUserDao implements UserDao {
     public synchronized Map<String, Object> getUserByDiscordId(String discordId) {
         debugLog("Getting user by Discord ID: " + discordId);
         String sql = "SELECT * FROM users WHERE discord_id=?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try {
+            PreparedStatement ps = prepare(sql);
             ps.setString(1, discordId);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
@@ -738,6 +1086,15 @@ public class MysqlUserDao implements UserDao {
     @Override
     public synchronized boolean isDiscordIdLinked(String discordId) {
         debugLog("Checking if Discord ID is linked: " + discordId);
-        return getUserByDiscordId(discordId) != null;
+        try {
+            PreparedStatement ps = prepare("SELECT 1 FROM users WHERE discord_id=? LIMIT 1");
+            ps.setString(1, discordId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        } catch (SQLException e) {
+            debugLog("Error checking Discord ID: " + e.getMessage());
+            return false;
+        }
     }
 }
@@ -0,0 +1,11 @@
+package team.kitemc.verifymc.db;
+
+/**
+ * Thrown by streaming DAO walks when the storage backend fails part way through,
+ * so callers cannot mistake a truncated walk for a complete one
+ */
+public class StorageException extends RuntimeException {
+    public StorageException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
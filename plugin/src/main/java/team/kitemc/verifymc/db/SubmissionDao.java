@@ -0,0 +1,49 @@
+package team.kitemc.verifymc.db;
+
+/**
+ * Persistent storage for encoded questionnaire submissions, keyed by submission token.
+ * Records are opaque bytes; each one can be taken at most once.
+ */
+public interface SubmissionDao {
+    /**
+     * Store a submission
+     * @param token Submission token
+     * @param expiresAt Expiry time in epoch milliseconds
+     * @param data Encoded submission
+     * @return true if stored
+     */
+    boolean put(String token, long expiresAt, byte[] data);
+
+    /**
+     * Remove and return a submission
+     * @param token Submission token
+     * @return Encoded submission, or null if unknown or already taken
+     */
+    byte[] take(String token);
+
+    /**
+     * Delete submissions that expired before the given time
+     * @param now Current time in epoch milliseconds
+     * @return Number of deleted submissions
+     */
+    int purgeExpired(long now);
+
+    /**
+     * Number of stored submissions, including expired ones not purged yet
+     * @return Count, or -1 if it cannot be read
+     */
+    int count();
+
+    /**
+     * Delete the submissions that expire first, to make room when the store is full
+     * @param limit Maximum number of submissions to delete
+     * @return Number of deleted submissions
+     */
+    int deleteOldest(int limit);
+
+    /**
+     * Release the backend's resources; the DAO must not be used afterwards
+     */
+    default void close() {
+    }
+}
@@ -1,7 +1,13 @@
 package team.kitemc.verifymc.db;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface UserDao {
     /**
@@ -47,6 +53,14 @@ public interface UserDao {
      */
     boolean updateUserStatus(String uuidOrName, String status);
     
+    /**
+     * Set the status of several users in one write, applied as a single transaction where the backend supports it
+     * @param statusByUuid User UUID -> new status
+     * @param clearPassword Whether to clear the stored password of the updated users as well
+     * @return UUIDs of the users that were updated; empty if the write failed
+     */
+    Set<String> updateUserStatuses(Map<String, String> statusByUuid, boolean clearPassword);
+    
     /**
      * Update user password
      * @param uuidOrName User UUID or username
@@ -142,6 +156,22 @@ public interface UserDao {
      * @return User data map
      */
     Map<String, Object> getUserByUsername(String username);
+
+    /**
+     * Get several users by username in one lookup
+     * @param usernames Usernames, matched ignoring case
+     * @return Lowercase username -> user data map, only for registered users
+     */
+    default Map<String, Map<String, Object>> getUsersByUsernames(Collection<String> usernames) {
+        Map<String, Map<String, Object>> result = new HashMap<>();
+        for (String username : usernames) {
+            Map<String, Object> user = getUserByUsername(username);
+            if (user != null) {
+                result.put(username.toLowerCase(Locale.ROOT), user);
+            }
+        }
+        return result;
+    }
     
     /**
      * Delete user
@@ -155,6 +185,51 @@ public interface UserDao {
      */
     void save();
     
+    /**
+     * Get a chunk of users ordered by UUID, starting after the given UUID (keyset pagination).
+     * Used to stream the whole table without loading it at once.
+     * @param afterUuid Last UUID of the previous chunk, or null to start from the beginning
+     * @param limit Maximum number of users to return
+     * @return Users in UUID order
+     */
+    List<Map<String, Object>> getUsersAfter(String afterUuid, int limit);
+
+    /**
+     * Visit every user without building a list of the whole table.
+     * The default walks the table in getUsersAfter chunks, so only one chunk is held at a time.
+     * @param action Called with a copy of each user; the order is unspecified
+     * @throws StorageException if the backend fails part way; users already visited are not undone
+     */
+    default void forEachUser(Consumer<Map<String, Object>> action) {
+        final int chunkSize = 500;
+        String after = null;
+        while (true) {
+            List<Map<String, Object>> chunk = getUsersAfter(after, chunkSize);
+            for (Map<String, Object> user : chunk) {
+                action.accept(user);
+            }
+            if (chunk.size() < chunkSize) {
+                return;
+            }
+            after = String.valueOf(chunk.get(chunk.size() - 1).get("uuid"));
+        }
+    }
+
+    /**
+     * Insert or update several users in one write.
+     * New users are inserted with the given fields; for existing users only non-null fields are updated.
+     * @param users User maps, each with at least uuid and username
+     * @return Number of users inserted or changed, or -1 if the write failed
+     */
+    int upsertUsers(List<Map<String, Object>> users);
+    
+    /**
+     * Check whether a username is already taken with different letter case
+     * @param username Username to check
+     * @return true if another user has the same name ignoring case but not exactly
+     */
+    boolean hasUsernameCaseConflict(String username);
+    
     /**
      * Count users by email
      * @param email Email address
@@ -167,6 +242,60 @@ public interface UserDao {
      * @return List of pending users
      */
     List<Map<String, Object>> getPendingUsers();
+
+    /**
+     * Get the pending review list without password hashes, oldest registration first
+     * @return Pending users with their questionnaire score and review summary
+     */
+    default List<UserSummary> getPendingUserSummaries() {
+        List<UserSummary> result = new ArrayList<>();
+        for (Map<String, Object> user : getPendingUsers()) {
+            result.add(UserSummary.of(user, true));
+        }
+        return result;
+    }
+
+    /**
+     * Get a page of non-pending users without password hashes or review summaries, newest first
+     * @param page Page number (1-based)
+     * @param pageSize Number of users per page
+     * @param searchQuery Username or email fragment, or null/empty for no filter
+     * @return Page of user summaries
+     */
+    default List<UserSummary> getApprovedUserSummaries(int page, int pageSize, String searchQuery) {
+        List<UserSummary> result = new ArrayList<>();
+        for (Map<String, Object> user : getApprovedUsersWithPaginationAndSearch(page, pageSize, searchQuery)) {
+            result.add(UserSummary.of(user, false));
+        }
+        return result;
+    }
+
+    /**
+     * Visit every user as a list row, without password hashes or review summaries
+     * @param action Called with each user; the order is unspecified
+     * @throws StorageException if the backend fails part way; users already visited are not undone
+     */
+    default void forEachUserSummary(Consumer<UserSummary> action) {
+        forEachUser(user -> action.accept(UserSummary.of(user, false)));
+    }
+
+    /**
+     * Login check: whether any user with this name is approved. With case-sensitive usernames
+     * several case variants may exist, and a pending or rejected one must not hide an approved one.
+     * @param username Username, matched ignoring case
+     * @return true if at least one matching user is approved
+     */
+    default boolean isApprovedUsername(String username) {
+        if (username == null) {
+            return false;
+        }
+        for (Map<String, Object> user : getAllUsers()) {
+            if (username.equalsIgnoreCase((String) user.get("username")) && "approved".equals(user.get("status"))) {
+                return true;
+            }
+        }
+        return false;
+    }
     
     /**
      * Update user's Discord ID
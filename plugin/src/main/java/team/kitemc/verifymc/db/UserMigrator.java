@@ -0,0 +1,204 @@
+package team.kitemc.verifymc.db;
+
+import com.google.gson.Gson;
+import org.bukkit.plugin.Plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.TreeMap;
+
+/**
+ * Copies users between storage backends.
+ * Source users are streamed in UUID-ordered chunks and written with batched upserts, so every
+ * column is preserved and memory stays bounded. Progress is checkpointed to a state file after
+ * each write, and an interrupted migration resumes from the last written UUID.
+ * A completed migration records a hash of the source users; it is only skipped while a read-only
+ * pass over the source still produces the same hash.
+ */
+public class UserMigrator {
+    private final Plugin plugin;
+    private final ResourceBundle messages;
+    private final File stateFile;
+    private final Gson gson = new Gson();
+    private final boolean debug;
+
+    public UserMigrator(Plugin plugin, ResourceBundle messages, File stateFile) {
+        this.plugin = plugin;
+        this.messages = messages;
+        this.stateFile = stateFile;
+        this.debug = plugin.getConfig().getBoolean("debug", false);
+    }
+
+    private void debugLog(String msg) {
+        if (debug) plugin.getLogger().info("[DEBUG] UserMigrator: " + msg);
+    }
+
+    /**
+     * Migrate all users from source to target unless the same migration already completed
+     * and the source users are unchanged since.
+     * File targets are written once at the end, since every file write rewrites the whole file.
+     * @param source DAO to read from
+     * @param target DAO to write to
+     * @param direction Migration name used to match the checkpoint, e.g. "data->mysql"
+     * @return true if the migration completed (or was already complete)
+     */
+    public boolean migrate(UserDao source, UserDao target, String direction) {
+        int total = source.getTotalUserCount();
+        int batchSize = Math.max(1, plugin.getConfig().getInt("storage.migration_batch_size", 1000));
+        State state = loadState();
+        if (state == null || !direction.equals(state.direction)) {
+            state = new State();
+            state.direction = direction;
+        } else if (state.completed && state.migrated == total && state.fingerprint != null
+                && state.fingerprint.equals(fingerprint(source, batchSize))) {
+            debugLog("Migration " + direction + " already completed, skipping");
+            return true;
+        } else if (state.completed) {
+            // Source changed since the last run: copy everything again, upserts make this safe
+            state.lastUuid = null;
+            state.migrated = 0;
+        }
+        state.completed = false;
+        state.fingerprint = null;
+
+        boolean bufferAll = target instanceof FileUserDao;
+        List<Map<String, Object>> buffer = new ArrayList<>();
+        long startedAt = System.currentTimeMillis();
+        long lastReport = startedAt;
+        String after = state.lastUuid;
+        int copied = 0;
+        debugLog("Migration " + direction + " starting after " + after + ", " + total + " source users");
+
+        while (true) {
+            List<Map<String, Object>> chunk = source.getUsersAfter(after, batchSize);
+            if (chunk.isEmpty()) {
+                break;
+            }
+            after = String.valueOf(chunk.get(chunk.size() - 1).get("uuid"));
+            if (bufferAll) {
+                buffer.addAll(chunk);
+            } else if (!writeChunk(target, chunk, state, after)) {
+                return false;
+            }
+            copied += chunk.size();
+            long now = System.currentTimeMillis();
+            if (now - lastReport >= 5000) {
+                lastReport = now;
+                reportProgress(state.migrated + (bufferAll ? buffer.size() : 0), total, copied, now - startedAt);
+            }
+            if (chunk.size() < batchSize) {
+                break;
+            }
+        }
+        if (bufferAll && !buffer.isEmpty() && !writeChunk(target, buffer, state, after)) {
+            return false;
+        }
+        if (state.migrated < total) {
+            plugin.getLogger().severe(messages.getString("storage.migrate.fail")
+                .replace("{0}", "only " + state.migrated + " of " + total + " users were copied"));
+            return false;
+        }
+        // Hashed in a separate read-only pass: a resumed run has not seen the chunks copied earlier
+        state.fingerprint = fingerprint(source, batchSize);
+        state.completed = true;
+        saveState(state);
+        reportProgress(state.migrated, total, copied, System.currentTimeMillis() - startedAt);
+        plugin.getLogger().info(messages.getString("storage.migrate.success"));
+        return true;
+    }
+
+    private boolean writeChunk(UserDao target, List<Map<String, Object>> chunk, State state, String lastUuid) {
+        if (target.upsertUsers(chunk) < 0) {
+            plugin.getLogger().severe(messages.getString("storage.migrate.fail")
+                .replace("{0}", "batch write failed after " + state.lastUuid));
+            return false;
+        }
+        state.migrated += chunk.size();
+        state.lastUuid = lastUuid;
+        saveState(state);
+        return true;
+    }
+
+    /**
+     * Hash every source user in UUID order
+     * @return Hex digest, or null if it cannot be computed
+     */
+    private String fingerprint(UserDao source, int batchSize) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            return null;
+        }
+        String after = null;
+        while (true) {
+            List<Map<String, Object>> chunk = source.getUsersAfter(after, batchSize);
+            for (Map<String, Object> user : chunk) {
+                // Sorted keys so equal users always serialize the same way
+                digest.update(gson.toJson(new TreeMap<>(user)).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\n');
+            }
+            if (chunk.size() < batchSize) {
+                break;
+            }
+            after = String.valueOf(chunk.get(chunk.size() - 1).get("uuid"));
+        }
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    private void reportProgress(int migrated, int total, int copied, long elapsedMs) {
+        long rate = copied * 1000L / Math.max(1, elapsedMs);
+        plugin.getLogger().info(messages.getString("storage.migrate.progress")
+            .replace("{0}", String.valueOf(migrated))
+            .replace("{1}", String.valueOf(total))
+            .replace("{2}", String.valueOf(rate)));
+    }
+
+    private State loadState() {
+        if (!stateFile.exists()) {
+            return null;
+        }
+        try (Reader reader = Files.newBufferedReader(stateFile.toPath(), StandardCharsets.UTF_8)) {
+            return gson.fromJson(reader, State.class);
+        } catch (Exception e) {
+            debugLog("Failed to read migration state: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void saveState(State state) {
+        try {
+            stateFile.getParentFile().mkdirs();
+            try (Writer writer = Files.newBufferedWriter(stateFile.toPath(), StandardCharsets.UTF_8)) {
+                gson.toJson(state, writer);
+            }
+        } catch (IOException e) {
+            debugLog("Failed to write migration state: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Checkpoint persisted between runs
+     */
+    private static class State {
+        private String direction;
+        private String lastUuid;
+        private int migrated;
+        private boolean completed;
+        private String fingerprint;
+    }
+}
@@ -0,0 +1,87 @@
+package team.kitemc.verifymc.db;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One row of an admin user list. Holds only the columns the lists show, so list queries never
+ * read password hashes and only the review list reads the questionnaire review summary.
+ */
+public final class UserSummary {
+    /** Columns read for user lists and whitelist scans */
+    static final String LIST_COLUMNS = "uuid, username, email, status, regTime, questionnaire_score";
+    /** Columns read for the pending review list */
+    static final String REVIEW_COLUMNS = LIST_COLUMNS + ", questionnaire_review_summary";
+
+    private final String uuid;
+    private final String username;
+    private final String email;
+    private final String status;
+    private final long regTime;
+    private final Integer questionnaireScore;
+    private final String questionnaireReviewSummary;
+
+    /**
+     * @param uuid User UUID
+     * @param username Username
+     * @param email Email address, may be null
+     * @param status User status
+     * @param regTime Registration time in epoch milliseconds
+     * @param questionnaireScore Questionnaire score, or null if none
+     * @param questionnaireReviewSummary Review summary, or null if none or not part of the view
+     */
+    public UserSummary(String uuid, String username, String email, String status, long regTime,
+                       Integer questionnaireScore, String questionnaireReviewSummary) {
+        this.uuid = uuid;
+        this.username = username;
+        this.email = email;
+        this.status = status;
+        this.regTime = regTime;
+        this.questionnaireScore = questionnaireScore;
+        this.questionnaireReviewSummary = questionnaireReviewSummary;
+    }
+
+    /**
+     * Build a summary from a full user map
+     * @param user User data map
+     * @param withReviewSummary Whether to keep the questionnaire review summary
+     * @return Summary of the user
+     */
+    public static UserSummary of(Map<String, Object> user, boolean withReviewSummary) {
+        Object regTime = user.get("regTime");
+        Object score = user.get("questionnaire_score");
+        Object summary = withReviewSummary ? user.get("questionnaire_review_summary") : null;
+        return new UserSummary(
+            user.get("uuid") != null ? String.valueOf(user.get("uuid")) : null,
+            (String) user.get("username"),
+            (String) user.get("email"),
+            (String) user.get("status"),
+            regTime instanceof Number ? ((Number) regTime).longValue() : 0L,
+            score instanceof Number ? ((Number) score).intValue() : null,
+            summary != null ? String.valueOf(summary) : null);
+    }
+
+    public String getUuid() { return uuid; }
+    public String getUsername() { return username; }
+    public String getEmail() { return email; }
+    public String getStatus() { return status; }
+    public long getRegTime() { return regTime; }
+    public Integer getQuestionnaireScore() { return questionnaireScore; }
+    public String getQuestionnaireReviewSummary() { return questionnaireReviewSummary; }
+
+    /**
+     * Response form of this row, with the field names the admin panel reads
+     * @return New map; a missing email is returned as ""
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("uuid", uuid);
+        map.put("username", username);
+        map.put("email", email != null ? email : "");
+        map.put("status", status);
+        map.put("regTime", regTime);
+        map.put("questionnaire_score", questionnaireScore);
+        map.put("questionnaire_review_summary", questionnaireReviewSummary);
+        return map;
+    }
+}
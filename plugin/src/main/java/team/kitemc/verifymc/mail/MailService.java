@@ -5,6 +5,7 @@ import org.bukkit.plugin.Plugin;
 import jakarta.mail.*;
 import jakarta.mail.internet.InternetAddress;
 import jakarta.mail.internet.MimeMessage;
+import team.kitemc.verifymc.MetricsRegistry;
 import java.util.Properties;
 import java.util.function.BiFunction;
 import java.nio.file.Files;
@@ -99,7 +100,7 @@ public class MailService {
             message.setContent(content, "text/html; charset=utf-8");
             
             debugLog("Sending email");
-            Transport.send(message);
+            send(message, "verify_code");
             debugLog("Email sent successfully");
             return true;
         } catch (Exception e) {
@@ -110,6 +111,24 @@ public class MailService {
         }
     }
 
+    /**
+     * Send a message over SMTP and record the send time and failures by mail kind
+     * @param message Message to send
+     * @param kind Metric label for the kind of mail
+     */
+    private void send(Message message, String kind) throws MessagingException {
+        MetricsRegistry metrics = MetricsRegistry.global();
+        long start = System.nanoTime();
+        try {
+            Transport.send(message);
+        } catch (MessagingException e) {
+            metrics.counter("verifymc_mail_send_failures_total", "Failed SMTP sends", "kind", kind).inc();
+            throw e;
+        } finally {
+            metrics.histogram("verifymc_mail_send_seconds", "SMTP send time", "kind", kind).observeSince(start);
+        }
+    }
+
     /**
      * Send verification code email (backward compatible)
      */
@@ -232,7 +251,7 @@ public class MailService {
             message.setContent(content, "text/html; charset=utf-8");
             
             debugLog("Sending review result notification to: " + email);
-            Transport.send(message);
+            send(message, "review_result");
             debugLog("Review result notification sent successfully");
             return true;
         } catch (Exception e) {
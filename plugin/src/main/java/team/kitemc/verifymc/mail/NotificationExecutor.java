@@ -0,0 +1,181 @@
+package team.kitemc.verifymc.mail;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import org.bukkit.plugin.Plugin;
+import team.kitemc.verifymc.MetricsRegistry;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends review result mails on a fixed number of named threads with a bounded queue.
+ * When the queue is full a mail is either dropped with a warning or sent on the calling thread,
+ * depending on user_notification.overflow_policy. On shutdown the queue is drained for a short
+ * time and mails still waiting are written to disk and queued again on the next start.
+ */
+public class NotificationExecutor {
+    private static final String PENDING_FILE = "pending_notifications.json";
+
+    private final Plugin plugin;
+    private final MailService mailService;
+    private final boolean debug;
+    private final boolean callerRunsOnOverflow;
+    private final long drainTimeoutMs;
+    private final File pendingFile;
+    private final ThreadPoolExecutor executor;
+    private final Gson gson = new Gson();
+
+    public NotificationExecutor(Plugin plugin, MailService mailService) {
+        this.plugin = plugin;
+        this.mailService = mailService;
+        this.debug = plugin.getConfig().getBoolean("debug", false);
+        int threads = Math.max(1, plugin.getConfig().getInt("user_notification.threads", 2));
+        int queueSize = Math.max(1, plugin.getConfig().getInt("user_notification.queue_size", 1000));
+        this.callerRunsOnOverflow = "caller_runs".equalsIgnoreCase(
+            plugin.getConfig().getString("user_notification.overflow_policy", "drop"));
+        this.drainTimeoutMs = Math.max(0, plugin.getConfig().getLong("user_notification.shutdown_drain_seconds", 5)) * 1000L;
+        this.pendingFile = new File(plugin.getDataFolder(), PENDING_FILE);
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueSize), r -> {
+                Thread t = new Thread(r, "VerifyMC-Notification-" + threadIndex.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        MetricsRegistry.global().gauge("verifymc_notification_queue_depth", "Review result mails waiting to be sent",
+            () -> executor.getQueue().size());
+    }
+
+    private void debugLog(String msg) {
+        if (debug) plugin.getLogger().info("[DEBUG] NotificationExecutor: " + msg);
+    }
+
+    /**
+     * Queue mails left over from the previous shutdown
+     */
+    public void start() {
+        if (!pendingFile.exists()) {
+            return;
+        }
+        List<ReviewResult> pending = null;
+        try (Reader reader = Files.newBufferedReader(pendingFile.toPath(), StandardCharsets.UTF_8)) {
+            pending = gson.fromJson(reader, new TypeToken<List<ReviewResult>>(){}.getType());
+        } catch (Exception e) {
+            plugin.getLogger().warning("[VerifyMC] Failed to read " + PENDING_FILE + ": " + e.getMessage());
+        }
+        if (!pendingFile.delete()) {
+            debugLog("Could not delete " + pendingFile.getAbsolutePath());
+        }
+        if (pending != null) {
+            debugLog("Requeueing " + pending.size() + " notifications from the last shutdown");
+            for (ReviewResult result : pending) {
+                execute(result);
+            }
+        }
+    }
+
+    /**
+     * Queue a review result mail
+     * @param email User's email address
+     * @param username User's username
+     * @param approved Whether the application was approved
+     * @param reason Rejection reason
+     * @param language User's interface language
+     */
+    public void submitReviewResult(String email, String username, boolean approved, String reason, String language) {
+        execute(new ReviewResult(email, username, approved, reason, language));
+    }
+
+    private void execute(ReviewResult result) {
+        Job job = new Job(result);
+        try {
+            executor.execute(job);
+        } catch (RejectedExecutionException e) {
+            if (callerRunsOnOverflow && !executor.isShutdown()) {
+                debugLog("Queue full, sending on the calling thread");
+                job.run();
+            } else {
+                MetricsRegistry.global().counter("verifymc_notification_dropped_total",
+                    "Review result mails dropped because the queue was full").inc();
+                plugin.getLogger().warning("[VerifyMC] Notification queue is full, dropping review result mail to " + result.email);
+            }
+        }
+    }
+
+    /**
+     * Stop accepting mails, wait up to user_notification.shutdown_drain_seconds for the queue
+     * to drain and persist whatever is left
+     */
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(drainTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<ReviewResult> remaining = new ArrayList<>();
+        for (Runnable runnable : executor.shutdownNow()) {
+            if (runnable instanceof Job) {
+                remaining.add(((Job) runnable).result);
+            }
+        }
+        if (remaining.isEmpty()) {
+            return;
+        }
+        try (Writer writer = Files.newBufferedWriter(pendingFile.toPath(), StandardCharsets.UTF_8)) {
+            gson.toJson(remaining, writer);
+            plugin.getLogger().info("[VerifyMC] Saved " + remaining.size() + " pending notifications for the next start");
+        } catch (IOException e) {
+            plugin.getLogger().warning("[VerifyMC] Failed to save pending notifications: " + e.getMessage());
+        }
+    }
+
+    private class Job implements Runnable {
+        private final ReviewResult result;
+
+        private Job(ReviewResult result) {
+            this.result = result;
+        }
+
+        @Override
+        public void run() {
+            try {
+                mailService.sendReviewResultNotification(result.email, result.username, result.approved,
+                    result.reason, result.language);
+            } catch (Exception e) {
+                debugLog("Failed to send review result notification: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * One queued review result mail, persisted as JSON across restarts
+     */
+    private static final class ReviewResult {
+        private String email;
+        private String username;
+        private boolean approved;
+        private String reason;
+        private String language;
+
+        private ReviewResult(String email, String username, boolean approved, String reason, String language) {
+            this.email = email;
+            this.username = username;
+            this.approved = approved;
+            this.reason = reason;
+            this.language = language;
+        }
+    }
+}
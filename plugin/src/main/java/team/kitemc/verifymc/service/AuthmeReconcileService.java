@@ -0,0 +1,320 @@
+package team.kitemc.verifymc.service;
+
+import org.bukkit.Bukkit;
+import org.json.JSONObject;
+import team.kitemc.verifymc.TaskScheduler;
+import team.kitemc.verifymc.db.UserDao;
+import team.kitemc.verifymc.web.ReviewWebSocketServer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Reconciles AuthMe accounts into VerifyMC users in the background.
+ * The AuthMe table is read in name-ordered chunks, each chunk is diffed against the DAO
+ * (existence, password hash, email) and the differences are written back in one batch.
+ * Web requests only read local data and never wait on the AuthMe database.
+ */
+public class AuthmeReconcileService {
+    private final org.bukkit.plugin.Plugin plugin;
+    private final AuthmeService authmeService;
+    private final UserDao userDao;
+    private final ReviewWebSocketServer wsServer;
+    private final Runnable onUsersChanged;
+    private final boolean debug;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final Set<String> pendingAccounts = ConcurrentHashMap.newKeySet();
+    private volatile boolean stopped;
+    private TaskScheduler.Task task;
+    // Progress of the current or last run, guarded by this
+    private long startedAt;
+    private long finishedAt;
+    private long scanned;
+    private long created;
+    private long updated;
+    private int chunks;
+    private String lastError;
+
+    public AuthmeReconcileService(org.bukkit.plugin.Plugin plugin, AuthmeService authmeService, UserDao userDao,
+                                  ReviewWebSocketServer wsServer, Runnable onUsersChanged) {
+        this.plugin = plugin;
+        this.authmeService = authmeService;
+        this.userDao = userDao;
+        this.wsServer = wsServer;
+        this.onUsersChanged = onUsersChanged;
+        this.debug = plugin.getConfig().getBoolean("debug", false);
+    }
+
+    private void debugLog(String msg) {
+        if (debug) plugin.getLogger().info("[DEBUG] AuthmeReconcileService: " + msg);
+    }
+
+    /**
+     * Schedule periodic reconciliation if AuthMe integration and the job are enabled
+     */
+    public void start() {
+        if (!authmeService.isAuthmeEnabled() || !plugin.getConfig().getBoolean("authme.reconcile.enabled", true)) {
+            debugLog("Reconciliation disabled");
+            return;
+        }
+        long intervalTicks = Math.max(1, plugin.getConfig().getLong("authme.reconcile.interval_minutes", 10)) * 60L * 20L;
+        task = TaskScheduler.runAsyncTimer(plugin, this::runOnce, 20L, intervalTicks);
+    }
+
+    /**
+     * Stop scheduling new runs; a running pass stops after its current chunk
+     */
+    public void shutdown() {
+        stopped = true;
+        if (task != null) {
+            task.cancel();
+        }
+    }
+
+    /**
+     * Start a full pass now unless one is already running
+     * @return true if a new pass was scheduled
+     */
+    public boolean trigger() {
+        if (!authmeService.isAuthmeEnabled() || running.get()) {
+            return false;
+        }
+        TaskScheduler.runAsync(plugin, this::runOnce);
+        return true;
+    }
+
+    /**
+     * Reconcile a single account in the background, e.g. when a request sees a user that is
+     * missing or still pending locally. Duplicate requests for the same name are merged.
+     * @param username Player name
+     */
+    public void requestAccount(String username) {
+        if (!authmeService.isAuthmeEnabled() || username == null || username.trim().isEmpty()) {
+            return;
+        }
+        String key = username.trim().toLowerCase(Locale.ROOT);
+        if (!pendingAccounts.add(key)) {
+            return;
+        }
+        TaskScheduler.runAsync(plugin, () -> {
+            try {
+                AuthmeService.AuthmeAccount account = authmeService.lookupAccount(key);
+                if (account == null) {
+                    return;
+                }
+                String name = displayName(account, username.trim());
+                Map<String, Object> change = name != null ? diff(account, name, userDao.getUserByUsername(name)) : null;
+                if (change != null && userDao.upsertUsers(List.of(change)) > 0) {
+                    debugLog("Reconciled single account " + username);
+                    onUsersChanged.run();
+                }
+            } catch (Exception e) {
+                debugLog("Single account reconciliation failed: " + e.getMessage());
+            } finally {
+                pendingAccounts.remove(key);
+            }
+        });
+    }
+
+    /**
+     * Progress of the current or last pass
+     * @return Status object with counters and throughput
+     */
+    public synchronized JSONObject getStatus() {
+        JSONObject status = new JSONObject();
+        status.put("enabled", authmeService.isAuthmeEnabled());
+        status.put("running", running.get());
+        status.put("startedAt", startedAt);
+        status.put("finishedAt", finishedAt);
+        status.put("scanned", scanned);
+        status.put("created", created);
+        status.put("updated", updated);
+        status.put("chunks", chunks);
+        long end = running.get() ? System.currentTimeMillis() : finishedAt;
+        long elapsed = Math.max(1, end - startedAt);
+        status.put("rowsPerSecond", startedAt > 0 ? scanned * 1000L / elapsed : 0);
+        status.put("lastError", lastError != null ? lastError : "");
+        return status;
+    }
+
+    private void runOnce() {
+        if (stopped || !running.compareAndSet(false, true)) {
+            return;
+        }
+        synchronized (this) {
+            startedAt = System.currentTimeMillis();
+            finishedAt = 0;
+            scanned = 0;
+            created = 0;
+            updated = 0;
+            chunks = 0;
+            lastError = null;
+        }
+        publishProgress();
+        int chunkSize = Math.max(1, plugin.getConfig().getInt("authme.reconcile.chunk_size", 500));
+        String after = null;
+        try {
+            while (!stopped) {
+                List<AuthmeService.AuthmeAccount> accounts = authmeService.fetchAccountsAfter(after, chunkSize);
+                if (accounts.isEmpty()) {
+                    break;
+                }
+                after = accounts.get(accounts.size() - 1).name;
+                applyChunk(accounts);
+                publishProgress();
+                if (accounts.size() < chunkSize) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            synchronized (this) {
+                lastError = e.getMessage();
+            }
+            plugin.getLogger().warning("[VerifyMC] AuthMe reconciliation failed: " + e.getMessage());
+        } finally {
+            synchronized (this) {
+                finishedAt = System.currentTimeMillis();
+            }
+            running.set(false);
+        }
+        publishProgress();
+        debugLog("Reconciliation finished: " + getStatus());
+    }
+
+    private void applyChunk(List<AuthmeService.AuthmeAccount> accounts) {
+        Map<AuthmeService.AuthmeAccount, String> names = new LinkedHashMap<>();
+        for (AuthmeService.AuthmeAccount account : accounts) {
+            String name = displayName(account, null);
+            if (name != null) {
+                names.put(account, name);
+            }
+        }
+        Map<String, Map<String, Object>> locals = userDao.getUsersByUsernames(names.values());
+        List<Map<String, Object>> changes = new ArrayList<>();
+        int newUsers = 0;
+        for (Map.Entry<AuthmeService.AuthmeAccount, String> entry : names.entrySet()) {
+            String name = entry.getValue();
+            Map<String, Object> change = diff(entry.getKey(), name, locals.get(name.toLowerCase(Locale.ROOT)));
+            if (change != null) {
+                changes.add(change);
+                if (change.containsKey("regTime")) {
+                    newUsers++;
+                }
+            }
+        }
+        int written = changes.isEmpty() ? 0 : userDao.upsertUsers(changes);
+        if (written < 0) {
+            throw new IllegalStateException("Failed to write " + changes.size() + " reconciled users");
+        }
+        synchronized (this) {
+            scanned += accounts.size();
+            chunks++;
+            created += Math.min(newUsers, written);
+            updated += Math.max(0, written - newUsers);
+        }
+        if (written > 0) {
+            onUsersChanged.run();
+        }
+    }
+
+    /**
+     * Name a local user for an AuthMe account should have
+     * @param account AuthMe account
+     * @param requestedName Name as typed by the requester, used when AuthMe has no real name
+     * @return Player name, or null if the account has none
+     */
+    private static String displayName(AuthmeService.AuthmeAccount account, String requestedName) {
+        String name = account.realName != null && !account.realName.trim().isEmpty() ? account.realName.trim()
+            : requestedName != null ? requestedName : account.name;
+        return name == null || name.isEmpty() ? null : name;
+    }
+
+    /**
+     * Compute the local change needed for one AuthMe account
+     * @param account AuthMe account
+     * @param name Player name from displayName
+     * @param local Local user with that name, or null if there is none
+     * @return Fields to upsert, or null if the local user is already up to date
+     */
+    private Map<String, Object> diff(AuthmeService.AuthmeAccount account, String name, Map<String, Object> local) {
+        String hash = account.passwordHash != null ? account.passwordHash.trim() : "";
+        if (hash.isEmpty()) {
+            return null;
+        }
+        String email = account.email != null ? account.email.trim() : "";
+        Map<String, Object> change = new HashMap<>();
+        if (local == null) {
+            String uuid = resolveUuid(account.playerUuid, name);
+            if (uuid == null) {
+                debugLog("Skipping " + name + ": AuthMe has no UUID and the server is in online mode");
+                return null;
+            }
+            change.put("uuid", uuid);
+            change.put("username", name);
+            change.put("status", "approved");
+            change.put("password", hash);
+            change.put("email", email.isEmpty() ? null : email);
+            change.put("regTime", System.currentTimeMillis());
+            return change;
+        }
+
+        String status = local.get("status") != null ? String.valueOf(local.get("status")) : "";
+        boolean pending = "pending".equalsIgnoreCase(status);
+        if (!pending && !"approved".equalsIgnoreCase(status)) {
+            return null;
+        }
+        change.put("uuid", local.get("uuid"));
+        change.put("username", local.get("username"));
+        boolean modified = false;
+        if (pending) {
+            change.put("status", "approved");
+            modified = true;
+        }
+        if (!hash.equals(local.get("password"))) {
+            change.put("password", hash);
+            modified = true;
+        }
+        if (!email.isEmpty() && !email.equals(local.get("email"))) {
+            change.put("email", email);
+            modified = true;
+        }
+        return modified ? change : null;
+    }
+
+    /**
+     * UUID for a new user. Bukkit.getOfflinePlayer may not be called from this worker thread
+     * and could block on a profile lookup, so the offline-mode UUID is derived directly instead.
+     * @return UUID, or null if it cannot be known without a profile lookup
+     */
+    private static String resolveUuid(String authmeUuid, String name) {
+        if (authmeUuid != null && !authmeUuid.trim().isEmpty()) {
+            try {
+                return UUID.fromString(authmeUuid.trim()).toString();
+            } catch (IllegalArgumentException ignored) {
+            }
+        }
+        if (Bukkit.getOnlineMode()) {
+            return null;
+        }
+        return UUID.nameUUIDFromBytes(("OfflinePlayer:" + name).getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    private void publishProgress() {
+        if (wsServer != null) {
+            // Unsequenced: progress ticks must not push review events out of the resume history
+            JSONObject message = new JSONObject();
+            message.put("type", "authme_sync");
+            message.put("data", getStatus());
+            wsServer.broadcastMessage(message.toString());
+        }
+    }
+}
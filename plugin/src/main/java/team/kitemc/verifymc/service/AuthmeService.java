@@ -1,6 +1,8 @@
 package team.kitemc.verifymc.service;
 
+import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.plugin.Plugin;
+import team.kitemc.verifymc.ConfigSnapshot;
 
 import java.io.File;
 import java.security.SecureRandom;
@@ -12,7 +14,10 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
-import java.util.regex.Pattern;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * AuthMe integration service class
@@ -24,6 +29,14 @@ public class AuthmeService {
 
     private final Plugin plugin;
     private final boolean debug;
+    private final Map<String, CachedAccount> accountCache = new ConcurrentHashMap<>();
+    private final Object poolLock = new Object();
+    // Guarded by poolLock
+    private BlockingQueue<Connection> idleConnections;
+    private String poolKey;
+    // Database settings and the config object they were read from; re-read only after a reload
+    private volatile DatabaseSettings settings;
+    private volatile boolean closed;
 
     public AuthmeService(Plugin plugin) {
         this.plugin = plugin;
@@ -42,8 +55,7 @@ public class AuthmeService {
         if (password == null || password.trim().isEmpty()) {
             return false;
         }
-        String regex = plugin.getConfig().getString("authme.password_regex", "^[a-zA-Z0-9_]{3,16}$");
-        return Pattern.matches(regex, password);
+        return ConfigSnapshot.of(plugin).isValidPassword(password);
     }
 
     public boolean registerToAuthme(String username, String password) {
@@ -69,7 +81,8 @@ public class AuthmeService {
 
         String querySql = "SELECT 1 FROM " + table + " WHERE LOWER(" + columns.name + ")=LOWER(?) LIMIT 1";
 
-        try (Connection connection = getConnection()) {
+        try (PooledConnection pooled = getConnection()) {
+            Connection connection = pooled.connection;
             boolean exists;
             try (PreparedStatement ps = connection.prepareStatement(querySql)) {
                 ps.setString(1, loweredName);
@@ -85,6 +98,8 @@ public class AuthmeService {
         } catch (SQLException e) {
             debugLog("Failed to register user to AuthMe DB: " + e.getMessage());
             return false;
+        } finally {
+            invalidateAccount(loweredName);
         }
     }
 
@@ -102,8 +117,8 @@ public class AuthmeService {
         String loweredName = username.trim().toLowerCase(Locale.ROOT);
         String deleteSql = "DELETE FROM " + table + " WHERE LOWER(" + columns.name + ")=LOWER(?)";
 
-        try (Connection connection = getConnection();
-             PreparedStatement ps = connection.prepareStatement(deleteSql)) {
+        try (PooledConnection pooled = getConnection();
+             PreparedStatement ps = pooled.connection.prepareStatement(deleteSql)) {
             ps.setString(1, loweredName);
             int rows = ps.executeUpdate();
             debugLog("Deleted AuthMe record for " + username + ", rows=" + rows);
@@ -111,6 +126,8 @@ public class AuthmeService {
         } catch (SQLException e) {
             debugLog("Failed to unregister user from AuthMe DB: " + e.getMessage());
             return false;
+        } finally {
+            invalidateAccount(loweredName);
         }
     }
 
@@ -131,7 +148,8 @@ public class AuthmeService {
         String table = getTableName();
         ColumnConfig columns = getColumns();
 
-        try (Connection connection = getConnection()) {
+        try (PooledConnection pooled = getConnection()) {
+            Connection connection = pooled.connection;
             boolean updated = updateAuthmeRecord(connection, table, columns, loweredName, normalizedName, passwordHash, null, now);
             if (updated) {
                 return true;
@@ -142,55 +160,120 @@ public class AuthmeService {
         } catch (SQLException e) {
             debugLog("Failed to change password in AuthMe DB: " + e.getMessage());
             return false;
+        } finally {
+            invalidateAccount(loweredName);
         }
     }
 
 
 
     public String getPasswordHashFromAuthme(String username) {
+        AuthmeAccount account = lookupAccount(username);
+        return account != null ? account.passwordHash : null;
+    }
+
+    public String getEmailFromAuthme(String username) {
+        AuthmeAccount account = lookupAccount(username);
+        return account != null ? account.email : null;
+    }
+
+    /**
+     * Read the password hash, email and real name of an AuthMe account in one query.
+     * Results (including misses) are cached briefly and invalidated by this service's own writes.
+     * @param username Player name
+     * @return Account data, or null if AuthMe is disabled or the account does not exist
+     */
+    public AuthmeAccount lookupAccount(String username) {
         if (!isAuthmeEnabled() || username == null || username.trim().isEmpty()) {
             return null;
         }
+        String loweredName = username.trim().toLowerCase(Locale.ROOT);
+        long now = System.currentTimeMillis();
+        CachedAccount cached = accountCache.get(loweredName);
+        if (cached != null && cached.expiresAt > now) {
+            return cached.account;
+        }
 
         String table = getTableName();
         ColumnConfig columns = getColumns();
-        String loweredName = username.trim().toLowerCase(Locale.ROOT);
-        String sql = "SELECT " + columns.password + " FROM " + table + " WHERE LOWER(" + columns.name + ")=LOWER(?) LIMIT 1";
-        try (Connection connection = getConnection(); PreparedStatement ps = connection.prepareStatement(sql)) {
+        String emailColumn = columns.email.isEmpty() ? "NULL" : columns.email;
+        String sql = "SELECT " + columns.password + ", " + emailColumn + ", " + columns.realName
+            + " FROM " + table + " WHERE LOWER(" + columns.name + ")=LOWER(?) LIMIT 1";
+        try (PooledConnection pooled = getConnection(); PreparedStatement ps = pooled.connection.prepareStatement(sql)) {
             ps.setString(1, loweredName);
+            AuthmeAccount account = null;
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
-                    return rs.getString(1);
+                    account = new AuthmeAccount(loweredName, rs.getString(1), rs.getString(2), rs.getString(3), null);
                 }
             }
+            long ttl = Math.max(0, plugin.getConfig().getLong("authme.cache_ttl_seconds", 5)) * 1000L;
+            if (ttl > 0) {
+                accountCache.put(loweredName, new CachedAccount(account, now + ttl));
+            }
+            return account;
         } catch (SQLException e) {
-            debugLog("Failed to read AuthMe password hash: " + e.getMessage());
+            debugLog("Failed to read AuthMe account: " + e.getMessage());
         }
         return null;
     }
-    public String getEmailFromAuthme(String username) {
-        if (!isAuthmeEnabled() || username == null || username.trim().isEmpty()) {
-            return null;
-        }
 
+    /**
+     * Read a chunk of AuthMe accounts ordered by name, starting after the given name (keyset pagination).
+     * Bypasses the account cache.
+     * @param afterName Last name of the previous chunk, or null to start from the beginning
+     * @param limit Maximum number of accounts to return
+     * @return Accounts in name order; empty when AuthMe is disabled or the table is exhausted
+     * @throws SQLException if the AuthMe database cannot be read
+     */
+    public List<AuthmeAccount> fetchAccountsAfter(String afterName, int limit) throws SQLException {
+        List<AuthmeAccount> accounts = new ArrayList<>();
+        if (!isAuthmeEnabled()) {
+            return accounts;
+        }
         String table = getTableName();
         ColumnConfig columns = getColumns();
-        if (columns.email.isEmpty()) {
-            return null;
-        }
-        String loweredName = username.trim().toLowerCase(Locale.ROOT);
-        String sql = "SELECT " + columns.email + " FROM " + table + " WHERE LOWER(" + columns.name + ")=LOWER(?) LIMIT 1";
-        try (Connection connection = getConnection(); PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setString(1, loweredName);
+        String emailColumn = columns.email.isEmpty() ? "NULL" : columns.email;
+        String uuidColumn = columns.playerUuid.isEmpty() ? "NULL" : columns.playerUuid;
+        String sql = "SELECT " + columns.name + ", " + columns.password + ", " + emailColumn + ", " + columns.realName
+            + ", " + uuidColumn + " FROM " + table
+            + (afterName != null ? " WHERE " + columns.name + " > ?" : "")
+            + " ORDER BY " + columns.name + " LIMIT ?";
+        try (PooledConnection pooled = getConnection(); PreparedStatement ps = pooled.connection.prepareStatement(sql)) {
+            int index = 1;
+            if (afterName != null) {
+                ps.setString(index++, afterName);
+            }
+            ps.setInt(index, Math.max(1, limit));
             try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getString(1);
+                while (rs.next()) {
+                    accounts.add(new AuthmeAccount(rs.getString(1), rs.getString(2), rs.getString(3),
+                        rs.getString(4), rs.getString(5)));
                 }
             }
-        } catch (SQLException e) {
-            debugLog("Failed to read AuthMe email: " + e.getMessage());
         }
-        return null;
+        return accounts;
+    }
+
+    /**
+     * Drop a cached AuthMe account after a local write
+     * @param username Player name
+     */
+    public void invalidateAccount(String username) {
+        if (username != null) {
+            accountCache.remove(username.trim().toLowerCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * Close pooled connections
+     */
+    public void shutdown() {
+        closed = true;
+        synchronized (poolLock) {
+            drainPool();
+        }
+        accountCache.clear();
     }
 
     private boolean updateAuthmeRecord(Connection connection, String table, ColumnConfig columns,
@@ -281,34 +364,96 @@ public class AuthmeService {
         }
     }
 
-    private Connection getConnection() throws SQLException {
-        String dbType = plugin.getConfig().getString("authme.database.type", "mysql").toLowerCase(Locale.ROOT);
-        if ("sqlite".equals(dbType)) {
+    /**
+     * Database settings for the currently loaded config
+     * @return Settings, read again only when the config object was replaced by a reload
+     */
+    private DatabaseSettings databaseSettings() {
+        FileConfiguration config = plugin.getConfig();
+        DatabaseSettings current = settings;
+        if (current == null || current.source != config) {
+            current = new DatabaseSettings(config);
+            settings = current;
+        }
+        return current;
+    }
+
+    private PooledConnection getConnection() throws SQLException {
+        DatabaseSettings db = databaseSettings();
+        String key = db.key;
+        Connection idle = null;
+        synchronized (poolLock) {
+            if (!key.equals(poolKey)) {
+                // Database settings changed (e.g. after reload), start a fresh pool
+                drainPool();
+                idleConnections = new ArrayBlockingQueue<>(db.poolSize);
+                poolKey = key;
+                accountCache.clear();
+            }
+            idle = idleConnections.poll();
+        }
+        while (idle != null) {
+            try {
+                if (idle.isValid(2)) {
+                    return new PooledConnection(idle, key);
+                }
+            } catch (SQLException ignored) {
+            }
+            closeQuietly(idle);
+            synchronized (poolLock) {
+                idle = idleConnections.poll();
+            }
+        }
+        return new PooledConnection(openConnection(db), key);
+    }
+
+    private void releaseConnection(Connection connection, String key) {
+        synchronized (poolLock) {
+            if (!closed && key.equals(poolKey) && idleConnections.offer(connection)) {
+                return;
+            }
+        }
+        closeQuietly(connection);
+    }
+
+    private void drainPool() {
+        if (idleConnections == null) {
+            return;
+        }
+        Connection connection;
+        while ((connection = idleConnections.poll()) != null) {
+            closeQuietly(connection);
+        }
+    }
+
+    private void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    private Connection openConnection(DatabaseSettings db) throws SQLException {
+        if ("sqlite".equals(db.type)) {
             try {
                 Class.forName("org.sqlite.JDBC");
             } catch (ClassNotFoundException e) {
                 throw new SQLException("SQLite JDBC driver not found", e);
             }
-            String sqlitePath = plugin.getConfig().getString("authme.database.sqlite.path", "plugins/AuthMe/authme.db");
-            File dbFile = new File(sqlitePath);
+            File dbFile = new File(db.sqlitePath);
             if (!dbFile.isAbsolute()) {
-                dbFile = new File(plugin.getServer().getWorldContainer(), sqlitePath);
+                dbFile = new File(plugin.getServer().getWorldContainer(), db.sqlitePath);
             }
             String url = "jdbc:sqlite:" + dbFile.getAbsolutePath();
             debugLog("Connecting to AuthMe SQLite DB: " + dbFile.getAbsolutePath());
             return DriverManager.getConnection(url);
         }
 
-        String host = plugin.getConfig().getString("authme.database.mysql.host", "127.0.0.1");
-        int port = plugin.getConfig().getInt("authme.database.mysql.port", 3306);
-        String database = plugin.getConfig().getString("authme.database.mysql.database", "authme");
-        String user = plugin.getConfig().getString("authme.database.mysql.user", "root");
-        String password = plugin.getConfig().getString("authme.database.mysql.password", "");
-        String url = "jdbc:mysql://" + host + ":" + port + "/" + database
+        String url = "jdbc:mysql://" + db.host + ":" + db.port + "/" + db.database
             + "?useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=UTC&characterEncoding=utf8";
 
-        debugLog("Connecting to AuthMe MySQL DB: " + host + ":" + port + "/" + database);
-        return DriverManager.getConnection(url, user, password);
+        debugLog("Connecting to AuthMe MySQL DB: " + db.host + ":" + db.port + "/" + db.database);
+        return DriverManager.getConnection(url, db.user, db.password);
     }
 
     private String hashPassword(String plainPassword) {
@@ -395,6 +540,84 @@ public class AuthmeService {
         }
     }
 
+    /**
+     * Connection borrowed from the pool; closing returns it
+     */
+    private class PooledConnection implements AutoCloseable {
+        private final Connection connection;
+        private final String key;
+
+        private PooledConnection(Connection connection, String key) {
+            this.connection = connection;
+            this.key = key;
+        }
+
+        @Override
+        public void close() {
+            releaseConnection(connection, key);
+        }
+    }
+
+    /**
+     * AuthMe account data read in a single query
+     */
+    public static class AuthmeAccount {
+        public final String name;
+        public final String passwordHash;
+        public final String email;
+        public final String realName;
+        public final String playerUuid;
+
+        public AuthmeAccount(String name, String passwordHash, String email, String realName, String playerUuid) {
+            this.name = name;
+            this.passwordHash = passwordHash;
+            this.email = email;
+            this.realName = realName;
+            this.playerUuid = playerUuid;
+        }
+    }
+
+    /**
+     * AuthMe database connection settings read from one loaded config
+     */
+    private static class DatabaseSettings {
+        private final FileConfiguration source;
+        private final String type;
+        private final String sqlitePath;
+        private final String host;
+        private final int port;
+        private final String database;
+        private final String user;
+        private final String password;
+        private final int poolSize;
+        // Identifies the database; a different key means pooled connections point elsewhere
+        private final String key;
+
+        private DatabaseSettings(FileConfiguration config) {
+            this.source = config;
+            this.type = config.getString("authme.database.type", "mysql").toLowerCase(Locale.ROOT);
+            this.sqlitePath = config.getString("authme.database.sqlite.path", "plugins/AuthMe/authme.db");
+            this.host = config.getString("authme.database.mysql.host", "127.0.0.1");
+            this.port = config.getInt("authme.database.mysql.port", 3306);
+            this.database = config.getString("authme.database.mysql.database", "authme");
+            this.user = config.getString("authme.database.mysql.user", "root");
+            this.password = config.getString("authme.database.mysql.password", "");
+            this.poolSize = Math.max(1, config.getInt("authme.database.pool_size", 4));
+            this.key = type + "|" + sqlitePath + "|" + host + "|" + port + "|" + database + "|" + user
+                + "|" + password.hashCode();
+        }
+    }
+
+    private static class CachedAccount {
+        private final AuthmeAccount account;
+        private final long expiresAt;
+
+        private CachedAccount(AuthmeAccount account, long expiresAt) {
+            this.account = account;
+            this.expiresAt = expiresAt;
+        }
+    }
+
     private static class ColumnConfig {
         private String id;
         private String name;
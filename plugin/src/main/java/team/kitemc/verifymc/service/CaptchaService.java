@@ -1,6 +1,9 @@
 package team.kitemc.verifymc.service;
 
 import org.bukkit.plugin.Plugin;
+import team.kitemc.verifymc.ConfigSnapshot;
+import team.kitemc.verifymc.db.EphemeralStore;
+import team.kitemc.verifymc.db.MemoryEphemeralStore;
 
 import javax.imageio.ImageIO;
 import java.awt.*;
@@ -8,8 +11,6 @@ import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
 import java.security.SecureRandom;
 import java.util.Base64;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Captcha service for generating and validating image-based captcha
@@ -20,21 +21,26 @@ public class CaptchaService {
     private final boolean debug;
     private final SecureRandom random = new SecureRandom();
     
-    // Store captcha tokens and their answers: token -> CaptchaData
-    private final Map<String, CaptchaData> captchaStore = new ConcurrentHashMap<>();
+    // Captcha answers by token, see EphemeralStore.CAPTCHAS
+    private final EphemeralStore store;
     
     // Captcha configuration
     private static final int IMAGE_WIDTH = 150;
     private static final int IMAGE_HEIGHT = 50;
     private static final String CHARS = "ABCDEFGHJKLMNPQRSTUVWXYZ23456789";
     
-    // Cleanup interval in milliseconds (5 minutes)
-    private static final long CLEANUP_INTERVAL = 300000;
-    
-    public CaptchaService(Plugin plugin) {
+    /**
+     * @param plugin Plugin instance
+     * @param store Store for captcha answers; expired entries are dropped by the store
+     */
+    public CaptchaService(Plugin plugin, EphemeralStore store) {
         this.plugin = plugin;
         this.debug = plugin.getConfig().getBoolean("debug", false);
-        startCleanupTask();
+        this.store = store;
+    }
+
+    public CaptchaService(Plugin plugin) {
+        this(plugin, new MemoryEphemeralStore());
     }
     
     /**
@@ -42,9 +48,10 @@ public class CaptchaService {
      * @return CaptchaResult containing token and base64 image
      */
     public CaptchaResult generateCaptcha() {
-        String type = plugin.getConfig().getString("captcha.type", "math");
-        int length = plugin.getConfig().getInt("captcha.length", 4);
-        int expireSeconds = plugin.getConfig().getInt("captcha.expire_seconds", 300);
+        ConfigSnapshot config = ConfigSnapshot.of(plugin);
+        String type = config.getCaptchaType();
+        int length = config.getCaptchaLength();
+        int expireSeconds = config.getCaptchaExpireSeconds();
         
         String answer;
         String displayText;
@@ -82,8 +89,9 @@ public class CaptchaService {
         String token = generateToken();
         
         // Store captcha data
-        long expireTime = System.currentTimeMillis() + (expireSeconds * 1000L);
-        captchaStore.put(token, new CaptchaData(answer, expireTime));
+        if (!store.put(EphemeralStore.CAPTCHAS, token, answer, expireSeconds * 1000L)) {
+            throw new IllegalStateException("Failed to store captcha");
+        }
         
         debugLog("Generated captcha: token=" + token + ", answer=" + answer);
         
@@ -105,26 +113,17 @@ public class CaptchaService {
             return false;
         }
         
-        CaptchaData data = captchaStore.get(token);
-        if (data == null) {
-            debugLog("Captcha validation failed: token not found - " + token);
-            return false;
-        }
-        
-        // Check expiration
-        if (System.currentTimeMillis() > data.expireTime) {
-            captchaStore.remove(token);
-            debugLog("Captcha validation failed: token expired - " + token);
+        // Take the token before validating (one-time use)
+        String expected = store.take(EphemeralStore.CAPTCHAS, token);
+        if (expected == null) {
+            debugLog("Captcha validation failed: token not found or expired - " + token);
             return false;
         }
         
         // Validate answer (case insensitive)
-        boolean valid = data.answer.equalsIgnoreCase(answer.trim());
-        
-        // Remove token after validation (one-time use)
-        captchaStore.remove(token);
+        boolean valid = expected.equalsIgnoreCase(answer.trim());
         
-        debugLog("Captcha validation: token=" + token + ", answer=" + answer + ", expected=" + data.answer + ", valid=" + valid);
+        debugLog("Captcha validation: token=" + token + ", answer=" + answer + ", expected=" + expected + ", valid=" + valid);
         
         return valid;
     }
@@ -134,7 +133,7 @@ public class CaptchaService {
      * @return true if captcha is enabled in auth_methods
      */
     public boolean isCaptchaEnabled() {
-        return plugin.getConfig().getStringList("auth_methods").contains("captcha");
+        return ConfigSnapshot.of(plugin).isCaptchaAuthEnabled();
     }
     
     /**
@@ -235,51 +234,12 @@ public class CaptchaService {
         return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
     }
     
-    /**
-     * Start background cleanup task for expired captchas
-     */
-    private void startCleanupTask() {
-        new Thread(() -> {
-            while (true) {
-                try {
-                    Thread.sleep(CLEANUP_INTERVAL);
-                    long currentTime = System.currentTimeMillis();
-                    int removed = 0;
-                    for (Map.Entry<String, CaptchaData> entry : captchaStore.entrySet()) {
-                        if (currentTime > entry.getValue().expireTime) {
-                            captchaStore.remove(entry.getKey());
-                            removed++;
-                        }
-                    }
-                    if (removed > 0) {
-                        debugLog("Cleaned up " + removed + " expired captcha tokens");
-                    }
-                } catch (InterruptedException e) {
-                    break;
-                }
-            }
-        }, "CaptchaCleanup").start();
-    }
-    
     private void debugLog(String msg) {
         if (debug) {
             plugin.getLogger().info("[DEBUG] CaptchaService: " + msg);
         }
     }
     
-    /**
-     * Internal class to store captcha data
-     */
-    private static class CaptchaData {
-        final String answer;
-        final long expireTime;
-        
-        CaptchaData(String answer, long expireTime) {
-            this.answer = answer;
-            this.expireTime = expireTime;
-        }
-    }
-    
     /**
      * Result class for captcha generation
      */
@@ -0,0 +1,273 @@
+package team.kitemc.verifymc.service;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Immutable questionnaire compiled from questionnaire.yml and the questionnaire.* config keys.
+ * Questions are indexed by id, maximum scores are computed once, and the public JSON for each
+ * language is serialized up front so /api/questionnaire only writes bytes.
+ */
+public final class CompiledQuestionnaire {
+    // Ids above this are ignored so the id index stays a small array
+    private static final int MAX_QUESTION_ID = 4096;
+
+    private final boolean enabled;
+    private final int passScore;
+    private final List<Question> questions;
+    private final Question[] questionsById;
+    private final boolean hasTextQuestions;
+    private final byte[] jsonEn;
+    private final byte[] jsonZh;
+
+    private CompiledQuestionnaire(boolean enabled, int passScore, List<Question> questions) {
+        this.enabled = enabled;
+        this.passScore = passScore;
+        this.questions = Collections.unmodifiableList(questions);
+        int maxId = -1;
+        boolean text = false;
+        for (Question question : questions) {
+            maxId = Math.max(maxId, question.id);
+            text |= question.isText();
+        }
+        this.questionsById = new Question[maxId + 1];
+        for (Question question : questions) {
+            questionsById[question.id] = question;
+        }
+        this.hasTextQuestions = text;
+        this.jsonEn = serialize(false);
+        this.jsonZh = serialize(true);
+    }
+
+    /**
+     * Compile the questionnaire
+     * @param enabled Value of questionnaire.enabled
+     * @param passScore Value of questionnaire.pass_score
+     * @param questionsList Raw "questions" list from questionnaire.yml, may be null
+     * @param defaultScoringRule Scoring rule for text questions without their own
+     * @param logger Logger for skipped questions
+     * @return Compiled questionnaire
+     */
+    public static CompiledQuestionnaire compile(boolean enabled, int passScore, List<?> questionsList,
+                                                String defaultScoringRule, Logger logger) {
+        List<Question> questions = new ArrayList<>();
+        boolean[] seen = new boolean[MAX_QUESTION_ID + 1];
+        if (questionsList != null) {
+            for (Object qObj : questionsList) {
+                if (!(qObj instanceof Map)) {
+                    continue;
+                }
+                @SuppressWarnings("unchecked")
+                Map<String, Object> questionMap = (Map<String, Object>) qObj;
+                Object idObj = questionMap.get("id");
+                int id = idObj instanceof Number ? ((Number) idObj).intValue() : -1;
+                if (id < 0 || id > MAX_QUESTION_ID || seen[id]) {
+                    logger.warning("[VerifyMC] Skipping questionnaire question with invalid or duplicate id: " + idObj);
+                    continue;
+                }
+                seen[id] = true;
+                questions.add(new Question(id, questionMap, defaultScoringRule));
+            }
+        }
+        return new CompiledQuestionnaire(enabled, passScore, questions);
+    }
+
+    private byte[] serialize(boolean zh) {
+        JSONObject result = new JSONObject();
+        result.put("enabled", enabled);
+        result.put("pass_score", passScore);
+        JSONArray questionsArray = new JSONArray();
+        if (enabled) {
+            for (Question question : questions) {
+                questionsArray.put(question.toJson(zh));
+            }
+        }
+        result.put("questions", questionsArray);
+        return result.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    public boolean isEnabled() { return enabled; }
+
+    public int getPassScore() { return passScore; }
+
+    public boolean hasTextQuestions() { return hasTextQuestions; }
+
+    /**
+     * Questions in configuration order
+     * @return Unmodifiable list of questions
+     */
+    public List<Question> getQuestions() { return questions; }
+
+    /**
+     * Look up a question that can currently be answered
+     * @param id Question id
+     * @return The question, or null if unknown or the questionnaire is disabled
+     */
+    public Question getQuestion(int id) {
+        if (!enabled || id < 0 || id >= questionsById.length) {
+            return null;
+        }
+        return questionsById[id];
+    }
+
+    /**
+     * Serialized public questionnaire JSON. Callers must not modify the returned array.
+     * @param language Language code, "zh" or anything else for English
+     * @return UTF-8 JSON bytes
+     */
+    public byte[] getJson(String language) {
+        return "zh".equals(language) ? jsonZh : jsonEn;
+    }
+
+    /**
+     * One compiled question
+     */
+    public static final class Question {
+        private final int id;
+        private final String type;
+        private final boolean required;
+        private final String textEn;
+        private final String textZh;
+        private final String scoringText;
+        private final String scoringRule;
+        private final JSONObject input;
+        private final String placeholderEn;
+        private final String placeholderZh;
+        private final String[] optionsEn;
+        private final String[] optionsZh;
+        private final int[] optionScores;
+        private final int maxScore;
+        private final int minSelections;
+        private final int maxSelections;
+        private final int minLength;
+        private final int maxLength;
+
+        private Question(int id, Map<String, Object> questionMap, String defaultScoringRule) {
+            this.id = id;
+            this.type = String.valueOf(questionMap.getOrDefault("type", "single_choice"));
+            this.required = Boolean.TRUE.equals(questionMap.get("required"));
+            String fallback = (String) questionMap.getOrDefault("question", "");
+            this.textEn = orDefault((String) questionMap.get("question_en"), fallback);
+            this.textZh = orDefault((String) questionMap.get("question_zh"), fallback);
+            this.scoringText = resolveScoringText(questionMap);
+            Object localRule = questionMap.get("scoring_rule");
+            this.scoringRule = localRule instanceof String && !((String) localRule).trim().isEmpty()
+                ? ((String) localRule).trim() : defaultScoringRule;
+
+            this.input = new JSONObject();
+            @SuppressWarnings("unchecked")
+            Map<String, Object> inputMap = (Map<String, Object>) questionMap.get("input");
+            if (inputMap != null) {
+                for (Map.Entry<String, Object> entry : inputMap.entrySet()) {
+                    input.put(entry.getKey(), entry.getValue());
+                }
+            }
+            boolean textWithInput = "text".equals(type) && inputMap != null;
+            this.placeholderEn = textWithInput ? String.valueOf(inputMap.getOrDefault("placeholder_en", "")) : null;
+            this.placeholderZh = textWithInput ? String.valueOf(inputMap.getOrDefault("placeholder_zh", "")) : null;
+            this.minSelections = input.optInt("min_selections", 0);
+            this.maxSelections = input.optInt("max_selections", Integer.MAX_VALUE);
+            this.minLength = input.optInt("min_length", 0);
+            this.maxLength = input.optInt("max_length", Integer.MAX_VALUE);
+
+            @SuppressWarnings("unchecked")
+            List<Map<String, Object>> optionsList = (List<Map<String, Object>>) questionMap.get("options");
+            int optionCount = optionsList != null ? optionsList.size() : 0;
+            this.optionsEn = new String[optionCount];
+            this.optionsZh = new String[optionCount];
+            this.optionScores = new int[optionCount];
+            int optionTotal = 0;
+            for (int i = 0; i < optionCount; i++) {
+                Map<String, Object> optMap = optionsList.get(i);
+                String optFallback = (String) optMap.getOrDefault("text", "");
+                optionsEn[i] = orDefault((String) optMap.get("text_en"), optFallback);
+                optionsZh[i] = orDefault((String) optMap.get("text_zh"), optFallback);
+                Object scoreObj = optMap.get("score");
+                optionScores[i] = scoreObj instanceof Number ? ((Number) scoreObj).intValue() : 0;
+                optionTotal += optionScores[i];
+            }
+            this.maxScore = resolveMaxScore(questionMap.get("max_score"), optionCount, optionTotal);
+        }
+
+        private static String orDefault(String value, String fallback) {
+            return value != null ? value : fallback;
+        }
+
+        private static String resolveScoringText(Map<String, Object> questionMap) {
+            String zh = String.valueOf(questionMap.getOrDefault("question_zh", "")).trim();
+            String en = String.valueOf(questionMap.getOrDefault("question_en", "")).trim();
+            if (!zh.isEmpty() && !en.isEmpty()) {
+                return "[ZH] " + zh + "\n[EN] " + en;
+            }
+            return !zh.isEmpty() ? zh : en;
+        }
+
+        private int resolveMaxScore(Object configured, int optionCount, int optionTotal) {
+            if (configured instanceof Number) {
+                return Math.max(1, ((Number) configured).intValue());
+            }
+            if (isText()) {
+                return 20;
+            }
+            return optionCount > 0 ? Math.max(1, optionTotal) : 1;
+        }
+
+        private JSONObject toJson(boolean zh) {
+            JSONObject question = new JSONObject();
+            question.put("id", id);
+            question.put("question", zh ? textZh : textEn);
+            question.put("type", type);
+            question.put("required", required);
+            JSONObject inputMeta = new JSONObject(input.toMap());
+            if (placeholderEn != null) {
+                inputMeta.put("placeholder", zh ? placeholderZh : placeholderEn);
+            }
+            question.put("input", inputMeta);
+            JSONArray optionsArray = new JSONArray();
+            String[] texts = zh ? optionsZh : optionsEn;
+            for (int i = 0; i < texts.length; i++) {
+                JSONObject option = new JSONObject();
+                option.put("id", i);
+                option.put("text", texts[i]);
+                optionsArray.put(option);
+            }
+            question.put("options", optionsArray);
+            return question;
+        }
+
+        public int getId() { return id; }
+        public String getType() { return type; }
+        public boolean isText() { return "text".equalsIgnoreCase(type); }
+        public boolean isRequired() { return required; }
+        public int getOptionCount() { return optionScores.length; }
+        public int getMaxScore() { return maxScore; }
+        public int getMinSelections() { return minSelections; }
+        public int getMaxSelections() { return maxSelections; }
+        public int getMinLength() { return minLength; }
+        public int getMaxLength() { return maxLength; }
+
+        /**
+         * Score of one option
+         * @param optionId Option index
+         * @return Configured score, or 0 for an unknown option
+         */
+        public int getOptionScore(int optionId) {
+            return optionId >= 0 && optionId < optionScores.length ? optionScores[optionId] : 0;
+        }
+
+        /**
+         * Question text sent to the essay scorer, both languages when available
+         * @return Scoring prompt text
+         */
+        public String getScoringText() { return scoringText; }
+
+        public String getScoringRule() { return scoringRule; }
+    }
+}
@@ -0,0 +1,318 @@
+package team.kitemc.verifymc.service;
+
+import org.bukkit.plugin.Plugin;
+import org.json.JSONObject;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Shared asynchronous HTTP client for the Discord API.
+ * Requests are grouped into per-route rate limit buckets that follow Discord's X-RateLimit-* headers,
+ * kept per user token for routes called with an OAuth bearer token;
+ * a request whose bucket (or the global limit) is exhausted waits for the reset instead of being sent,
+ * and 429 responses are retried after retry_after. In-flight requests are capped and excess requests
+ * wait in a bounded queue, so bursts of OAuth callbacks are smoothed instead of tripping global limits.
+ */
+public class DiscordHttpClient {
+    private static final int MAX_RETRIES = 3;
+    private static final long SWEEP_INTERVAL_MS = 60_000;
+
+    private final Logger logger;
+    private final boolean debug;
+    private final HttpClient client;
+    private final ExecutorService httpExecutor;
+    private final ScheduledExecutorService scheduler;
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final Duration requestTimeout;
+    // Bucket key ("GET /users/@me", plus "#<token hash>" for bearer requests) -> bucket;
+    // keys sharing a Discord bucket hash share the object
+    private final Map<String, Bucket> routeBuckets = new ConcurrentHashMap<>();
+    private final Map<String, Bucket> bucketsByHash = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // Guarded by itself
+    private final ArrayDeque<Runnable> waiting = new ArrayDeque<>();
+    private volatile long globalResetAt;
+
+    public DiscordHttpClient(Plugin plugin) {
+        this(plugin.getLogger(), plugin.getConfig().getBoolean("debug", false),
+            plugin.getConfig().getInt("discord.http.max_concurrent", 4),
+            plugin.getConfig().getInt("discord.http.max_queued", 200),
+            Duration.ofSeconds(Math.max(1, plugin.getConfig().getInt("discord.http.timeout_seconds", 10))));
+    }
+
+    DiscordHttpClient(Logger logger, boolean debug, int maxConcurrent, int maxQueued, Duration requestTimeout) {
+        this.logger = logger;
+        this.debug = debug;
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.maxQueued = Math.max(0, maxQueued);
+        this.requestTimeout = requestTimeout;
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.httpExecutor = Executors.newFixedThreadPool(maxConcurrent, r -> {
+            Thread t = new Thread(r, "VerifyMC-Discord-HTTP-" + threadIndex.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "VerifyMC-Discord-RateLimit");
+            t.setDaemon(true);
+            return t;
+        });
+        this.client = HttpClient.newBuilder()
+            .connectTimeout(requestTimeout)
+            .executor(httpExecutor)
+            .build();
+        this.scheduler.scheduleWithFixedDelay(this::sweepTokenBuckets, SWEEP_INTERVAL_MS, SWEEP_INTERVAL_MS,
+            TimeUnit.MILLISECONDS);
+    }
+
+    private void debugLog(String msg) {
+        if (debug) logger.info("[DEBUG] DiscordHttpClient: " + msg);
+    }
+
+    /**
+     * Send a request through the rate limiter
+     * @param route Route key used for bucketing, e.g. "GET /users/@me"
+     * @param request Request to send
+     * @return Future completing with the final (non-429) response; fails with
+     *         RejectedExecutionException when the queue is full
+     */
+    public CompletableFuture<HttpResponse<String>> send(String route, HttpRequest request) {
+        CompletableFuture<HttpResponse<String>> result = new CompletableFuture<>();
+        HttpRequest timed = HttpRequest.newBuilder(request, (name, value) -> true).timeout(requestTimeout).build();
+        String key = bucketKey(route, request);
+        Runnable start = () -> attempt(key, timed, 0, result);
+        if (inFlight.incrementAndGet() <= maxConcurrent) {
+            start.run();
+            return result;
+        }
+        inFlight.decrementAndGet();
+        synchronized (waiting) {
+            if (waiting.size() >= maxQueued) {
+                result.completeExceptionally(new RejectedExecutionException("Discord request queue is full"));
+                return result;
+            }
+            waiting.add(start);
+        }
+        // A slot may have been released between the check and the enqueue
+        pollWaiting();
+        return result;
+    }
+
+    /**
+     * Discord limits bearer-token routes per user, so each token gets its own buckets
+     * @return Route, with a hash of the bearer token appended if there is one
+     */
+    private static String bucketKey(String route, HttpRequest request) {
+        Optional<String> auth = request.headers().firstValue("Authorization");
+        if (auth.isPresent() && auth.get().regionMatches(true, 0, "Bearer ", 0, 7)) {
+            return route + "#" + Integer.toHexString(auth.get().substring(7).trim().hashCode());
+        }
+        return route;
+    }
+
+    /**
+     * Drop per-token buckets that are not currently holding requests back,
+     * since each OAuth login leaves its own behind
+     */
+    private void sweepTokenBuckets() {
+        routeBuckets.entrySet().removeIf(entry -> entry.getKey().indexOf('#') >= 0 && entry.getValue().isIdle());
+        bucketsByHash.entrySet().removeIf(entry -> entry.getKey().indexOf('#') >= 0 && entry.getValue().isIdle());
+    }
+
+    /**
+     * Stop the client threads
+     */
+    public void shutdown() {
+        scheduler.shutdownNow();
+        httpExecutor.shutdownNow();
+    }
+
+    private void pollWaiting() {
+        while (true) {
+            Runnable next;
+            synchronized (waiting) {
+                if (waiting.isEmpty()) {
+                    return;
+                }
+                if (inFlight.incrementAndGet() > maxConcurrent) {
+                    inFlight.decrementAndGet();
+                    return;
+                }
+                next = waiting.poll();
+            }
+            next.run();
+        }
+    }
+
+    private void release() {
+        inFlight.decrementAndGet();
+        pollWaiting();
+    }
+
+    private void attempt(String route, HttpRequest request, int retries, CompletableFuture<HttpResponse<String>> result) {
+        Bucket bucket = routeBuckets.computeIfAbsent(route, k -> new Bucket());
+        long delay = Math.max(globalResetAt - System.currentTimeMillis(), bucket.reserve());
+        if (delay > 0) {
+            debugLog("Rate limited on " + route + ", waiting " + delay + "ms");
+            schedule(() -> attempt(route, request, retries, result), delay, result);
+            return;
+        }
+        client.sendAsync(request, HttpResponse.BodyHandlers.ofString()).whenComplete((response, error) -> {
+            if (error != null) {
+                release();
+                result.completeExceptionally(error);
+                return;
+            }
+            Bucket updated = updateBucket(route, response);
+            if (response.statusCode() == 429 && retries < MAX_RETRIES) {
+                long retryAfter = retryAfterMillis(response);
+                if (isGlobal(response)) {
+                    globalResetAt = System.currentTimeMillis() + retryAfter;
+                } else {
+                    updated.exhaust(retryAfter);
+                }
+                debugLog("429 on " + route + ", retrying in " + retryAfter + "ms");
+                schedule(() -> attempt(route, request, retries + 1, result), retryAfter, result);
+                return;
+            }
+            release();
+            result.complete(response);
+        });
+    }
+
+    private void schedule(Runnable task, long delayMs, CompletableFuture<?> result) {
+        try {
+            scheduler.schedule(task, delayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            release();
+            result.completeExceptionally(e);
+        }
+    }
+
+    private Bucket updateBucket(String route, HttpResponse<String> response) {
+        Bucket bucket = routeBuckets.computeIfAbsent(route, k -> new Bucket());
+        Optional<String> hash = response.headers().firstValue("X-RateLimit-Bucket");
+        if (hash.isPresent()) {
+            // Bucket hashes are per token too, so carry the token part of the key over
+            int tokenStart = route.indexOf('#');
+            String hashKey = tokenStart >= 0 ? hash.get() + route.substring(tokenStart) : hash.get();
+            Bucket shared = bucketsByHash.putIfAbsent(hashKey, bucket);
+            if (shared != null && shared != bucket) {
+                routeBuckets.put(route, shared);
+                bucket = shared;
+            }
+        }
+        Optional<String> remaining = response.headers().firstValue("X-RateLimit-Remaining");
+        Optional<String> resetAfter = response.headers().firstValue("X-RateLimit-Reset-After");
+        if (remaining.isPresent() && resetAfter.isPresent()) {
+            try {
+                int limit = response.headers().firstValue("X-RateLimit-Limit").map(Integer::parseInt).orElse(1);
+                bucket.update(limit, Integer.parseInt(remaining.get()),
+                    (long) (Double.parseDouble(resetAfter.get()) * 1000));
+            } catch (NumberFormatException e) {
+                debugLog("Invalid rate limit headers on " + route + ": " + e.getMessage());
+            }
+        } else if (response.statusCode() != 429) {
+            // Route without rate limit headers: stop holding requests back
+            bucket.unlimited();
+        }
+        return bucket;
+    }
+
+    private long retryAfterMillis(HttpResponse<String> response) {
+        try {
+            JSONObject body = new JSONObject(response.body());
+            if (body.has("retry_after")) {
+                return (long) Math.ceil(body.getDouble("retry_after") * 1000);
+            }
+        } catch (Exception ignored) {
+        }
+        return response.headers().firstValue("Retry-After")
+            .map(value -> {
+                try {
+                    return (long) Math.ceil(Double.parseDouble(value) * 1000);
+                } catch (NumberFormatException e) {
+                    return 1000L;
+                }
+            })
+            .orElse(1000L);
+    }
+
+    private boolean isGlobal(HttpResponse<String> response) {
+        if (response.headers().firstValue("X-RateLimit-Global").map("true"::equalsIgnoreCase).orElse(false)) {
+            return true;
+        }
+        try {
+            return new JSONObject(response.body()).optBoolean("global", false);
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * Rate limit state of one Discord bucket
+     */
+    private static class Bucket {
+        // Unknown until the first response carries headers; don't hold requests back until then
+        private int limit = Integer.MAX_VALUE;
+        private int remaining = Integer.MAX_VALUE;
+        private long resetAt;
+
+        /**
+         * Take one request slot
+         * @return 0 if the request may be sent now, otherwise milliseconds to wait
+         */
+        private synchronized long reserve() {
+            long now = System.currentTimeMillis();
+            if (resetAt > 0 && now >= resetAt) {
+                remaining = limit;
+                resetAt = 0;
+            }
+            if (remaining > 0) {
+                remaining--;
+                return 0;
+            }
+            return resetAt > 0 ? Math.max(1, resetAt - now) : 1000;
+        }
+
+        private synchronized void update(int limit, int remaining, long resetAfterMs) {
+            this.limit = Math.max(1, limit);
+            this.remaining = remaining;
+            this.resetAt = System.currentTimeMillis() + resetAfterMs;
+        }
+
+        private synchronized void unlimited() {
+            this.limit = Integer.MAX_VALUE;
+            this.remaining = Integer.MAX_VALUE;
+            this.resetAt = 0;
+        }
+
+        /**
+         * @return true if the bucket has no pending reset, so a fresh bucket would behave the same
+         */
+        private synchronized boolean isIdle() {
+            return resetAt == 0 || System.currentTimeMillis() >= resetAt;
+        }
+
+        private synchronized void exhaust(long retryAfterMs) {
+            this.remaining = 0;
+            this.resetAt = System.currentTimeMillis() + retryAfterMs;
+        }
+    }
+}
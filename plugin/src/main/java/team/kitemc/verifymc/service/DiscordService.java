@@ -4,19 +4,21 @@ import org.bukkit.plugin.Plugin;
 import org.bukkit.scheduler.BukkitRunnable;
 import org.json.JSONObject;
 import org.json.JSONArray;
+import team.kitemc.verifymc.db.EphemeralStore;
+import team.kitemc.verifymc.db.MemoryEphemeralStore;
 import team.kitemc.verifymc.db.UserDao;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.net.URI;
 import java.net.URLEncoder;
+import java.net.http.HttpRequest;
 import java.nio.charset.StandardCharsets;
 import java.util.Base64;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Discord OAuth2 integration service
@@ -25,6 +27,7 @@ import java.util.concurrent.ConcurrentHashMap;
 public class DiscordService {
     private final Plugin plugin;
     private final boolean debug;
+    private final DiscordHttpClient http;
     private UserDao userDao;
     
     // OAuth2 configuration
@@ -34,8 +37,8 @@ public class DiscordService {
     private String guildId;
     private boolean required;
     
-    // State tokens for OAuth2 flow (state -> StateData)
-    private final Map<String, StateData> stateTokens = new ConcurrentHashMap<>();
+    // State tokens for OAuth2 flow (state -> username), see EphemeralStore.DISCORD_STATES
+    private final EphemeralStore stateTokens;
     
     // Token cache (username -> DiscordToken) - temporary cache for active sessions
     private final Map<String, TokenData> tokenCache = new ConcurrentHashMap<>();
@@ -51,12 +54,22 @@ public class DiscordService {
     // Cleanup interval: 5 minutes
     private static final long CLEANUP_INTERVAL_TICKS = 6000;
     
-    public DiscordService(Plugin plugin) {
+    /**
+     * @param plugin Plugin instance
+     * @param stateTokens Store for OAuth2 state tokens, shared by all web nodes that finish the flow
+     */
+    public DiscordService(Plugin plugin, EphemeralStore stateTokens) {
         this.plugin = plugin;
         this.debug = plugin.getConfig().getBoolean("debug", false);
+        this.http = new DiscordHttpClient(plugin);
+        this.stateTokens = stateTokens;
         loadConfig();
         startCleanupTask();
     }
+
+    public DiscordService(Plugin plugin) {
+        this(plugin, new MemoryEphemeralStore());
+    }
     
     /**
      * Set the UserDao for persistent storage
@@ -68,7 +81,14 @@ public class DiscordService {
     }
     
     /**
-     * Start periodic cleanup task for expired state tokens and token cache
+     * Stop the Discord HTTP client
+     */
+    public void shutdown() {
+        http.shutdown();
+    }
+    
+    /**
+     * Start periodic cleanup task for the token cache; expired state tokens are dropped by their store
      */
     private void startCleanupTask() {
         new BukkitRunnable() {
@@ -81,23 +101,12 @@ public class DiscordService {
     }
     
     /**
-     * Cleanup expired state tokens and token cache
+     * Cleanup expired token cache
      */
     private void cleanupExpiredTokens() {
         long now = System.currentTimeMillis();
-        int statesCleaned = 0;
         int tokensCleaned = 0;
         
-        // Cleanup expired state tokens
-        Iterator<Map.Entry<String, StateData>> stateIterator = stateTokens.entrySet().iterator();
-        while (stateIterator.hasNext()) {
-            Map.Entry<String, StateData> entry = stateIterator.next();
-            if (entry.getValue().isExpired()) {
-                stateIterator.remove();
-                statesCleaned++;
-            }
-        }
-        
         // Cleanup expired token cache
         Iterator<Map.Entry<String, TokenData>> tokenIterator = tokenCache.entrySet().iterator();
         while (tokenIterator.hasNext()) {
@@ -108,8 +117,8 @@ public class DiscordService {
             }
         }
         
-        if (statesCleaned > 0 || tokensCleaned > 0) {
-            debugLog("Cleanup completed: " + statesCleaned + " state tokens, " + tokensCleaned + " cached tokens removed");
+        if (tokensCleaned > 0) {
+            debugLog("Cleanup completed: " + tokensCleaned + " cached tokens removed");
         }
     }
     
@@ -156,7 +165,9 @@ public class DiscordService {
         
         // Generate state token
         String state = generateState();
-        stateTokens.put(state, new StateData(username, System.currentTimeMillis()));
+        if (!stateTokens.put(EphemeralStore.DISCORD_STATES, state, username, STATE_EXPIRY_MS)) {
+            return null;
+        }
         
         // Build authorization URL
         StringBuilder url = new StringBuilder(DISCORD_OAUTH_AUTHORIZE);
@@ -172,113 +183,100 @@ public class DiscordService {
     }
     
     /**
-     * Handle OAuth2 callback
+     * Handle OAuth2 callback, blocking until it completes
      * @param code Authorization code from Discord
      * @param state State token
      * @return DiscordCallbackResult
      */
     public DiscordCallbackResult handleCallback(String code, String state) {
+        return handleCallbackAsync(code, state).join();
+    }
+    
+    /**
+     * Handle OAuth2 callback without blocking the caller.
+     * After the token exchange, user info and guild list are fetched in parallel.
+     * @param code Authorization code from Discord
+     * @param state State token
+     * @return Future that always completes normally with a DiscordCallbackResult
+     */
+    public CompletableFuture<DiscordCallbackResult> handleCallbackAsync(String code, String state) {
         // Validate state
-        StateData stateData = stateTokens.remove(state);
-        if (stateData == null || stateData.isExpired()) {
+        String username = state != null ? stateTokens.take(EphemeralStore.DISCORD_STATES, state) : null;
+        if (username == null) {
             debugLog("Invalid or expired state token: " + state);
-            return new DiscordCallbackResult(false, "Invalid or expired state", null, null);
+            return CompletableFuture.completedFuture(new DiscordCallbackResult(false, "Invalid or expired state", null, null));
         }
         
-        String username = stateData.username;
-        
-        try {
-            // Exchange code for access token
-            DiscordToken token = exchangeCodeForToken(code);
+        return exchangeCodeForToken(code).thenCompose(token -> {
             if (token == null) {
-                return new DiscordCallbackResult(false, "Failed to exchange code for token", username, null);
-            }
-            
-            // Get user info
-            DiscordUser user = getUserInfo(token.accessToken);
-            if (user == null) {
-                return new DiscordCallbackResult(false, "Failed to get user info", username, null);
+                return CompletableFuture.completedFuture(
+                    new DiscordCallbackResult(false, "Failed to exchange code for token", username, null));
             }
-            
-            // Check if this Discord account is already linked to another user
-            if (userDao != null && userDao.isDiscordIdLinked(user.id)) {
-                Map<String, Object> existingUser = userDao.getUserByDiscordId(user.id);
-                if (existingUser != null) {
-                    String existingUsername = (String) existingUser.get("username");
-                    if (!existingUsername.equalsIgnoreCase(username)) {
-                        debugLog("Discord account already linked to: " + existingUsername);
-                        return new DiscordCallbackResult(false, "This Discord account is already linked to another user", username, user);
-                    }
-                }
+            CompletableFuture<DiscordUser> userFuture = getUserInfo(token.accessToken);
+            CompletableFuture<Boolean> guildFuture = guildId.isEmpty()
+                ? CompletableFuture.completedFuture(true)
+                : checkGuildMembership(token.accessToken, guildId);
+            return userFuture.thenCombine(guildFuture, (user, inGuild) -> completeLink(username, token, user, inGuild));
+        }).exceptionally(e -> {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof RejectedExecutionException) {
+                debugLog("Discord request queue full, rejecting callback for " + username);
+                return new DiscordCallbackResult(false, "Discord is busy, please try again shortly", username, null);
             }
-            
-            // Check guild membership if required
-            if (!guildId.isEmpty()) {
-                boolean inGuild = checkGuildMembership(token.accessToken, guildId);
-                if (!inGuild) {
-                    debugLog("User " + user.username + " is not in guild " + guildId);
-                    return new DiscordCallbackResult(false, "You must be a member of the Discord server", username, user);
-                }
+            debugLog("OAuth callback error: " + cause.getMessage());
+            return new DiscordCallbackResult(false, "OAuth error: " + cause.getMessage(), username, null);
+        });
+    }
+    
+    private DiscordCallbackResult completeLink(String username, DiscordToken token, DiscordUser user, boolean inGuild) {
+        if (user == null) {
+            return new DiscordCallbackResult(false, "Failed to get user info", username, null);
+        }
+        
+        // Check if this Discord account is already linked to another user (one indexed lookup)
+        Map<String, Object> existingUser = userDao != null ? userDao.getUserByDiscordId(user.id) : null;
+        if (existingUser != null) {
+            String existingUsername = (String) existingUser.get("username");
+            if (!existingUsername.equalsIgnoreCase(username)) {
+                debugLog("Discord account already linked to: " + existingUsername);
+                return new DiscordCallbackResult(false, "This Discord account is already linked to another user", username, user);
             }
-            
-            // Store token in cache
-            tokenCache.put(username.toLowerCase(), new TokenData(token, System.currentTimeMillis()));
-            
-            // Persist Discord ID to database
-            if (userDao != null) {
-                boolean updated = userDao.updateUserDiscordId(username, user.id);
-                if (updated) {
-                    debugLog("Persisted Discord ID to database for " + username + ": " + user.id);
-                } else {
-                    debugLog("Warning: Failed to persist Discord ID to database for " + username);
-                }
+        }
+        
+        // Check guild membership if required
+        if (!inGuild) {
+            debugLog("User " + user.username + " is not in guild " + guildId);
+            return new DiscordCallbackResult(false, "You must be a member of the Discord server", username, user);
+        }
+        
+        // Store token in cache
+        tokenCache.put(username.toLowerCase(), new TokenData(token, System.currentTimeMillis()));
+        
+        // Persist Discord ID to database
+        if (userDao != null) {
+            boolean updated = userDao.updateUserDiscordId(username, user.id);
+            if (updated) {
+                debugLog("Persisted Discord ID to database for " + username + ": " + user.id);
+            } else {
+                debugLog("Warning: Failed to persist Discord ID to database for " + username);
             }
-            
-            debugLog("Successfully linked Discord for " + username + ": " + user.username + "#" + user.discriminator);
-            
-            return new DiscordCallbackResult(true, "Discord account linked successfully", username, user);
-            
-        } catch (Exception e) {
-            debugLog("OAuth callback error: " + e.getMessage());
-            return new DiscordCallbackResult(false, "OAuth error: " + e.getMessage(), username, null);
         }
+        
+        debugLog("Successfully linked Discord for " + username + ": " + user.username + "#" + user.discriminator);
+        
+        return new DiscordCallbackResult(true, "Discord account linked successfully", username, user);
     }
     
     /**
      * Exchange authorization code for access token
      */
-    private DiscordToken exchangeCodeForToken(String code) throws Exception {
-        URL url = new URL(DISCORD_OAUTH_TOKEN);
-        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-        conn.setRequestMethod("POST");
-        conn.setDoOutput(true);
-        conn.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
-        conn.setConnectTimeout(10000);
-        conn.setReadTimeout(10000);
-        
+    private CompletableFuture<DiscordToken> exchangeCodeForToken(String code) {
         String body = "client_id=" + clientId +
                      "&client_secret=" + clientSecret +
                      "&grant_type=authorization_code" +
-                     "&code=" + code +
+                     "&code=" + URLEncoder.encode(code, StandardCharsets.UTF_8) +
                      "&redirect_uri=" + URLEncoder.encode(redirectUri, StandardCharsets.UTF_8);
-        
-        try (OutputStream os = conn.getOutputStream()) {
-            os.write(body.getBytes(StandardCharsets.UTF_8));
-        }
-        
-        if (conn.getResponseCode() != 200) {
-            debugLog("Token exchange failed with status: " + conn.getResponseCode());
-            return null;
-        }
-        
-        String response = readResponse(conn);
-        JSONObject json = new JSONObject(response);
-        
-        return new DiscordToken(
-            json.getString("access_token"),
-            json.getString("refresh_token"),
-            System.currentTimeMillis() + json.getLong("expires_in") * 1000
-        );
+        return requestToken(body, "Token exchange");
     }
     
     /**
@@ -287,41 +285,35 @@ public class DiscordService {
      * @return New DiscordToken or null if failed
      */
     private DiscordToken refreshAccessToken(String refreshToken) {
+        String body = "client_id=" + clientId +
+                     "&client_secret=" + clientSecret +
+                     "&grant_type=refresh_token" +
+                     "&refresh_token=" + URLEncoder.encode(refreshToken, StandardCharsets.UTF_8);
         try {
-            URL url = new URL(DISCORD_OAUTH_TOKEN);
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            conn.setRequestMethod("POST");
-            conn.setDoOutput(true);
-            conn.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
-            conn.setConnectTimeout(10000);
-            conn.setReadTimeout(10000);
-            
-            String body = "client_id=" + clientId +
-                         "&client_secret=" + clientSecret +
-                         "&grant_type=refresh_token" +
-                         "&refresh_token=" + refreshToken;
-            
-            try (OutputStream os = conn.getOutputStream()) {
-                os.write(body.getBytes(StandardCharsets.UTF_8));
-            }
-            
-            if (conn.getResponseCode() != 200) {
-                debugLog("Token refresh failed with status: " + conn.getResponseCode());
+            return requestToken(body, "Token refresh").join();
+        } catch (Exception e) {
+            debugLog("Token refresh error: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    private CompletableFuture<DiscordToken> requestToken(String body, String action) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(DISCORD_OAUTH_TOKEN))
+            .header("Content-Type", "application/x-www-form-urlencoded")
+            .POST(HttpRequest.BodyPublishers.ofString(body))
+            .build();
+        return http.send("POST /oauth2/token", request).thenApply(response -> {
+            if (response.statusCode() != 200) {
+                debugLog(action + " failed with status: " + response.statusCode());
                 return null;
             }
-            
-            String response = readResponse(conn);
-            JSONObject json = new JSONObject(response);
-            
+            JSONObject json = new JSONObject(response.body());
             return new DiscordToken(
                 json.getString("access_token"),
                 json.getString("refresh_token"),
                 System.currentTimeMillis() + json.getLong("expires_in") * 1000
             );
-        } catch (Exception e) {
-            debugLog("Token refresh error: " + e.getMessage());
-            return null;
-        }
+        });
     }
     
     /**
@@ -358,58 +350,48 @@ public class DiscordService {
     /**
      * Get user info from Discord API
      */
-    private DiscordUser getUserInfo(String accessToken) throws Exception {
-        URL url = new URL(DISCORD_API_BASE + "/users/@me");
-        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-        conn.setRequestMethod("GET");
-        conn.setRequestProperty("Authorization", "Bearer " + accessToken);
-        conn.setConnectTimeout(10000);
-        conn.setReadTimeout(10000);
-        
-        if (conn.getResponseCode() != 200) {
-            debugLog("Get user info failed with status: " + conn.getResponseCode());
-            return null;
-        }
-        
-        String response = readResponse(conn);
-        JSONObject json = new JSONObject(response);
-        
-        return new DiscordUser(
-            json.getString("id"),
-            json.getString("username"),
-            json.optString("discriminator", "0"),
-            json.optString("avatar", null),
-            json.optString("global_name", null)
-        );
+    private CompletableFuture<DiscordUser> getUserInfo(String accessToken) {
+        return http.send("GET /users/@me", bearerGet("/users/@me", accessToken)).thenApply(response -> {
+            if (response.statusCode() != 200) {
+                debugLog("Get user info failed with status: " + response.statusCode());
+                return null;
+            }
+            JSONObject json = new JSONObject(response.body());
+            return new DiscordUser(
+                json.getString("id"),
+                json.getString("username"),
+                json.optString("discriminator", "0"),
+                json.optString("avatar", null),
+                json.optString("global_name", null)
+            );
+        });
     }
     
     /**
      * Check if user is a member of the specified guild
      */
-    private boolean checkGuildMembership(String accessToken, String guildId) throws Exception {
-        URL url = new URL(DISCORD_API_BASE + "/users/@me/guilds");
-        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-        conn.setRequestMethod("GET");
-        conn.setRequestProperty("Authorization", "Bearer " + accessToken);
-        conn.setConnectTimeout(10000);
-        conn.setReadTimeout(10000);
-        
-        if (conn.getResponseCode() != 200) {
-            debugLog("Get guilds failed with status: " + conn.getResponseCode());
-            return false;
-        }
-        
-        String response = readResponse(conn);
-        JSONArray guilds = new JSONArray(response);
-        
-        for (int i = 0; i < guilds.length(); i++) {
-            JSONObject guild = guilds.getJSONObject(i);
-            if (guildId.equals(guild.getString("id"))) {
-                return true;
+    private CompletableFuture<Boolean> checkGuildMembership(String accessToken, String guildId) {
+        return http.send("GET /users/@me/guilds", bearerGet("/users/@me/guilds", accessToken)).thenApply(response -> {
+            if (response.statusCode() != 200) {
+                debugLog("Get guilds failed with status: " + response.statusCode());
+                return false;
             }
-        }
-        
-        return false;
+            JSONArray guilds = new JSONArray(response.body());
+            for (int i = 0; i < guilds.length(); i++) {
+                JSONObject guild = guilds.getJSONObject(i);
+                if (guildId.equals(guild.getString("id"))) {
+                    return true;
+                }
+            }
+            return false;
+        });
+    }
+    
+    private HttpRequest bearerGet(String path, String accessToken) {
+        return HttpRequest.newBuilder(URI.create(DISCORD_API_BASE + path))
+            .header("Authorization", "Bearer " + accessToken)
+            .GET()
+            .build();
     }
     
     /**
@@ -461,7 +443,7 @@ public class DiscordService {
         String accessToken = getValidAccessToken(username);
         if (accessToken != null) {
             try {
-                return getUserInfo(accessToken);
+                return getUserInfo(accessToken).join();
             } catch (Exception e) {
                 debugLog("Failed to get linked user info from API: " + e.getMessage());
             }
@@ -491,22 +473,6 @@ public class DiscordService {
         return true;
     }
     
-    /**
-     * Read HTTP response
-     */
-    private String readResponse(HttpURLConnection conn) throws Exception {
-        BufferedReader reader = new BufferedReader(
-            new InputStreamReader(conn.getInputStream(), StandardCharsets.UTF_8)
-        );
-        StringBuilder response = new StringBuilder();
-        String line;
-        while ((line = reader.readLine()) != null) {
-            response.append(line);
-        }
-        reader.close();
-        return response.toString();
-    }
-    
     /**
      * Generate random state token
      */
@@ -522,23 +488,6 @@ public class DiscordService {
         }
     }
     
-    /**
-     * State data for OAuth2 flow
-     */
-    private static class StateData {
-        final String username;
-        final long timestamp;
-        
-        StateData(String username, long timestamp) {
-            this.username = username;
-            this.timestamp = timestamp;
-        }
-        
-        boolean isExpired() {
-            return System.currentTimeMillis() - timestamp > STATE_EXPIRY_MS;
-        }
-    }
-    
     /**
      * Token data with cache timestamp
      */
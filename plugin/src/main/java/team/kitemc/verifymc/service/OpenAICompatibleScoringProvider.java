@@ -3,6 +3,7 @@ package team.kitemc.verifymc.service;
 import org.bukkit.plugin.Plugin;
 import org.json.JSONArray;
 import org.json.JSONObject;
+import team.kitemc.verifymc.MetricsRegistry;
 
 import java.io.IOException;
 import java.net.URI;
@@ -22,10 +23,24 @@ public class OpenAICompatibleScoringProvider implements EssayScoringService {
     private final Semaphore concurrentLimiter;
     private final AtomicInteger consecutiveFailures = new AtomicInteger(0);
     private volatile long circuitOpenUntil = 0L;
+    private final MetricsRegistry.Histogram requestSeconds;
+    private final MetricsRegistry.Counter requestFailures;
+    private final MetricsRegistry.Counter scoredTotal;
+    private final MetricsRegistry.Counter manualReviewTotal;
 
     public OpenAICompatibleScoringProvider(Plugin plugin, LlmScoringConfig config) {
         this.plugin = plugin;
         this.config = config;
+        MetricsRegistry metrics = MetricsRegistry.global();
+        String provider = config.getProviderName();
+        this.requestSeconds = metrics.histogram("verifymc_llm_request_seconds", "LLM chat completion request time",
+            "provider", provider);
+        this.requestFailures = metrics.counter("verifymc_llm_request_failures_total",
+            "LLM requests that failed or returned an unusable response", "provider", provider);
+        this.scoredTotal = metrics.counter("verifymc_llm_scoring_total", "Essay scoring results by outcome",
+            "provider", provider, "outcome", "scored");
+        this.manualReviewTotal = metrics.counter("verifymc_llm_scoring_total", "Essay scoring results by outcome",
+            "provider", provider, "outcome", "manual_review");
         this.client = HttpClient.newBuilder()
             .connectTimeout(Duration.ofMillis(config.getTimeoutMs()))
             .build();
@@ -60,9 +75,11 @@ public class OpenAICompatibleScoringProvider implements EssayScoringService {
                     String content = callModel(request, requestId);
                     EssayScoringResult parsed = parseResult(content, request.getMaxScore(), requestId, started, retryCount);
                     consecutiveFailures.set(0);
+                    scoredTotal.inc();
                     return parsed;
                 } catch (Exception e) {
                     retryCount = i;
+                    requestFailures.inc();
                     int failures = consecutiveFailures.incrementAndGet();
                     if (failures >= config.getCircuitBreakerFailureThreshold()) {
                         circuitOpenUntil = System.currentTimeMillis() + config.getCircuitBreakerOpenMs();
@@ -92,6 +109,7 @@ public class OpenAICompatibleScoringProvider implements EssayScoringService {
 
     private EssayScoringResult manualReview(String reason, String requestId, long started, int retryCount) {
         long latency = System.currentTimeMillis() - started;
+        manualReviewTotal.inc();
         return new EssayScoringResult(0, reason, 0.0D, true,
             config.getProviderName(), config.getModel(), requestId, latency, retryCount);
     }
@@ -133,7 +151,13 @@ public class OpenAICompatibleScoringProvider implements EssayScoringService {
             .POST(HttpRequest.BodyPublishers.ofString(payload.toString()))
             .build();
 
-        HttpResponse<String> resp = client.send(httpRequest, HttpResponse.BodyHandlers.ofString());
+        long start = System.nanoTime();
+        HttpResponse<String> resp;
+        try {
+            resp = client.send(httpRequest, HttpResponse.BodyHandlers.ofString());
+        } finally {
+            requestSeconds.observeSince(start);
+        }
         if (resp.statusCode() < 200 || resp.statusCode() >= 300) {
             throw new IOException("HTTP " + resp.statusCode());
         }
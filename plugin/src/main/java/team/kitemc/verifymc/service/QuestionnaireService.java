@@ -14,12 +14,14 @@ import java.util.*;
 
 /**
  * Questionnaire service for handling registration questionnaire
- * Supports single/multiple choice/text questions with scoring system
+ * Supports single/multiple choice/text questions with scoring system.
+ * The questionnaire is compiled into an immutable CompiledQuestionnaire on load and reload.
  */
 public class QuestionnaireService {
     private final Plugin plugin;
     private final boolean debug;
     private FileConfiguration questionnaireConfig;
+    private volatile CompiledQuestionnaire compiled;
     private final EssayScoringService essayScoringService;
     private final String llmScoringRule;
     private final boolean llmScoringEnabled;
@@ -67,6 +69,7 @@ public class QuestionnaireService {
         }
         questionnaireConfig = YamlConfiguration.loadConfiguration(configFile);
         debugLog("Questionnaire configuration loaded");
+        compile();
     }
 
     /**
@@ -90,187 +93,105 @@ public class QuestionnaireService {
         }
     }
 
+    /**
+     * Compile the loaded questionnaire together with the current questionnaire.* config values
+     */
+    private void compile() {
+        List<?> questionsList = questionnaireConfig != null ? questionnaireConfig.getList("questions") : null;
+        compiled = CompiledQuestionnaire.compile(
+            plugin.getConfig().getBoolean("questionnaire.enabled", false),
+            plugin.getConfig().getInt("questionnaire.pass_score", 60),
+            questionsList,
+            llmScoringRule,
+            plugin.getLogger()
+        );
+        debugLog("Questionnaire compiled: " + compiled.getQuestions().size() + " questions");
+    }
+
+    /**
+     * Current compiled questionnaire; replaced as a whole on reload()
+     * @return Immutable questionnaire snapshot
+     */
+    public CompiledQuestionnaire getCompiled() {
+        return compiled;
+    }
+
     public boolean isEnabled() {
-        return plugin.getConfig().getBoolean("questionnaire.enabled", false);
+        return compiled.isEnabled();
     }
 
     public int getPassScore() {
-        return plugin.getConfig().getInt("questionnaire.pass_score", 60);
+        return compiled.getPassScore();
     }
 
     public boolean hasTextQuestions() {
-        if (questionnaireConfig == null) {
-            return false;
-        }
-
-        List<?> questionsList = questionnaireConfig.getList("questions");
-        if (questionsList == null) {
-            return false;
-        }
-
-        for (Object qObj : questionsList) {
-            if (!(qObj instanceof Map)) {
-                continue;
-            }
-
-            @SuppressWarnings("unchecked")
-            Map<String, Object> questionMap = (Map<String, Object>) qObj;
-            String questionType = String.valueOf(questionMap.getOrDefault("type", "single_choice"));
-            if ("text".equalsIgnoreCase(questionType)) {
-                return true;
-            }
-        }
-
-        return false;
+        return compiled.hasTextQuestions();
     }
 
+    /**
+     * Serialized questionnaire for the public API
+     * @param language Language code
+     * @return UTF-8 JSON bytes, shared between calls and must not be modified
+     */
+    public byte[] getQuestionnaireJson(String language) {
+        return compiled.getJson(language);
+    }
 
     public JSONObject getQuestionnaire(String language) {
-        JSONObject result = new JSONObject();
-        result.put("enabled", isEnabled());
-        result.put("pass_score", getPassScore());
-
-        if (!isEnabled() || questionnaireConfig == null) {
-            result.put("questions", new JSONArray());
-            return result;
-        }
-
-        List<?> questionsList = questionnaireConfig.getList("questions");
-        JSONArray questionsArray = new JSONArray();
-
-        if (questionsList != null) {
-            for (Object qObj : questionsList) {
-                if (qObj instanceof Map) {
-                    @SuppressWarnings("unchecked")
-                    Map<String, Object> questionMap = (Map<String, Object>) qObj;
-                    JSONObject question = new JSONObject();
-
-                    question.put("id", questionMap.get("id"));
-                    String questionText = "zh".equals(language) ?
-                        (String) questionMap.get("question_zh") :
-                        (String) questionMap.get("question_en");
-                    if (questionText == null) {
-                        questionText = (String) questionMap.getOrDefault("question", "");
-                    }
-                    question.put("question", questionText);
-                    String type = String.valueOf(questionMap.getOrDefault("type", "single_choice"));
-                    question.put("type", type);
-                    question.put("required", Boolean.TRUE.equals(questionMap.get("required")));
-
-                    JSONObject inputMeta = new JSONObject();
-                    @SuppressWarnings("unchecked")
-                    Map<String, Object> inputMap = (Map<String, Object>) questionMap.get("input");
-                    if (inputMap != null) {
-                        for (Map.Entry<String, Object> entry : inputMap.entrySet()) {
-                            inputMeta.put(entry.getKey(), entry.getValue());
-                        }
-                    }
-
-                    if ("text".equals(type) && inputMap != null) {
-                        String placeholder = "zh".equals(language)
-                            ? String.valueOf(inputMap.getOrDefault("placeholder_zh", ""))
-                            : String.valueOf(inputMap.getOrDefault("placeholder_en", ""));
-                        inputMeta.put("placeholder", placeholder);
-                    }
-
-                    question.put("input", inputMeta);
-
-                    @SuppressWarnings("unchecked")
-                    List<Map<String, Object>> optionsList = (List<Map<String, Object>>) questionMap.get("options");
-                    JSONArray optionsArray = new JSONArray();
-
-                    if (optionsList != null) {
-                        int optionIndex = 0;
-                        for (Map<String, Object> optMap : optionsList) {
-                            JSONObject option = new JSONObject();
-                            option.put("id", optionIndex++);
-                            String optText = "zh".equals(language)
-                                ? (String) optMap.get("text_zh")
-                                : (String) optMap.get("text_en");
-                            if (optText == null) {
-                                optText = (String) optMap.getOrDefault("text", "");
-                            }
-                            option.put("text", optText);
-                            optionsArray.put(option);
-                        }
-                    }
-                    question.put("options", optionsArray);
-                    questionsArray.put(question);
-                }
-            }
-        }
-
-        result.put("questions", questionsArray);
-        return result;
+        return new JSONObject(new String(compiled.getJson(language), StandardCharsets.UTF_8));
     }
 
     public QuestionnaireResult evaluateAnswers(Map<Integer, QuestionAnswer> answers) {
-        if (!isEnabled() || questionnaireConfig == null) {
-            return new QuestionnaireResult(true, 100, getPassScore(), Collections.emptyList());
+        return evaluateAnswers(compiled, answers);
+    }
+
+    /**
+     * Score answers against a specific questionnaire snapshot, normally the one the answers were validated against
+     * @param questionnaire Compiled questionnaire
+     * @param answers Answers by question id
+     * @return Evaluation result
+     */
+    public QuestionnaireResult evaluateAnswers(CompiledQuestionnaire questionnaire, Map<Integer, QuestionAnswer> answers) {
+        if (!questionnaire.isEnabled()) {
+            return new QuestionnaireResult(true, 100, questionnaire.getPassScore(), Collections.emptyList());
         }
 
         int totalScore = 0;
         List<QuestionScoreDetail> details = new ArrayList<>();
-        List<?> questionsList = questionnaireConfig.getList("questions");
-
-        if (questionsList != null) {
-            for (Object qObj : questionsList) {
-                if (!(qObj instanceof Map)) {
-                    continue;
-                }
-
-                @SuppressWarnings("unchecked")
-                Map<String, Object> questionMap = (Map<String, Object>) qObj;
-                int questionId = ((Number) questionMap.get("id")).intValue();
-                String questionType = String.valueOf(questionMap.getOrDefault("type", "single_choice"));
-                QuestionAnswer answer = answers.get(questionId);
-
-                if (answer == null) {
-                    details.add(new QuestionScoreDetail(questionId, questionType, 0, resolveMaxScore(questionMap), "No answer submitted", 0.0D, false, "local", "", "", 0L, 0));
-                    continue;
-                }
-
-                if ("text".equalsIgnoreCase(questionType)) {
-                    QuestionScoreDetail detail = scoreTextQuestion(questionMap, answer, questionId);
-                    totalScore += detail.getScore();
-                    details.add(detail);
-                } else {
-                    QuestionScoreDetail detail = scoreChoiceQuestion(questionMap, answer, questionId);
-                    totalScore += detail.getScore();
-                    details.add(detail);
-                }
+        for (CompiledQuestionnaire.Question question : questionnaire.getQuestions()) {
+            QuestionAnswer answer = answers.get(question.getId());
+            if (answer == null) {
+                details.add(new QuestionScoreDetail(question.getId(), question.getType(), 0, question.getMaxScore(), "No answer submitted", 0.0D, false, "local", "", "", 0L, 0));
+                continue;
             }
+
+            QuestionScoreDetail detail = question.isText()
+                ? scoreTextQuestion(question, answer)
+                : scoreChoiceQuestion(question, answer);
+            totalScore += detail.getScore();
+            details.add(detail);
         }
 
-        int passScore = getPassScore();
+        int passScore = questionnaire.getPassScore();
         boolean passed = totalScore >= passScore;
         debugLog("Questionnaire evaluation: score=" + totalScore + ", passScore=" + passScore + ", passed=" + passed);
         return new QuestionnaireResult(passed, totalScore, passScore, details);
     }
 
-    private QuestionScoreDetail scoreChoiceQuestion(Map<String, Object> questionMap, QuestionAnswer answer, int questionId) {
+    private QuestionScoreDetail scoreChoiceQuestion(CompiledQuestionnaire.Question question, QuestionAnswer answer) {
         int questionScore = 0;
-        int maxScore = resolveMaxScore(questionMap);
-
-        @SuppressWarnings("unchecked")
-        List<Map<String, Object>> optionsList = (List<Map<String, Object>>) questionMap.get("options");
-        if (optionsList != null) {
-            for (int optionId : answer.getSelectedOptionIds()) {
-                if (optionId >= 0 && optionId < optionsList.size()) {
-                    Object scoreObj = optionsList.get(optionId).get("score");
-                    if (scoreObj instanceof Number) {
-                        questionScore += ((Number) scoreObj).intValue();
-                    }
-                }
-            }
+        int maxScore = question.getMaxScore();
+        for (int optionId : answer.getSelectedOptionIds()) {
+            questionScore += question.getOptionScore(optionId);
         }
 
         questionScore = Math.max(0, Math.min(maxScore, questionScore));
-        return new QuestionScoreDetail(questionId, answer.getType(), questionScore, maxScore, "Locally scored", 1.0D, false, "local", "", "", 0L, 0);
+        return new QuestionScoreDetail(question.getId(), answer.getType(), questionScore, maxScore, "Locally scored", 1.0D, false, "local", "", "", 0L, 0);
     }
 
-    private QuestionScoreDetail scoreTextQuestion(Map<String, Object> questionMap, QuestionAnswer answer, int questionId) {
-        int maxScore = resolveMaxScore(questionMap);
+    private QuestionScoreDetail scoreTextQuestion(CompiledQuestionnaire.Question question, QuestionAnswer answer) {
+        int questionId = question.getId();
+        int maxScore = question.getMaxScore();
         if (!llmScoringEnabled) {
             return new QuestionScoreDetail(
                 questionId,
@@ -288,14 +209,11 @@ public class QuestionnaireService {
             );
         }
 
-        String questionText = resolveQuestionText(questionMap);
-        String scoringRule = resolveScoringRule(questionMap);
-
         EssayScoringService.EssayScoringRequest request = new EssayScoringService.EssayScoringRequest(
             questionId,
-            questionText,
+            question.getScoringText(),
             answer.getTextAnswer(),
-            scoringRule,
+            question.getScoringRule(),
             maxScore
         );
 
@@ -316,55 +234,9 @@ public class QuestionnaireService {
         );
     }
 
-
-    private String resolveQuestionText(Map<String, Object> questionMap) {
-        String zh = String.valueOf(questionMap.getOrDefault("question_zh", "")).trim();
-        String en = String.valueOf(questionMap.getOrDefault("question_en", "")).trim();
-        if (!zh.isEmpty() && !en.isEmpty()) {
-            return "[ZH] " + zh + "\n[EN] " + en;
-        }
-        return !zh.isEmpty() ? zh : en;
-    }
-
-    private String resolveScoringRule(Map<String, Object> questionMap) {
-        Object localRule = questionMap.get("scoring_rule");
-        if (localRule instanceof String && !((String) localRule).trim().isEmpty()) {
-            return ((String) localRule).trim();
-        }
-        return llmScoringRule;
-    }
-
-    private int resolveMaxScore(Map<String, Object> questionMap) {
-        String type = String.valueOf(questionMap.getOrDefault("type", "single_choice"));
-        Object configured = questionMap.get("max_score");
-
-        if ("text".equalsIgnoreCase(type)) {
-            if (configured instanceof Number) {
-                return Math.max(1, ((Number) configured).intValue());
-            }
-            return 20;
-        }
-
-        if (configured instanceof Number) {
-            return Math.max(1, ((Number) configured).intValue());
-        }
-
-        @SuppressWarnings("unchecked")
-        List<Map<String, Object>> optionsList = (List<Map<String, Object>>) questionMap.get("options");
-        if (optionsList != null && !optionsList.isEmpty()) {
-            int total = 0;
-            for (Map<String, Object> option : optionsList) {
-                Object scoreObj = option.get("score");
-                if (scoreObj instanceof Number) {
-                    total += ((Number) scoreObj).intValue();
-                }
-            }
-            return Math.max(1, total);
-        }
-
-        return 1;
-    }
-
+    /**
+     * Reload questionnaire.yml and recompile it with the current config
+     */
     public void reload() {
         loadQuestionnaireConfig();
     }
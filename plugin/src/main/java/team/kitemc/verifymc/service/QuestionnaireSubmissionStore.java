@@ -0,0 +1,369 @@
+package team.kitemc.verifymc.service;
+
+import org.bukkit.plugin.Plugin;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import team.kitemc.verifymc.TaskScheduler;
+import team.kitemc.verifymc.db.SubmissionDao;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Holds scored questionnaire submissions until the player registers with the returned token.
+ * Submissions are kept as compact binary records in a memory map bounded by entry count and TTL;
+ * the oldest entries are dropped first when the map is full. With persistence enabled the storage
+ * backend holds the only copy instead, under the same bounds, so submissions survive restarts and
+ * a token redeemed on one server cannot be redeemed again on another.
+ */
+public class QuestionnaireSubmissionStore {
+    private static final byte FORMAT_VERSION = 1;
+    // A full persistent store frees this fraction of max_entries at once, so a flood does not
+    // pay for a scan of the backend on every submission
+    private static final int EVICT_BATCH_DIVISOR = 100;
+    private static final long PURGE_INTERVAL_TICKS = 60L * 20L;
+
+    private final Plugin plugin;
+    private final SubmissionDao dao;
+    private final boolean debug;
+    private final int maxEntries;
+    private final long ttlMs;
+    // token -> encoded submission, insertion ordered, unused when a dao is set; guarded by itself
+    private final LinkedHashMap<String, byte[]> submissions = new LinkedHashMap<>();
+    private TaskScheduler.Task purgeTask;
+
+    /**
+     * @param plugin Plugin instance
+     * @param dao Backend to persist submissions in, or null to keep them in memory only
+     */
+    public QuestionnaireSubmissionStore(Plugin plugin, SubmissionDao dao) {
+        this.plugin = plugin;
+        this.dao = dao;
+        this.debug = plugin.getConfig().getBoolean("debug", false);
+        this.maxEntries = Math.max(1, plugin.getConfig().getInt("questionnaire.submission_store.max_entries", 10000));
+        this.ttlMs = Math.max(1, plugin.getConfig().getLong("questionnaire.submission_store.ttl_seconds", 600)) * 1000L;
+    }
+
+    private void debugLog(String msg) {
+        if (debug) plugin.getLogger().info("[DEBUG] QuestionnaireSubmissionStore: " + msg);
+    }
+
+    /**
+     * Start the periodic purge of expired submissions
+     */
+    public void start() {
+        purgeTask = TaskScheduler.runAsyncTimer(plugin, this::purgeExpired, PURGE_INTERVAL_TICKS, PURGE_INTERVAL_TICKS);
+    }
+
+    public void shutdown() {
+        if (purgeTask != null) {
+            purgeTask.cancel();
+        }
+        if (dao != null) {
+            dao.close();
+        }
+    }
+
+    /**
+     * How long a submission stays valid
+     * @return TTL in milliseconds
+     */
+    public long getTtlMs() {
+        return ttlMs;
+    }
+
+    /**
+     * Store a submission under a new token
+     * @param submission Submission to store
+     * @return Token for the submission
+     * @throws IllegalStateException if persistence is enabled and the submission could not be stored
+     */
+    public String put(Submission submission) {
+        String token = UUID.randomUUID().toString();
+        byte[] data = submission.encode();
+        if (dao != null) {
+            makeRoom();
+            if (!dao.put(token, submission.getExpiresAt(), data)) {
+                throw new IllegalStateException("Failed to persist questionnaire submission");
+            }
+            return token;
+        }
+        synchronized (submissions) {
+            submissions.put(token, data);
+            Iterator<Map.Entry<String, byte[]>> it = submissions.entrySet().iterator();
+            while (submissions.size() > maxEntries && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+        return token;
+    }
+
+    /**
+     * Drop the submissions that expire first if the persistent store has no room for one more
+     * @throws IllegalStateException if the number of stored submissions cannot be read
+     */
+    private void makeRoom() {
+        int count = dao.count();
+        if (count < 0) {
+            throw new IllegalStateException("Failed to count questionnaire submissions");
+        }
+        int excess = count - maxEntries + 1;
+        if (excess > 0) {
+            int evicted = dao.deleteOldest(Math.max(excess, maxEntries / EVICT_BATCH_DIVISOR));
+            debugLog("Submission store full, dropped " + evicted + " oldest submissions");
+        }
+    }
+
+    /**
+     * Remove and return a submission; each token can be redeemed once.
+     * With persistence enabled only a successful claim of the stored record counts.
+     * @param token Submission token
+     * @return The submission, or null if unknown, already used or purged; callers check isExpired()
+     */
+    public Submission take(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        byte[] data;
+        if (dao != null) {
+            data = dao.take(token);
+        } else {
+            synchronized (submissions) {
+                data = submissions.remove(token);
+            }
+        }
+        if (data == null) {
+            return null;
+        }
+        try {
+            return Submission.decode(data);
+        } catch (IOException e) {
+            debugLog("Discarding unreadable submission " + token + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void purgeExpired() {
+        long now = System.currentTimeMillis();
+        int purged = 0;
+        synchronized (submissions) {
+            Iterator<byte[]> it = submissions.values().iterator();
+            while (it.hasNext()) {
+                if (Submission.readExpiresAt(it.next()) < now) {
+                    it.remove();
+                    purged++;
+                }
+            }
+        }
+        if (dao != null) {
+            purged += dao.purgeExpired(now);
+        }
+        if (purged > 0) {
+            debugLog("Purged " + purged + " expired submissions");
+        }
+    }
+
+    /**
+     * Encode questionnaire answers as submitted by the client into a canonical compact form.
+     * Answers are ordered by question id, so two encodings are equal exactly when the answers are.
+     * @param answers Answers object keyed by question id
+     * @return Encoded answers
+     * @throws IllegalArgumentException if the answers are malformed
+     */
+    public static byte[] encodeAnswers(JSONObject answers) {
+        TreeMap<Integer, JSONObject> sorted = new TreeMap<>();
+        try {
+            for (String key : answers.keySet()) {
+                Object answer = answers.get(key);
+                if (!(answer instanceof JSONObject)) {
+                    throw new IllegalArgumentException("Invalid answer object for question: " + key);
+                }
+                sorted.put(Integer.parseInt(key), (JSONObject) answer);
+            }
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            writeVarInt(out, sorted.size());
+            for (Map.Entry<Integer, JSONObject> entry : sorted.entrySet()) {
+                JSONObject answer = entry.getValue();
+                writeVarInt(out, entry.getKey());
+                writeString(out, answer.optString("type", ""));
+                JSONArray selected = answer.optJSONArray("selectedOptionIds");
+                int count = selected != null ? selected.length() : 0;
+                writeVarInt(out, count);
+                for (int i = 0; i < count; i++) {
+                    writeVarInt(out, selected.getInt(i));
+                }
+                writeString(out, answer.optString("textAnswer", ""));
+            }
+            return bytes.toByteArray();
+        } catch (NumberFormatException | JSONException e) {
+            throw new IllegalArgumentException("Malformed questionnaire answers: " + e.getMessage(), e);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        // Zigzag so small negative ids stay short as well
+        int v = (value << 1) ^ (value >> 31);
+        while ((v & ~0x7F) != 0) {
+            out.writeByte((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        out.writeByte(v);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int v = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            v |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (v >>> 1) ^ -(v & 1);
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            writeVarInt(out, -1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = readVarInt(in);
+        if (length < 0) {
+            return null;
+        }
+        if (length > in.available()) {
+            throw new IOException("Truncated string");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Result of one questionnaire submission
+     */
+    public static final class Submission {
+        private final boolean passed;
+        private final boolean manualReviewRequired;
+        private final int score;
+        private final int passScore;
+        private final String reviewSummary;
+        private final byte[] answers;
+        private final long submittedAt;
+        private final long expiresAt;
+
+        /**
+         * @param passed Whether the score reached the pass score
+         * @param manualReviewRequired Whether an admin has to review the answers
+         * @param score Total score
+         * @param passScore Pass score at submission time
+         * @param reviewSummary Summary of text question scoring stored with the user, may be null
+         * @param answers Answers encoded with encodeAnswers
+         * @param submittedAt Submission time in epoch milliseconds
+         * @param expiresAt Expiry time in epoch milliseconds
+         */
+        public Submission(boolean passed, boolean manualReviewRequired, int score, int passScore, String reviewSummary,
+                          byte[] answers, long submittedAt, long expiresAt) {
+            this.passed = passed;
+            this.manualReviewRequired = manualReviewRequired;
+            this.score = score;
+            this.passScore = passScore;
+            this.reviewSummary = reviewSummary;
+            this.answers = answers;
+            this.submittedAt = submittedAt;
+            this.expiresAt = expiresAt;
+        }
+
+        public boolean isPassed() { return passed; }
+        public boolean isManualReviewRequired() { return manualReviewRequired; }
+        public int getScore() { return score; }
+        public int getPassScore() { return passScore; }
+        public String getReviewSummary() { return reviewSummary; }
+        public long getSubmittedAt() { return submittedAt; }
+        public long getExpiresAt() { return expiresAt; }
+
+        public boolean isExpired() {
+            return System.currentTimeMillis() > expiresAt;
+        }
+
+        /**
+         * Check the answers the client sent back against the stored ones
+         * @param encodedAnswers Answers encoded with encodeAnswers
+         * @return true if identical
+         */
+        public boolean answersMatch(byte[] encodedAnswers) {
+            return Arrays.equals(answers, encodedAnswers);
+        }
+
+        private byte[] encode() {
+            try {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream(32 + answers.length);
+                DataOutputStream out = new DataOutputStream(bytes);
+                // Expiry first so purging only has to read the header
+                out.writeLong(expiresAt);
+                out.writeByte(FORMAT_VERSION);
+                out.writeByte((passed ? 1 : 0) | (manualReviewRequired ? 2 : 0));
+                writeVarInt(out, score);
+                writeVarInt(out, passScore);
+                out.writeLong(submittedAt);
+                writeString(out, reviewSummary);
+                writeVarInt(out, answers.length);
+                out.write(answers);
+                return bytes.toByteArray();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private static long readExpiresAt(byte[] data) {
+            long value = 0;
+            for (int i = 0; i < Long.BYTES; i++) {
+                value = (value << 8) | (data[i] & 0xFF);
+            }
+            return value;
+        }
+
+        private static Submission decode(byte[] data) throws IOException {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+            long expiresAt = in.readLong();
+            byte version = in.readByte();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported submission format " + version);
+            }
+            int flags = in.readUnsignedByte();
+            int score = readVarInt(in);
+            int passScore = readVarInt(in);
+            long submittedAt = in.readLong();
+            String reviewSummary = readString(in);
+            int answersLength = readVarInt(in);
+            if (answersLength < 0 || answersLength > in.available()) {
+                throw new IOException("Truncated answers");
+            }
+            byte[] answers = new byte[answersLength];
+            in.readFully(answers);
+            return new Submission((flags & 1) != 0, (flags & 2) != 0, score, passScore, reviewSummary,
+                answers, submittedAt, expiresAt);
+        }
+    }
+}
@@ -1,21 +1,29 @@
 package team.kitemc.verifymc.service;
 
-import java.util.Map;
+import team.kitemc.verifymc.db.EphemeralStore;
+import team.kitemc.verifymc.db.MemoryEphemeralStore;
+
 import java.util.Random;
-import java.util.concurrent.ConcurrentHashMap;
 
 public class VerifyCodeService {
-    private final ConcurrentHashMap<String, CodeEntry> codeMap = new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<String, Long> rateLimitMap = new ConcurrentHashMap<>(); // Rate limiting for email sending
+    private final EphemeralStore store;
     private final long expireMillis = 5 * 60 * 1000; // 5分钟
     private final long rateLimitMillis = 60 * 1000; // 60秒频率限制
     private final boolean debug;
     private final org.bukkit.plugin.Plugin plugin;
 
-    public VerifyCodeService(org.bukkit.plugin.Plugin plugin) {
+    /**
+     * @param plugin Plugin instance
+     * @param store Store for codes and send times; expired entries are dropped by the store
+     */
+    public VerifyCodeService(org.bukkit.plugin.Plugin plugin, EphemeralStore store) {
         this.plugin = plugin;
         this.debug = plugin.getConfig().getBoolean("debug", false);
-        startCleanupTask();
+        this.store = store;
+    }
+
+    public VerifyCodeService(org.bukkit.plugin.Plugin plugin) {
+        this(plugin, new MemoryEphemeralStore());
     }
 
     /**
@@ -24,54 +32,7 @@ public class VerifyCodeService {
     public VerifyCodeService() {
         this.plugin = null;
         this.debug = false;
-        startCleanupTask();
-    }
-    
-    /**
-     * Start cleanup task to remove expired entries
-     */
-    private void startCleanupTask() {
-        Thread cleanupThread = new Thread(() -> {
-            while (true) {
-                try {
-                    Thread.sleep(300000); // Clean up every 5 minutes
-                    cleanupExpiredEntries();
-                } catch (InterruptedException e) {
-                    debugLog("Cleanup task interrupted");
-                    break;
-                }
-            }
-        });
-        cleanupThread.setDaemon(true);
-        cleanupThread.start();
-        debugLog("Cleanup task started");
-    }
-    
-    /**
-     * Clean up expired code entries and rate limit entries
-     */
-    private void cleanupExpiredEntries() {
-        long currentTime = System.currentTimeMillis();
-        
-        // Clean up expired verification codes
-        codeMap.entrySet().removeIf(entry -> {
-            boolean expired = entry.getValue().expire < currentTime;
-            if (expired) {
-                debugLog("Removed expired code for key: " + entry.getKey());
-            }
-            return expired;
-        });
-        
-        // Clean up expired rate limit entries
-        rateLimitMap.entrySet().removeIf(entry -> {
-            boolean expired = (currentTime - entry.getValue()) > rateLimitMillis;
-            if (expired) {
-                debugLog("Removed expired rate limit for email: " + entry.getKey());
-            }
-            return expired;
-        });
-        
-        debugLog("Cleanup completed. Active codes: " + codeMap.size() + ", Active rate limits: " + rateLimitMap.size());
+        this.store = new MemoryEphemeralStore();
     }
 
     private void debugLog(String msg) {
@@ -85,7 +46,7 @@ public class VerifyCodeService {
      */
     public boolean canSendCode(String email) {
         debugLog("canSendCode called for email: " + email);
-        Long lastSentTime = rateLimitMap.get(email);
+        Long lastSentTime = getLastSentTime(email);
         if (lastSentTime == null) {
             debugLog("No previous send record for email: " + email);
             return true;
@@ -96,12 +57,6 @@ public class VerifyCodeService {
         boolean canSend = timeSinceLastSent >= rateLimitMillis;
         
         debugLog("Email: " + email + ", last sent: " + lastSentTime + ", time since: " + timeSinceLastSent + "ms, can send: " + canSend);
-        
-        // Clean up expired rate limit entries
-        if (canSend) {
-            rateLimitMap.remove(email);
-        }
-        
         return canSend;
     }
     
@@ -111,7 +66,7 @@ public class VerifyCodeService {
      * @return remaining seconds, 0 if can send immediately
      */
     public long getRemainingCooldownSeconds(String email) {
-        Long lastSentTime = rateLimitMap.get(email);
+        Long lastSentTime = getLastSentTime(email);
         if (lastSentTime == null) {
             return 0;
         }
@@ -123,15 +78,34 @@ public class VerifyCodeService {
         return remainingMillis > 0 ? (remainingMillis / 1000) + 1 : 0;
     }
 
+    private Long getLastSentTime(String email) {
+        String value = store.get(EphemeralStore.VERIFY_RATE_LIMITS, email);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Generate and store a verification code
+     * @param key Email the code is for
+     * @return Code, or null if it could not be stored
+     */
     public String generateCode(String key) {
         debugLog("generateCode called for key: " + key);
         String code = String.format("%06d", new Random().nextInt(1000000));
         long expireTime = System.currentTimeMillis() + expireMillis;
         long currentTime = System.currentTimeMillis();
         
+        if (!store.put(EphemeralStore.VERIFY_CODES, key, code, expireMillis)) {
+            return null;
+        }
         // Record the time when code was generated for rate limiting
-        rateLimitMap.put(key, currentTime);
-        codeMap.put(key, new CodeEntry(code, expireTime));
+        store.put(EphemeralStore.VERIFY_RATE_LIMITS, key, String.valueOf(currentTime), rateLimitMillis);
         
         debugLog("Generated code: " + code + " for key: " + key + ", expires at: " + expireTime + ", rate limit recorded at: " + currentTime);
         return code;
@@ -145,31 +119,18 @@ public class VerifyCodeService {
      */
     public boolean checkCode(String key, String code) {
         debugLog("checkCode called: key=" + key + ", code=" + code);
-        CodeEntry entry = codeMap.get(key);
-        if (entry == null) {
-            debugLog("No code found for key: " + key);
-            return false;
-        }
-        if (entry.expire < System.currentTimeMillis()) {
-            debugLog("Code expired for key: " + key + ", expired at: " + entry.expire);
-            codeMap.remove(key);
+        String expected = store.get(EphemeralStore.VERIFY_CODES, key);
+        if (expected == null) {
+            debugLog("No valid code found for key: " + key);
             return false;
         }
-        boolean ok = entry.code.equals(code);
-        debugLog("Code verification result: " + ok + " (expected: " + entry.code + ", provided: " + code + ")");
+        boolean ok = expected.equals(code);
+        debugLog("Code verification result: " + ok + " (expected: " + expected + ", provided: " + code + ")");
         if (ok) {
+            // Claim the code so it cannot be used twice, even from another web node
+            ok = code.equals(store.take(EphemeralStore.VERIFY_CODES, key));
             debugLog("Removing used code for key: " + key);
-            codeMap.remove(key);
         }
         return ok;
     }
-
-    static class CodeEntry {
-        String code;
-        long expire;
-        CodeEntry(String code, long expire) {
-            this.code = code;
-            this.expire = expire;
-        }
-    }
-} 
\ No newline at end of file
+}
\ No newline at end of file
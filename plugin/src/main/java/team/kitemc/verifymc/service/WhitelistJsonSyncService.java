@@ -0,0 +1,320 @@
+package team.kitemc.verifymc.service;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import team.kitemc.verifymc.db.StorageException;
+import team.kitemc.verifymc.db.UserDao;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps whitelist.json and the plugin's approved users in sync.
+ * File changes are detected with a WatchService, parsed and diffed off the main thread,
+ * and plugin-side changes are coalesced into a single atomic write.
+ */
+public class WhitelistJsonSyncService {
+    private static final long READ_DEBOUNCE_MS = 500;
+    private static final long WRITE_COALESCE_MS = 1000;
+    private static final long SHUTDOWN_TIMEOUT_MS = 5000;
+
+    private final org.bukkit.plugin.Plugin plugin;
+    private final UserDao userDao;
+    private final Path whitelistJsonPath;
+    private final boolean debug;
+    private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    private final ScheduledExecutorService executor;
+    private final Object stateLock = new Object();
+    // Last content known to be on disk (uuid -> name entry), guarded by stateLock
+    private Map<String, Map<String, Object>> knownEntries = Collections.emptyMap();
+    private ScheduledFuture<?> pendingRead;
+    private ScheduledFuture<?> pendingWrite;
+    private WatchService watchService;
+    private Thread watchThread;
+
+    public WhitelistJsonSyncService(org.bukkit.plugin.Plugin plugin, UserDao userDao, Path whitelistJsonPath) {
+        this.plugin = plugin;
+        this.userDao = userDao;
+        this.whitelistJsonPath = whitelistJsonPath;
+        this.debug = plugin.getConfig().getBoolean("debug", false);
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "VerifyMC-WhitelistJsonSync");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    private void debugLog(String msg) {
+        if (debug) plugin.getLogger().info("[DEBUG] WhitelistJsonSyncService: " + msg);
+    }
+
+    /**
+     * Apply edits made to the file while the server was offline, then watch it for external changes
+     */
+    public void start() {
+        executor.execute(this::applyStartupChanges);
+        Path dir = whitelistJsonPath.toAbsolutePath().getParent();
+        if (dir == null) {
+            return;
+        }
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            plugin.getLogger().warning("[VerifyMC] Failed to watch whitelist.json: " + e.getMessage());
+            return;
+        }
+        watchThread = new Thread(this::watchLoop, "VerifyMC-WhitelistJsonWatcher");
+        watchThread.setDaemon(true);
+        watchThread.start();
+    }
+
+    private void watchLoop() {
+        Path fileName = whitelistJsonPath.getFileName();
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            boolean relevant = false;
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (fileName.equals(event.context())) {
+                    relevant = true;
+                }
+            }
+            if (relevant) {
+                scheduleRead();
+            }
+            if (!key.reset()) {
+                return;
+            }
+        }
+    }
+
+    private void scheduleRead() {
+        synchronized (stateLock) {
+            if (pendingRead != null && !pendingRead.isDone()) {
+                return;
+            }
+            try {
+                pendingRead = executor.schedule(this::applyFileChanges, READ_DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException ignored) {
+            }
+        }
+    }
+
+    /**
+     * Diff the file against the last known content and apply only the changed entries
+     */
+    private void applyFileChanges() {
+        Map<String, Map<String, Object>> current = readEntries();
+        Map<String, Map<String, Object>> previous;
+        synchronized (stateLock) {
+            previous = knownEntries;
+            knownEntries = current;
+        }
+        int applied = 0;
+        for (Map.Entry<String, Map<String, Object>> entry : current.entrySet()) {
+            Map<String, Object> before = previous.get(entry.getKey());
+            if (before != null && before.equals(entry.getValue())) {
+                continue;
+            }
+            if (applyEntry(entry.getKey(), entry.getValue())) {
+                applied++;
+            }
+        }
+        if (applied > 0) {
+            userDao.save();
+        }
+        debugLog("whitelist.json changed, " + applied + " users updated");
+    }
+
+    /**
+     * Load the file as baseline and diff every entry against the stored users, since nothing
+     * is known about what changed while the server was offline
+     */
+    private void applyStartupChanges() {
+        Map<String, Map<String, Object>> current = readEntries();
+        synchronized (stateLock) {
+            knownEntries = current;
+        }
+        Map<String, String> statusByUuid = new HashMap<>();
+        try {
+            userDao.forEachUserSummary(user -> {
+                if (user.getUuid() != null && current.containsKey(user.getUuid())) {
+                    statusByUuid.put(user.getUuid(), user.getStatus());
+                }
+            });
+        } catch (StorageException e) {
+            plugin.getLogger().warning("[VerifyMC] Failed to apply whitelist.json on start: " + e.getMessage());
+            return;
+        }
+        int applied = 0;
+        for (Map.Entry<String, String> user : statusByUuid.entrySet()) {
+            String status = targetStatus(user.getValue(), current.get(user.getKey()));
+            if (status != null && userDao.updateUserStatus(user.getKey(), status)) {
+                applied++;
+            }
+        }
+        if (applied > 0) {
+            userDao.save();
+        }
+        debugLog("Baseline loaded with " + current.size() + " entries, " + applied + " users updated");
+    }
+
+    private boolean applyEntry(String uuid, Map<String, Object> entry) {
+        Map<String, Object> user = userDao.getUserByUuid(uuid);
+        if (user == null) {
+            return false;
+        }
+        String status = targetStatus((String) user.get("status"), entry);
+        return status != null && userDao.updateUserStatus(uuid, status);
+    }
+
+    /**
+     * Status a user should get for a whitelist.json entry
+     * @param currentStatus Stored status
+     * @param entry whitelist.json entry
+     * @return New status, or null to leave the user unchanged
+     */
+    private static String targetStatus(String currentStatus, Map<String, Object> entry) {
+        boolean whitelisted = Boolean.TRUE.equals(entry.get("whitelisted"));
+        // Only promote pending users; never override a manually set approved/banned status
+        if ("pending".equals(currentStatus) && whitelisted) {
+            return "approved";
+        } else if (!"approved".equals(currentStatus) && !"banned".equals(currentStatus) && !"pending".equals(currentStatus) && !whitelisted) {
+            return "pending";
+        }
+        return null;
+    }
+
+    private Map<String, Map<String, Object>> readEntries() {
+        if (!Files.exists(whitelistJsonPath)) {
+            return Collections.emptyMap();
+        }
+        try {
+            String json = new String(Files.readAllBytes(whitelistJsonPath), StandardCharsets.UTF_8);
+            List<Map<String, Object>> list = gson.fromJson(json, new TypeToken<List<Map<String, Object>>>() {}.getType());
+            Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+            if (list != null) {
+                for (Map<String, Object> entry : list) {
+                    Object uuid = entry.get("uuid");
+                    if (uuid != null) {
+                        result.put(uuid.toString(), entry);
+                    }
+                }
+            }
+            return result;
+        } catch (Exception e) {
+            debugLog("Failed to read whitelist.json: " + e.getMessage());
+            synchronized (stateLock) {
+                return knownEntries;
+            }
+        }
+    }
+
+    /**
+     * Request that whitelist.json reflects the current approved users.
+     * Bursts of requests are coalesced into one write.
+     */
+    public void requestSync() {
+        synchronized (stateLock) {
+            if (pendingWrite != null && !pendingWrite.isDone()) {
+                return;
+            }
+            try {
+                pendingWrite = executor.schedule(this::writeApprovedUsers, WRITE_COALESCE_MS, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException ignored) {
+            }
+        }
+    }
+
+    /**
+     * Stop watching, let queued reads and writes finish, then write the final state on the calling thread
+     */
+    public void shutdown() {
+        try {
+            if (watchService != null) watchService.close();
+        } catch (IOException ignored) {
+        }
+        if (watchThread != null) watchThread.interrupt();
+        // Not shutdownNow: interrupting a write in progress would close its file channel mid-write
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                plugin.getLogger().warning("[VerifyMC] Timed out waiting for whitelist.json sync to finish");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writeApprovedUsers();
+    }
+
+    private void writeApprovedUsers() {
+        Map<String, Map<String, Object>> desired = new LinkedHashMap<>();
+        try {
+            userDao.forEachUserSummary(user -> {
+                if ("approved".equals(user.getStatus()) && user.getUuid() != null) {
+                    Map<String, Object> entry = new LinkedHashMap<>();
+                    entry.put("uuid", user.getUuid());
+                    entry.put("name", user.getUsername());
+                    entry.put("whitelisted", true);
+                    desired.put(user.getUuid(), entry);
+                }
+            });
+        } catch (StorageException e) {
+            // A partial list would unwhitelist everyone not yet read
+            plugin.getLogger().warning("[VerifyMC] Failed to read users for whitelist.json: " + e.getMessage());
+            return;
+        }
+        synchronized (stateLock) {
+            if (desired.equals(knownEntries)) {
+                debugLog("whitelist.json already up to date, skipping write");
+                return;
+            }
+            try {
+                writeAtomically(new ArrayList<>(desired.values()));
+                // Remember what we wrote so our own file event diffs to nothing
+                knownEntries = desired;
+                debugLog("whitelist.json written with " + desired.size() + " entries");
+            } catch (IOException e) {
+                plugin.getLogger().warning("[VerifyMC] Failed to write whitelist.json: " + e.getMessage());
+            }
+        }
+    }
+
+    private void writeAtomically(List<Map<String, Object>> entries) throws IOException {
+        Path target = whitelistJsonPath.toAbsolutePath();
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        Files.write(temp, gson.toJson(entries).getBytes(StandardCharsets.UTF_8));
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package team.kitemc.verifymc.service;
+
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+import team.kitemc.verifymc.TaskScheduler;
+import team.kitemc.verifymc.db.UserDao;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Reconciles the Bukkit whitelist with the plugin's approved users.
+ * The whitelist is snapshotted on the main thread, diffed asynchronously against the DAO,
+ * and only the resulting changes are applied back on the main thread in time-sliced batches.
+ * On Folia the global region thread takes the place of the main thread.
+ */
+public class WhitelistReconcileService {
+    private static final long TICK_BUDGET_NANOS = 2_000_000L; // 2ms of main thread time per tick
+
+    private final org.bukkit.plugin.Plugin plugin;
+    private final UserDao userDao;
+    private final boolean debug;
+    // Guarded by this
+    private boolean running;
+    private boolean rerunAdd;
+    private boolean rerunCleanup;
+
+    public WhitelistReconcileService(org.bukkit.plugin.Plugin plugin, UserDao userDao) {
+        this.plugin = plugin;
+        this.userDao = userDao;
+        this.debug = plugin.getConfig().getBoolean("debug", false);
+    }
+
+    private void debugLog(String msg) {
+        if (debug) plugin.getLogger().info("[DEBUG] WhitelistReconcileService: " + msg);
+    }
+
+    /**
+     * Schedule a reconciliation. Requests made while one is running are merged into a single rerun.
+     * @param addApproved Whitelist approved users and unwhitelist banned users
+     * @param cleanup Unwhitelist players that are not approved
+     */
+    public synchronized void reconcile(boolean addApproved, boolean cleanup) {
+        if (!addApproved && !cleanup) {
+            return;
+        }
+        if (running) {
+            rerunAdd |= addApproved;
+            rerunCleanup |= cleanup;
+            return;
+        }
+        running = true;
+        try {
+            TaskScheduler.runSync(plugin, () -> snapshot(addApproved, cleanup));
+        } catch (RuntimeException e) {
+            // E.g. the plugin is being disabled; nothing will run, so do not stay marked as running
+            running = false;
+            plugin.getLogger().warning("[VerifyMC] Failed to schedule whitelist reconciliation: " + e.getMessage());
+        }
+    }
+
+    private void snapshot(boolean addApproved, boolean cleanup) {
+        try {
+            List<OfflinePlayer> whitelisted = new ArrayList<>(Bukkit.getWhitelistedPlayers());
+            TaskScheduler.runAsync(plugin, () -> diff(whitelisted, addApproved, cleanup));
+        } catch (RuntimeException e) {
+            plugin.getLogger().warning("[VerifyMC] Whitelist reconciliation failed: " + e.getMessage());
+            finish();
+        }
+    }
+
+    private void diff(List<OfflinePlayer> whitelisted, boolean addApproved, boolean cleanup) {
+        ArrayDeque<Runnable> changes = new ArrayDeque<>();
+        try {
+            Map<String, String> approvedNames = new HashMap<>();
+            Set<String> approvedUuids = new HashSet<>();
+            Set<String> bannedNames = new HashSet<>();
+            userDao.forEachUserSummary(user -> {
+                String name = user.getUsername();
+                if (name == null) {
+                    return;
+                }
+                String status = user.getStatus();
+                if ("approved".equals(status)) {
+                    approvedNames.put(name.toLowerCase(Locale.ROOT), name);
+                    if (user.getUuid() != null) {
+                        approvedUuids.add(user.getUuid());
+                    }
+                } else if ("banned".equals(status)) {
+                    bannedNames.add(name.toLowerCase(Locale.ROOT));
+                }
+            });
+
+            Set<String> whitelistedNames = new HashSet<>();
+            for (OfflinePlayer player : whitelisted) {
+                String name = player.getName();
+                String key = name != null ? name.toLowerCase(Locale.ROOT) : null;
+                if (key != null) {
+                    whitelistedNames.add(key);
+                }
+                boolean approved = (key != null && approvedNames.containsKey(key))
+                    || approvedUuids.contains(String.valueOf(player.getUniqueId()));
+                boolean banned = key != null && bannedNames.contains(key);
+                if ((cleanup && !approved) || (addApproved && banned)) {
+                    changes.add(() -> player.setWhitelisted(false));
+                }
+            }
+            if (addApproved) {
+                for (Map.Entry<String, String> entry : approvedNames.entrySet()) {
+                    if (!whitelistedNames.contains(entry.getKey())) {
+                        String name = entry.getValue();
+                        changes.add(() -> Bukkit.getOfflinePlayer(name).setWhitelisted(true));
+                    }
+                }
+            }
+        } catch (Exception e) {
+            plugin.getLogger().warning("[VerifyMC] Whitelist reconciliation failed: " + e.getMessage());
+        }
+        debugLog("Whitelist diff computed: " + changes.size() + " changes");
+        if (changes.isEmpty()) {
+            finish();
+            return;
+        }
+        AtomicReference<TaskScheduler.Task> task = new AtomicReference<>();
+        try {
+            task.set(TaskScheduler.runSyncTimer(plugin, () -> {
+                if (changes.isEmpty()) {
+                    // A run finished the batch before the task handle was stored
+                    cancel(task.get());
+                    return;
+                }
+                long deadline = System.nanoTime() + TICK_BUDGET_NANOS;
+                Runnable change;
+                while ((change = changes.poll()) != null) {
+                    try {
+                        change.run();
+                    } catch (Exception e) {
+                        debugLog("Whitelist change failed: " + e.getMessage());
+                    }
+                    if (System.nanoTime() >= deadline) {
+                        break;
+                    }
+                }
+                if (changes.isEmpty()) {
+                    cancel(task.get());
+                    finish();
+                }
+            }, 1L, 1L));
+        } catch (RuntimeException e) {
+            plugin.getLogger().warning("[VerifyMC] Failed to apply whitelist changes: " + e.getMessage());
+            finish();
+        }
+    }
+
+    private static void cancel(TaskScheduler.Task task) {
+        if (task != null) {
+            task.cancel();
+        }
+    }
+
+    private void finish() {
+        boolean add;
+        boolean cleanup;
+        synchronized (this) {
+            running = false;
+            add = rerunAdd;
+            cleanup = rerunCleanup;
+            rerunAdd = false;
+            rerunCleanup = false;
+        }
+        if (add || cleanup) {
+            reconcile(add, cleanup);
+        }
+    }
+}
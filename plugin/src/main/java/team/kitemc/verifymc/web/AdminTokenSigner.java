@@ -0,0 +1,157 @@
+package team.kitemc.verifymc.web;
+
+import org.bukkit.plugin.Plugin;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Issues and verifies stateless admin tokens of the form base64url(payload).base64url(HMAC-SHA256).
+ * The payload names the key that signed it and carries the issue and expiry time, so any web node
+ * configured with the same secret accepts the token, also after a restart, without a token table.
+ * Rotation: set admin.token.secret to the new key and move the old one to admin.token.previous_secrets;
+ * tokens signed with either are accepted until they expire. Without a configured secret a random key is
+ * generated once and kept in admin_token.key in the plugin folder.
+ */
+public final class AdminTokenSigner {
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final String VERSION = "v1";
+    private static final String KEY_FILE = "admin_token.key";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecureRandom random = new SecureRandom();
+    private final String signingKeyId;
+    // key id -> secret; the signing key first
+    private final Map<String, byte[]> keys;
+    private final long expiryMs;
+
+    AdminTokenSigner(byte[] signingKey, List<String> previousSecrets, long expiryMs) {
+        this.keys = new LinkedHashMap<>();
+        this.signingKeyId = keyId(signingKey);
+        keys.put(signingKeyId, signingKey);
+        for (String secret : previousSecrets) {
+            if (secret != null && !secret.isEmpty()) {
+                byte[] key = secret.getBytes(StandardCharsets.UTF_8);
+                keys.putIfAbsent(keyId(key), key);
+            }
+        }
+        this.expiryMs = expiryMs;
+    }
+
+    /**
+     * Build a signer from admin.token.* in the current plugin config
+     * @param plugin Plugin instance
+     * @return New signer
+     */
+    public static AdminTokenSigner create(Plugin plugin) {
+        String secret = plugin.getConfig().getString("admin.token.secret", "");
+        byte[] signingKey = secret != null && !secret.isEmpty()
+            ? secret.getBytes(StandardCharsets.UTF_8)
+            : loadOrCreateKey(plugin);
+        long expiryMs = Math.max(60, plugin.getConfig().getLong("admin.token.expiry_seconds", 3600)) * 1000L;
+        return new AdminTokenSigner(signingKey, plugin.getConfig().getStringList("admin.token.previous_secrets"), expiryMs);
+    }
+
+    private static byte[] loadOrCreateKey(Plugin plugin) {
+        File file = new File(plugin.getDataFolder(), KEY_FILE);
+        try {
+            if (file.exists()) {
+                byte[] key = DECODER.decode(new String(Files.readAllBytes(file.toPath()), StandardCharsets.US_ASCII).trim());
+                if (key.length >= 32) {
+                    return key;
+                }
+            }
+            byte[] key = new byte[32];
+            new SecureRandom().nextBytes(key);
+            file.getParentFile().mkdirs();
+            Files.write(file.toPath(), ENCODER.encode(key));
+            return key;
+        } catch (IOException | IllegalArgumentException e) {
+            plugin.getLogger().warning("[VerifyMC] Failed to read or write " + KEY_FILE
+                + ", admin tokens will not survive a restart: " + e.getMessage());
+            byte[] key = new byte[32];
+            new SecureRandom().nextBytes(key);
+            return key;
+        }
+    }
+
+    private static String keyId(byte[] key) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(key);
+            return ENCODER.encodeToString(hash).substring(0, 8);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] sign(byte[] key, byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(new SecretKeySpec(key, ALGORITHM));
+            return mac.doFinal(payload);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Issue a new admin token
+     * @return Signed token valid for admin.token.expiry_seconds
+     */
+    public String issue() {
+        long now = System.currentTimeMillis();
+        byte[] nonce = new byte[12];
+        random.nextBytes(nonce);
+        String payload = VERSION + "." + signingKeyId + "." + now + "." + (now + expiryMs) + "." + ENCODER.encodeToString(nonce);
+        byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+        return ENCODER.encodeToString(payloadBytes) + "." + ENCODER.encodeToString(sign(keys.get(signingKeyId), payloadBytes));
+    }
+
+    /**
+     * Check the signature and expiry of a token. The signature comparison takes constant time.
+     * @param token Token from the client
+     * @return true if the token was signed with a known key and has not expired
+     */
+    public boolean verify(String token) {
+        if (token == null) {
+            return false;
+        }
+        int dot = token.indexOf('.');
+        if (dot <= 0 || dot != token.lastIndexOf('.')) {
+            return false;
+        }
+        byte[] payloadBytes;
+        byte[] signature;
+        try {
+            payloadBytes = DECODER.decode(token.substring(0, dot));
+            signature = DECODER.decode(token.substring(dot + 1));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        String[] parts = new String(payloadBytes, StandardCharsets.UTF_8).split("\\.");
+        if (parts.length != 5 || !VERSION.equals(parts[0])) {
+            return false;
+        }
+        byte[] key = keys.get(parts[1]);
+        if (key == null || !MessageDigest.isEqual(sign(key, payloadBytes), signature)) {
+            return false;
+        }
+        try {
+            return System.currentTimeMillis() <= Long.parseLong(parts[3]);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
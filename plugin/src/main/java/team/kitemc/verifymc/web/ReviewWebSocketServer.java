@@ -1,22 +1,64 @@
 package team.kitemc.verifymc.web;
 
 import org.java_websocket.WebSocket;
+import org.java_websocket.framing.CloseFrame;
+import org.java_websocket.framing.TextFrame;
 import org.java_websocket.handshake.ClientHandshake;
 import org.java_websocket.server.WebSocketServer;
+import org.json.JSONArray;
+import org.json.JSONObject;
 import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
 
 public class ReviewWebSocketServer extends WebSocketServer {
-    private final Set<WebSocket> clients = Collections.synchronizedSet(new HashSet<>());
+    public static final String TOPIC_PENDING = "pending";
+    public static final String TOPIC_USERS = "users";
+    public static final String TOPIC_AUDITS = "audits";
+    private static final Set<String> ALL_TOPICS = Set.of(TOPIC_PENDING, TOPIC_USERS, TOPIC_AUDITS);
+    private static final long BUSY_RETRY_DELAY_MS = 50;
+    private static final long AUTH_TIMEOUT_MS = 10000;
+
+    private final Set<WebSocket> clients = ConcurrentHashMap.newKeySet();
     private final boolean debug;
     private final org.bukkit.plugin.Plugin plugin;
+    private final int queueCapacity;
+    private final boolean disconnectSlowConsumers;
+    private final ExecutorService dispatcher;
+    private final ScheduledExecutorService[] shards;
+    private final AtomicInteger nextShard = new AtomicInteger();
+    // Event history, only touched from the dispatch thread
+    private final StreamEvent[] history;
+    private final String streamEpoch = UUID.randomUUID().toString();
+    private long lastSeq = 0;
+    private volatile Predicate<String> tokenValidator = token -> false;
 
     public ReviewWebSocketServer(int port, org.bukkit.plugin.Plugin plugin) {
         super(new InetSocketAddress(port));
         this.plugin = plugin;
         this.debug = plugin.getConfig().getBoolean("debug", false);
+        this.queueCapacity = Math.max(1, plugin.getConfig().getInt("websocket.queue_capacity", 256));
+        this.disconnectSlowConsumers = "disconnect".equalsIgnoreCase(plugin.getConfig().getString("websocket.slow_consumer_policy", "drop"));
+        this.dispatcher = Executors.newSingleThreadExecutor(namedDaemon("VerifyMC-WS-Dispatch"));
+        this.shards = createShards(plugin.getConfig().getInt("websocket.broadcast_threads", 2));
+        this.history = new StreamEvent[Math.max(1, plugin.getConfig().getInt("websocket.history_size", 1024))];
     }
 
     /**
@@ -26,16 +68,57 @@ public class ReviewWebSocketServer extends WebSocketServer {
         super(new InetSocketAddress(port));
         this.plugin = null;
         this.debug = false;
+        this.queueCapacity = 256;
+        this.disconnectSlowConsumers = false;
+        this.dispatcher = Executors.newSingleThreadExecutor(namedDaemon("VerifyMC-WS-Dispatch"));
+        this.shards = createShards(2);
+        this.history = new StreamEvent[1024];
     }
 
     private void debugLog(String msg) {
         if (debug) plugin.getLogger().info("[DEBUG] ReviewWebSocketServer: " + msg);
     }
 
+    /**
+     * Set the check used to authenticate admin sessions
+     * @param tokenValidator Returns true for a valid admin token
+     */
+    public void setTokenValidator(Predicate<String> tokenValidator) {
+        this.tokenValidator = tokenValidator != null ? tokenValidator : token -> false;
+    }
+
+    private static ScheduledExecutorService[] createShards(int count) {
+        ScheduledExecutorService[] result = new ScheduledExecutorService[Math.max(1, count)];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = Executors.newSingleThreadScheduledExecutor(namedDaemon("VerifyMC-WS-Shard-" + i));
+        }
+        return result;
+    }
+
+    private static java.util.concurrent.ThreadFactory namedDaemon(String name) {
+        return r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
     @Override
     public void onOpen(WebSocket conn, ClientHandshake handshake) {
         debugLog("WebSocket connection opened: " + conn.getRemoteSocketAddress());
+        ScheduledExecutorService shard = shards[Math.floorMod(nextShard.getAndIncrement(), shards.length)];
+        ClientSession session = new ClientSession(queueCapacity, shard);
+        conn.setAttachment(session);
         clients.add(conn);
+        try {
+            shard.schedule(() -> {
+                if (!session.authenticated && conn.isOpen()) {
+                    debugLog("Closing unauthenticated connection: " + conn.getRemoteSocketAddress());
+                    conn.close(CloseFrame.POLICY_VALIDATION, "Authentication required");
+                }
+            }, AUTH_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ignored) {
+        }
         debugLog("Total clients connected: " + clients.size());
     }
 
@@ -43,13 +126,67 @@ public class ReviewWebSocketServer extends WebSocketServer {
     public void onClose(WebSocket conn, int code, String reason, boolean remote) {
         debugLog("WebSocket connection closed: " + conn.getRemoteSocketAddress() + ", code: " + code + ", reason: " + reason);
         clients.remove(conn);
+        ClientSession session = conn.getAttachment();
+        if (session != null) {
+            session.outbound.clear();
+        }
         debugLog("Remaining clients: " + clients.size());
     }
 
     @Override
     public void onMessage(WebSocket conn, String message) {
-        debugLog("Received message from " + conn.getRemoteSocketAddress() + ": " + message);
-        // Can handle messages from frontend as needed
+        debugLog("Received message from " + conn.getRemoteSocketAddress());
+        ClientSession session = conn.getAttachment();
+        if (session == null) {
+            return;
+        }
+        JSONObject req;
+        try {
+            req = new JSONObject(message);
+        } catch (Exception e) {
+            debugLog("Ignoring malformed client message: " + e.getMessage());
+            return;
+        }
+        String type = req.optString("type");
+        if ("auth".equals(type)) {
+            String token = req.optString("token", "");
+            if (!tokenValidator.test(token)) {
+                debugLog("Rejected invalid token from " + conn.getRemoteSocketAddress());
+                conn.close(CloseFrame.POLICY_VALIDATION, "Invalid token");
+                return;
+            }
+            session.token = token;
+            session.authenticated = true;
+            if (req.has("topics")) {
+                session.topics = parseTopics(req.optJSONArray("topics"));
+            }
+            resume(conn, session, req.optString("epoch", ""), req.optLong("since", -1));
+            return;
+        }
+        if (!session.authenticated) {
+            conn.close(CloseFrame.POLICY_VALIDATION, "Authentication required");
+            return;
+        }
+        if ("subscribe".equals(type)) {
+            session.topics = parseTopics(req.optJSONArray("topics"));
+            debugLog("Client " + conn.getRemoteSocketAddress() + " subscribed to " + session.topics);
+        } else if ("resume".equals(type)) {
+            resume(conn, session, req.optString("epoch", ""), req.optLong("since", -1));
+        }
+    }
+
+    private Set<String> parseTopics(JSONArray topics) {
+        if (topics == null || topics.isEmpty()) {
+            return ALL_TOPICS;
+        }
+        Set<String> result = new HashSet<>();
+        for (int i = 0; i < topics.length(); i++) {
+            String topic = topics.optString(i, "");
+            if (ALL_TOPICS.contains(topic)) {
+                result.add(topic);
+            }
+        }
+        return Collections.unmodifiableSet(result);
     }
 
     @Override
@@ -65,17 +202,258 @@ public class ReviewWebSocketServer extends WebSocketServer {
         debugLog("WebSocket server started on port: " + getPort());
     }
 
+    @Override
+    public void stop(int timeout, String closeMessage) throws InterruptedException {
+        dispatcher.shutdownNow();
+        for (ScheduledExecutorService shard : shards) {
+            shard.shutdownNow();
+        }
+        super.stop(timeout, closeMessage);
+    }
+
+    /**
+     * Broadcast an unsequenced message to every authenticated client regardless of subscriptions
+     * @param message Message text
+     */
     public void broadcastMessage(String message) {
-        debugLog("Broadcasting message to " + clients.size() + " clients: " + message);
-        synchronized (clients) {
-            int sentCount = 0;
-            for (WebSocket ws : clients) {
-                if (ws.isOpen()) {
-                    ws.send(message);
-                    sentCount++;
+        submit(() -> fanOut(null, encode(message)));
+    }
+
+    /**
+     * Publish a sequenced event. The caller never blocks on client I/O.
+     * @param type Event type
+     * @param data Event payload, must not be modified after the call
+     * @param topics Topics the event belongs to
+     */
+    public void publish(String type, JSONObject data, String... topics) {
+        Set<String> eventTopics = Set.of(topics);
+        submit(() -> {
+            long seq = ++lastSeq;
+            JSONObject event = new JSONObject();
+            event.put("type", type);
+            event.put("seq", seq);
+            event.put("topics", new JSONArray(eventTopics));
+            event.put("data", data);
+            StreamEvent streamEvent = new StreamEvent(seq, eventTopics, encode(event.toString()));
+            history[(int) (seq % history.length)] = streamEvent;
+            fanOut(streamEvent.topics, streamEvent.payload);
+        });
+    }
+
+    /**
+     * Publish a user record after it was created or changed
+     * @param user User record without sensitive fields
+     * @param previousStatus Status before the change, or null for new users
+     */
+    public void publishUserUpsert(Map<String, Object> user, String previousStatus) {
+        JSONObject data = new JSONObject();
+        data.put("user", new JSONObject(user));
+        boolean touchesPending = "pending".equals(user.get("status")) || "pending".equals(previousStatus);
+        if (touchesPending) {
+            publish("user_upsert", data, TOPIC_USERS, TOPIC_PENDING);
+        } else {
+            publish("user_upsert", data, TOPIC_USERS);
+        }
+    }
+
+    /**
+     * Publish several changed user records as one event, e.g. after a bulk review
+     * @param users User records without sensitive fields
+     * @param touchesPending Whether any of the users entered or left the pending state
+     */
+    public void publishUsersUpsert(List<Map<String, Object>> users, boolean touchesPending) {
+        JSONArray array = new JSONArray();
+        for (Map<String, Object> user : users) {
+            array.put(new JSONObject(user));
+        }
+        JSONObject data = new JSONObject();
+        data.put("users", array);
+        if (touchesPending) {
+            publish("users_upsert", data, TOPIC_USERS, TOPIC_PENDING);
+        } else {
+            publish("users_upsert", data, TOPIC_USERS);
+        }
+    }
+
+    /**
+     * Publish the removal of a user
+     * @param uuid User UUID
+     * @param previousStatus Status before removal
+     */
+    public void publishUserRemoved(String uuid, String previousStatus) {
+        JSONObject data = new JSONObject();
+        data.put("uuid", uuid);
+        if ("pending".equals(previousStatus)) {
+            publish("user_removed", data, TOPIC_USERS, TOPIC_PENDING);
+        } else {
+            publish("user_removed", data, TOPIC_USERS);
+        }
+    }
+
+    private void submit(Runnable task) {
+        try {
+            dispatcher.execute(task);
+        } catch (RejectedExecutionException e) {
+            debugLog("Broadcast rejected, server is stopping");
+        }
+    }
+
+    private static ByteBuffer encode(String message) {
+        // Encode the payload once; each connection gets its own read view over the same bytes
+        return ByteBuffer.wrap(message.getBytes(StandardCharsets.UTF_8)).asReadOnlyBuffer();
+    }
+
+    private void resume(WebSocket ws, ClientSession session, String epoch, long since) {
+        submit(() -> {
+            long oldest = Math.max(1, lastSeq - history.length + 1);
+            boolean resumed = streamEpoch.equals(epoch) && since >= oldest - 1 && since <= lastSeq;
+            JSONObject hello = new JSONObject();
+            hello.put("type", "hello");
+            hello.put("epoch", streamEpoch);
+            hello.put("seq", lastSeq);
+            hello.put("resumed", resumed);
+            enqueue(ws, session, encode(hello.toString()));
+            if (!resumed) {
+                return;
+            }
+            int replayed = 0;
+            for (long seq = since + 1; seq <= lastSeq; seq++) {
+                StreamEvent event = history[(int) (seq % history.length)];
+                if (event != null && event.seq == seq && matches(session, event.topics)) {
+                    enqueue(ws, session, event.payload);
+                    replayed++;
                 }
             }
-            debugLog("Message sent to " + sentCount + " clients");
+            debugLog("Resumed " + ws.getRemoteSocketAddress() + " from seq " + since + ", replayed " + replayed + " events");
+        });
+    }
+
+    private static boolean matches(ClientSession session, Set<String> topics) {
+        if (topics == null) {
+            return true;
+        }
+        for (String topic : topics) {
+            if (session.topics.contains(topic)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void fanOut(Set<String> topics, ByteBuffer payload) {
+        int queued = 0;
+        for (WebSocket ws : clients) {
+            ClientSession session = ws.getAttachment();
+            if (session == null || !session.authenticated || !ws.isOpen()) {
+                continue;
+            }
+            if (!tokenValidator.test(session.token)) {
+                debugLog("Session token expired for " + ws.getRemoteSocketAddress());
+                clients.remove(ws);
+                ws.close(CloseFrame.POLICY_VALIDATION, "Token expired");
+                continue;
+            }
+            if (!matches(session, topics)) {
+                continue;
+            }
+            if (enqueue(ws, session, payload)) {
+                queued++;
+            }
+        }
+        debugLog("Event queued for " + queued + " clients on topics " + (topics == null ? "*" : topics));
+    }
+
+    private boolean enqueue(WebSocket ws, ClientSession session, ByteBuffer payload) {
+        if (!session.outbound.offer(payload)) {
+            if (disconnectSlowConsumers) {
+                debugLog("Disconnecting slow client: " + ws.getRemoteSocketAddress());
+                clients.remove(ws);
+                session.outbound.clear();
+                ws.close(CloseFrame.TRY_AGAIN_LATER, "Slow consumer");
+                return false;
+            }
+            // Drop the backlog and tell the client to reload, so it never applies deltas over a gap
+            session.outbound.clear();
+            JSONObject reset = new JSONObject();
+            reset.put("type", "reset");
+            reset.put("seq", lastSeq);
+            session.outbound.offer(encode(reset.toString()));
+            long dropped = session.dropped.incrementAndGet();
+            debugLog("Dropped backlog for slow client " + ws.getRemoteSocketAddress() + ", total resets: " + dropped);
+        }
+        scheduleDrain(ws, session, 0);
+        return true;
+    }
+
+    private void scheduleDrain(WebSocket ws, ClientSession session, long delayMs) {
+        if (!session.draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            session.shard.schedule(() -> drain(ws, session), delayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            session.draining.set(false);
+        }
+    }
+
+    private void drain(WebSocket ws, ClientSession session) {
+        if (ws.isOpen() && ws.hasBufferedData()) {
+            // The socket has not flushed the previous batch yet; let the queue absorb the burst
+            try {
+                session.shard.schedule(() -> drain(ws, session), BUSY_RETRY_DELAY_MS, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                session.draining.set(false);
+            }
+            return;
+        }
+        try {
+            ByteBuffer payload;
+            while (ws.isOpen() && (payload = session.outbound.poll()) != null) {
+                TextFrame frame = new TextFrame();
+                frame.setPayload(payload.duplicate());
+                frame.setFin(true);
+                ws.sendFrame(frame);
+            }
+        } catch (Exception e) {
+            debugLog("Failed to send frame to " + ws.getRemoteSocketAddress() + ": " + e.getMessage());
+        } finally {
+            session.draining.set(false);
+        }
+        if (ws.isOpen() && !session.outbound.isEmpty()) {
+            scheduleDrain(ws, session, 0);
+        }
+    }
+
+    /**
+     * Per-connection outbound state
+     */
+    private static class ClientSession {
+        final ArrayBlockingQueue<ByteBuffer> outbound;
+        final ScheduledExecutorService shard;
+        final AtomicBoolean draining = new AtomicBoolean(false);
+        final AtomicLong dropped = new AtomicLong();
+        volatile Set<String> topics = ALL_TOPICS;
+        volatile boolean authenticated;
+        volatile String token;
+
+        ClientSession(int capacity, ScheduledExecutorService shard) {
+            this.outbound = new ArrayBlockingQueue<>(capacity);
+            this.shard = shard;
+        }
+    }
+
+    /**
+     * Sequenced event kept in the replay history
+     */
+    private static class StreamEvent {
+        final long seq;
+        final Set<String> topics;
+        final ByteBuffer payload;
+
+        StreamEvent(long seq, Set<String> topics, ByteBuffer payload) {
+            this.seq = seq;
+            this.topics = topics;
+            this.payload = payload;
         }
     }
-} 
\ No newline at end of file
+}
@@ -9,13 +9,20 @@ import java.net.URLDecoder;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import team.kitemc.verifymc.ConfigSnapshot;
+import team.kitemc.verifymc.MetricsRegistry;
 import team.kitemc.verifymc.service.VerifyCodeService;
 import team.kitemc.verifymc.mail.MailService;
+import team.kitemc.verifymc.mail.NotificationExecutor;
 import team.kitemc.verifymc.db.UserDao;
+import team.kitemc.verifymc.db.UserSummary;
 import team.kitemc.verifymc.db.AuditDao;
 import team.kitemc.verifymc.service.AuthmeService;
+import team.kitemc.verifymc.service.AuthmeReconcileService;
 import team.kitemc.verifymc.service.CaptchaService;
+import team.kitemc.verifymc.service.CompiledQuestionnaire;
 import team.kitemc.verifymc.service.QuestionnaireService;
+import team.kitemc.verifymc.service.QuestionnaireSubmissionStore;
 import team.kitemc.verifymc.service.DiscordService;
 import org.bukkit.Bukkit;
 import org.bukkit.plugin.Plugin;
@@ -26,10 +33,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 import java.util.regex.Pattern;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.util.Base64;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.nio.charset.StandardCharsets;
@@ -41,79 +50,55 @@ public class WebServer {
     private final Plugin plugin;
     private final VerifyCodeService codeService;
     private final MailService mailService;
+    private final NotificationExecutor notificationExecutor;
     private final UserDao userDao;
     private final AuditDao auditDao;
     private final AuthmeService authmeService;
+    private final AuthmeReconcileService authmeReconcileService;
     private final CaptchaService captchaService;
     private final QuestionnaireService questionnaireService;
     private final DiscordService discordService;
     private final ReviewWebSocketServer wsServer;
     private final ResourceBundle messages;
     private final boolean debug;
+    private final boolean metricsEnabled;
     private final HashMap<String, ResourceBundle> languageCache = new HashMap<>();
     
-    // Authentication related
-    private final ConcurrentHashMap<String, Long> validTokens = new ConcurrentHashMap<>();
+    // Authentication related; admin tokens are signed, so no token table is kept. Replaced on /api/reload-config.
+    private volatile AdminTokenSigner tokenSigner;
     private final Pattern EMAIL_PATTERN = Pattern.compile("^[A-Za-z0-9+_.-]+@(.+)$");
     private final Pattern UUID_PATTERN = Pattern.compile("^[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}$");
-    private static final long TOKEN_EXPIRY_TIME = 3600000; // 1 hour
-    private static final long QUESTIONNAIRE_SUBMISSION_TTL_MS = 10 * 60 * 1000; // 10 minutes
-    private final ConcurrentHashMap<String, QuestionnaireSubmissionRecord> questionnaireSubmissionStore = new ConcurrentHashMap<>();
+    private static final int MAX_BATCH_REVIEW_SIZE = 1000;
+    private static final byte[] ENVELOPE_PREFIX = "{\"success\":true,\"copyright\":\"Powered by VerifyMC (GPLv3)\",\"data\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] ENVELOPE_SUFFIX = "}".getBytes(StandardCharsets.UTF_8);
+    private final QuestionnaireSubmissionStore questionnaireSubmissionStore;
     private final ConcurrentHashMap<String, WindowRateLimitRecord> questionnaireRateLimitStore = new ConcurrentHashMap<>();
 
     // Default mainstream email domain whitelist
-    private static final java.util.List<String> DEFAULT_EMAIL_DOMAIN_WHITELIST = Arrays.asList(
-        "gmail.com", "qq.com", "163.com", "126.com", "outlook.com", "hotmail.com", "yahoo.com",
-        "sina.com", "aliyun.com", "foxmail.com", "icloud.com", "yeah.net", "live.com", "mail.com",
-        "protonmail.com", "zoho.com"
-    );
-
-    public WebServer(int port, String staticDir, Plugin plugin, VerifyCodeService codeService, MailService mailService, UserDao userDao, AuditDao auditDao, AuthmeService authmeService, CaptchaService captchaService, QuestionnaireService questionnaireService, DiscordService discordService, ReviewWebSocketServer wsServer, ResourceBundle messages) {
+    public WebServer(int port, String staticDir, Plugin plugin, VerifyCodeService codeService, MailService mailService, NotificationExecutor notificationExecutor, UserDao userDao, AuditDao auditDao, AuthmeService authmeService, AuthmeReconcileService authmeReconcileService, CaptchaService captchaService, QuestionnaireService questionnaireService, QuestionnaireSubmissionStore questionnaireSubmissionStore, DiscordService discordService, ReviewWebSocketServer wsServer, ResourceBundle messages) {
         this.port = port;
         this.staticDir = staticDir;
         this.plugin = plugin;
         this.codeService = codeService;
         this.mailService = mailService;
+        this.notificationExecutor = notificationExecutor;
         this.userDao = userDao;
         this.auditDao = auditDao;
         this.authmeService = authmeService;
+        this.authmeReconcileService = authmeReconcileService;
         this.captchaService = captchaService;
         this.questionnaireService = questionnaireService;
+        this.questionnaireSubmissionStore = questionnaireSubmissionStore;
         this.discordService = discordService;
         this.wsServer = wsServer;
         this.messages = messages;
         this.debug = plugin.getConfig().getBoolean("debug", false);
+        this.metricsEnabled = plugin.getConfig().getBoolean("web.metrics_enabled", true);
+        this.tokenSigner = AdminTokenSigner.create(plugin);
+        this.wsServer.setTokenValidator(this::validateToken);
     }
 
 
-    private static class QuestionnaireSubmissionRecord {
-        private final boolean passed;
-        private final int score;
-        private final int passScore;
-        private final JSONArray details;
-        private final boolean manualReviewRequired;
-        private final JSONObject answers;
-        private final long submittedAt;
-        private final long expiresAt;
-
-        private QuestionnaireSubmissionRecord(boolean passed, int score, int passScore, JSONArray details, boolean manualReviewRequired, JSONObject answers, long submittedAt, long expiresAt) {
-            this.passed = passed;
-            this.score = score;
-            this.passScore = passScore;
-            this.details = details;
-            this.manualReviewRequired = manualReviewRequired;
-            this.answers = answers;
-            this.submittedAt = submittedAt;
-            this.expiresAt = expiresAt;
-        }
-
-        private boolean isExpired() {
-            return System.currentTimeMillis() > expiresAt;
-        }
-    }
-
-
-
     private static class WindowRateLimitRecord {
         private int count;
         private long windowStart;
@@ -201,101 +186,109 @@ public class WebServer {
     }
 
     private boolean isValidApiKey(HttpExchange exchange) {
-        String configuredApiKey = plugin.getConfig().getString("web.api_key", "");
+        String configuredApiKey = config().getWebApiKey();
         String requestApiKey = exchange.getRequestHeaders().getFirst("X-API-Key");
         return configuredApiKey != null
             && !configuredApiKey.isBlank()
             && configuredApiKey.equals(requestApiKey);
     }
 
-
-    private Map<String, Object> ensureLocalApprovedUserFromAuthme(String username) {
-        if (!authmeService.isAuthmeEnabled() || username == null || username.trim().isEmpty()) {
-            return userDao.getUserByUsername(username);
-        }
-
-        String normalizedName = username.trim();
-        String authmePasswordHash = authmeService.getPasswordHashFromAuthme(normalizedName);
-        String authmeEmail = authmeService.getEmailFromAuthme(normalizedName);
-        boolean authmeUserExists = authmePasswordHash != null && !authmePasswordHash.trim().isEmpty();
-        if (!authmeUserExists) {
-            return userDao.getUserByUsername(normalizedName);
-        }
-
-        String normalizedEmail = authmeEmail != null ? authmeEmail.trim() : null;
-        String normalizedHash = authmePasswordHash.trim();
-
-        Map<String, Object> localUser = userDao.getUserByUsername(normalizedName);
-        if (localUser == null) {
-            String uuid = Bukkit.getOfflinePlayer(normalizedName).getUniqueId().toString();
-            boolean created = userDao.registerUser(uuid, normalizedName, normalizedEmail, "approved", normalizedHash);
-            if (!created) {
-                return null;
-            }
-            return userDao.getUserByUuid(uuid);
-        }
-
-        String status = localUser.get("status") != null ? String.valueOf(localUser.get("status")) : "";
-        if ("pending".equalsIgnoreCase(status)) {
-            Object uuidObj = localUser.get("uuid");
-            String updateTarget = uuidObj != null ? String.valueOf(uuidObj) : normalizedName;
-            userDao.updateUserStatus(updateTarget, "approved");
-            userDao.updateUserPassword(updateTarget, normalizedHash);
-            if (normalizedEmail != null && !normalizedEmail.isEmpty()) {
-                userDao.updateUserEmail(updateTarget, normalizedEmail);
-            }
-            return userDao.getUserByUsername(normalizedName);
+    /**
+     * API key check for /metrics; also accepts "Authorization: Bearer <api_key>" as sent by Prometheus
+     * @param exchange HTTP exchange
+     * @return true if the request carries web.api_key
+     */
+    private boolean isValidMetricsKey(HttpExchange exchange) {
+        if (isValidApiKey(exchange)) {
+            return true;
         }
-
-        return localUser;
+        String configuredApiKey = config().getWebApiKey();
+        String authHeader = exchange.getRequestHeaders().getFirst("Authorization");
+        return configuredApiKey != null
+            && !configuredApiKey.isBlank()
+            && authHeader != null
+            && authHeader.equals("Bearer " + configuredApiKey);
     }
 
-    private void syncUserFromAuthme(Map<String, Object> user) {
-        if (user == null || !authmeService.isAuthmeEnabled()) {
-            return;
-        }
-
-        String username = (String) user.get("username");
-        if (username == null || username.trim().isEmpty()) {
-            return;
-        }
+    /**
+     * Register a route; with web.metrics_enabled its handling time and status class are recorded
+     * @param path Context path, used as the route label
+     * @param handler Route handler
+     */
+    private void createContext(String path, HttpHandler handler) {
+        server.createContext(path, metricsEnabled ? timed(path, handler) : handler);
+    }
 
-        String status = user.get("status") != null ? String.valueOf(user.get("status")) : "";
-        if (!"approved".equalsIgnoreCase(status)) {
-            return;
+    private HttpHandler timed(String route, HttpHandler handler) {
+        MetricsRegistry metrics = MetricsRegistry.global();
+        MetricsRegistry.Histogram duration = metrics.histogram("verifymc_http_request_duration_seconds",
+            "Web request handling time", "route", route);
+        // Index 1..5 -> 1xx..5xx
+        MetricsRegistry.Counter[] byStatusClass = new MetricsRegistry.Counter[6];
+        for (int i = 1; i < byStatusClass.length; i++) {
+            byStatusClass[i] = metrics.counter("verifymc_http_requests_total", "Web requests by status class",
+                "route", route, "status", i + "xx");
         }
-
-        Object uuid = user.get("uuid");
-        String updateTarget = uuid != null ? String.valueOf(uuid) : username;
-
-        String authmeEmail = authmeService.getEmailFromAuthme(username);
-        if (authmeEmail != null && !authmeEmail.trim().isEmpty()) {
-            String normalizedEmail = authmeEmail.trim();
-            String localEmail = user.get("email") != null ? String.valueOf(user.get("email")) : "";
-            if (!normalizedEmail.equals(localEmail)) {
-                if (userDao.updateUserEmail(updateTarget, normalizedEmail)) {
-                    user.put("email", normalizedEmail);
+        return exchange -> {
+            long start = System.nanoTime();
+            AtomicBoolean recorded = new AtomicBoolean();
+            IntConsumer record = statusCode -> {
+                if (recorded.compareAndSet(false, true)) {
+                    duration.observeSince(start);
+                    int statusClass = statusCode / 100;
+                    byStatusClass[statusClass >= 1 && statusClass <= 5 ? statusClass : 5].inc();
+                }
+            };
+            // Deferred handlers respond from another thread; they are recorded when the body is closed
+            exchange.setStreams(null, new FilterOutputStream(exchange.getResponseBody()) {
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    out.write(b, off, len);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        record.accept(exchange.getResponseCode());
+                    }
                 }
+            });
+            try {
+                handler.handle(exchange);
+            } catch (IOException | RuntimeException | Error e) {
+                // Even if headers went out, the client got a broken response
+                record.accept(500);
+                throw e;
             }
-        }
-
-        String authmeHash = authmeService.getPasswordHashFromAuthme(username);
-        if (authmeHash != null && !authmeHash.trim().isEmpty()) {
-            String normalizedHash = authmeHash.trim();
-            String localPassword = user.get("password") != null ? String.valueOf(user.get("password")) : "";
-            if (!normalizedHash.equals(localPassword)) {
-                if (userDao.updateUserPassword(updateTarget, normalizedHash)) {
-                    user.put("password", normalizedHash);
-                }
+            // -1 means the handler has not responded yet and will do so asynchronously
+            if (exchange.getResponseCode() != -1) {
+                record.accept(exchange.getResponseCode());
             }
+        };
+    }
+
+
+    /**
+     * Look up a local user. AuthMe accounts are imported by the background reconciliation job;
+     * a user that is missing or still pending locally only triggers an async single-account sync.
+     * @param username Player name
+     * @return Local user, or null if not registered locally
+     */
+    private Map<String, Object> ensureLocalApprovedUserFromAuthme(String username) {
+        Map<String, Object> localUser = userDao.getUserByUsername(username);
+        if (authmeService.isAuthmeEnabled()
+            && (localUser == null || "pending".equalsIgnoreCase(String.valueOf(localUser.get("status"))))) {
+            authmeReconcileService.requestAccount(username);
         }
+        return localUser;
     }
 
     private String resolveUserEmail(Map<String, Object> user) {
         if (user == null) {
             return "";
         }
-        syncUserFromAuthme(user);
         Object email = user.get("email");
         return email != null ? String.valueOf(email) : "";
     }
@@ -377,6 +370,154 @@ public class WebServer {
         return safeUuid + "/" + safeUsername;
     }
 
+    /**
+     * Persist an audit record and notify dashboards subscribed to the audit topic
+     * @param audit Audit record
+     */
+    private void recordAudit(Map<String, Object> audit) {
+        auditDao.addAudit(audit);
+        wsServer.publish("audit_added", new JSONObject(audit), ReviewWebSocketServer.TOPIC_AUDITS);
+    }
+
+    /**
+     * Publish the current state of a user to live dashboards
+     * @param uuid User UUID
+     * @param previousStatus Status before the change, or null for new users
+     */
+    private void publishUserChange(String uuid, String previousStatus) {
+        Map<String, Object> user = userDao.getUserByUuid(uuid);
+        if (user == null) {
+            return;
+        }
+        Map<String, Object> snapshot = new HashMap<>(user);
+        sanitizeUserForResponse(snapshot);
+        wsServer.publishUserUpsert(snapshot, previousStatus);
+    }
+
+    /**
+     * Apply a set of review decisions with one status write, one whitelist task on the main thread,
+     * one audit write and one live update for the whole set.
+     * @param decisions Array of {"uuid", "action": "approve"|"reject", "reason"}
+     * @param operator Audit operator
+     * @param language Language of the notification mails
+     * @return {"reviewed", "failed", "results": [{"uuid", "success", "error"?}]}
+     */
+    private JSONObject applyReviewDecisions(JSONArray decisions, String operator, String language) {
+        JSONArray results = new JSONArray();
+        Map<String, String> statusByUuid = new java.util.LinkedHashMap<>();
+        Map<String, String> reasonByUuid = new HashMap<>();
+        Map<String, Map<String, Object>> usersByUuid = new HashMap<>();
+        for (int i = 0; i < decisions.length(); i++) {
+            JSONObject decision = decisions.optJSONObject(i);
+            String uuid = decision != null ? decision.optString("uuid") : "";
+            String action = decision != null ? decision.optString("action") : "";
+            String error = null;
+            if (!isValidUUID(uuid)) {
+                error = "Invalid UUID format";
+            } else if (!"approve".equals(action) && !"reject".equals(action)) {
+                error = "Invalid action";
+            } else if (statusByUuid.containsKey(uuid)) {
+                error = "Duplicate decision";
+            } else {
+                Map<String, Object> user = userDao.getUserByUuid(uuid);
+                if (user == null) {
+                    error = getMsg("admin.user_not_found", language);
+                } else {
+                    usersByUuid.put(uuid, user);
+                    statusByUuid.put(uuid, "approve".equals(action) ? "approved" : "rejected");
+                    reasonByUuid.put(uuid, decision.optString("reason", ""));
+                }
+            }
+            if (error != null) {
+                JSONObject result = new JSONObject();
+                result.put("uuid", uuid);
+                result.put("success", false);
+                result.put("error", error);
+                results.put(result);
+            }
+        }
+
+        boolean authmeEnabled = authmeService.isAuthmeEnabled();
+        java.util.Set<String> updated = statusByUuid.isEmpty()
+            ? java.util.Collections.emptySet()
+            : userDao.updateUserStatuses(statusByUuid, !authmeEnabled);
+
+        List<String> whitelistCommands = new java.util.ArrayList<>();
+        List<Map<String, Object>> audits = new java.util.ArrayList<>();
+        List<Map<String, Object>> changedUsers = new java.util.ArrayList<>();
+        boolean touchesPending = false;
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, String> entry : statusByUuid.entrySet()) {
+            String uuid = entry.getKey();
+            JSONObject result = new JSONObject();
+            result.put("uuid", uuid);
+            if (!updated.contains(uuid)) {
+                result.put("success", false);
+                result.put("error", getMsg("review.failed", language));
+                results.put(result);
+                continue;
+            }
+            result.put("success", true);
+            results.put(result);
+
+            Map<String, Object> user = usersByUuid.get(uuid);
+            boolean approved = "approved".equals(entry.getValue());
+            String action = approved ? "approve" : "reject";
+            String username = (String) user.get("username");
+            String password = (String) user.get("password");
+            String email = resolveUserEmail(user);
+            String reason = reasonByUuid.get(uuid);
+            if (username != null) {
+                whitelistCommands.add((approved ? "whitelist add " : "whitelist remove ") + username);
+                if (authmeEnabled) {
+                    if (!approved) {
+                        authmeService.unregisterFromAuthme(username);
+                    } else if (password != null && !password.trim().isEmpty()) {
+                        authmeService.registerToAuthme(username, password, email);
+                    }
+                }
+            }
+            if (!email.trim().isEmpty()) {
+                notificationExecutor.submitReviewResult(email, username, approved, reason, language);
+            }
+            audits.add(buildAuditRecord(action, operator, buildAuditTarget(uuid, username), reason, now));
+
+            touchesPending |= "pending".equals(user.get("status"));
+            Map<String, Object> snapshot = new HashMap<>(user);
+            snapshot.put("status", entry.getValue());
+            sanitizeUserForResponse(snapshot);
+            changedUsers.add(snapshot);
+        }
+
+        if (!whitelistCommands.isEmpty()) {
+            debugLog("Execute " + whitelistCommands.size() + " whitelist commands for batch review");
+            org.bukkit.Bukkit.getScheduler().runTask(plugin, () -> {
+                for (String command : whitelistCommands) {
+                    org.bukkit.Bukkit.dispatchCommand(org.bukkit.Bukkit.getConsoleSender(), command);
+                }
+            });
+        }
+        if (!audits.isEmpty()) {
+            auditDao.addAudits(audits);
+            JSONArray auditArray = new JSONArray();
+            for (Map<String, Object> audit : audits) {
+                auditArray.put(new JSONObject(audit));
+            }
+            JSONObject auditData = new JSONObject();
+            auditData.put("audits", auditArray);
+            wsServer.publish("audits_added", auditData, ReviewWebSocketServer.TOPIC_AUDITS);
+        }
+        if (!changedUsers.isEmpty()) {
+            wsServer.publishUsersUpsert(changedUsers, touchesPending);
+        }
+
+        JSONObject outcome = new JSONObject();
+        outcome.put("reviewed", updated.size());
+        outcome.put("failed", decisions.length() - updated.size());
+        outcome.put("results", results);
+        return outcome;
+    }
+
     private Map<String, Object> buildAuditRecord(String action, String operator, String target, String detail, long timestamp) {
         Map<String, Object> audit = new HashMap<>();
         audit.put("action", action == null ? "unknown" : action);
@@ -407,42 +548,7 @@ public class WebServer {
      * @return true if token is valid
      */
     private boolean validateToken(String token) {
-        Long expiryTime = validTokens.get(token);
-        if (expiryTime == null) {
-            return false;
-        }
-        if (System.currentTimeMillis() > expiryTime) {
-            validTokens.remove(token);
-            return false;
-        }
-        return true;
-    }
-    
-    /**
-     * Generate secure token
-     * @return Generated secure token
-     */
-    private String generateSecureToken() {
-        try {
-            String timestamp = String.valueOf(System.currentTimeMillis());
-            String random = String.valueOf(Math.random());
-            String secret = plugin.getConfig().getString("admin.password", "default_secret");
-            
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            String combined = timestamp + random + secret;
-            byte[] hash = md.digest(combined.getBytes());
-            String token = Base64.getEncoder().encodeToString(hash);
-            
-            // Store token and expiry time
-            validTokens.put(token, System.currentTimeMillis() + TOKEN_EXPIRY_TIME);
-            
-            return token;
-        } catch (NoSuchAlgorithmException e) {
-            // Fallback to simple token
-            String token = "admin_token_" + System.currentTimeMillis() + "_" + Math.random();
-            validTokens.put(token, System.currentTimeMillis() + TOKEN_EXPIRY_TIME);
-            return token;
-        }
+        return tokenSigner.verify(token);
     }
     
     /**
@@ -460,75 +566,19 @@ public class WebServer {
         if (username == null || username.trim().isEmpty()) {
             return false;
         }
-        String regex = getUsernameRegexForUser(username);
-        return username.matches(regex);
+        return config().isValidUsername(username);
     }
 
-    private String getUsernameRegexForUser(String username) {
-        boolean bedrockEnabled = plugin.getConfig().getBoolean("bedrock.enabled", false);
-        String bedrockPrefix = plugin.getConfig().getString("bedrock.prefix", ".");
-
-        if (bedrockEnabled && username != null && username.startsWith(bedrockPrefix)) {
-            return plugin.getConfig().getString("bedrock.username_regex", "^\\.[a-zA-Z0-9_\\s]{3,16}$");
-        }
-
-        return plugin.getConfig().getString("username_regex", "^[a-zA-Z0-9_-]{3,16}$");
-    }
     private boolean isUsernameCaseConflict(String username) {
         return ((team.kitemc.verifymc.VerifyMC)plugin).isUsernameCaseConflict(username);
     }
     
     /**
-     * Scheduled task to clean up expired tokens
+     * Current config snapshot, replaced on /api/reload-config
+     * @return Immutable config snapshot
      */
-    private void startTokenCleanupTask() {
-        new Thread(() -> {
-            while (true) {
-                try {
-                    Thread.sleep(300000); // Clean up every 5 minutes
-                    long currentTime = System.currentTimeMillis();
-                    validTokens.entrySet().removeIf(entry -> entry.getValue() < currentTime);
-                } catch (InterruptedException e) {
-                    break;
-                }
-            }
-        }).start();
-    }
-
-    /**
-     * Get email domain whitelist
-     * @return List of whitelisted email domains
-     */
-    private java.util.List<String> getEmailDomainWhitelist() {
-        java.util.List<String> list = null;
-        try {
-            list = plugin.getConfig().getStringList("email_domain_whitelist");
-        } catch (Exception ignored) {}
-        if (list == null || list.isEmpty()) {
-            return DEFAULT_EMAIL_DOMAIN_WHITELIST;
-        }
-        return list;
-    }
-
-    /**
-     * Check if email domain whitelist is enabled
-     * @return true if email domain whitelist is enabled
-     */
-    private boolean isEmailDomainWhitelistEnabled() {
-        try {
-            return plugin.getConfig().getBoolean("enable_email_domain_whitelist", true);
-        } catch (Exception ignored) {}
-        return true;
-    }
-    /**
-     * Check if email alias limit is enabled
-     * @return true if email alias limit is enabled
-     */
-    private boolean isEmailAliasLimitEnabled() {
-        try {
-            return plugin.getConfig().getBoolean("enable_email_alias_limit", false);
-        } catch (Exception ignored) {}
-        return false;
+    private ConfigSnapshot config() {
+        return ConfigSnapshot.of(plugin);
     }
 
     /**
@@ -546,21 +596,15 @@ public class WebServer {
         return "single_choice".equals(type) || "multiple_choice".equals(type) || "text".equals(type);
     }
 
-    private void validateAnswer(JSONObject questionDef, String answerType, List<Integer> selectedOptionIds, String textAnswer, int questionId) {
-        boolean required = questionDef.optBoolean("required", false);
-        JSONObject input = questionDef.optJSONObject("input");
-        int minSelections = input != null ? input.optInt("min_selections", 0) : 0;
-        int maxSelections = input != null ? input.optInt("max_selections", Integer.MAX_VALUE) : Integer.MAX_VALUE;
-        int minLength = input != null ? input.optInt("min_length", 0) : 0;
-        int maxLength = input != null ? input.optInt("max_length", Integer.MAX_VALUE) : Integer.MAX_VALUE;
+    private void validateAnswer(CompiledQuestionnaire.Question questionDef, String answerType, List<Integer> selectedOptionIds, String textAnswer, int questionId) {
+        boolean required = questionDef.isRequired();
 
         if ("single_choice".equals(answerType) || "multiple_choice".equals(answerType)) {
-            JSONArray options = questionDef.optJSONArray("options");
-            int optionCount = options != null ? options.length() : 0;
+            int optionCount = questionDef.getOptionCount();
             if (required && selectedOptionIds.isEmpty()) {
                 throw new IllegalArgumentException("Question " + questionId + " is required");
             }
-            if (selectedOptionIds.size() < minSelections || selectedOptionIds.size() > maxSelections) {
+            if (selectedOptionIds.size() < questionDef.getMinSelections() || selectedOptionIds.size() > questionDef.getMaxSelections()) {
                 throw new IllegalArgumentException("Invalid selection count for question: " + questionId);
             }
             for (Integer optionId : selectedOptionIds) {
@@ -573,7 +617,7 @@ public class WebServer {
             if (required && normalized.isEmpty()) {
                 throw new IllegalArgumentException("Question " + questionId + " is required");
             }
-            if (!normalized.isEmpty() && (normalized.length() < minLength || normalized.length() > maxLength)) {
+            if (!normalized.isEmpty() && (normalized.length() < questionDef.getMinLength() || normalized.length() > questionDef.getMaxLength())) {
                 throw new IllegalArgumentException("Invalid text length for question: " + questionId);
             }
         } else {
@@ -584,14 +628,30 @@ public class WebServer {
     public void start() throws IOException {
         server = HttpServer.create(new InetSocketAddress(port), 0);
         
-        // Start token cleanup task
-        startTokenCleanupTask();
-        
         // Static resources
-        server.createContext("/", new StaticHandler(staticDir));
+        createContext("/", new StaticHandler(staticDir));
+
+        if (metricsEnabled) {
+            // Prometheus text exposition format - requires web.api_key
+            createContext("/metrics", exchange -> {
+                if (!isValidMetricsKey(exchange)) {
+                    exchange.sendResponseHeaders(401, -1);
+                    exchange.close();
+                    return;
+                }
+                StringWriter body = new StringWriter();
+                MetricsRegistry.global().writeTo(body);
+                byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                exchange.sendResponseHeaders(200, bytes.length);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(bytes);
+                }
+            });
+        }
         
         // API examples
-        server.createContext("/api/ping", exchange -> {
+        createContext("/api/ping", exchange -> {
             String resp = "{\"msg\":\"pong\"}";
             exchange.getResponseHeaders().add("Content-Type", "application/json; charset=utf-8");
             byte[] data = resp.getBytes(StandardCharsets.UTF_8);
@@ -602,12 +662,12 @@ public class WebServer {
         });
         
         // /api/config configuration interface
-        server.createContext("/api/config", exchange -> {
+        createContext("/api/config", exchange -> {
             JSONObject resp = new JSONObject();
             org.bukkit.configuration.file.FileConfiguration config = plugin.getConfig();
             // login configuration
             JSONObject login = new JSONObject();
-            login.put("enable_email", config.getStringList("auth_methods").contains("email"));
+            login.put("enable_email", config().isEmailAuthEnabled());
             login.put("email_smtp", config.getString("smtp.host", ""));
             // admin configuration
             JSONObject admin = new JSONObject();
@@ -628,11 +688,11 @@ public class WebServer {
             
             // Captcha configuration
             JSONObject captcha = new JSONObject();
-            java.util.List<String> authMethods = config.getStringList("auth_methods");
-            debugLog("auth_methods from config: " + authMethods);
-            debugLog("captcha enabled: " + authMethods.contains("captcha"));
-            captcha.put("enabled", authMethods.contains("captcha"));
-            captcha.put("email_enabled", authMethods.contains("email"));
+            ConfigSnapshot snapshot = config();
+            debugLog("auth_methods from config: " + snapshot.getAuthMethods());
+            debugLog("captcha enabled: " + snapshot.isCaptchaAuthEnabled());
+            captcha.put("enabled", snapshot.isCaptchaAuthEnabled());
+            captcha.put("email_enabled", snapshot.isEmailAuthEnabled());
             captcha.put("type", config.getString("captcha.type", "math"));
             
             // Bedrock player configuration
@@ -664,7 +724,7 @@ public class WebServer {
         });
         
         // /api/check-whitelist - Check if a player is on the whitelist (for proxy plugins)
-        server.createContext("/api/check-whitelist", exchange -> {
+        createContext("/api/check-whitelist", exchange -> {
             debugLog("/api/check-whitelist called");
             if (!"GET".equals(exchange.getRequestMethod())) { 
                 exchange.sendResponseHeaders(405, 0); 
@@ -700,7 +760,7 @@ public class WebServer {
                 return;
             }
             
-            // Look up user in database (and reconcile pending/missing user from AuthMe if needed)
+            // Look up user in database (pending/missing users are reconciled from AuthMe in the background)
             java.util.Map<String, Object> user = ensureLocalApprovedUserFromAuthme(username);
             
             if (user != null) {
@@ -720,7 +780,7 @@ public class WebServer {
         });
         
         // /api/discord/auth - Generate Discord OAuth2 authorization URL
-        server.createContext("/api/discord/auth", exchange -> {
+        createContext("/api/discord/auth", exchange -> {
             debugLog("/api/discord/auth called");
             if (!"POST".equals(exchange.getRequestMethod())) { 
                 exchange.sendResponseHeaders(405, 0); 
@@ -760,7 +820,7 @@ public class WebServer {
         });
         
         // /api/discord/callback - Handle Discord OAuth2 callback
-        server.createContext("/api/discord/callback", exchange -> {
+        createContext("/api/discord/callback", exchange -> {
             debugLog("/api/discord/callback called");
             
             String query = exchange.getRequestURI().getQuery();
@@ -796,19 +856,25 @@ public class WebServer {
                 return;
             }
             
-            DiscordService.DiscordCallbackResult result = discordService.handleCallback(code, state);
-            
-            if (wantsHtml) {
-                String discordUsername = result.user != null ? 
-                    (result.user.globalName != null ? result.user.globalName : result.user.username) : null;
-                sendDiscordCallbackHtml(exchange, result.success, result.message, discordUsername);
-            } else {
-                sendJson(exchange, result.toJson());
-            }
+            // Respond when the Discord calls finish so the shared HTTP dispatcher thread is not held
+            discordService.handleCallbackAsync(code, state).thenAccept(result -> {
+                try {
+                    if (wantsHtml) {
+                        String discordUsername = result.user != null ? 
+                            (result.user.globalName != null ? result.user.globalName : result.user.username) : null;
+                        sendDiscordCallbackHtml(exchange, result.success, result.message, discordUsername);
+                    } else {
+                        sendJson(exchange, result.toJson());
+                    }
+                } catch (IOException e) {
+                    debugLog("Failed to send Discord callback response: " + e.getMessage());
+                    exchange.close();
+                }
+            });
         });
         
         // /api/discord/status - Check if user has linked Discord
-        server.createContext("/api/discord/status", exchange -> {
+        createContext("/api/discord/status", exchange -> {
             debugLog("/api/discord/status called");
             if (!"GET".equals(exchange.getRequestMethod())) { 
                 exchange.sendResponseHeaders(405, 0); 
@@ -850,7 +916,7 @@ public class WebServer {
         });
         
         // /api/reload-config reload configuration interface - requires authentication
-        server.createContext("/api/reload-config", exchange -> {
+        createContext("/api/reload-config", exchange -> {
             if (!"POST".equals(exchange.getRequestMethod())) { 
                 exchange.sendResponseHeaders(405, 0); 
                 exchange.close(); 
@@ -869,6 +935,9 @@ public class WebServer {
             JSONObject resp = new JSONObject();
             try {
                 plugin.reloadConfig();
+                ((team.kitemc.verifymc.VerifyMC) plugin).reloadConfigSnapshot();
+                tokenSigner = AdminTokenSigner.create(plugin);
+                questionnaireService.reload();
                 // Update static file directory to support theme switching
                 String theme = plugin.getConfig().getString("frontend.theme", "default");
                 
@@ -889,7 +958,7 @@ public class WebServer {
                 
                 // Recreate static file handler
                 server.removeContext("/");
-                server.createContext("/", new StaticHandler(staticDir));
+                createContext("/", new StaticHandler(staticDir));
                 debugLog("Static handler updated for theme: " + theme);
                 
                 resp.put("success", true);
@@ -902,7 +971,7 @@ public class WebServer {
         });
         
         // /api/captcha - Generate captcha image for verification
-        server.createContext("/api/captcha", exchange -> {
+        createContext("/api/captcha", exchange -> {
             debugLog("/api/captcha called");
             if (!"GET".equals(exchange.getRequestMethod())) { 
                 exchange.sendResponseHeaders(405, 0); 
@@ -925,7 +994,7 @@ public class WebServer {
         });
         
         // /api/questionnaire - Get questionnaire questions
-        server.createContext("/api/questionnaire", exchange -> {
+        createContext("/api/questionnaire", exchange -> {
             debugLog("/api/questionnaire called");
             if (!"GET".equals(exchange.getRequestMethod())) { 
                 exchange.sendResponseHeaders(405, 0); 
@@ -939,21 +1008,12 @@ public class WebServer {
                 language = query.split("language=")[1].split("&")[0];
             }
             
-            JSONObject resp = new JSONObject();
-            try {
-                JSONObject questionnaire = questionnaireService.getQuestionnaire(language);
-                resp.put("success", true);
-                resp.put("data", questionnaire);
-            } catch (Exception e) {
-                debugLog("Failed to get questionnaire: " + e.getMessage());
-                resp.put("success", false);
-                resp.put("msg", "Failed to get questionnaire");
-            }
-            sendJson(exchange, resp);
+            // The questionnaire is serialized once per language; wrap the cached bytes without re-encoding
+            sendJsonEnvelope(exchange, questionnaireService.getQuestionnaireJson(language));
         });
         
         // /api/submit-questionnaire - Submit questionnaire answers
-        server.createContext("/api/submit-questionnaire", exchange -> {
+        createContext("/api/submit-questionnaire", exchange -> {
             debugLog("/api/submit-questionnaire called");
             if (!"POST".equals(exchange.getRequestMethod())) { 
                 exchange.sendResponseHeaders(405, 0); 
@@ -968,10 +1028,11 @@ public class WebServer {
             String requestUuid = req.optString("uuid", "").trim().toLowerCase();
             String requestEmail = req.optString("email", "").trim().toLowerCase();
 
-            int ipLimit = plugin.getConfig().getInt("questionnaire.rate_limit.ip.max", 20);
-            int uuidLimit = plugin.getConfig().getInt("questionnaire.rate_limit.uuid.max", 8);
-            int emailLimit = plugin.getConfig().getInt("questionnaire.rate_limit.email.max", 6);
-            long windowMs = plugin.getConfig().getLong("questionnaire.rate_limit.window_ms", 300000L);
+            ConfigSnapshot snapshot = config();
+            int ipLimit = snapshot.getQuestionnaireIpLimit();
+            int uuidLimit = snapshot.getQuestionnaireUuidLimit();
+            int emailLimit = snapshot.getQuestionnaireEmailLimit();
+            long windowMs = snapshot.getQuestionnaireWindowMs();
 
             RateLimitDecision ipDecision = checkQuestionnaireRateLimit("q:ip:" + clientIp, ipLimit, windowMs);
             RateLimitDecision uuidDecision = checkQuestionnaireRateLimit("q:uuid:" + requestUuid, uuidLimit, windowMs);
@@ -1001,28 +1062,13 @@ public class WebServer {
                     return;
                 }
                 
-                JSONObject questionnaire = questionnaireService.getQuestionnaire(language);
-                JSONArray questionDefs = questionnaire.optJSONArray("questions");
-                if (questionDefs == null) {
-                    resp.put("success", false);
-                    resp.put("msg", getMsg("questionnaire.answers_required", language));
-                    sendJson(exchange, resp);
-                    return;
-                }
-
-                Map<Integer, JSONObject> questionDefMap = new HashMap<>();
-                for (int i = 0; i < questionDefs.length(); i++) {
-                    JSONObject questionDef = questionDefs.optJSONObject(i);
-                    if (questionDef != null) {
-                        questionDefMap.put(questionDef.optInt("id", -1), questionDef);
-                    }
-                }
+                CompiledQuestionnaire questionnaire = questionnaireService.getCompiled();
 
                 // Convert answers to Map<Integer, AnswerObject>
                 Map<Integer, QuestionnaireService.QuestionAnswer> answers = new HashMap<>();
                 for (String key : answersJson.keySet()) {
                     int questionId = Integer.parseInt(key);
-                    JSONObject questionDef = questionDefMap.get(questionId);
+                    CompiledQuestionnaire.Question questionDef = questionnaire.getQuestion(questionId);
                     if (questionDef == null) {
                         throw new IllegalArgumentException("Invalid question id: " + questionId);
                     }
@@ -1034,7 +1080,7 @@ public class WebServer {
                     JSONObject answerObj = (JSONObject) rawAnswer;
 
                     String answerType = answerObj.optString("type", "").trim();
-                    String questionType = questionDef.optString("type", "single_choice");
+                    String questionType = questionDef.getType();
                     if (answerType.isEmpty()) {
                         answerType = questionType;
                     }
@@ -1059,21 +1105,20 @@ public class WebServer {
                 }
 
                 // Evaluate answers
-                QuestionnaireService.QuestionnaireResult result = questionnaireService.evaluateAnswers(answers);
+                QuestionnaireService.QuestionnaireResult result = questionnaireService.evaluateAnswers(questionnaire, answers);
                 JSONObject resultJson = result.toJson();
                 JSONArray details = resultJson.optJSONArray("details");
                 boolean manualReviewRequired = resultJson.optBoolean("manual_review_required", false);
 
                 long submittedAt = System.currentTimeMillis();
-                long expiresAt = submittedAt + QUESTIONNAIRE_SUBMISSION_TTL_MS;
-                String questionnaireToken = UUID.randomUUID().toString();
-                questionnaireSubmissionStore.put(questionnaireToken, new QuestionnaireSubmissionRecord(
+                long expiresAt = submittedAt + questionnaireSubmissionStore.getTtlMs();
+                String questionnaireToken = questionnaireSubmissionStore.put(new QuestionnaireSubmissionStore.Submission(
                     result.isPassed(),
+                    manualReviewRequired,
                     result.getScore(),
                     result.getPassScore(),
-                    details,
-                    manualReviewRequired,
-                    answersJson,
+                    buildQuestionnaireReviewSummary(details),
+                    QuestionnaireSubmissionStore.encodeAnswers(answersJson),
                     submittedAt,
                     expiresAt
                 ));
@@ -1111,7 +1156,7 @@ public class WebServer {
         
 
         // /api/send_code send verification code interface with rate limiting and authentication
-        server.createContext("/api/send_code", exchange -> {
+        createContext("/api/send_code", exchange -> {
             debugLog("/api/send_code called");
             if (!"POST".equals(exchange.getRequestMethod())) { 
                 exchange.sendResponseHeaders(405, 0); 
@@ -1145,7 +1190,7 @@ public class WebServer {
             }
 
             // Email alias restriction check
-            if (isEmailAliasLimitEnabled() && email.contains("+")) {
+            if (config().isEmailAliasLimitEnabled() && email.contains("+")) {
                 JSONObject resp = new JSONObject();
                 resp.put("success", false);
                 resp.put("msg", getMsg("register.alias_not_allowed", language));
@@ -1154,10 +1199,9 @@ public class WebServer {
             }
 
             // Email domain whitelist check
-            if (isEmailDomainWhitelistEnabled()) {
+            if (config().isEmailDomainWhitelistEnabled()) {
                 String domain = email.contains("@") ? email.substring(email.indexOf('@') + 1) : "";
-                java.util.List<String> allowedDomains = getEmailDomainWhitelist();
-                if (!allowedDomains.contains(domain)) {
+                if (!config().isEmailDomainAllowed(domain)) {
                     JSONObject resp = new JSONObject();
                     resp.put("success", false);
                     resp.put("msg", getMsg("register.domain_not_allowed", language));
@@ -1168,10 +1212,17 @@ public class WebServer {
             
             // Generate verification code and send email
             String code = codeService.generateCode(email);
+            if (code == null) {
+                JSONObject resp = new JSONObject();
+                resp.put("success", false);
+                resp.put("msg", getMsg("email.failed", language));
+                sendJson(exchange, resp);
+                return;
+            }
             debugLog("Generated verification code for email: " + maskEmail(email) + ", codeHash=" + hashToken(code));
             
             // Get email subject from config.yml, fallback to default if not set
-            String emailSubject = plugin.getConfig().getString("email_subject", "VerifyMC Verification Code");
+            String emailSubject = config().getEmailSubject();
             boolean sent = mailService.sendCode(email, emailSubject, code, language);
             JSONObject resp = new JSONObject();
             resp.put("success", sent);
@@ -1187,7 +1238,7 @@ public class WebServer {
         });
         
         // /api/register registration interface
-        server.createContext("/api/register", exchange -> {
+        createContext("/api/register", exchange -> {
             debugLog("/api/register called");
             if (!"POST".equals(exchange.getRequestMethod())) { exchange.sendResponseHeaders(405, 0); exchange.close(); return; }
             JSONObject req = new JSONObject(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
@@ -1216,7 +1267,7 @@ public class WebServer {
                 if (!authmeService.isValidPassword(password)) {
                     JSONObject resp = new JSONObject();
                     resp.put("success", false);
-                    String passwordRegex = plugin.getConfig().getString("authme.password_regex", "^[a-zA-Z0-9_]{3,16}$");
+                    String passwordRegex = config().getPasswordRegex();
                     resp.put("msg", getMsg("register.invalid_password", language).replace("{regex}", passwordRegex));
                     sendJson(exchange, resp);
                     return;
@@ -1224,7 +1275,7 @@ public class WebServer {
             }
 
             // Email alias restriction
-            if (isEmailAliasLimitEnabled() && email.contains("+")) {
+            if (config().isEmailAliasLimitEnabled() && email.contains("+")) {
                 JSONObject resp = new JSONObject();
                 resp.put("success", false);
                 resp.put("msg", getMsg("register.alias_not_allowed", language));
@@ -1233,10 +1284,9 @@ public class WebServer {
             }
 
             // Email domain whitelist
-            if (isEmailDomainWhitelistEnabled()) {
+            if (config().isEmailDomainWhitelistEnabled()) {
                 String domain = email.contains("@") ? email.substring(email.indexOf('@') + 1) : "";
-                java.util.List<String> allowedDomains = getEmailDomainWhitelist();
-                if (!allowedDomains.contains(domain)) {
+                if (!config().isEmailDomainAllowed(domain)) {
                     JSONObject resp = new JSONObject();
                     resp.put("success", false);
                     resp.put("msg", getMsg("register.domain_not_allowed", language));
@@ -1257,7 +1307,7 @@ public class WebServer {
             if (!isValidUsername(username)) {
                 JSONObject resp = new JSONObject();
                 resp.put("success", false);
-                String usernameRegex = getUsernameRegexForUser(username);
+                String usernameRegex = config().getUsernameRegex(username);
                 resp.put("msg", getMsg("username.invalid", language).replace("{regex}", usernameRegex));
                 sendJson(exchange, resp);
                 return;
@@ -1270,7 +1320,7 @@ public class WebServer {
                 return;
             }
             // Email registration count limit
-            int maxAccounts = plugin.getConfig().getInt("max_accounts_per_email", 2);
+            int maxAccounts = config().getMaxAccountsPerEmail();
             int emailCount = userDao.countUsersByEmail(email);
             if (emailCount >= maxAccounts) {
                 debugLog("Email registration limit reached: " + email + ", count=" + emailCount);
@@ -1303,7 +1353,7 @@ public class WebServer {
                 return;
             }
 
-            QuestionnaireSubmissionRecord questionnaireSubmissionRecord = null;
+            QuestionnaireSubmissionStore.Submission questionnaireSubmission = null;
             boolean questionnaireEnabled = questionnaireService.isEnabled();
             if (questionnaireEnabled) {
                 JSONObject questionnaireResp = new JSONObject();
@@ -1326,7 +1376,7 @@ public class WebServer {
                     return;
                 }
 
-                QuestionnaireSubmissionRecord record = questionnaireSubmissionStore.remove(questionnaireToken);
+                QuestionnaireSubmissionStore.Submission record = questionnaireSubmissionStore.take(questionnaireToken);
                 if (record == null) {
                     questionnaireResp.put("success", false);
                     questionnaireResp.put("msg", getMsg("register.questionnaire_missing", language));
@@ -1341,15 +1391,21 @@ public class WebServer {
                     return;
                 }
 
-                if (!record.answers.similar(answers) || record.submittedAt != submittedAt || record.expiresAt != expiresAt) {
+                byte[] encodedAnswers;
+                try {
+                    encodedAnswers = QuestionnaireSubmissionStore.encodeAnswers(answers);
+                } catch (IllegalArgumentException e) {
+                    encodedAnswers = null;
+                }
+                if (encodedAnswers == null || !record.answersMatch(encodedAnswers) || record.getSubmittedAt() != submittedAt || record.getExpiresAt() != expiresAt) {
                     questionnaireResp.put("success", false);
                     questionnaireResp.put("msg", getMsg("register.questionnaire_invalid", language));
                     sendJson(exchange, questionnaireResp);
                     return;
                 }
 
-                boolean questionnairePassed = record.passed;
-                boolean manualReviewRequired = record.manualReviewRequired;
+                boolean questionnairePassed = record.isPassed();
+                boolean manualReviewRequired = record.isManualReviewRequired();
                 if (!questionnairePassed && !manualReviewRequired) {
                     questionnaireResp.put("success", false);
                     questionnaireResp.put("msg", getMsg("register.questionnaire_required", language));
@@ -1357,15 +1413,15 @@ public class WebServer {
                     return;
                 }
 
-                questionnaireSubmissionRecord = record;
+                questionnaireSubmission = record;
             }
 
             JSONObject resp = new JSONObject();
             
             // Determine verification method based on auth_methods config
-            java.util.List<String> authMethods = plugin.getConfig().getStringList("auth_methods");
-            boolean useCaptcha = authMethods.contains("captcha");
-            boolean useEmail = authMethods.contains("email");
+            ConfigSnapshot snapshot = config();
+            boolean useCaptcha = snapshot.isCaptchaAuthEnabled();
+            boolean useEmail = snapshot.isEmailAuthEnabled();
             boolean verificationPassed = false;
             
             // Captcha verification
@@ -1418,17 +1474,17 @@ public class WebServer {
                 }
                 
                 debugLog("All checks passed, registering user");
-                QuestionnaireSubmissionRecord submissionRecord = questionnaireSubmissionRecord;
-                boolean questionnairePassed = submissionRecord != null && submissionRecord.passed;
-                boolean manualReviewRequired = submissionRecord != null && submissionRecord.manualReviewRequired;
-                boolean registerAutoApprove = plugin.getConfig().getBoolean("register.auto_approve", false);
+                QuestionnaireSubmissionStore.Submission submission = questionnaireSubmission;
+                boolean questionnairePassed = submission != null && submission.isPassed();
+                boolean manualReviewRequired = submission != null && submission.isManualReviewRequired();
+                boolean registerAutoApprove = snapshot.isRegisterAutoApprove();
                 boolean autoApprove = !manualReviewRequired && registerAutoApprove;
                 String status = autoApprove ? "approved" : "pending";
 
-                Integer questionnaireScore = submissionRecord != null ? submissionRecord.score : null;
-                Boolean questionnairePassedValue = submissionRecord != null ? submissionRecord.passed : null;
-                String questionnaireReviewSummary = submissionRecord != null ? buildQuestionnaireReviewSummary(submissionRecord.details) : null;
-                Long questionnaireScoredAt = submissionRecord != null ? submissionRecord.submittedAt : null;
+                Integer questionnaireScore = submission != null ? submission.getScore() : null;
+                Boolean questionnairePassedValue = submission != null ? submission.isPassed() : null;
+                String questionnaireReviewSummary = submission != null ? submission.getReviewSummary() : null;
+                Long questionnaireScoredAt = submission != null ? submission.getSubmittedAt() : null;
                 boolean ok;
 
                 String storageEmail = email;
@@ -1441,6 +1497,9 @@ public class WebServer {
                 }
                 
                 debugLog("registerUser result: " + ok);
+                if (ok) {
+                    publishUserChange(uuid, null);
+                }
                 if (ok && "approved".equals(status)) {
                     // Registration successful and approved, automatically add to whitelist
                     debugLog("Execute: whitelist add " + username);
@@ -1475,7 +1534,7 @@ public class WebServer {
         });
         
         // Admin login
-        server.createContext("/api/admin-login", exchange -> {
+        createContext("/api/admin-login", exchange -> {
             if (!"POST".equals(exchange.getRequestMethod())) { 
                 exchange.sendResponseHeaders(405, 0); 
                 exchange.close(); 
@@ -1485,11 +1544,11 @@ public class WebServer {
             String password = req.optString("password");
             String language = req.optString("language", "en");
             
-            String adminPassword = plugin.getConfig().getString("admin.password", "");
+            String adminPassword = config().getAdminPassword();
             JSONObject resp = new JSONObject();
             
             if (password.equals(adminPassword)) {
-                String token = generateSecureToken();
+                String token = tokenSigner.issue();
                 resp.put("success", true);
                 resp.put("token", token);
                 resp.put("message", getMsg("admin.login_success", language));
@@ -1502,7 +1561,7 @@ public class WebServer {
         });
         
         // Admin token verification
-        server.createContext("/api/admin-verify", exchange -> {
+        createContext("/api/admin-verify", exchange -> {
             if (!"POST".equals(exchange.getRequestMethod())) { 
                 exchange.sendResponseHeaders(405, 0); 
                 exchange.close(); 
@@ -1523,7 +1582,7 @@ public class WebServer {
         });
         
         // Get pending users list - requires authentication
-        server.createContext("/api/pending-list", exchange -> {
+        createContext("/api/pending-list", exchange -> {
             // Verify authentication
             if (!isAuthenticated(exchange)) {
                 JSONObject resp = new JSONObject();
@@ -1540,15 +1599,10 @@ public class WebServer {
             }
             JSONObject resp = new JSONObject();
             try {
-                // Get pending users list from database
-                List<Map<String, Object>> users = userDao.getPendingUsers();
-                // Ensure each user contains email and regTime fields
-                for (Map<String, Object> user : users) {
-                    sanitizeUserForResponse(user);
-                    if (!user.containsKey("regTime")) user.put("regTime", null);
-                    user.put("email", resolveUserEmail(user));
-                    if (!user.containsKey("questionnaire_score")) user.put("questionnaire_score", null);
-                    if (!user.containsKey("questionnaire_review_summary")) user.put("questionnaire_review_summary", null);
+                // Review columns only: no password hashes are read for the list
+                List<Map<String, Object>> users = new java.util.ArrayList<>();
+                for (UserSummary user : userDao.getPendingUserSummaries()) {
+                    users.add(user.toMap());
                 }
                 resp.put("success", true);
                 resp.put("users", users);
@@ -1560,7 +1614,7 @@ public class WebServer {
         });
         
         // Unified user review interface - requires authentication
-        server.createContext("/api/review", exchange -> {
+        createContext("/api/review", exchange -> {
             if (!"POST".equals(exchange.getRequestMethod())) { 
                 exchange.sendResponseHeaders(405, 0); 
                 exchange.close(); 
@@ -1615,6 +1669,7 @@ public class WebServer {
                 String password = (String) user.get("password");
                 String userEmail = user.get("email") != null ? String.valueOf(user.get("email")) : "";
                 
+                String previousStatus = user.get("status") != null ? String.valueOf(user.get("status")) : null;
                 String status = "approve".equals(action) ? "approved" : "rejected";
                 boolean success = userDao.updateUserStatus(uuid, status);
 
@@ -1650,24 +1705,13 @@ public class WebServer {
                 
                 // Send review result notification to user (async)
                 if (success && userEmail != null && !userEmail.trim().isEmpty()) {
-                    final String finalUsername = username;
-                    final String finalEmail = userEmail;
-                    final boolean approved = "approve".equals(action);
-                    final String finalReason = reason;
-                    final String finalLanguage = language;
-                    new Thread(() -> {
-                        try {
-                            mailService.sendReviewResultNotification(finalEmail, finalUsername, approved, finalReason, finalLanguage);
-                        } catch (Exception e) {
-                            debugLog("Failed to send review result notification: " + e.getMessage());
-                        }
-                    }).start();
+                    notificationExecutor.submitReviewResult(userEmail, username, "approve".equals(action), reason, language);
                 }
 
                 if (success) {
                     String operator = getAuditOperator(exchange);
                     String target = buildAuditTarget(uuid, username);
-                    auditDao.addAudit(buildAuditRecord(action, operator, target, reason, System.currentTimeMillis()));
+                    recordAudit(buildAuditRecord(action, operator, target, reason, System.currentTimeMillis()));
                 }
                 
                 resp.put("success", success);
@@ -1678,12 +1722,7 @@ public class WebServer {
                 
                 // WebSocket push
                 if (success) {
-                    JSONObject wsMsg = new JSONObject();
-                    wsMsg.put("type", action);
-                    wsMsg.put("uuid", uuid);
-                    wsMsg.put("msg", reviewMessage);
-                    wsMsg.put("message", reviewMessage);
-                    wsServer.broadcastMessage(wsMsg.toString());
+                    publishUserChange(uuid, previousStatus);
                 }
             } catch (Exception e) {
                 resp.put("success", false);
@@ -1693,9 +1732,14 @@ public class WebServer {
             sendJson(exchange, resp);
         });
         
-        // Get all users - requires authentication
-        server.createContext("/api/all-users", exchange -> {
-            // Verify authentication
+        // Review several applications in one request - requires authentication
+        createContext("/api/review-batch", exchange -> {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, 0);
+                exchange.close();
+                return;
+            }
+
             if (!isAuthenticated(exchange)) {
                 JSONObject resp = new JSONObject();
                 resp.put("success", false);
@@ -1704,31 +1748,63 @@ public class WebServer {
                 return;
             }
 
-            String language = "en";
+            JSONObject req = new JSONObject(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            String language = req.optString("language", "en");
+            JSONArray decisions = req.optJSONArray("decisions");
             JSONObject resp = new JSONObject();
+            if (decisions == null || decisions.isEmpty()) {
+                resp.put("success", false);
+                resp.put("message", "Invalid decisions");
+                sendJson(exchange, resp);
+                return;
+            }
+            if (decisions.length() > MAX_BATCH_REVIEW_SIZE) {
+                resp.put("success", false);
+                putResponseMessage(resp, getMsg("review.batch_too_large", language)
+                    .replace("{0}", String.valueOf(MAX_BATCH_REVIEW_SIZE)));
+                sendJson(exchange, resp);
+                return;
+            }
+
             try {
-                // Only return non-pending users
-                List<Map<String, Object>> users = userDao.getAllUsers();
-                List<Map<String, Object>> filtered = new java.util.ArrayList<>();
-                for (Map<String, Object> user : users) {
-                    if (!"pending".equalsIgnoreCase(String.valueOf(user.get("status")))) {
-                        sanitizeUserForResponse(user);
-                        if (!user.containsKey("regTime")) user.put("regTime", null);
-                        user.put("email", resolveUserEmail(user));
-                        filtered.add(user);
-                    }
-                }
-                resp.put("success", true);
-                resp.put("users", filtered);
+                JSONObject outcome = applyReviewDecisions(decisions, getAuditOperator(exchange), language);
+                int reviewed = outcome.getInt("reviewed");
+                int failed = outcome.getInt("failed");
+                resp.put("success", reviewed > 0);
+                resp.put("reviewed", reviewed);
+                resp.put("failed", failed);
+                resp.put("results", outcome.getJSONArray("results"));
+                putResponseMessage(resp, getMsg("review.batch_done", language)
+                    .replace("{0}", String.valueOf(reviewed)).replace("{1}", String.valueOf(failed)));
             } catch (Exception e) {
+                debugLog("Batch review failed: " + e.getMessage());
                 resp.put("success", false);
-                resp.put("message", getMsg("admin.load_failed", language));
+                putResponseMessage(resp, getMsg("review.failed", language));
             }
             sendJson(exchange, resp);
         });
         
+        // Get all users - requires authentication
+        createContext("/api/all-users", exchange -> {
+            // Verify authentication
+            if (!isAuthenticated(exchange)) {
+                JSONObject resp = new JSONObject();
+                resp.put("success", false);
+                resp.put("message", "Authentication required");
+                sendJson(exchange, resp);
+                return;
+            }
+
+            // Only return non-pending users, streamed from the DAO one list row at a time
+            streamJsonArray(exchange, "users", item -> userDao.forEachUserSummary(user -> {
+                if (!"pending".equalsIgnoreCase(user.getStatus())) {
+                    item.accept(user.toMap());
+                }
+            }));
+        });
+        
         // Get users with pagination - requires authentication
-        server.createContext("/api/users-paginated", exchange -> {
+        createContext("/api/users-paginated", exchange -> {
             // Verify authentication
             if (!isAuthenticated(exchange)) {
                 JSONObject resp = new JSONObject();
@@ -1778,25 +1854,17 @@ public class WebServer {
             
             JSONObject resp = new JSONObject();
             try {
-                List<Map<String, Object>> users;
                 int totalCount;
                 
-                // Get approved users with pagination and optional search
+                // Get approved users with pagination and optional search, list columns only
                 if (searchQuery != null && !searchQuery.trim().isEmpty()) {
-                    users = userDao.getApprovedUsersWithPaginationAndSearch(page, pageSize, searchQuery);
                     totalCount = userDao.getApprovedUserCountWithSearch(searchQuery);
                 } else {
-                    users = userDao.getApprovedUsersWithPagination(page, pageSize);
                     totalCount = userDao.getApprovedUserCount();
                 }
-                
-                // Ensure required fields exist (no need to filter pending users as they're already excluded)
-                for (Map<String, Object> user : users) {
-                    sanitizeUserForResponse(user);
-                    if (!user.containsKey("regTime")) user.put("regTime", null);
-                    user.put("email", resolveUserEmail(user));
-                    if (!user.containsKey("questionnaire_score")) user.put("questionnaire_score", null);
-                    if (!user.containsKey("questionnaire_review_summary")) user.put("questionnaire_review_summary", null);
+                List<Map<String, Object>> users = new java.util.ArrayList<>();
+                for (UserSummary user : userDao.getApprovedUserSummaries(page, pageSize, searchQuery)) {
+                    users.add(user.toMap());
                 }
                 
                 // Calculate pagination info
@@ -1826,7 +1894,7 @@ public class WebServer {
         });
         
         // Delete user - requires authentication
-        server.createContext("/api/delete-user", exchange -> {
+        createContext("/api/delete-user", exchange -> {
             if (!"POST".equals(exchange.getRequestMethod())) { 
                 exchange.sendResponseHeaders(405, 0); 
                 exchange.close(); 
@@ -1867,6 +1935,7 @@ public class WebServer {
                 }
                 
                 String username = (String) user.get("username");
+                String previousStatus = user.get("status") != null ? String.valueOf(user.get("status")) : null;
                 boolean success = userDao.deleteUser(uuid);
                 
                 if (success && username != null) {
@@ -1885,7 +1954,8 @@ public class WebServer {
                 if (success) {
                     String operator = getAuditOperator(exchange);
                     String target = buildAuditTarget(uuid, username);
-                    auditDao.addAudit(buildAuditRecord("delete-user", operator, target, "", System.currentTimeMillis()));
+                    recordAudit(buildAuditRecord("delete-user", operator, target, "", System.currentTimeMillis()));
+                    wsServer.publishUserRemoved(uuid, previousStatus);
                 }
                 
                 resp.put("success", success);
@@ -1901,7 +1971,7 @@ public class WebServer {
         });
         
         // Ban user - requires authentication
-        server.createContext("/api/ban-user", exchange -> {
+        createContext("/api/ban-user", exchange -> {
             if (!"POST".equals(exchange.getRequestMethod())) { 
                 exchange.sendResponseHeaders(405, 0); 
                 exchange.close(); 
@@ -1942,6 +2012,7 @@ public class WebServer {
                 }
                 
                 String username = (String) user.get("username");
+                String previousStatus = user.get("status") != null ? String.valueOf(user.get("status")) : null;
                 boolean success = userDao.updateUserStatus(uuid, "banned");
                 
                 if (success && username != null) {
@@ -1960,7 +2031,8 @@ public class WebServer {
                 if (success) {
                     String operator = getAuditOperator(exchange);
                     String target = buildAuditTarget(uuid, username);
-                    auditDao.addAudit(buildAuditRecord("ban-user", operator, target, "", System.currentTimeMillis()));
+                    recordAudit(buildAuditRecord("ban-user", operator, target, "", System.currentTimeMillis()));
+                    publishUserChange(uuid, previousStatus);
                 }
                 
                 resp.put("success", success);
@@ -1976,7 +2048,7 @@ public class WebServer {
         });
         
         // Unban user - requires authentication
-        server.createContext("/api/unban-user", exchange -> {
+        createContext("/api/unban-user", exchange -> {
             if (!"POST".equals(exchange.getRequestMethod())) { 
                 exchange.sendResponseHeaders(405, 0); 
                 exchange.close(); 
@@ -2019,6 +2091,7 @@ public class WebServer {
                 String username = (String) user.get("username");
                 String password = (String) user.get("password");
                 String email = user.get("email") != null ? String.valueOf(user.get("email")) : "";
+                String previousStatus = user.get("status") != null ? String.valueOf(user.get("status")) : null;
                 boolean success = userDao.updateUserStatus(uuid, "approved");
                 
                 if (success && username != null) {
@@ -2037,7 +2110,8 @@ public class WebServer {
                 if (success) {
                     String operator = getAuditOperator(exchange);
                     String target = buildAuditTarget(uuid, username);
-                    auditDao.addAudit(buildAuditRecord("unban-user", operator, target, "", System.currentTimeMillis()));
+                    recordAudit(buildAuditRecord("unban-user", operator, target, "", System.currentTimeMillis()));
+                    publishUserChange(uuid, previousStatus);
                 }
                 
                 resp.put("success", success);
@@ -2053,7 +2127,7 @@ public class WebServer {
         });
         
         // Change user password
-        server.createContext("/api/change-password", exchange -> {
+        createContext("/api/change-password", exchange -> {
             if (!"POST".equals(exchange.getRequestMethod())) { 
                 exchange.sendResponseHeaders(405, 0); 
                 exchange.close(); 
@@ -2095,7 +2169,7 @@ public class WebServer {
             // Validate password format
             if (!authmeService.isValidPassword(newPassword)) {
                 resp.put("success", false);
-                String passwordRegex = plugin.getConfig().getString("authme.password_regex", "^[a-zA-Z0-9_]{3,16}$");
+                String passwordRegex = config().getPasswordRegex();
                 putResponseMessage(resp, getMsg("admin.invalid_password", language).replace("{regex}", passwordRegex));
                 sendJson(exchange, resp);
                 return;
@@ -2133,7 +2207,7 @@ public class WebServer {
                 if (success) {
                     String operator = getAuditOperator(exchange);
                     String target = buildAuditTarget(targetUuid, targetUsername);
-                    auditDao.addAudit(buildAuditRecord("change-password", operator, target, "password updated", System.currentTimeMillis()));
+                    recordAudit(buildAuditRecord("change-password", operator, target, "password updated", System.currentTimeMillis()));
                     resp.put("success", true);
                     putResponseMessage(resp, getMsg("admin.password_change_success", language));
                 } else {
@@ -2150,7 +2224,7 @@ public class WebServer {
         });
 
         // Query audit logs - requires authentication
-        server.createContext("/api/audits", exchange -> {
+        createContext("/api/audits", exchange -> {
             if (!isAuthenticated(exchange)) {
                 JSONObject resp = new JSONObject();
                 resp.put("success", false);
@@ -2165,31 +2239,37 @@ public class WebServer {
                 return;
             }
 
-            String query = exchange.getRequestURI().getQuery();
-            String language = "en";
-            if (query != null && query.contains("language=")) {
-                language = query.split("language=")[1].split("&")[0];
+            streamJsonArray(exchange, "audits", auditDao::forEachAuditNewestFirst);
+        });
+        
+        // AuthMe reconciliation status (GET) and manual trigger (POST) - requires authentication
+        createContext("/api/authme-sync", exchange -> {
+            if (!isAuthenticated(exchange)) {
+                JSONObject resp = new JSONObject();
+                resp.put("success", false);
+                resp.put("message", "Authentication required");
+                sendJson(exchange, resp);
+                return;
             }
 
-            JSONObject resp = new JSONObject();
-            try {
-                List<Map<String, Object>> audits = auditDao.getAllAudits();
-                audits.sort((a, b) -> Long.compare(
-                    ((Number) b.getOrDefault("timestamp", 0L)).longValue(),
-                    ((Number) a.getOrDefault("timestamp", 0L)).longValue()
-                ));
-                resp.put("success", true);
-                resp.put("audits", audits);
-            } catch (Exception e) {
-                resp.put("success", false);
-                resp.put("message", getMsg("admin.load_failed", language));
+            String method = exchange.getRequestMethod();
+            if (!"GET".equals(method) && !"POST".equals(method)) {
+                exchange.sendResponseHeaders(405, 0);
+                exchange.close();
+                return;
             }
 
+            JSONObject resp = new JSONObject();
+            if ("POST".equals(method)) {
+                resp.put("started", authmeReconcileService.trigger());
+            }
+            resp.put("success", true);
+            resp.put("status", authmeReconcileService.getStatus());
             sendJson(exchange, resp);
         });
         
         // Get user status
-        server.createContext("/api/user-status", exchange -> {
+        createContext("/api/user-status", exchange -> {
             if (!"GET".equals(exchange.getRequestMethod())) { 
                 exchange.sendResponseHeaders(405, 0); 
                 exchange.close(); 
@@ -2235,7 +2315,7 @@ public class WebServer {
         });
         
         // Version check API - requires authentication
-        server.createContext("/api/version-check", exchange -> {
+        createContext("/api/version-check", exchange -> {
             // Verify authentication
             if (!isAuthenticated(exchange)) {
                 JSONObject resp = new JSONObject();
@@ -2395,6 +2475,80 @@ public class WebServer {
         sendJson(exchange, resp, 200);
     }
 
+    /**
+     * Send {"success":true,"data":<data>} with the copyright field around pre-serialized JSON
+     * @param exchange HTTP exchange
+     * @param data UTF-8 JSON value, written as is
+     */
+    private void sendJsonEnvelope(HttpExchange exchange, byte[] data) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(200, ENVELOPE_PREFIX.length + data.length + ENVELOPE_SUFFIX.length);
+        OutputStream os = exchange.getResponseBody();
+        os.write(ENVELOPE_PREFIX);
+        os.write(data);
+        os.write(ENVELOPE_SUFFIX);
+        exchange.close();
+    }
+
+    /**
+     * Stream {"success":true,"<field>":[...]} with the copyright field using chunked transfer encoding.
+     * Items are serialized and written as the source produces them, so memory use does not grow with
+     * the number of items. Headers are sent with the first item, so a storage failure before that still
+     * gets a success:false response. A failure after that aborts the connection without completing the
+     * chunked body or the JSON, so clients see an error instead of a shorter list.
+     * @param exchange HTTP exchange
+     * @param field Name of the array field
+     * @param source Feeds every item to the given consumer
+     */
+    private void streamJsonArray(HttpExchange exchange, String field,
+                                 Consumer<Consumer<Map<String, Object>>> source) throws IOException {
+        Writer[] out = {null};
+        try {
+            source.accept(item -> {
+                try {
+                    if (out[0] == null) {
+                        out[0] = startJsonArray(exchange, field);
+                    } else {
+                        out[0].write(',');
+                    }
+                    out[0].write(new JSONObject(item).toString());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            if (out[0] == null) {
+                out[0] = startJsonArray(exchange, field);
+            }
+            out[0].write("]}");
+            out[0].close();
+        } catch (UncheckedIOException e) {
+            debugLog("Streaming " + field + " aborted: " + e.getCause().getMessage());
+            exchange.close();
+        } catch (RuntimeException e) {
+            plugin.getLogger().warning("[VerifyMC] Failed to load " + field + ": " + e.getMessage());
+            if (out[0] == null) {
+                JSONObject resp = new JSONObject();
+                resp.put("success", false);
+                resp.put("message", getMsg("admin.load_failed", "en"));
+                sendJson(exchange, resp);
+                return;
+            }
+            // Not closed: the server drops the connection when the handler throws, leaving the body incomplete
+            out[0].flush();
+            throw new IOException("Streaming " + field + " failed after the response started", e);
+        }
+    }
+
+    private Writer startJsonArray(HttpExchange exchange, String field) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(200, 0);
+        Writer out = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8));
+        out.write("{\"success\":true,\"copyright\":\"Powered by VerifyMC (GPLv3)\",");
+        out.write(JSONObject.quote(field));
+        out.write(":[");
+        return out;
+    }
+
     private void sendJson(HttpExchange exchange, JSONObject resp, int statusCode) throws IOException {
         JSONObject withCopy = withCopyright(resp);
         byte[] data = withCopy.toString().getBytes(StandardCharsets.UTF_8);
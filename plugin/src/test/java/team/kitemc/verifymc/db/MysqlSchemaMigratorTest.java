@@ -0,0 +1,168 @@
+package team.kitemc.verifymc.db;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the migrations against an in-memory H2 database in MySQL mode
+ */
+class MysqlSchemaMigratorTest {
+    private static final Logger LOGGER = Logger.getLogger("MysqlSchemaMigratorTest");
+    private static final int LATEST_VERSION = 7;
+
+    private Connection conn;
+
+    @BeforeEach
+    void open() throws SQLException {
+        conn = DriverManager.getConnection("jdbc:h2:mem:migrator;MODE=MySQL;DATABASE_TO_LOWER=TRUE");
+    }
+
+    @AfterEach
+    void close() throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP ALL OBJECTS");
+        }
+        conn.close();
+    }
+
+    private int migrate(boolean usernameCaseSensitive) throws SQLException {
+        return new MysqlSchemaMigrator(conn, LOGGER, false, usernameCaseSensitive).migrate();
+    }
+
+    /**
+     * users table as created by releases before the migrator, without the discord_id column
+     */
+    private void createBaselineSchema() throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("CREATE TABLE users (" +
+                    "uuid VARCHAR(36) PRIMARY KEY," +
+                    "username VARCHAR(32) NOT NULL," +
+                    "email VARCHAR(64)," +
+                    "status VARCHAR(16)," +
+                    "password VARCHAR(255)," +
+                    "regTime BIGINT," +
+                    "questionnaire_score INT NULL," +
+                    "questionnaire_passed BOOLEAN NULL," +
+                    "questionnaire_review_summary TEXT NULL," +
+                    "questionnaire_scored_at BIGINT NULL)");
+            stmt.executeUpdate("CREATE INDEX idx_username ON users(username)");
+            stmt.executeUpdate("CREATE INDEX idx_email ON users(email)");
+            stmt.executeUpdate("INSERT INTO users (uuid, username, email, status, regTime) VALUES " +
+                    "('00000000-0000-0000-0000-000000000001', 'Steve', 'steve@example.com', 'approved', 1)");
+        }
+    }
+
+    private void insertUser(String uuid, String username) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("INSERT INTO users (uuid, username, status) VALUES (?, ?, 'pending')")) {
+            ps.setString(1, uuid);
+            ps.setString(2, username);
+            ps.executeUpdate();
+        }
+    }
+
+    private Set<String> indexNames() throws SQLException {
+        Set<String> names = new HashSet<>();
+        try (ResultSet rs = conn.getMetaData().getIndexInfo(conn.getCatalog(), null, "users", false, true)) {
+            while (rs.next()) {
+                String name = rs.getString("INDEX_NAME");
+                if (name != null) {
+                    names.add(name.toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        return names;
+    }
+
+    private Set<String> columnNames(String table) throws SQLException {
+        Set<String> names = new HashSet<>();
+        try (ResultSet rs = conn.getMetaData().getColumns(conn.getCatalog(), null, table, null)) {
+            while (rs.next()) {
+                names.add(rs.getString("COLUMN_NAME").toLowerCase(Locale.ROOT));
+            }
+        }
+        return names;
+    }
+
+    @Test
+    void upgradesBaselineSchemaAndKeepsRows() throws SQLException {
+        createBaselineSchema();
+
+        assertEquals(LATEST_VERSION, migrate(false));
+
+        assertTrue(columnNames("users").containsAll(Set.of("discord_id", "username_lower")));
+        for (String table : new String[]{"users_changelog", "audits", "questionnaire_submissions", "ephemeral_state"}) {
+            assertFalse(columnNames(table).isEmpty(), table + " should exist");
+        }
+        Set<String> indexes = indexNames();
+        assertTrue(indexes.containsAll(Set.of("idx_username", "idx_email", "uk_discord_id",
+                "idx_status_regtime", "idx_regtime", "uk_username_lower")), indexes.toString());
+        assertFalse(indexes.contains("idx_username_lower"));
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT username_lower, regTime FROM users")) {
+            assertTrue(rs.next());
+            assertEquals("steve", rs.getString(1));
+            assertEquals(1, rs.getLong(2));
+        }
+        assertThrows(SQLException.class, () -> insertUser("00000000-0000-0000-0000-000000000002", "STEVE"));
+    }
+
+    @Test
+    void secondRunIsNoOp() throws SQLException {
+        assertEquals(LATEST_VERSION, migrate(false));
+        Set<String> indexes = indexNames();
+
+        assertEquals(LATEST_VERSION, migrate(false));
+
+        assertEquals(indexes, indexNames());
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM schema_version")) {
+            assertTrue(rs.next());
+            assertEquals(LATEST_VERSION, rs.getInt(1));
+        }
+    }
+
+    @Test
+    void followsUsernameCaseSensitivity() throws SQLException {
+        createBaselineSchema();
+        migrate(false);
+
+        // Case-sensitive: the unique index is replaced by a plain one and case variants are allowed
+        migrate(true);
+        Set<String> indexes = indexNames();
+        assertFalse(indexes.contains("uk_username_lower"), indexes.toString());
+        assertTrue(indexes.contains("idx_username_lower"), indexes.toString());
+        insertUser("00000000-0000-0000-0000-000000000002", "STEVE");
+
+        // Back to case-insensitive with case variants present: the unique index cannot be built
+        migrate(false);
+        indexes = indexNames();
+        assertFalse(indexes.contains("uk_username_lower"), indexes.toString());
+        assertTrue(indexes.contains("idx_username_lower"), indexes.toString());
+
+        // Once the variants are resolved the next start adds it and drops the plain index
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM users WHERE username = 'STEVE'");
+        }
+        migrate(false);
+        indexes = indexNames();
+        assertTrue(indexes.contains("uk_username_lower"), indexes.toString());
+        assertFalse(indexes.contains("idx_username_lower"), indexes.toString());
+    }
+}
@@ -0,0 +1,298 @@
+package team.kitemc.verifymc.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the rate limiter against a local stub of the Discord API that answers with X-RateLimit-* headers
+ */
+class DiscordHttpClientTest {
+    private static final Logger LOGGER = Logger.getLogger("DiscordHttpClientTest");
+    // Slack for scheduler and loopback latency in timing assertions
+    private static final long TOLERANCE_MS = 50;
+
+    private HttpServer server;
+    private DiscordHttpClient client;
+    // Requests in arrival order
+    private final List<Arrival> arrivals = new ArrayList<>();
+    // Path -> responses to give, one per request; the last one repeats
+    private final Map<String, List<StubResponse>> responses = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> hits = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        client = newClient(4, 200);
+    }
+
+    @AfterEach
+    void stop() {
+        client.shutdown();
+        server.stop(0);
+    }
+
+    private DiscordHttpClient newClient(int maxConcurrent, int maxQueued) {
+        return new DiscordHttpClient(LOGGER, false, maxConcurrent, maxQueued, Duration.ofSeconds(5));
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        synchronized (arrivals) {
+            arrivals.add(new Arrival(path, exchange.getRequestHeaders().getFirst("Authorization"), System.nanoTime()));
+        }
+        List<StubResponse> planned = responses.getOrDefault(path, List.of(ok()));
+        int index = hits.computeIfAbsent(path, k -> new AtomicInteger()).getAndIncrement();
+        StubResponse response = planned.get(Math.min(index, planned.size() - 1));
+        if (response.gate != null) {
+            try {
+                response.gate.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        response.headers.forEach((name, value) -> exchange.getResponseHeaders().add(name, value));
+        byte[] body = response.body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(response.status, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    private HttpResponse<String> send(String route, String path, String token) throws Exception {
+        return sendAsync(route, path, token).get(5, TimeUnit.SECONDS);
+    }
+
+    private CompletableFuture<HttpResponse<String>> sendAsync(String route, String path, String token) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(
+            URI.create("http://127.0.0.1:" + server.getAddress().getPort() + path));
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        return client.send(route, request.build());
+    }
+
+    private List<Arrival> arrivals(String path) {
+        List<Arrival> result = new ArrayList<>();
+        synchronized (arrivals) {
+            for (Arrival arrival : arrivals) {
+                if (arrival.path.equals(path)) {
+                    result.add(arrival);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static long millisBetween(Arrival first, Arrival second) {
+        return TimeUnit.NANOSECONDS.toMillis(second.nanos - first.nanos);
+    }
+
+    private static StubResponse ok() {
+        return new StubResponse(200, "{}");
+    }
+
+    private static StubResponse limited(int limit, int remaining, double resetAfterSeconds) {
+        return ok()
+            .header("X-RateLimit-Limit", String.valueOf(limit))
+            .header("X-RateLimit-Remaining", String.valueOf(remaining))
+            .header("X-RateLimit-Reset-After", String.valueOf(resetAfterSeconds));
+    }
+
+    @Test
+    void exhaustedRouteWaitsForReset() throws Exception {
+        responses.put("/a", List.of(limited(1, 0, 0.3), limited(1, 0, 0.3)));
+
+        send("GET /a", "/a", null);
+        send("GET /a", "/a", null);
+
+        List<Arrival> seen = arrivals("/a");
+        assertEquals(2, seen.size());
+        assertTrue(millisBetween(seen.get(0), seen.get(1)) >= 300 - TOLERANCE_MS,
+            "second request was sent before the bucket reset");
+    }
+
+    @Test
+    void otherRoutesAreNotHeldBack() throws Exception {
+        responses.put("/a", List.of(limited(1, 0, 1.0)));
+
+        send("GET /a", "/a", null);
+        long start = System.nanoTime();
+        send("GET /b", "/b", null);
+
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 500,
+            "an unrelated route waited for another route's bucket");
+    }
+
+    @Test
+    void unknownBucketDoesNotDelayConcurrentRequests() throws Exception {
+        long start = System.nanoTime();
+        List<CompletableFuture<HttpResponse<String>>> futures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            futures.add(sendAsync("GET /a", "/a", null));
+        }
+        for (CompletableFuture<HttpResponse<String>> future : futures) {
+            assertEquals(200, future.get(5, TimeUnit.SECONDS).statusCode());
+        }
+
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 500,
+            "requests to a bucket without known limits were held back");
+    }
+
+    @Test
+    void bearerTokensHaveSeparateBuckets() throws Exception {
+        responses.put("/users/@me", List.of(limited(1, 0, 0.4)));
+
+        send("GET /users/@me", "/users/@me", "alice");
+        long start = System.nanoTime();
+        send("GET /users/@me", "/users/@me", "bob");
+        long otherTokenMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        send("GET /users/@me", "/users/@me", "alice");
+
+        assertTrue(otherTokenMs < 300, "a second user waited for the first user's bucket");
+        List<Arrival> seen = arrivals("/users/@me");
+        assertEquals(List.of("Bearer alice", "Bearer bob", "Bearer alice"),
+            seen.stream().map(arrival -> arrival.authorization).toList());
+        assertTrue(millisBetween(seen.get(0), seen.get(2)) >= 400 - TOLERANCE_MS,
+            "the exhausted token was not held back");
+    }
+
+    @Test
+    void routesWithTheSameBucketHashShareLimits() throws Exception {
+        responses.put("/a", List.of(limited(2, 1, 0.4).header("X-RateLimit-Bucket", "shared")));
+        responses.put("/b", List.of(limited(2, 0, 0.4).header("X-RateLimit-Bucket", "shared")));
+
+        send("GET /a", "/a", null);
+        send("GET /b", "/b", null);
+        send("GET /a", "/a", null);
+
+        List<Arrival> b = arrivals("/b");
+        List<Arrival> a = arrivals("/a");
+        assertEquals(2, a.size());
+        assertTrue(millisBetween(b.get(0), a.get(1)) >= 400 - TOLERANCE_MS,
+            "route /a ignored the limit reported for its shared bucket");
+    }
+
+    @Test
+    void tooManyRequestsIsRetriedAfterRetryAfter() throws Exception {
+        responses.put("/a", List.of(
+            new StubResponse(429, "{\"retry_after\": 0.25, \"global\": false}"),
+            ok()));
+
+        HttpResponse<String> response = send("GET /a", "/a", null);
+
+        assertEquals(200, response.statusCode());
+        List<Arrival> seen = arrivals("/a");
+        assertEquals(2, seen.size());
+        assertTrue(millisBetween(seen.get(0), seen.get(1)) >= 250 - TOLERANCE_MS,
+            "429 was retried before retry_after elapsed");
+    }
+
+    @Test
+    void globalLimitHoldsBackEveryRoute() throws Exception {
+        responses.put("/a", List.of(
+            new StubResponse(429, "{\"retry_after\": 0.4, \"global\": true}").header("X-RateLimit-Global", "true"),
+            ok()));
+
+        CompletableFuture<HttpResponse<String>> first = sendAsync("GET /a", "/a", null);
+        // Let the 429 reach the client before the unrelated request starts
+        while (arrivals("/a").isEmpty()) {
+            Thread.sleep(5);
+        }
+        Thread.sleep(100);
+        send("GET /b", "/b", null);
+        assertEquals(200, first.get(5, TimeUnit.SECONDS).statusCode());
+
+        Arrival limitedAt = arrivals("/a").get(0);
+        Arrival other = arrivals("/b").get(0);
+        assertTrue(millisBetween(limitedAt, other) >= 400 - TOLERANCE_MS,
+            "an unrelated route was sent during a global rate limit");
+    }
+
+    @Test
+    void fullQueueRejectsAndQueuedRequestsRunInOrder() throws Exception {
+        client.shutdown();
+        client = newClient(1, 1);
+        CountDownLatch gate = new CountDownLatch(1);
+        responses.put("/slow", List.of(ok().gatedBy(gate), ok()));
+
+        CompletableFuture<HttpResponse<String>> running = sendAsync("GET /slow", "/slow", null);
+        CompletableFuture<HttpResponse<String>> queued = sendAsync("GET /queued", "/queued", null);
+        CompletableFuture<HttpResponse<String>> rejected = sendAsync("GET /rejected", "/rejected", null);
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> rejected.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, error.getCause());
+        assertTrue(arrivals("/queued").isEmpty(), "a queued request was sent while the only slot was busy");
+
+        gate.countDown();
+        assertEquals(200, running.get(5, TimeUnit.SECONDS).statusCode());
+        assertEquals(200, queued.get(5, TimeUnit.SECONDS).statusCode());
+        assertTrue(arrivals("/rejected").isEmpty());
+        assertTrue(arrivals("/queued").get(0).nanos > arrivals("/slow").get(0).nanos);
+    }
+
+    private static final class Arrival {
+        final String path;
+        final String authorization;
+        final long nanos;
+
+        Arrival(String path, String authorization, long nanos) {
+            this.path = path;
+            this.authorization = authorization;
+            this.nanos = nanos;
+        }
+    }
+
+    private static final class StubResponse {
+        final int status;
+        final String body;
+        final Map<String, String> headers = new ConcurrentHashMap<>();
+        CountDownLatch gate;
+
+        StubResponse(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        StubResponse header(String name, String value) {
+            headers.put(name, value);
+            return this;
+        }
+
+        StubResponse gatedBy(CountDownLatch gate) {
+            this.gate = gate;
+            return this;
+        }
+    }
+}
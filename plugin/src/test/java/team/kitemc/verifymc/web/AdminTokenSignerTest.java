@@ -0,0 +1,115 @@
+package team.kitemc.verifymc.web;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks issuing, verification and key rotation of stateless admin tokens
+ */
+class AdminTokenSignerTest {
+    private static final long HOUR_MS = 3600_000L;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private static AdminTokenSigner signer(String secret, String... previousSecrets) {
+        return new AdminTokenSigner(secret.getBytes(StandardCharsets.UTF_8), List.of(previousSecrets), HOUR_MS);
+    }
+
+    @Test
+    void issuedTokenVerifies() {
+        AdminTokenSigner signer = signer("current-secret");
+
+        String token = signer.issue();
+
+        assertTrue(signer.verify(token));
+        assertNotEquals(token, signer.issue(), "tokens issued in the same millisecond must differ");
+    }
+
+    @Test
+    void otherNodeWithSameSecretAcceptsToken() {
+        assertTrue(signer("shared-secret").verify(signer("shared-secret").issue()));
+    }
+
+    @Test
+    void tamperedPayloadIsRejected() {
+        AdminTokenSigner signer = signer("current-secret");
+        String token = signer.issue();
+        int dot = token.indexOf('.');
+        String payload = new String(DECODER.decode(token.substring(0, dot)), StandardCharsets.UTF_8);
+        String[] parts = payload.split("\\.");
+        // Push the expiry a year out and keep the original signature
+        parts[3] = String.valueOf(Long.parseLong(parts[3]) + 365L * 24 * HOUR_MS);
+        String forged = ENCODER.encodeToString(String.join(".", parts).getBytes(StandardCharsets.UTF_8));
+
+        assertFalse(signer.verify(forged + token.substring(dot)));
+    }
+
+    @Test
+    void tamperedSignatureIsRejected() {
+        AdminTokenSigner signer = signer("current-secret");
+        String token = signer.issue();
+        int dot = token.indexOf('.');
+        byte[] signature = DECODER.decode(token.substring(dot + 1));
+        signature[0] ^= 1;
+
+        assertFalse(signer.verify(token.substring(0, dot + 1) + ENCODER.encodeToString(signature)));
+        assertFalse(signer.verify(token.substring(0, dot + 1)));
+    }
+
+    @Test
+    void expiredTokenIsRejected() {
+        AdminTokenSigner signer = new AdminTokenSigner("current-secret".getBytes(StandardCharsets.UTF_8), List.of(), -1000L);
+
+        assertFalse(signer.verify(signer.issue()));
+    }
+
+    @Test
+    void tokenFromUnknownKeyIsRejected() {
+        String token = signer("other-secret").issue();
+
+        assertFalse(signer("current-secret").verify(token));
+    }
+
+    @Test
+    void previousSecretsStillVerifyAfterRotation() {
+        String oldToken = signer("old-secret").issue();
+        AdminTokenSigner rotated = signer("new-secret", "old-secret");
+
+        assertTrue(rotated.verify(oldToken));
+        assertTrue(rotated.verify(rotated.issue()));
+        // New tokens are signed with the new key only
+        assertFalse(signer("old-secret").verify(rotated.issue()));
+        assertTrue(signer("new-secret").verify(rotated.issue()));
+    }
+
+    @Test
+    void droppedPreviousSecretNoLongerVerifies() {
+        String oldToken = signer("old-secret").issue();
+
+        assertFalse(signer("new-secret").verify(oldToken));
+    }
+
+    @Test
+    void malformedTokensAreRejected() {
+        AdminTokenSigner signer = signer("current-secret");
+        String token = signer.issue();
+        String payload = token.substring(0, token.indexOf('.'));
+
+        assertFalse(signer.verify(null));
+        assertFalse(signer.verify(""));
+        assertFalse(signer.verify(token.replace(".", "")), "no dot");
+        assertFalse(signer.verify("." + token), "empty payload");
+        assertFalse(signer.verify(token + ".extra"), "several dots");
+        assertFalse(signer.verify(payload + ".!!not-base64!!"), "bad base64 signature");
+        assertFalse(signer.verify("%%%." + token.substring(token.indexOf('.') + 1)), "bad base64 payload");
+        assertFalse(signer.verify(ENCODER.encodeToString("v1.abc".getBytes(StandardCharsets.UTF_8)) + ".AAAA"),
+            "payload with too few fields");
+    }
+}